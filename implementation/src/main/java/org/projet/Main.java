@@ -2,10 +2,20 @@ package org.projet;
 
 import io.javalin.Javalin;
 
+import org.projet.config.CatalogConfig;
+import org.projet.config.CompressionConfig;
 import org.projet.config.DatabaseConfig;
 import org.projet.controller.AdminController;
 import org.projet.controller.AvisController;
 import org.projet.controller.CoursController;
+import org.projet.controller.ResponseCache;
+import org.projet.repository.CatalogCacheRepository;
+import org.projet.repository.CatalogVersionListener;
+import org.projet.service.AvisService;
+import org.projet.service.CatalogSyncScheduler;
+import org.projet.service.CoursService;
+
+import java.util.function.Supplier;
 
 /**
  * Cette classe permet de définir les routes pour notre API et lancer cette dernière.
@@ -18,23 +28,61 @@ public class Main {
      */
     public static void main(String[] args) {
         DatabaseConfig.migrate();
+        Runtime.getRuntime().addShutdownHook(new Thread(DatabaseConfig::close, "database-pool-shutdown"));
+
+        // Index en mémoire construits au démarrage plutôt qu'à la première requête, à la version
+        // du catalogue enregistrée en base.
+        CatalogCacheRepository catalog = CatalogCacheRepository.getInstance();
+        if (!catalog.applyCatalogVersion(catalog.persistedCatalogVersion())) {
+            catalog.refreshAutocompleteIndex();
+            catalog.refreshAvailabilityIndex();
+        }
+
+        // Les synchronisations lancées sur les autres nœuds invalident aussi les caches de celui-ci.
+        CatalogVersionListener versionListener =
+                new CatalogVersionListener(DatabaseConfig.unpooledJdbi(), catalog, CatalogConfig.versionPollMillis()).start();
+        Runtime.getRuntime().addShutdownHook(new Thread(versionListener::close, "catalog-version-listener-shutdown"));
+
+        // Synchronisation périodique ; le verrou en base garantit qu'un seul nœud la lance à la fois.
+        CatalogSyncScheduler syncScheduler = CatalogSyncScheduler.getInstance()
+                .schedule(CatalogConfig.syncIntervalMillis(), CatalogConfig.syncJitterMillis());
+        Runtime.getRuntime().addShutdownHook(new Thread(syncScheduler::close, "catalog-sync-scheduler-shutdown"));
 
         CoursController coursController = new CoursController();
         AvisController avisController = new AvisController();
         AdminController adminController = new AdminController();
-        var app = Javalin.create(config -> config.bundledPlugins.enableCors(cors -> {
-            cors.addRule(rule -> rule.allowHost(
-                "https://cadence-ten-beta.vercel.app",
-                "http://localhost:5173"
-            ));
-        })).start(7070);
+        // Réponses des POST de consultation, réutilisées tant que les données lues n'ont pas changé.
+        ResponseCache reponses = ResponseCache.getInstance();
+        Supplier<String> versionCatalogue = () -> Long.toString(CoursService.getInstance().getCatalogVersion());
+        Supplier<String> versionAvis = () -> AvisService.getInstance().getVersionAvis();
+        // Les résultats académiques viennent d'un fichier fixe : seule la durée de vie borne leur cache.
+        Supplier<String> versionResultats = () -> "resultats";
+        var app = Javalin.create(config -> {
+            // Brotli (si le natif est disponible) ou gzip au-delà d'une taille minimale.
+            config.http.customCompression(CompressionConfig.strategy());
+            config.bundledPlugins.enableCors(cors -> {
+                cors.addRule(rule -> rule.allowHost(
+                    "https://cadence-ten-beta.vercel.app",
+                    "http://localhost:5173"
+                ));
+            });
+        }).start(7070);
         app.post("/admin/sync", adminController::syncCatalog);
+        app.post("/admin/catalog/rollback", adminController::rollbackCatalog);
+        app.get("/admin/catalog/snapshot", adminController::snapshotStats);
+        app.get("/admin/catalog/cache", adminController::courseCacheStats);
+        app.get("/admin/db/pool", adminController::poolMetrics);
+        app.get("/admin/responses/cache", adminController::responseCacheStats);
         // #1 Rechercher des cours 
-        app.post("/cours/rechercher", coursController::rechercherCours);
+        app.post("/cours/rechercher", reponses.cached("/cours/rechercher", versionCatalogue, coursController::rechercherCours));
+        // #1.1 Autocomplétion pendant la saisie (id + nom seulement)
+        app.get("/cours/autocomplete", coursController::autocompleterCours);
 
         // #2 Voir les cours offerts dans un programme
         app.get("/cours-programme/{id}",coursController::getCoursesForAProgram);
         app.get("/cours-programme/nom/{nom}",coursController::foundPrograms);
+        // #2.1 Voir les programmes qui incluent un cours
+        app.get("/cours/{sigle}/programmes",coursController::getProgramsForCourse);
         // #3 Voir les cours offerts pour un trimestre donné dans un programme ( id = id du programme)
         app.get("/programme/courseBySemester/{id}/{session}",coursController::getCourseBySemester);
 
@@ -59,20 +107,21 @@ public class Main {
         
         // #9.1 Avec les résultats agrégés
         // #9.1.1 Par rapport à la difficulté des cours (notes obtenues)
-        app.post("/cours/difficulte", coursController::difficulteCours);
+        app.post("/cours/difficulte", reponses.cached("/cours/difficulte", versionResultats, coursController::difficulteCours));
         // #9.1.2 Par rapport à la popularité des cours (nombre d'inscrits)
-        app.post("/cours/popularite", coursController::populariteCours);
+        app.post("/cours/popularite", reponses.cached("/cours/popularite", versionResultats, coursController::populariteCours));
         // #9.1.3 Par rapport à la difficulté + la popularité
-        app.post("/cours/comparer/stats", coursController::comparerDeuxCoursByResultats);
+        app.post("/cours/comparer/stats",
+                reponses.cached("/cours/comparer/stats", versionResultats, coursController::comparerDeuxCoursByResultats));
 
         // #9.2 Avec le catalogue seul
-        app.post("/cours/comparer", coursController::comparerCours);
+        app.post("/cours/comparer", reponses.cached("/cours/comparer", versionCatalogue, coursController::comparerCours));
         // par avis étudiants
-        app.post("/cours/comparer/avis", coursController::comparerParAvis);
+        app.post("/cours/comparer/avis", reponses.cached("/cours/comparer/avis", versionAvis, coursController::comparerParAvis));
     
 
         // #10 Créer un ensemble de cours et générer l'horaire correspondant + détection de conflits horaires
-        app.post("/horaire", coursController::genererHoraire);
+        app.post("/horaire", reponses.cached("/horaire", versionCatalogue, coursController::genererHoraire));
 
         // #11 Comparer des combinaisons de cours 
         app.post("/cours/comparer/combinaison", coursController::comparerCombinaisonCours);
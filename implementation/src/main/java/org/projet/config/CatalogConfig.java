@@ -0,0 +1,152 @@
+package org.projet.config;
+
+/**
+ * Options de lecture du cache catalogue, lues depuis l'environnement.
+ */
+public final class CatalogConfig {
+
+    private CatalogConfig() {
+    }
+
+    /**
+     * Active l'instantané en mémoire du catalogue (désactivé par défaut).
+     * @return true si les lectures du catalogue doivent être servies depuis la mémoire.
+     */
+    public static boolean snapshotEnabled() {
+        return getBoolean("PICKCOURSE_CATALOG_SNAPSHOT", false);
+    }
+
+    /**
+     * Poids maximal du cache des cours décodés, en caractères de JSON source (0 le désactive).
+     * @return le poids maximal, 16 millions de caractères par défaut.
+     */
+    public static long courseCacheMaxWeight() {
+        String value = System.getenv("PICKCOURSE_COURSE_CACHE_MAX_CHARS");
+        if (value == null || value.isBlank()) {
+            return 16_000_000L;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 16_000_000L;
+        }
+    }
+
+    /**
+     * Intervalle de relecture de la version du catalogue, en secours des notifications PostgreSQL.
+     * @return l'intervalle en millisecondes, 30 secondes par défaut.
+     */
+    public static long versionPollMillis() {
+        String value = System.getenv("PICKCOURSE_CATALOG_POLL_SECONDS");
+        if (value == null || value.isBlank()) {
+            return 30_000L;
+        }
+        try {
+            return Math.max(1L, Long.parseLong(value.trim())) * 1000L;
+        } catch (NumberFormatException e) {
+            return 30_000L;
+        }
+    }
+
+    /**
+     * Nombre maximal de cours synchronisés en parallèle, donc de requêtes Planifium en vol.
+     * @return le nombre de fils de synchronisation, 8 par défaut.
+     */
+    public static int syncConcurrency() {
+        String value = System.getenv("PICKCOURSE_SYNC_CONCURRENCY");
+        if (value == null || value.isBlank()) {
+            return 8;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            return 8;
+        }
+    }
+
+    /**
+     * Débit maximal de requêtes vers Planifium pendant une synchronisation (0 le lève).
+     * @return le nombre de requêtes par seconde, 20 par défaut.
+     */
+    public static double syncRequestsPerSecond() {
+        String value = System.getenv("PICKCOURSE_SYNC_REQUESTS_PER_SECOND");
+        if (value == null || value.isBlank()) {
+            return 20.0;
+        }
+        try {
+            return Math.max(0.0, Double.parseDouble(value.trim()));
+        } catch (NumberFormatException e) {
+            return 20.0;
+        }
+    }
+
+    /**
+     * Nombre de lignes (cours, horaires, programmes) accumulées avant chaque écriture groupée pendant
+     * une synchronisation.
+     * @return la taille des lots, 200 par défaut.
+     */
+    public static int syncBatchSize() {
+        String value = System.getenv("PICKCOURSE_SYNC_BATCH_SIZE");
+        if (value == null || value.isBlank()) {
+            return 200;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            return 200;
+        }
+    }
+
+    /**
+     * Nombre maximal de cours demandés ensemble dans une requête {@code /schedules} de Planifium.
+     * @return la taille des lots d'horaires, 50 par défaut.
+     */
+    public static int syncScheduleBatchSize() {
+        String value = System.getenv("PICKCOURSE_SYNC_SCHEDULE_BATCH_SIZE");
+        if (value == null || value.isBlank()) {
+            return 50;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            return 50;
+        }
+    }
+
+    /**
+     * Intervalle entre deux synchronisations planifiées du catalogue (0 les désactive).
+     * @return l'intervalle en millisecondes, 0 par défaut.
+     */
+    public static long syncIntervalMillis() {
+        String value = System.getenv("PICKCOURSE_SYNC_INTERVAL_MINUTES");
+        if (value == null || value.isBlank()) {
+            return 0L;
+        }
+        try {
+            return Math.max(0L, Long.parseLong(value.trim())) * 60_000L;
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * Délai aléatoire maximal ajouté à chaque intervalle, pour que les nœuds ne se réveillent pas ensemble.
+     * @return le délai en millisecondes, 5 minutes par défaut.
+     */
+    public static long syncJitterMillis() {
+        String value = System.getenv("PICKCOURSE_SYNC_JITTER_SECONDS");
+        if (value == null || value.isBlank()) {
+            return 300_000L;
+        }
+        try {
+            return Math.max(0L, Long.parseLong(value.trim())) * 1000L;
+        } catch (NumberFormatException e) {
+            return 300_000L;
+        }
+    }
+
+    private static boolean getBoolean(String name, boolean defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+}
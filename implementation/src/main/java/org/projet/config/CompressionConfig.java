@@ -0,0 +1,60 @@
+package org.projet.config;
+
+import io.javalin.compression.Brotli;
+import io.javalin.compression.CompressionStrategy;
+import io.javalin.compression.Gzip;
+
+/**
+ * Options de compression des réponses HTTP, lues depuis l'environnement.
+ */
+public final class CompressionConfig {
+
+    private CompressionConfig() {
+    }
+
+    /**
+     * Taille minimale d'une réponse pour qu'elle soit compressée : en dessous, l'en-tête et le coût CPU
+     * ne valent pas l'économie.
+     * @return la taille en octets, 1024 par défaut.
+     */
+    public static int minSizeBytes() {
+        return (int) getLong("PICKCOURSE_COMPRESSION_MIN_BYTES", 1024L);
+    }
+
+    /**
+     * Taille maximale du cache des réponses déjà compressées (0 le désactive).
+     * @return la taille en octets compressés, 32 Mo par défaut.
+     */
+    public static long cacheMaxBytes() {
+        return getLong("PICKCOURSE_COMPRESSED_CACHE_MAX_BYTES", 32_000_000L);
+    }
+
+    /**
+     * @return true si l'implémentation native de Brotli est chargée sur cette plateforme.
+     */
+    public static boolean brotliAvailable() {
+        return CompressionStrategy.Companion.brotliImplAvailable();
+    }
+
+    /**
+     * Compression dynamique de Javalin : Brotli si disponible, sinon gzip seulement.
+     * @return la stratégie à passer à {@code config.http.customCompression}.
+     */
+    public static CompressionStrategy strategy() {
+        CompressionStrategy strategy = new CompressionStrategy(brotliAvailable() ? new Brotli() : null, new Gzip());
+        strategy.setDefaultMinSizeForCompression(minSizeBytes());
+        return strategy;
+    }
+
+    private static long getLong(String name, long defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(0L, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
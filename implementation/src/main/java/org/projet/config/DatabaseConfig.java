@@ -1,15 +1,35 @@
 package org.projet.config;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
 import org.flywaydb.core.Flyway;
 import org.jdbi.v3.core.Jdbi;
 
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
 /**
  * Configuration centralisée de la connexion PostgreSQL.
+ * Toute l'application partage un seul pool de connexions (HikariCP) et une seule instance Jdbi.
  */
 public final class DatabaseConfig {
+    private static final Logger LOGGER = Logger.getLogger(DatabaseConfig.class.getName());
+
     private static final String DEFAULT_URL = "jdbc:postgresql://localhost:5432/pickcourse";
     private static final String DEFAULT_USER = "pickcourse";
     private static final String DEFAULT_PASSWORD = "devpassword";
+    private static final String POOL_NAME = "pickcourse-db";
+
+    private static final WaitTimeTracker WAIT_TIME = new WaitTimeTracker();
+
+    private static volatile HikariDataSource dataSource;
+    private static volatile Jdbi jdbi;
 
     private DatabaseConfig() {
     }
@@ -26,19 +46,241 @@ public final class DatabaseConfig {
         return getenvOrDefault("PICKCOURSE_DB_PASSWORD", DEFAULT_PASSWORD);
     }
 
-    public static Jdbi createJdbi() {
+    /**
+     * Pool de connexions partagé, créé au premier appel et ouvert à la première connexion.
+     * @return la source de données commune à tous les repositories.
+     */
+    public static HikariDataSource dataSource() {
+        HikariDataSource current = dataSource;
+        if (current == null) {
+            synchronized (DatabaseConfig.class) {
+                current = dataSource;
+                if (current == null) {
+                    // Constructeur sans argument : le pool ne s'ouvre qu'à la première connexion demandée.
+                    current = new HikariDataSource();
+                    poolConfig().copyStateTo(current);
+                    dataSource = current;
+                    LOGGER.info("Database pool configured (min=" + current.getMinimumIdle()
+                            + ", max=" + current.getMaximumPoolSize() + ")");
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Instance Jdbi partagée, adossée au pool de connexions.
+     * @return l'instance Jdbi commune.
+     */
+    public static Jdbi jdbi() {
+        Jdbi current = jdbi;
+        if (current == null) {
+            synchronized (DatabaseConfig.class) {
+                current = jdbi;
+                if (current == null) {
+                    current = Jdbi.create(dataSource());
+                    jdbi = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Jdbi hors du pool : chaque handle ouvre sa propre connexion avec le pilote et la ferme à la fin.
+     * Réservé aux connexions gardées pendant toute la vie du processus (ex. {@code LISTEN}), qui
+     * priveraient sinon le pool d'une place.
+     * @return une instance Jdbi sans pool, sur la même base.
+     */
+    public static Jdbi unpooledJdbi() {
         return Jdbi.create(dbUrl(), dbUser(), dbPassword());
     }
 
     public static void migrate() {
         Flyway.configure()
-                .dataSource(dbUrl(), dbUser(), dbPassword())
+                .dataSource(dataSource())
                 .load()
                 .migrate();
     }
 
+    /**
+     * Métriques courantes du pool, ou vide tant qu'il n'a pas été démarré.
+     * @return l'état du pool.
+     */
+    public static Optional<PoolMetrics> poolMetrics() {
+        HikariDataSource current = dataSource;
+        if (current == null || current.isClosed()) {
+            return Optional.empty();
+        }
+        HikariPoolMXBean pool = current.getHikariPoolMXBean();
+        if (pool == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new PoolMetrics(
+                pool.getActiveConnections(),
+                pool.getIdleConnections(),
+                pool.getTotalConnections(),
+                pool.getThreadsAwaitingConnection(),
+                current.getMinimumIdle(),
+                current.getMaximumPoolSize(),
+                WAIT_TIME.acquisitions.sum(),
+                WAIT_TIME.averageMicros(),
+                WAIT_TIME.maxNanos.get() / 1_000,
+                WAIT_TIME.timeouts.sum()
+        ));
+    }
+
+    /**
+     * Ferme le pool partagé (arrêt de l'application).
+     */
+    public static synchronized void close() {
+        HikariDataSource current = dataSource;
+        if (current != null) {
+            current.close();
+            dataSource = null;
+            jdbi = null;
+        }
+    }
+
+    static HikariConfig poolConfig() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(POOL_NAME);
+        config.setJdbcUrl(dbUrl());
+        config.setUsername(dbUser());
+        config.setPassword(dbPassword());
+        config.setMinimumIdle(getIntOrDefault("PICKCOURSE_DB_POOL_MIN", 2));
+        config.setMaximumPoolSize(getIntOrDefault("PICKCOURSE_DB_POOL_MAX", 10));
+        config.setConnectionTimeout(getIntOrDefault("PICKCOURSE_DB_CONNECTION_TIMEOUT_MS", 5_000));
+        // Validation : isValid() JDBC4 à l'emprunt, et keepalive pour les connexions inactives.
+        config.setValidationTimeout(TimeUnit.SECONDS.toMillis(2));
+        config.setKeepaliveTime(TimeUnit.MINUTES.toMillis(5));
+        config.setMaxLifetime(TimeUnit.MINUTES.toMillis(30));
+        // Le pilote PostgreSQL garde les requêtes préparées côté serveur par connexion :
+        // avec un pool, elles survivent d'une requête HTTP à l'autre.
+        config.addDataSourceProperty("prepareThreshold", getIntOrDefault("PICKCOURSE_DB_PREPARE_THRESHOLD", 1));
+        config.addDataSourceProperty("preparedStatementCacheQueries", 256);
+        config.addDataSourceProperty("preparedStatementCacheSizeMiB", 5);
+        config.setMetricsTrackerFactory(WAIT_TIME);
+        return config;
+    }
+
     private static String getenvOrDefault(String name, String defaultValue) {
         String value = System.getenv(name);
         return value == null || value.isBlank() ? defaultValue : value;
     }
+
+    private static int getIntOrDefault(String name, int defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            LOGGER.warning("Invalid integer for " + name + ": " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Cumule le temps d'attente pour obtenir une connexion du pool.
+     */
+    private static final class WaitTimeTracker implements MetricsTrackerFactory, IMetricsTracker {
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder timeouts = new LongAdder();
+
+        @Override
+        public IMetricsTracker create(String poolName, com.zaxxer.hikari.metrics.PoolStats poolStats) {
+            return this;
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquisitions.increment();
+            totalNanos.add(elapsedAcquiredNanos);
+            maxNanos.accumulate(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+
+        private long averageMicros() {
+            long count = acquisitions.sum();
+            return count == 0 ? 0 : totalNanos.sum() / count / 1_000;
+        }
+    }
+
+    /**
+     * Instantané des métriques du pool de connexions.
+     */
+    public static final class PoolMetrics {
+        private final int active;
+        private final int idle;
+        private final int total;
+        private final int waiting;
+        private final int minIdle;
+        private final int maxSize;
+        private final long acquisitions;
+        private final long averageWaitMicros;
+        private final long maxWaitMicros;
+        private final long timeouts;
+
+        public PoolMetrics(int active, int idle, int total, int waiting, int minIdle, int maxSize,
+                           long acquisitions, long averageWaitMicros, long maxWaitMicros, long timeouts) {
+            this.active = active;
+            this.idle = idle;
+            this.total = total;
+            this.waiting = waiting;
+            this.minIdle = minIdle;
+            this.maxSize = maxSize;
+            this.acquisitions = acquisitions;
+            this.averageWaitMicros = averageWaitMicros;
+            this.maxWaitMicros = maxWaitMicros;
+            this.timeouts = timeouts;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public int getIdle() {
+            return idle;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int getWaiting() {
+            return waiting;
+        }
+
+        public int getMinIdle() {
+            return minIdle;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public long getAcquisitions() {
+            return acquisitions;
+        }
+
+        public long getAverageWaitMicros() {
+            return averageWaitMicros;
+        }
+
+        public long getMaxWaitMicros() {
+            return maxWaitMicros;
+        }
+
+        public long getTimeouts() {
+            return timeouts;
+        }
+    }
 }
@@ -0,0 +1,60 @@
+package org.projet.config;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Options du cache des réponses aux requêtes POST de consultation, lues depuis l'environnement.
+ */
+public final class ResponseCacheConfig {
+
+    private ResponseCacheConfig() {
+    }
+
+    /**
+     * Taille maximale du cache, en octets de JSON (0 le désactive).
+     * @return la taille maximale, 16 Mo par défaut.
+     */
+    public static long maxBytes() {
+        return getLong("PICKCOURSE_RESPONSE_CACHE_MAX_BYTES", 16_000_000L);
+    }
+
+    /**
+     * Durée de vie d'une réponse en cache, qui borne aussi l'âge des réponses dont les données ne
+     * sont pas versionnées (résultats académiques).
+     * @return la durée en millisecondes, 5 minutes par défaut.
+     */
+    public static long ttlMillis() {
+        return getLong("PICKCOURSE_RESPONSE_CACHE_TTL_SECONDS", 300L) * 1000L;
+    }
+
+    /**
+     * Routes dont les réponses sont mises en cache, séparées par des virgules
+     * (ex. {@code /cours/rechercher,/horaire}).
+     * @return les routes retenues, ou vide si toutes les routes prévues pour le cache le sont.
+     */
+    public static Optional<Set<String>> enabledRoutes() {
+        String value = System.getenv("PICKCOURSE_RESPONSE_CACHE_ROUTES");
+        if (value == null || value.isBlank()) {
+            return Optional.empty();
+        }
+        return Optional.of(Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(route -> !route.isEmpty())
+                .collect(Collectors.toUnmodifiableSet()));
+    }
+
+    private static long getLong(String name, long defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(0L, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -1,31 +1,54 @@
 package org.projet.controller;
 
 import io.javalin.http.Context;
-import org.projet.service.CatalogSyncService;
+import org.projet.config.DatabaseConfig;
+import org.projet.repository.CatalogCacheRepository;
+import org.projet.service.CatalogSyncScheduler;
 
 import java.util.Objects;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Admin routes for manual catalog maintenance.
  */
 public class AdminController {
+    private static final Logger LOGGER = Logger.getLogger(AdminController.class.getName());
     private static final String ADMIN_TOKEN_HEADER = "X-Admin-Token";
+    private static final String SYNC_ID_HEADER = "X-Sync-Id";
 
-    private final CatalogSyncService syncService;
+    private final CatalogSyncScheduler syncScheduler;
+    private final CatalogCacheRepository cacheRepository;
+    private final ResponseCache responseCache;
     private final Supplier<String> adminTokenSupplier;
-    private final Executor executor;
 
     public AdminController() {
-        this(new CatalogSyncService(), () -> System.getenv("PICKCOURSE_ADMIN_TOKEN"), daemonExecutor());
+        this(
+                CatalogSyncScheduler.getInstance(),
+                CatalogCacheRepository.getInstance(),
+                () -> System.getenv("PICKCOURSE_ADMIN_TOKEN")
+        );
     }
 
-    AdminController(CatalogSyncService syncService, Supplier<String> adminTokenSupplier, Executor executor) {
-        this.syncService = Objects.requireNonNull(syncService, "syncService");
+    AdminController(
+            CatalogSyncScheduler syncScheduler,
+            CatalogCacheRepository cacheRepository,
+            Supplier<String> adminTokenSupplier
+    ) {
+        this(syncScheduler, cacheRepository, ResponseCache.getInstance(), adminTokenSupplier);
+    }
+
+    AdminController(
+            CatalogSyncScheduler syncScheduler,
+            CatalogCacheRepository cacheRepository,
+            ResponseCache responseCache,
+            Supplier<String> adminTokenSupplier
+    ) {
+        this.syncScheduler = Objects.requireNonNull(syncScheduler, "syncScheduler");
+        this.cacheRepository = Objects.requireNonNull(cacheRepository, "cacheRepository");
+        this.responseCache = Objects.requireNonNull(responseCache, "responseCache");
         this.adminTokenSupplier = Objects.requireNonNull(adminTokenSupplier, "adminTokenSupplier");
-        this.executor = Objects.requireNonNull(executor, "executor");
     }
 
     public void syncCatalog(Context ctx) {
@@ -34,8 +57,97 @@ public class AdminController {
             return;
         }
 
-        executor.execute(syncService::syncAll);
-        ctx.status(202).result("Sync started");
+        CatalogSyncScheduler.SyncStart start;
+        try {
+            start = syncScheduler.trigger("admin");
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Unable to start the catalog sync", e);
+            ctx.status(503).result("Sync unavailable");
+            return;
+        }
+
+        if (start.getSyncId() != null) {
+            ctx.header(SYNC_ID_HEADER, start.getSyncId());
+        }
+        if (start.isStarted()) {
+            ctx.status(202).result("Sync started");
+        } else if (start.getSyncId() != null) {
+            ctx.status(409).result("Sync already running: " + start.getSyncId());
+        } else {
+            ctx.status(409).result("Sync already running");
+        }
+    }
+
+    public void rollbackCatalog(Context ctx) {
+        if (!isAuthorized(ctx)) {
+            ctx.status(401).result("Unauthorized");
+            return;
+        }
+
+        CatalogSyncScheduler.Rollback rollback;
+        try {
+            rollback = syncScheduler.rollback();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Catalog rollback failed", e);
+            ctx.status(503).result("Rollback unavailable");
+            return;
+        }
+
+        switch (rollback) {
+            case ROLLED_BACK -> ctx.status(200).result("Catalog rolled back");
+            case NO_PREVIOUS_GENERATION -> ctx.status(404).result("No previous catalog generation");
+            case SYNC_RUNNING -> syncScheduler.runningSyncId().ifPresentOrElse(
+                    syncId -> ctx.status(409).header(SYNC_ID_HEADER, syncId).result("Sync already running: " + syncId),
+                    () -> ctx.status(409).result("Sync already running")
+            );
+        }
+    }
+
+    public void snapshotStats(Context ctx) {
+        if (!isAuthorized(ctx)) {
+            ctx.status(401).result("Unauthorized");
+            return;
+        }
+
+        if (!cacheRepository.isSnapshotEnabled()) {
+            ctx.status(404).result("Catalog snapshot disabled");
+            return;
+        }
+
+        cacheRepository.snapshotStats().ifPresentOrElse(
+                stats -> ctx.status(200).json(stats),
+                () -> ctx.status(404).result("Catalog snapshot not loaded")
+        );
+    }
+
+    public void courseCacheStats(Context ctx) {
+        if (!isAuthorized(ctx)) {
+            ctx.status(401).result("Unauthorized");
+            return;
+        }
+
+        ctx.status(200).json(cacheRepository.courseCacheStats());
+    }
+
+    public void responseCacheStats(Context ctx) {
+        if (!isAuthorized(ctx)) {
+            ctx.status(401).result("Unauthorized");
+            return;
+        }
+
+        ctx.status(200).json(responseCache.stats());
+    }
+
+    public void poolMetrics(Context ctx) {
+        if (!isAuthorized(ctx)) {
+            ctx.status(401).result("Unauthorized");
+            return;
+        }
+
+        DatabaseConfig.poolMetrics().ifPresentOrElse(
+                metrics -> ctx.status(200).json(metrics),
+                () -> ctx.status(404).result("Database pool not started")
+        );
     }
 
     private boolean isAuthorized(Context ctx) {
@@ -46,12 +158,4 @@ public class AdminController {
                 && providedToken != null
                 && expectedToken.equals(providedToken);
     }
-
-    private static Executor daemonExecutor() {
-        return Executors.newSingleThreadExecutor(runnable -> {
-            Thread thread = new Thread(runnable, "catalog-sync-admin");
-            thread.setDaemon(true);
-            return thread;
-        });
-    }
 }
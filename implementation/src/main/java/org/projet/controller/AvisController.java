@@ -1,6 +1,8 @@
 package org.projet.controller;
 
+import io.javalin.http.ContentType;
 import io.javalin.http.Context;
+import org.projet.repository.KeysetPage;
 import org.projet.service.AvisService;
 import org.projet.model.Avis;
 
@@ -14,6 +16,7 @@ import java.util.List;
 public class AvisController {
 
     private final AvisService avisService = AvisService.getInstance(); // singleton
+    private final CompressedResponses reponsesCompressees = CompressedResponses.getInstance();
 
     /**
      * Cette méthode permet de traiter la soumission d'avis grâce au bot Discord.
@@ -43,10 +46,22 @@ public class AvisController {
 
     /**
      * Cette méthode permet de récupérer tous les avis.
+     * Avec {@code ?limit=} et/ou {@code ?after=}, seule une page est retournée et l'en-tête X-Next-Cursor
+     * donne la valeur de {@code after} pour la page suivante. Avec {@code ?stream=true}, tous les avis
+     * sont écrits dans la réponse au fur et à mesure de leur lecture en base.
      * @param ctx 
      */
 
     public void getAllAvis(Context ctx){
+        if ("true".equalsIgnoreCase(ctx.queryParam("stream"))) {
+            streamerAvis(ctx);
+            return;
+        }
+        if (ctx.queryParam("limit") != null || ctx.queryParam("after") != null) {
+            getAvisPage(ctx);
+            return;
+        }
+
         try{
             List<Avis> avis = avisService.getAllAvis();
             // Il est possible qu'il n'y ait pas d'avis pour ce cours.
@@ -70,6 +85,39 @@ public class AvisController {
 
     }
 
+    private void getAvisPage(Context ctx) {
+        String limit = ctx.queryParam("limit");
+        try {
+            Integer limite = limit == null || limit.isBlank() ? null : Integer.valueOf(limit.trim());
+            KeysetPage<Avis> page = avisService.getAvisPage(ctx.queryParam("after"), limite);
+            if (page.hasNext()) {
+                ctx.header("X-Next-Cursor", page.getNextCursor());
+            }
+            ctx.status(200).json(page.getItems());
+        }
+        // NumberFormatException est une IllegalArgumentException : limite ou curseur invalide.
+        catch (IllegalArgumentException e) {
+            ctx.status(400).result("Erreur : paramètres de pagination invalides");
+        }
+        catch (Exception e) {
+            ctx.status(500).result("Erreur : " + e.getMessage());
+        }
+    }
+
+    private void streamerAvis(Context ctx) {
+        try {
+            ctx.status(200).contentType(ContentType.APPLICATION_JSON);
+            avisService.parcourirAvis(ctx::writeJsonStream);
+        } catch (Exception e) {
+            // Une fois l'écriture commencée, le statut ne peut plus changer : on ne fait que journaliser.
+            if (!ctx.res().isCommitted()) {
+                ctx.status(500).result("Erreur : " + e.getMessage());
+            } else {
+                System.out.println("Erreur pendant l'envoi des avis : " + e.getMessage());
+            }
+        }
+    }
+
     /**
      * Cette méthode permet de gérer les requêtes utilisateurs relatives à la récupération d'avis pour un cours.
      * @param ctx  la requête + notre réponse.
@@ -86,6 +134,13 @@ public class AvisController {
 
         // On parcourt notre local "database" pour trouver les avis relatifs au cours en utilisant avisService.
         try{
+            // La version des avis suffit pour répondre 304 sans relire les avis.
+            String version = avisService.getVersionAvis(sigle);
+            String etag = version == null ? null : EtagSupport.etag("avis", version);
+            if (EtagSupport.notModified(ctx, etag) || reponsesCompressees.serveCached(ctx, etag)) {
+                return;
+            }
+
             List<Avis> avis = avisService.getAvisParCours(sigle);
             // Il est possible qu'il n'y ait pas d'avis pour ce cours.
             if(avis == null || avis.isEmpty()) {
@@ -93,7 +148,7 @@ public class AvisController {
                 return;
             }
 
-            ctx.status(200).json(avis);
+            reponsesCompressees.write(ctx, etag, avis);
 
         }
         // Le IllegalArgumentException se produit lorsque le sigle de cours est incorrect est incorrecte.
@@ -0,0 +1,203 @@
+package org.projet.controller;
+
+import io.javalin.compression.Brotli4jCompressor;
+import io.javalin.compression.Compressor;
+import io.javalin.compression.GzipCompressor;
+import io.javalin.http.ContentType;
+import io.javalin.http.Context;
+import io.javalin.http.Header;
+import org.projet.config.CompressionConfig;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache LRU des réponses JSON déjà compressées (Brotli ou gzip), pour les routes dont le corps ne dépend
+ * que de l'URL et d'une version (voir {@link EtagSupport}). La clé contient l'ETag, donc la version :
+ * une synchronisation rend les anciennes entrées inatteignables et elles sortent du cache par éviction.
+ * Les réponses compressées portent un ETag faible, le corps envoyé n'étant pas celui de la version
+ * non compressée.
+ */
+final class CompressedResponses {
+    private static final int BROTLI_LEVEL = 6;
+    private static final int GZIP_LEVEL = 9;
+    private static CompressedResponses instance;
+
+    private final long maxBytes;
+    private final int minSizeBytes;
+    private final Compressor brotli;
+    private final Compressor gzip;
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private long bytes;
+
+    CompressedResponses(long maxBytes, int minSizeBytes, boolean brotliAvailable) {
+        this.maxBytes = Math.max(0, maxBytes);
+        this.minSizeBytes = minSizeBytes;
+        this.brotli = brotliAvailable ? new Brotli4jCompressor(BROTLI_LEVEL) : null;
+        this.gzip = new GzipCompressor(GZIP_LEVEL);
+    }
+
+    static CompressedResponses getInstance() {
+        if (instance == null) {
+            instance = new CompressedResponses(
+                    CompressionConfig.cacheMaxBytes(),
+                    CompressionConfig.minSizeBytes(),
+                    CompressionConfig.brotliAvailable());
+        }
+        return instance;
+    }
+
+    /**
+     * Écrit la réponse compressée depuis le cache si elle y est, sans calculer le corps.
+     * @param etag ETag de la version courante, ou null (rien n'est alors mis en cache).
+     * @return true si la réponse 200 (ou 304 pour {@code If-None-Match: *}) a été écrite.
+     */
+    boolean serveCached(Context ctx, String etag) {
+        if (etag == null) {
+            return false;
+        }
+        Compressor compressor = negotiate(ctx);
+        if (compressor == null) {
+            return false;
+        }
+        byte[] body = get(key(ctx, etag, compressor));
+        if (body == null) {
+            return false;
+        }
+        if (!EtagSupport.notModifiedIfExists(ctx, etag)) {
+            send(ctx, etag, compressor, body);
+        }
+        return true;
+    }
+
+    /**
+     * Sérialise le corps en JSON, le compresse selon {@code Accept-Encoding} s'il dépasse la taille
+     * minimale, le met en cache et l'écrit avec un statut 200. La ressource existe : un
+     * {@code If-None-Match: *} reçoit donc un 304 sans corps.
+     */
+    void write(Context ctx, String etag, Object body) {
+        if (EtagSupport.notModifiedIfExists(ctx, etag)) {
+            return;
+        }
+        Compressor compressor = negotiate(ctx);
+        if (compressor == null || etag == null) {
+            EtagSupport.tag(ctx, etag);
+            ctx.status(200).json(body);
+            return;
+        }
+
+        byte[] json = ctx.jsonMapper().toJsonString(body, body.getClass()).getBytes(StandardCharsets.UTF_8);
+        if (json.length < minSizeBytes) {
+            EtagSupport.tag(ctx, etag);
+            ctx.status(200);
+            ctx.contentType(ContentType.APPLICATION_JSON);
+            ctx.result(json);
+            return;
+        }
+
+        byte[] compressed = compress(compressor, json);
+        put(key(ctx, etag, compressor), compressed);
+        send(ctx, etag, compressor, compressed);
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Brotli est préféré à gzip quand le client accepte les deux ; {@code q=0} exclut un encodage.
+     * @return le compresseur à utiliser, ou null pour une réponse non compressée.
+     */
+    private Compressor negotiate(Context ctx) {
+        if (maxBytes == 0) {
+            return null;
+        }
+        String acceptEncoding = ctx.header(Header.ACCEPT_ENCODING);
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return null;
+        }
+
+        boolean acceptsBrotli = false;
+        boolean acceptsGzip = false;
+        for (String part : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] tokens = part.trim().split(";");
+            String encoding = tokens[0].trim();
+            boolean refused = tokens.length > 1 && tokens[1].trim().matches("q=0(\\.0*)?");
+            if (refused) {
+                continue;
+            }
+            acceptsBrotli |= encoding.equals("br");
+            acceptsGzip |= encoding.equals("gzip");
+        }
+        if (acceptsBrotli && brotli != null) {
+            return brotli;
+        }
+        return acceptsGzip ? gzip : null;
+    }
+
+    private static String key(Context ctx, String etag, Compressor compressor) {
+        String query = ctx.queryString();
+        return ctx.path() + (query == null ? "" : "?" + query) + "|" + etag + "|" + compressor.encoding();
+    }
+
+    private static void send(Context ctx, String etag, Compressor compressor, byte[] body) {
+        ctx.status(200);
+        ctx.header(Header.ETAG, "W/" + etag);
+        ctx.header(Header.CACHE_CONTROL, "no-cache");
+        ctx.header(Header.VARY, Header.ACCEPT_ENCODING);
+        // Javalin ne recompresse pas une réponse qui porte déjà un Content-Encoding.
+        ctx.header(Header.CONTENT_ENCODING, compressor.encoding());
+        ctx.contentType(ContentType.APPLICATION_JSON);
+        ctx.result(body);
+    }
+
+    private static byte[] compress(Compressor compressor, byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, json.length / 4));
+        try (OutputStream stream = compressor.compress(out)) {
+            stream.write(json);
+        } catch (IOException e) {
+            throw new IllegalStateException("Compression " + compressor.encoding() + " impossible", e);
+        }
+        return out.toByteArray();
+    }
+
+    private synchronized byte[] get(String key) {
+        byte[] body = entries.get(key);
+        if (body == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return body;
+    }
+
+    private synchronized void put(String key, byte[] body) {
+        if (body.length > maxBytes) {
+            return;
+        }
+        byte[] previous = entries.put(key, body);
+        if (previous != null) {
+            bytes -= previous.length;
+        }
+        bytes += body.length;
+
+        Iterator<Map.Entry<String, byte[]>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().getValue().length;
+            eldest.remove();
+        }
+    }
+}
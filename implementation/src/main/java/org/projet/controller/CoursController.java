@@ -1,12 +1,18 @@
 package org.projet.controller;
 
+import io.javalin.http.ContentType;
 import io.javalin.http.Context;
 
 import org.projet.model.Cours;
 import org.projet.model.Resultats;
+import org.projet.repository.CourseSearchPage;
+import org.projet.repository.KeysetPage;
+import org.projet.repository.ScheduleSlots;
 import org.projet.service.CoursService;
 
 import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Cette classe permet de gérer les requêtes des utilisateurs relatives à la manipulation de cours.
@@ -14,6 +20,8 @@ import java.util.*;
 public class CoursController {
     // CoursService est un Singleton, donc on récupère l'instance existante.
     private CoursService coursService =CoursService.getInstance();
+    // Réponses déjà compressées des routes GET du catalogue, partagées entre les contrôleurs.
+    private final CompressedResponses reponsesCompressees = CompressedResponses.getInstance();
 
     /**
      * Cette méthode permet de gérer la requête de recherche de cours.
@@ -22,6 +30,32 @@ public class CoursController {
 
     public void rechercherCours(Context ctx){
         RequeteRecherche req = ctx.bodyAsClass(RequeteRecherche.class);
+        if ("text".equalsIgnoreCase(req.param)) {
+            rechercherCoursTexte(ctx, req);
+            return;
+        }
+        if (Boolean.TRUE.equals(req.stream)) {
+            streamerCours(ctx, req);
+            return;
+        }
+        if (req.apres != null || req.taille != null) {
+            rechercherCoursPage(ctx, req);
+            return;
+        }
+        // Les documents stockés sont renvoyés tels quels quand la source le permet.
+        Optional<String> json = coursService.rechercherCoursJson(req.param, req.valeur, req.includeSchedule, req.semester);
+        if (json.isPresent()) {
+            if ("[]".equals(json.get())) {
+                ctx.status(404);
+                ctx.json("Cours pas trouvé. Veuillez reessayer. Pour rappel, les paramètres possibles sont id, name et description.");
+                return;
+            }
+            ctx.status(200);
+            ctx.contentType(ContentType.APPLICATION_JSON);
+            ctx.result(json.get());
+            return;
+        }
+
         Optional<List<Cours>> resultat = coursService.rechercherCours(req.param,req.valeur,req.includeSchedule,req.semester);
         if(resultat.isPresent()){
             ctx.status(200);
@@ -32,6 +66,106 @@ public class CoursController {
         }
 
     }
+    /**
+     * Recherche paginée par curseur : le corps reste une liste de cours, et l'en-tête X-Next-Cursor donne
+     * la valeur de {@code apres} pour la page suivante (absent sur la dernière page).
+     */
+    private void rechercherCoursPage(Context ctx, RequeteRecherche req) {
+        Optional<KeysetPage<Cours>> resultat = coursService.rechercherCoursPage(
+                req.param, req.valeur, req.includeSchedule, req.semester, req.apres, req.taille);
+        if (resultat.isEmpty()) {
+            ctx.status(400);
+            ctx.json("Requête invalide. Pour rappel, les paramètres possibles sont id, name, description et text.");
+            return;
+        }
+
+        KeysetPage<Cours> page = resultat.get();
+        if (page.getItems().isEmpty() && req.apres == null) {
+            ctx.status(404);
+            ctx.json("Cours pas trouvé. Veuillez reessayer. Pour rappel, les paramètres possibles sont id, name et description.");
+            return;
+        }
+
+        if (page.hasNext()) {
+            ctx.header("X-Next-Cursor", page.getNextCursor());
+        }
+        ctx.status(200);
+        ctx.json(page.getItems());
+    }
+
+    /**
+     * Écrit tous les résultats dans la réponse au fur et à mesure, page par page, sans les réunir en mémoire.
+     * Le premier cours est lu avant d'écrire le statut, pour répondre 404 comme les autres recherches
+     * quand rien ne correspond.
+     */
+    private void streamerCours(Context ctx, RequeteRecherche req) {
+        Optional<Stream<Cours>> resultat =
+                coursService.parcourirCours(req.param, req.valeur, req.includeSchedule, req.semester);
+        if (resultat.isEmpty()) {
+            ctx.status(400);
+            ctx.json("Requête invalide. Pour rappel, les paramètres possibles sont id, name et description.");
+            return;
+        }
+
+        try (Stream<Cours> cours = resultat.get()) {
+            Spliterator<Cours> suite = cours.spliterator();
+            List<Cours> premier = new ArrayList<>(1);
+            if (!suite.tryAdvance(premier::add)) {
+                ctx.status(404);
+                ctx.json("Cours pas trouvé. Veuillez reessayer. Pour rappel, les paramètres possibles sont id, name et description.");
+                return;
+            }
+            ctx.status(200);
+            ctx.contentType(ContentType.APPLICATION_JSON);
+            ctx.writeJsonStream(Stream.concat(premier.stream(), StreamSupport.stream(suite, false)));
+        }
+    }
+
+    /**
+     * Recherche plein texte paginée : le corps de la réponse reste une liste de cours, le nombre total
+     * de résultats est transmis dans l'en-tête X-Total-Count.
+     */
+    private void rechercherCoursTexte(Context ctx, RequeteRecherche req) {
+        Optional<CourseSearchPage> resultat =
+                coursService.rechercherCoursTexte(req.valeur, req.includeSchedule, req.semester, req.page, req.taille);
+        if (resultat.isEmpty()) {
+            ctx.status(400);
+            ctx.json("Requête invalide. La recherche texte exige une valeur non vide, et includeSchedule=true pour filtrer par semester.");
+            return;
+        }
+
+        CourseSearchPage page = resultat.get();
+        if (page.getTotal() == 0) {
+            ctx.status(404);
+            ctx.json("Cours pas trouvé. Veuillez reessayer. Pour rappel, les paramètres possibles sont id, name, description et text.");
+            return;
+        }
+
+        ctx.header("X-Total-Count", String.valueOf(page.getTotal()));
+        ctx.status(200);
+        ctx.json(page.getCourses());
+    }
+
+    /**
+     * Cette méthode permet de gérer l'autocomplétion des cours (GET /cours/autocomplete?q=...&limit=...).
+     * La réponse ne contient que l'id et le nom des cours suggérés.
+     * @param ctx requête + notre réponse.
+     */
+    public void autocompleterCours(Context ctx) {
+        String limit = ctx.queryParam("limit");
+        Integer limite;
+        try {
+            limite = limit == null || limit.isBlank() ? null : Integer.valueOf(limit.trim());
+        } catch (NumberFormatException e) {
+            ctx.status(400);
+            ctx.json("Paramètre limit invalide.");
+            return;
+        }
+
+        ctx.status(200);
+        ctx.json(coursService.autocompleterCours(ctx.queryParam("q"), limite));
+    }
+
     /**
      * Cette méthode permet de traiter la requête de l'utilisateur relative à la comparaison de cours.
      * @param ctx le contexte javalin qui contient la requête HTTP de l'utilisateur ainsi que notre réponse.
@@ -171,6 +305,10 @@ public class CoursController {
      **/
     public void getCoursesForAProgram(Context ctx){
         String id = ctx.pathParam("id");
+        String etag = etagCatalogue();
+        if (EtagSupport.notModified(ctx, etag) || reponsesCompressees.serveCached(ctx, etag)) {
+            return;
+        }
         List<String> details = coursService.getCoursesForAProgram(id);
 
         if (details.isEmpty()) {
@@ -178,26 +316,61 @@ public class CoursController {
             return;
         }
 
-        ctx.status(200).json(details);
+        reponsesCompressees.write(ctx, etag, details);
+    }
+
+    /**
+     * Cette methode permet d'obtenir les programmes qui incluent un cours donne.
+     * @param ctx sigle du cours.
+     **/
+    public void getProgramsForCourse(Context ctx){
+        String sigle = ctx.pathParam("sigle");
+        String etag = etagCatalogue();
+        if (EtagSupport.notModified(ctx, etag) || reponsesCompressees.serveCached(ctx, etag)) {
+            return;
+        }
+        List<Map<String,String>> programmes = coursService.getProgramsForCourse(sigle);
+
+        if (programmes.isEmpty()) {
+            ctx.status(404).json(Map.of("error", "Aucun programme n'inclut ce cours ou le cours n'existe pas."));
+            return;
+        }
+
+        reponsesCompressees.write(ctx, etag, programmes);
     }
 
     /**
      * Cette methode permet d'obtenir la liste des cours disponible pour un trimestre donnee dans un programme.
+     * Les paramètres de requête optionnels {@code jours} (ex. "Ma,Je"), {@code debut} et {@code fin}
+     * (ex. "13:00") ne gardent que les cours dont une section tient entièrement dans cette plage horaire.
      * @param ctx ID du programme dans lequel il faut effectuer la recherche et
      *            du trimestre pour laquelle on effectue la recherche.
      **/
     public void getCourseBySemester(Context ctx){
         String id = ctx.pathParam("id");
         String session = ctx.pathParam("session");
+        int[] plage;
+        try {
+            plage = plageHoraire(ctx);
+        } catch (IllegalArgumentException e) {
+            ctx.status(400).json(Map.of("error", "Plage horaire invalide : jours parmi Lu,Ma,Me,Je,Ve,Sa,Di, debut et fin au format HH:mm."));
+            return;
+        }
 
-        List<String> details = coursService.getCourseBySemester(session,id);
+        String etag = etagCatalogue();
+        if (EtagSupport.notModified(ctx, etag) || reponsesCompressees.serveCached(ctx, etag)) {
+            return;
+        }
+        List<String> details = plage == null
+                ? coursService.getCourseBySemester(session, id)
+                : coursService.getCourseBySemester(session, id, plage[0], plage[1], plage[2]);
 
         if (details.isEmpty()) {
             ctx.status(404).json(Map.of("error","Les paramètres fournis sont invalides ou le programme n'existe pas ou le cours n'existe pas."));
             return;
         }
 
-        ctx.status(200).json(details);
+        reponsesCompressees.write(ctx, etag, details);
     }
 
     /**
@@ -209,13 +382,55 @@ public class CoursController {
         String courseID  = ctx.pathParam("id"); //ID du cours.
         String session = ctx.pathParam("session");  //Trimestre pour lequel on effectue la recherche.
 
+        String etag = etagCatalogue();
+        if (EtagSupport.notModified(ctx, etag) || reponsesCompressees.serveCached(ctx, etag)) {
+            return;
+        }
         Map<String,Map<String,Object>> details = coursService.getCourseScheduleMap(courseID,session);
 
         if (details.isEmpty()) {
             ctx.status(404).json(Map.of("error","Les paramètres fournis sont invalides ou le programme n'existe pas ou le cours n'existe pas."));
             return;
         }
-        ctx.status(200).json(details);
+        reponsesCompressees.write(ctx, etag, details);
+    }
+
+    /**
+     * Lit la plage horaire de /programme/courseBySemester : tous les jours, de 00:00 à 24:00, par défaut.
+     * @return {masque de jours, début, fin}, ou null si aucun des paramètres n'est fourni.
+     * @throws IllegalArgumentException si un jour ou une heure est illisible, ou si la plage est vide.
+     */
+    private static int[] plageHoraire(Context ctx) {
+        String jours = ctx.queryParam("jours");
+        String debut = ctx.queryParam("debut");
+        String fin = ctx.queryParam("fin");
+        if (jours == null && debut == null && fin == null) {
+            return null;
+        }
+
+        int joursMask = jours == null ? ScheduleSlots.ALL_DAYS : 0;
+        if (jours != null) {
+            for (String jour : jours.split(",")) {
+                int masque = ScheduleSlots.dayMask(List.of(jour));
+                if (masque == 0) {
+                    throw new IllegalArgumentException("Jour invalide : " + jour);
+                }
+                joursMask |= masque;
+            }
+        }
+        int minuteDebut = debut == null ? 0 : ScheduleSlots.parseMinuteOfDay(debut);
+        int minuteFin = fin == null ? 24 * 60 : ScheduleSlots.parseMinuteOfDay(fin);
+        if (minuteDebut >= minuteFin) {
+            throw new IllegalArgumentException("Plage horaire vide : " + debut + "-" + fin);
+        }
+        return new int[]{joursMask, minuteDebut, minuteFin};
+    }
+
+    /**
+     * ETag des réponses qui ne dépendent que du catalogue : il change à chaque synchronisation.
+     */
+    private String etagCatalogue() {
+        return EtagSupport.etag("catalogue", Long.toString(coursService.getCatalogVersion()));
     }
 
     /**
@@ -349,7 +564,7 @@ public class CoursController {
      */
 
     public static class RequeteRecherche{
-        /** Paramètre de recherche (id, name ou description). */
+        /** Paramètre de recherche (id, name, description ou text pour la recherche plein texte). */
         public String param;
 
         /** Valeur associée au paramètre de recherche. */
@@ -360,6 +575,18 @@ public class CoursController {
 
         /** Trimestre académique ciblé par la recherche. */
         public String semester;
+
+        /** Numéro de page (recherche text uniquement), à partir de 1. */
+        public Integer page;
+
+        /** Nombre de cours par page (page numérotée pour text, par curseur sinon). */
+        public Integer taille;
+
+        /** Curseur de pagination (id, name, description) : id du dernier cours de la page précédente. */
+        public String apres;
+
+        /** true pour recevoir tous les résultats (id, name, description) en flux plutôt qu'en un bloc. */
+        public Boolean stream;
     }
     /**
      * Cette classe permet de parser le json du body de la requête comparaisonCombinaison. La classe est interne donc
@@ -0,0 +1,83 @@
+package org.projet.controller;
+
+import io.javalin.http.Context;
+import io.javalin.http.Header;
+import io.javalin.http.HttpStatus;
+
+/**
+ * Requêtes GET conditionnelles : les réponses du catalogue ne changent qu'entre deux synchronisations,
+ * donc un ETag fort dérivé d'une version suffit à répondre 304 sans recalculer le corps.
+ */
+final class EtagSupport {
+
+    private EtagSupport() {
+    }
+
+    /**
+     * @param prefix type de données versionnées, ex. "catalogue".
+     * @param version version de ces données.
+     * @return un ETag fort, entre guillemets.
+     */
+    static String etag(String prefix, String version) {
+        return "\"" + prefix + "-" + version + "\"";
+    }
+
+    /**
+     * Répond 304 si l'en-tête {@code If-None-Match} contient l'ETag courant. {@code *} n'est pas retenu
+     * ici : la ressource n'est pas encore résolue et la route pourrait répondre 404 (voir
+     * {@link #notModifiedIfExists}).
+     * @param etag ETag courant, ou null si la version est inconnue (la requête est alors servie).
+     * @return true si la réponse 304 a été écrite et que le corps ne doit pas être calculé.
+     */
+    static boolean notModified(Context ctx, String etag) {
+        return respondNotModified(ctx, etag, false);
+    }
+
+    /**
+     * Variante de {@link #notModified} pour une ressource déjà résolue : {@code *} correspond alors aussi.
+     */
+    static boolean notModifiedIfExists(Context ctx, String etag) {
+        return respondNotModified(ctx, etag, true);
+    }
+
+    /**
+     * Ajoute l'ETag à une réponse 200 ; {@code no-cache} demande aux caches de revalider à chaque fois.
+     */
+    static void tag(Context ctx, String etag) {
+        if (etag == null) {
+            return;
+        }
+        ctx.header(Header.ETAG, etag);
+        ctx.header(Header.CACHE_CONTROL, "no-cache");
+    }
+
+    private static boolean respondNotModified(Context ctx, String etag, boolean resourceExists) {
+        if (etag == null) {
+            return false;
+        }
+        String ifNoneMatch = ctx.header(Header.IF_NONE_MATCH);
+        if (ifNoneMatch == null || !matches(ifNoneMatch, etag, resourceExists)) {
+            return false;
+        }
+        tag(ctx, etag);
+        ctx.status(HttpStatus.NOT_MODIFIED.getCode());
+        return true;
+    }
+
+    /**
+     * Comparaison faible (RFC 9110, section 13.1.2) : {@code W/} est ignoré, {@code *} correspond à toute
+     * ressource existante.
+     */
+    private static boolean matches(String ifNoneMatch, String etag, boolean resourceExists) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if ((resourceExists && value.equals("*")) || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
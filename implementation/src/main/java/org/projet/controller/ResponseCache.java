@@ -0,0 +1,308 @@
+package org.projet.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import io.javalin.http.Header;
+import org.projet.config.ResponseCacheConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Cache des réponses aux requêtes POST de consultation (recherche, comparaisons, horaires), placé devant
+ * les handlers du contrôleur. La clé combine la route, la version des données lues par la route
+ * (catalogue, avis) et l'empreinte SHA-256 du corps JSON canonique : deux corps qui ne diffèrent que
+ * par l'ordre des clés ou les espaces partagent la même entrée, et une nouvelle version rend les
+ * anciennes entrées inatteignables. Seules les réponses 200 sont gardées, pour une durée bornée, et
+ * l'ensemble est borné en octets avec éviction LRU.
+ */
+public final class ResponseCache {
+    // En-têtes rejoués avec le corps : type et métadonnées de pagination.
+    private static final List<String> HEADERS_RECOPIES = List.of(Header.CONTENT_TYPE, "X-Total-Count", "X-Next-Cursor");
+    private static ResponseCache instance;
+
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final Optional<Set<String>> enabledRoutes;
+    private final LongSupplier clock;
+    private final ObjectMapper canonicalMapper = new ObjectMapper()
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, RouteCounters> counters = new ConcurrentHashMap<>();
+    private final LongAdder evictions = new LongAdder();
+    private long bytes;
+
+    /**
+     * @param maxBytes taille maximale en octets de réponse (0 désactive le cache).
+     * @param ttlMillis durée de vie d'une entrée.
+     * @param enabledRoutes routes mises en cache, ou vide pour toutes.
+     * @param clock horloge en millisecondes.
+     */
+    ResponseCache(long maxBytes, long ttlMillis, Optional<Set<String>> enabledRoutes, LongSupplier clock) {
+        this.maxBytes = Math.max(0, maxBytes);
+        this.ttlMillis = Math.max(0, ttlMillis);
+        this.enabledRoutes = enabledRoutes;
+        this.clock = clock;
+    }
+
+    public static ResponseCache getInstance() {
+        if (instance == null) {
+            instance = new ResponseCache(
+                    ResponseCacheConfig.maxBytes(),
+                    ResponseCacheConfig.ttlMillis(),
+                    ResponseCacheConfig.enabledRoutes(),
+                    System::currentTimeMillis);
+        }
+        return instance;
+    }
+
+    /**
+     * Place le cache devant un handler. Si la route n'est pas retenue ou si le cache est désactivé,
+     * le handler est renvoyé tel quel.
+     * @param route chemin de la route, qui sert aussi de nom dans la configuration et les statistiques.
+     * @param version version des données dont dépend la réponse, lue avant le handler.
+     * @param handler handler du contrôleur.
+     * @return le handler à enregistrer auprès de Javalin.
+     */
+    public Handler cached(String route, Supplier<String> version, Handler handler) {
+        if (maxBytes == 0 || ttlMillis == 0 || enabledRoutes.map(routes -> !routes.contains(route)).orElse(false)) {
+            return handler;
+        }
+        RouteCounters routeCounters = counters.computeIfAbsent(route, ignored -> new RouteCounters());
+
+        return ctx -> {
+            String key = key(route, version, ctx);
+            if (key == null) {
+                routeCounters.bypassed.increment();
+                handler.handle(ctx);
+                return;
+            }
+
+            Entry cached = get(key);
+            if (cached != null) {
+                routeCounters.hits.increment();
+                cached.writeTo(ctx);
+                return;
+            }
+
+            routeCounters.misses.increment();
+            handler.handle(ctx);
+            Entry fresh = capture(ctx);
+            if (fresh != null) {
+                put(key, fresh);
+            }
+        };
+    }
+
+    public synchronized Stats stats() {
+        Map<String, RouteStats> routes = new TreeMap<>();
+        counters.forEach((route, routeCounters) -> routes.put(route, routeCounters.snapshot()));
+        return new Stats(entries.size(), bytes, maxBytes, ttlMillis, evictions.sum(), routes);
+    }
+
+    /**
+     * @return la clé de la requête, ou null si le corps n'est pas du JSON ou si la version est illisible
+     * (la requête n'est alors pas mise en cache).
+     */
+    private String key(String route, Supplier<String> version, Context ctx) {
+        String dataVersion;
+        byte[] canonical;
+        try {
+            dataVersion = version.get();
+            byte[] body = ctx.bodyAsBytes();
+            Object json = body.length == 0 ? null : canonicalMapper.readValue(body, Object.class);
+            canonical = canonicalMapper.writeValueAsBytes(json);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+        String query = ctx.queryString();
+        return route + (query == null ? "" : "?" + query) + "|" + dataVersion + "|" + sha256(canonical);
+    }
+
+    /**
+     * Relit la réponse produite par le handler et la réécrit, pour la garder si elle est un 200 complet.
+     */
+    private static Entry capture(Context ctx) throws IOException {
+        InputStream result = ctx.resultInputStream();
+        if (ctx.statusCode() != 200 || result == null || ctx.res().getHeader(Header.CONTENT_ENCODING) != null) {
+            return null;
+        }
+        byte[] body;
+        try (result) {
+            body = result.readAllBytes();
+        }
+        ctx.result(body);
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String name : HEADERS_RECOPIES) {
+            String value = ctx.res().getHeader(name);
+            if (value != null) {
+                headers.put(name, value);
+            }
+        }
+        return new Entry(body, headers, 0);
+    }
+
+    private synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= clock.getAsLong()) {
+            entries.remove(key);
+            bytes -= entry.body.length;
+            return null;
+        }
+        return entry;
+    }
+
+    private synchronized void put(String key, Entry captured) {
+        if (captured.body.length > maxBytes) {
+            return;
+        }
+        Entry entry = new Entry(captured.body, captured.headers, clock.getAsLong() + ttlMillis);
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            bytes -= previous.body.length;
+        }
+        bytes += entry.body.length;
+
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().getValue().body.length;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    private static final class Entry {
+        private final byte[] body;
+        private final Map<String, String> headers;
+        private final long expiresAt;
+
+        private Entry(byte[] body, Map<String, String> headers, long expiresAt) {
+            this.body = body;
+            this.headers = headers;
+            this.expiresAt = expiresAt;
+        }
+
+        private void writeTo(Context ctx) {
+            ctx.status(200);
+            headers.forEach(ctx::header);
+            ctx.result(body);
+        }
+    }
+
+    private static final class RouteCounters {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder bypassed = new LongAdder();
+
+        private RouteStats snapshot() {
+            return new RouteStats(hits.sum(), misses.sum(), bypassed.sum());
+        }
+    }
+
+    /**
+     * Compteurs d'une route : requêtes servies depuis le cache, calculées, et non mises en cache
+     * (corps qui n'est pas du JSON ou version illisible).
+     */
+    public static final class RouteStats {
+        private final long hits;
+        private final long misses;
+        private final long bypassed;
+
+        public RouteStats(long hits, long misses, long bypassed) {
+            this.hits = hits;
+            this.misses = misses;
+            this.bypassed = bypassed;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getBypassed() {
+            return bypassed;
+        }
+
+        public double getHitRatio() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+    }
+
+    /**
+     * Compteurs du cache, exposés pour le suivi.
+     */
+    public static final class Stats {
+        private final int entries;
+        private final long bytes;
+        private final long maxBytes;
+        private final long ttlMillis;
+        private final long evictions;
+        private final Map<String, RouteStats> routes;
+
+        public Stats(int entries, long bytes, long maxBytes, long ttlMillis, long evictions,
+                     Map<String, RouteStats> routes) {
+            this.entries = entries;
+            this.bytes = bytes;
+            this.maxBytes = maxBytes;
+            this.ttlMillis = ttlMillis;
+            this.evictions = evictions;
+            this.routes = routes;
+        }
+
+        public int getEntries() {
+            return entries;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public long getTtlMillis() {
+            return ttlMillis;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public Map<String, RouteStats> getRoutes() {
+            return routes;
+        }
+    }
+}
@@ -629,6 +629,18 @@ public class Cours {
     public void setSchedules(List<Schedule> schedules) {
         this.schedules = schedules;
     }
+
+    /**
+     * Retourne une copie superficielle du cours avec la liste d'horaires donnée.
+     * Le cours courant n'est pas modifié, ce qui permet de partager une instance en lecture seule.
+     * @param schedules horaires de la copie.
+     * @return une nouvelle instance de Cours.
+     */
+    public Cours withSchedules(List<Schedule> schedules) {
+        return new Cours(available_terms, id, description, name, scheduledSemester, schedules,
+                prerequisite_courses, equivalent_courses, concomitant_courses, udemWebsite,
+                credits, requirement_text, available_periods);
+    }
     /**
      * Retourne la liste des cours préalables requis.
      * @return cours préalables.
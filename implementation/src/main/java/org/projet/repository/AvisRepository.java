@@ -4,16 +4,22 @@ import org.jdbi.v3.core.Jdbi;
 import org.projet.config.DatabaseConfig;
 import org.projet.model.Avis;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Repository PostgreSQL pour les avis étudiants.
  */
 public class AvisRepository {
+    /** Nombre de lignes lues à la fois par le curseur PostgreSQL en mode flux. */
+    static final int STREAM_FETCH_SIZE = 500;
+
     private final Jdbi jdbi;
 
     public AvisRepository() {
-        this(DatabaseConfig.createJdbi());
+        this(DatabaseConfig.jdbi());
     }
 
     public AvisRepository(Jdbi jdbi) {
@@ -64,6 +70,70 @@ public class AvisRepository {
                 .list());
     }
 
+    /**
+     * Page d'avis par curseur : les avis dont l'id suit {@code after}, par id croissant.
+     * @param after id du dernier avis de la page précédente, ou null pour la première page.
+     * @param limit nombre maximal d'avis.
+     * @return la page et, s'il reste des avis, le curseur de la suivante.
+     */
+    public KeysetPage<Avis> findPage(Long after, int limit) {
+        List<Long> ids = new ArrayList<>();
+        List<Avis> avis = jdbi.withHandle(handle -> handle.createQuery("""
+                        SELECT
+                            id,
+                            commentaire,
+                            note_difficulte,
+                            sigle_cours,
+                            valide,
+                            note_charge_travail,
+                            nom_professeur
+                        FROM reviews
+                        WHERE id > :after
+                        ORDER BY id
+                        LIMIT :limit
+                        """)
+                .bind("after", after == null ? 0L : after)
+                .bind("limit", limit + 1)
+                .map((rs, ctx) -> {
+                    ids.add(rs.getLong("id"));
+                    return mapAvis(rs);
+                })
+                .list());
+
+        if (avis.size() <= limit) {
+            return new KeysetPage<>(avis, null);
+        }
+        return new KeysetPage<>(avis.subList(0, limit), String.valueOf(ids.get(limit - 1)));
+    }
+
+    /**
+     * Parcourt tous les avis, par id, sans les charger en mémoire : les lignes sont lues par lots
+     * depuis un curseur PostgreSQL pendant que le consommateur traite le flux.
+     * Le flux n'est valide que pendant l'appel au consommateur.
+     * @param consumer reçoit le flux des avis.
+     */
+    public void streamAll(Consumer<Stream<Avis>> consumer) {
+        // Le pilote PostgreSQL n'utilise un curseur (fetch size) qu'hors du mode autocommit.
+        jdbi.useTransaction(handle -> {
+            try (Stream<Avis> avis = handle.createQuery("""
+                            SELECT
+                                commentaire,
+                                note_difficulte,
+                                sigle_cours,
+                                valide,
+                                note_charge_travail,
+                                nom_professeur
+                            FROM reviews
+                            ORDER BY id
+                            """)
+                    .setFetchSize(STREAM_FETCH_SIZE)
+                    .map((rs, ctx) -> mapAvis(rs))
+                    .stream()) {
+                consumer.accept(avis);
+            }
+        });
+    }
+
     public List<Avis> findBySigleCours(String sigleCours) {
         return jdbi.withHandle(handle -> handle.createQuery("""
                         SELECT
@@ -82,6 +152,31 @@ public class AvisRepository {
                 .list());
     }
 
+    /**
+     * Version des avis d'un cours : compteur incrémenté par un déclencheur à chaque ajout, modification
+     * ou suppression d'un avis de ce cours (voir V13), "0" si le cours n'a jamais eu d'avis.
+     */
+    public String versionBySigleCours(String sigleCours) {
+        return jdbi.withHandle(handle -> handle.createQuery("""
+                        SELECT coalesce(max(version), 0)::text
+                        FROM review_course_versions
+                        WHERE sigle_cours = :sigleCours
+                        """)
+                .bind("sigleCours", sigleCours)
+                .mapTo(String.class)
+                .one());
+    }
+
+    /**
+     * Version de l'ensemble des avis : compteur incrémenté par un déclencheur à chaque écriture dans
+     * {@code reviews}, lu sur une seule ligne plutôt qu'agrégé sur toute la table.
+     */
+    public String version() {
+        return jdbi.withHandle(handle -> handle.createQuery("SELECT version::text FROM reviews_version")
+                .mapTo(String.class)
+                .one());
+    }
+
     private Avis mapAvis(java.sql.ResultSet rs) throws java.sql.SQLException {
         return new Avis(
                 rs.getString("sigle_cours"),
@@ -2,37 +2,330 @@ package org.projet.repository;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.jdbi.v3.core.Handle;
 import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.statement.PreparedBatch;
+import org.jdbi.v3.core.statement.SqlStatement;
+import org.postgresql.PGConnection;
+import org.projet.config.CatalogConfig;
 import org.projet.config.DatabaseConfig;
 import org.projet.model.Cours;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.text.Normalizer;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Accès SQL au cache local du catalogue Planifium.
+ * En mode instantané, les lectures sont servies depuis un {@link CatalogSnapshot} chargé une
+ * seule fois, puis remplacé atomiquement après chaque synchronisation.
  */
 public class CatalogCacheRepository {
+    private static final Logger LOGGER = Logger.getLogger(CatalogCacheRepository.class.getName());
+    private static CatalogCacheRepository instance;
+
     private final Jdbi jdbi;
     private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper canonicalMapper = new ObjectMapper()
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    private final boolean snapshotEnabled;
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong catalogVersion = new AtomicLong();
+    // Sérialise les changements de version : deux rechargements ne s'entrecroisent jamais.
+    private final Object catalogChange = new Object();
+    private final CourseCache courseCache;
+    private final AtomicReference<CourseAutocompleteIndex> autocompleteIndex = new AtomicReference<>();
+    private final AtomicReference<CourseAvailabilityIndex> availabilityIndex = new AtomicReference<>();
+    private final CatalogGenerations generations;
 
     public CatalogCacheRepository() {
-        this(DatabaseConfig.createJdbi());
+        this(DatabaseConfig.jdbi(), CatalogConfig.snapshotEnabled());
     }
 
     public CatalogCacheRepository(Jdbi jdbi) {
+        this(jdbi, false);
+    }
+
+    public CatalogCacheRepository(Jdbi jdbi, boolean snapshotEnabled) {
+        this(jdbi, snapshotEnabled, CatalogConfig.courseCacheMaxWeight());
+    }
+
+    public CatalogCacheRepository(Jdbi jdbi, boolean snapshotEnabled, long courseCacheMaxWeight) {
         this.jdbi = jdbi;
+        this.snapshotEnabled = snapshotEnabled;
+        this.courseCache = new CourseCache(courseCacheMaxWeight);
+        this.generations = new CatalogGenerations(jdbi);
+    }
+
+    /**
+     * Instance partagée entre la lecture (CoursRepository) et la synchronisation, pour que
+     * l'instantané remplacé par la synchronisation soit celui lu par l'API.
+     * @return l'instance partagée.
+     */
+    public static CatalogCacheRepository getInstance() {
+        if (instance == null) {
+            instance = new CatalogCacheRepository();
+        }
+        return instance;
+    }
+
+    /**
+     * @return les générations du catalogue, dans lesquelles la synchronisation écrit avant de publier.
+     */
+    public CatalogGenerations generations() {
+        return generations;
+    }
+
+    public boolean isSnapshotEnabled() {
+        return snapshotEnabled;
+    }
+
+    /**
+     * Canal PostgreSQL sur lequel la nouvelle version du catalogue est diffusée à tous les nœuds.
+     */
+    public static final String CATALOG_CHANNEL = "catalog_changed";
+
+    /**
+     * @return la version du catalogue connue de ce nœud, incrémentée à chaque fin de synchronisation.
+     */
+    public long catalogVersion() {
+        return catalogVersion.get();
+    }
+
+    /**
+     * @return la version du catalogue enregistrée dans PostgreSQL, partagée par tous les nœuds.
+     */
+    public long persistedCatalogVersion() {
+        return jdbi.withHandle(CatalogCacheRepository::readCatalogVersion);
+    }
+
+    static long readCatalogVersion(Handle handle) {
+        return handle.createQuery("SELECT version FROM catalog_version")
+                .mapTo(Long.class)
+                .one();
+    }
+
+    /**
+     * Signale qu'une synchronisation a modifié le catalogue : incrémente la version enregistrée dans
+     * PostgreSQL, la diffuse aux autres nœuds avec {@code NOTIFY}, puis invalide les caches locaux.
+     * Si la base est injoignable, les caches locaux sont tout de même vidés, mais la version locale
+     * reste celle enregistrée : une version inventée ici masquerait la prochaine incrémentation réelle.
+     * @return la nouvelle version du catalogue.
+     * @throws IllegalStateException si la nouvelle version n'a pas pu être enregistrée.
+     */
+    public long markCatalogChanged() {
+        long version;
+        try {
+            version = jdbi.inTransaction(handle -> {
+                long bumped = handle.createQuery("""
+                                UPDATE catalog_version
+                                SET version = version + 1, updated_at = now()
+                                RETURNING version
+                                """)
+                        .mapTo(Long.class)
+                        .one();
+                // Délivrée aux écouteurs au commit seulement.
+                handle.createQuery("SELECT pg_notify(:channel, :version)")
+                        .bind("channel", CATALOG_CHANNEL)
+                        .bind("version", Long.toString(bumped))
+                        .mapTo(String.class)
+                        .one();
+                return bumped;
+            });
+        } catch (Exception e) {
+            onCatalogChanged(catalogVersion.get());
+            throw new IllegalStateException("Unable to persist catalog version, only local caches were cleared", e);
+        }
+
+        onCatalogChanged(version);
+        return version;
+    }
+
+    /**
+     * Applique une version du catalogue reçue d'un autre nœud (notification ou relecture périodique).
+     * Sans effet si ce nœud connaît déjà cette version ou une plus récente.
+     * @param version version enregistrée dans PostgreSQL.
+     * @return true si les caches locaux ont été invalidés.
+     */
+    public boolean applyCatalogVersion(long version) {
+        synchronized (catalogChange) {
+            long previous = catalogVersion.get();
+            if (version <= previous) {
+                return false;
+            }
+            LOGGER.info("Catalog version " + previous + " -> " + version + " received, invalidating local caches");
+            onCatalogChanged(version);
+            return true;
+        }
+    }
+
+    /**
+     * Vide le cache des cours décodés, remplace l'instantané (en mode instantané), avance
+     * {@link #catalogVersion()} puis reconstruit les index en mémoire (autocomplétion, disponibilités).
+     * La version n'avance qu'une fois le nouvel instantané en place : tout ce qui est mis en cache sous
+     * cette version (ids de cours validés par le service, réponses compressées, réponses des routes POST)
+     * est donc construit à partir du nouveau catalogue. Si l'instantané ne peut pas être rechargé, la
+     * version reste la précédente et la relecture périodique de {@link CatalogVersionListener} retente.
+     */
+    private void onCatalogChanged(long version) {
+        synchronized (catalogChange) {
+            // Invalidé d'abord : une lecture faite sous l'ancienne version ne peut plus y être remise.
+            courseCache.invalidate(Math.max(version, catalogVersion.get()));
+            if (refreshSnapshot()) {
+                catalogVersion.accumulateAndGet(version, Math::max);
+            }
+            refreshAutocompleteIndex();
+            refreshAvailabilityIndex();
+        }
+    }
+
+    /**
+     * Suggestions de cours par préfixe d'id ou de nom, servies depuis l'index en mémoire.
+     * @param query début d'un sigle ou de mots du nom.
+     * @param limit nombre maximal de suggestions.
+     * @return les suggestions (id et nom seulement).
+     */
+    public List<CourseAutocompleteIndex.Suggestion> autocomplete(String query, int limit) {
+        return autocompleteIndex().suggest(query, limit);
+    }
+
+    /**
+     * @return l'index d'autocomplétion courant, construit au premier appel ou si la version du
+     * catalogue a changé depuis sa construction.
+     */
+    public CourseAutocompleteIndex autocompleteIndex() {
+        return currentIndex(autocompleteIndex, CourseAutocompleteIndex::catalogVersion, this::loadAutocompleteIndex);
+    }
+
+    /**
+     * Reconstruit l'index d'autocomplétion. En cas d'échec, l'index précédent reste servi.
+     */
+    public void refreshAutocompleteIndex() {
+        refreshIndex(autocompleteIndex, this::loadAutocompleteIndex,
+                index -> "Autocomplete index rebuilt: " + index.size() + " courses");
+    }
+
+    /**
+     * Cours d'un programme offerts pendant une session, servis depuis l'index des disponibilités.
+     * @param programId id du programme.
+     * @param semester session, ex. "A25".
+     * @return les ids des cours, triés.
+     */
+    public List<String> findCoursesAvailable(String programId, String semester) {
+        return availabilityIndex().coursesAvailable(programId, semester);
+    }
+
+    /**
+     * @return l'index des disponibilités courant, construit au premier appel ou si la version du
+     * catalogue a changé depuis sa construction.
+     */
+    public CourseAvailabilityIndex availabilityIndex() {
+        return currentIndex(availabilityIndex, CourseAvailabilityIndex::catalogVersion, this::loadAvailabilityIndex);
+    }
+
+    /**
+     * Reconstruit l'index des disponibilités. En cas d'échec, l'index précédent reste servi.
+     */
+    public void refreshAvailabilityIndex() {
+        refreshIndex(availabilityIndex, this::loadAvailabilityIndex,
+                index -> "Availability index rebuilt: " + index.programCount() + " programs, "
+                        + index.semesterCount() + " semesters, " + index.courseCount() + " courses");
+    }
+
+    private <T> T currentIndex(AtomicReference<T> reference, ToLongFunction<T> versionOf, Supplier<T> loader) {
+        T current = reference.get();
+        if (current != null && versionOf.applyAsLong(current) == catalogVersion.get()) {
+            return current;
+        }
+        synchronized (reference) {
+            current = reference.get();
+            if (current == null || versionOf.applyAsLong(current) != catalogVersion.get()) {
+                current = loader.get();
+                reference.set(current);
+            }
+        }
+        return current;
+    }
+
+    private <T> void refreshIndex(AtomicReference<T> reference, Supplier<T> loader, Function<T, String> describe) {
+        try {
+            T fresh = loader.get();
+            synchronized (reference) {
+                reference.set(fresh);
+            }
+            LOGGER.info(describe.apply(fresh));
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "In-memory index rebuild failed, keeping previous index", e);
+        }
+    }
+
+    /**
+     * @return les compteurs du cache des cours décodés.
+     */
+    public CourseCache.Stats courseCacheStats() {
+        return courseCache.stats();
+    }
+
+    /**
+     * Recharge le catalogue depuis PostgreSQL et remplace l'instantané courant. Sans effet si
+     * le mode instantané est désactivé. En cas d'échec, l'instantané précédent reste servi.
+     * @return false si le rechargement a échoué.
+     */
+    public boolean refreshSnapshot() {
+        if (!snapshotEnabled) {
+            return true;
+        }
+
+        try {
+            CatalogSnapshot fresh = loadSnapshot();
+            snapshot.set(fresh);
+            LOGGER.info("Catalog snapshot swapped: " + fresh.stats());
+            return true;
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Catalog snapshot refresh failed, keeping previous snapshot", e);
+            return false;
+        }
+    }
+
+    /**
+     * @return les statistiques de l'instantané courant, ou vide si aucun n'est chargé.
+     */
+    public Optional<CatalogSnapshot.Stats> snapshotStats() {
+        return Optional.ofNullable(snapshot.get()).map(CatalogSnapshot::stats);
     }
 
     public boolean isEmpty() {
+        CatalogSnapshot current = currentSnapshot();
+        if (current != null) {
+            return current.isEmpty();
+        }
+
         Integer count = jdbi.withHandle(handle ->
                 handle.createQuery("SELECT COUNT(*) FROM courses")
                         .mapTo(Integer.class)
@@ -41,139 +334,1071 @@ public class CatalogCacheRepository {
         return count == null || count == 0;
     }
 
+    private static final String UPSERT_COURSE_SQL = """
+            INSERT INTO courses (
+                id,
+                name,
+                description,
+                credits,
+                requirement_text,
+                udem_website,
+                raw_data,
+                content_hash
+            )
+            VALUES (
+                :id,
+                :name,
+                :description,
+                :credits,
+                :requirementText,
+                :udemWebsite,
+                CAST(:rawData AS jsonb),
+                :contentHash
+            )
+            ON CONFLICT (id) DO UPDATE SET
+                name = EXCLUDED.name,
+                description = EXCLUDED.description,
+                credits = EXCLUDED.credits,
+                requirement_text = EXCLUDED.requirement_text,
+                udem_website = EXCLUDED.udem_website,
+                raw_data = EXCLUDED.raw_data,
+                content_hash = EXCLUDED.content_hash
+            WHERE courses.content_hash IS DISTINCT FROM EXCLUDED.content_hash
+            """;
+
     public void upsertCourse(Cours cours) {
         try {
-            String rawData = mapper.writeValueAsString(cours);
-            jdbi.useHandle(handle -> handle.createUpdate("""
-                            INSERT INTO courses (
-                                id,
-                                name,
-                                description,
-                                credits,
-                                requirement_text,
-                                udem_website,
-                                raw_data
-                            )
-                            VALUES (
-                                :id,
-                                :name,
-                                :description,
-                                :credits,
-                                :requirementText,
-                                :udemWebsite,
-                                CAST(:rawData AS jsonb)
-                            )
-                            ON CONFLICT (id) DO UPDATE SET
-                                name = EXCLUDED.name,
-                                description = EXCLUDED.description,
-                                credits = EXCLUDED.credits,
-                                requirement_text = EXCLUDED.requirement_text,
-                                udem_website = EXCLUDED.udem_website,
-                                raw_data = EXCLUDED.raw_data
-                            """)
-                    .bind("id", cours.getId())
-                    .bind("name", cours.getName())
-                    .bind("description", cours.getDescription())
-                    .bind("credits", cours.getCredits())
-                    .bind("requirementText", cours.getRequirement_text())
-                    .bind("udemWebsite", cours.getUdemWebsite())
-                    .bind("rawData", rawData)
-                    .execute());
+            upsertCoursesInTransaction(List.of(cours), new WriteCounts());
         } catch (Exception e) {
             throw new RuntimeException("Erreur upsert course " + cours.getId(), e);
         }
     }
 
-    public void upsertProgram(JsonNode program) {
-        String id = program.path("id").asText(null);
-        if (id == null || id.isBlank()) {
+    /**
+     * Enregistre plusieurs cours en un seul lot, dans une seule transaction : tous ou aucun. Les cours
+     * dont l'empreinte de contenu n'a pas changé ne sont pas réécrits.
+     * @param counts compteurs de la table {@code courses}, complétés après la validation du lot.
+     */
+    public void upsertCourses(Collection<Cours> courses, WriteCounts counts) {
+        try {
+            upsertCoursesInTransaction(courses, counts);
+        } catch (Exception e) {
+            throw new RuntimeException("Erreur upsert de " + courses.size() + " cours", e);
+        }
+    }
+
+    private void upsertCoursesInTransaction(Collection<Cours> courses, WriteCounts counts) throws Exception {
+        Map<String, Cours> byId = new LinkedHashMap<>();
+        courses.forEach(cours -> byId.put(cours.getId(), cours));
+        if (byId.isEmpty()) {
+            return;
+        }
+
+        Map<String, String> rawData = new HashMap<>();
+        Map<String, String> hashes = new HashMap<>();
+        for (Cours cours : byId.values()) {
+            String json = mapper.writeValueAsString(cours);
+            rawData.put(cours.getId(), json);
+            hashes.put(cours.getId(), contentHash(json));
+        }
+
+        List<String> changed = new ArrayList<>();
+        int inserted = jdbi.inTransaction(handle -> {
+            Map<String, String> existing = existingHashes(handle, "courses", byId.keySet());
+            PreparedBatch batch = handle.prepareBatch(UPSERT_COURSE_SQL);
+            for (Cours cours : byId.values()) {
+                String hash = hashes.get(cours.getId());
+                if (existing.containsKey(cours.getId()) && hash.equals(existing.get(cours.getId()))) {
+                    continue;
+                }
+                changed.add(cours.getId());
+                bindCourse(batch, cours, rawData.get(cours.getId()))
+                        .bind("contentHash", hash)
+                        .add();
+            }
+            if (batch.size() > 0) {
+                batch.execute();
+            }
+            return (int) changed.stream().filter(id -> !existing.containsKey(id)).count();
+        });
+        counts.add(inserted, changed.size() - inserted, byId.size() - changed.size());
+        changed.forEach(courseCache::evictCourse);
+    }
+
+    /**
+     * Chargement en masse : les cours sont copiés avec {@code COPY} dans la table non journalisée
+     * {@code courses_staging}, puis fusionnés dans {@code courses} par une seule instruction, le tout
+     * dans une transaction. Seuls les cours nouveaux ou dont l'empreinte a changé sont écrits. Deux
+     * chargements simultanés s'attendent sur le {@code TRUNCATE} de la table de transit.
+     * @param counts compteurs de la table {@code courses}, complétés après la validation du lot.
+     */
+    public void bulkLoadCourses(Collection<Cours> courses, WriteCounts counts) {
+        copyCourses(courses, counts, """
+                ON CONFLICT (id) DO UPDATE SET
+                    name = EXCLUDED.name,
+                    description = EXCLUDED.description,
+                    credits = EXCLUDED.credits,
+                    requirement_text = EXCLUDED.requirement_text,
+                    udem_website = EXCLUDED.udem_website,
+                    raw_data = EXCLUDED.raw_data,
+                    content_hash = EXCLUDED.content_hash
+                WHERE courses.content_hash IS DISTINCT FROM EXCLUDED.content_hash
+                """);
+    }
+
+    /**
+     * Comme {@link #bulkLoadCourses}, mais n'insère que les cours absents : un cours déjà en cache est
+     * laissé tel quel et compté comme inchangé.
+     */
+    public void bulkInsertMissingCourses(Collection<Cours> courses, WriteCounts counts) {
+        copyCourses(courses, counts, "ON CONFLICT (id) DO NOTHING\n");
+    }
+
+    private void copyCourses(Collection<Cours> courses, WriteCounts counts, String onConflict) {
+        if (courses.isEmpty()) {
             return;
         }
 
         try {
-            String rawData = mapper.writeValueAsString(program);
-            jdbi.useHandle(handle -> handle.createUpdate("""
-                            INSERT INTO programs (id, name, raw_data)
-                            VALUES (:id, :name, CAST(:rawData AS jsonb))
-                            ON CONFLICT (id) DO UPDATE SET
-                                name = EXCLUDED.name,
-                                raw_data = EXCLUDED.raw_data
+            StringBuilder csv = new StringBuilder();
+            Set<String> ids = new HashSet<>();
+            int position = 0;
+            for (Cours cours : courses) {
+                position++;
+                String json = mapper.writeValueAsString(cours);
+                ids.add(cours.getId());
+                appendCsvRow(csv,
+                        Integer.toString(position),
+                        cours.getId(),
+                        cours.getName(),
+                        cours.getDescription(),
+                        Float.toString(cours.getCredits()),
+                        cours.getRequirement_text(),
+                        cours.getUdemWebsite(),
+                        json,
+                        contentHash(json));
+            }
+
+            Map<String, Boolean> written = jdbi.inTransaction(handle -> {
+                handle.execute("TRUNCATE courses_staging");
+                handle.getConnection().unwrap(PGConnection.class).getCopyAPI().copyIn("""
+                        COPY courses_staging (position, id, name, description, credits, requirement_text,
+                                              udem_website, raw_data, content_hash)
+                        FROM STDIN WITH (FORMAT csv)
+                        """, new StringReader(csv.toString()));
+                Map<String, Boolean> merged = new HashMap<>();
+                handle.createQuery("""
+                                WITH incoming AS (
+                                    SELECT DISTINCT ON (id) id, name, description, credits, requirement_text,
+                                           udem_website, raw_data, content_hash
+                                    FROM courses_staging
+                                    ORDER BY id, position DESC
+                                )
+                                INSERT INTO courses (id, name, description, credits, requirement_text, udem_website,
+                                                     raw_data, content_hash)
+                                SELECT id, name, description, credits, requirement_text, udem_website, raw_data,
+                                       content_hash
+                                FROM incoming
+                                """ + onConflict + """
+                                RETURNING id, xmax = 0 AS inserted
+                                """)
+                        .map((rs, ctx) -> Map.entry(rs.getString("id"), rs.getBoolean("inserted")))
+                        .forEach(entry -> merged.put(entry.getKey(), entry.getValue()));
+                handle.execute("TRUNCATE courses_staging");
+                return merged;
+            });
+
+            int inserted = (int) written.values().stream().filter(Boolean::booleanValue).count();
+            counts.add(inserted, written.size() - inserted, ids.size() - written.size());
+            written.keySet().forEach(courseCache::evictCourse);
+        } catch (Exception e) {
+            throw new RuntimeException("Erreur chargement en masse de " + courses.size() + " cours", e);
+        }
+    }
+
+    /**
+     * Supprime les cours absents de la liste, avec leurs horaires. Sans effet si la liste est vide,
+     * pour ne jamais vider le catalogue sur une réponse Planifium vide.
+     * @param courseIds ids de tous les cours connus de Planifium.
+     */
+    public void deleteCoursesNotIn(Collection<String> courseIds, WriteCounts courseCounts, WriteCounts scheduleCounts) {
+        if (courseIds.isEmpty()) {
+            return;
+        }
+
+        int[] deleted = jdbi.inTransaction(handle -> {
+            int schedules = handle.createQuery("""
+                            WITH stale AS (
+                                DELETE FROM schedules WHERE NOT (course_id = ANY(:ids)) RETURNING course_id
+                            ), stale_sections AS (
+                                DELETE FROM sections WHERE NOT (course_id = ANY(:ids))
+                            )
+                            SELECT count(*) FROM stale
                             """)
-                    .bind("id", id)
-                    .bind("name", program.path("name").asText(null))
-                    .bind("rawData", rawData)
-                    .execute());
+                    .bindArray("ids", String.class, courseIds)
+                    .mapTo(Integer.class)
+                    .one();
+            int courses = handle.createUpdate("DELETE FROM courses WHERE NOT (id = ANY(:ids))")
+                    .bindArray("ids", String.class, courseIds)
+                    .execute();
+            return new int[] {courses, schedules};
+        });
+        courseCounts.addDeleted(deleted[0]);
+        scheduleCounts.addDeleted(deleted[1]);
+    }
+
+    private static <T extends SqlStatement<T>> T bindCourse(T statement, Cours cours, String rawData) {
+        return statement
+                .bind("id", cours.getId())
+                .bind("name", cours.getName())
+                .bind("description", cours.getDescription())
+                .bind("credits", cours.getCredits())
+                .bind("requirementText", cours.getRequirement_text())
+                .bind("udemWebsite", cours.getUdemWebsite())
+                .bind("rawData", rawData);
+    }
+
+    /**
+     * Ajoute une ligne CSV : les valeurs non nulles sont entre guillemets, null est un champ vide.
+     */
+    private static void appendCsvRow(StringBuilder csv, String... values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                csv.append(',');
+            }
+            if (values[i] != null) {
+                csv.append('"').append(values[i].replace("\"", "\"\"")).append('"');
+            }
+        }
+        csv.append('\n');
+    }
+
+    /**
+     * Empreinte SHA-256 du JSON canonique (clés d'objet triées) : deux documents égals à l'ordre des
+     * clés près ont la même empreinte.
+     */
+    private String contentHash(String json) throws Exception {
+        byte[] canonical = canonicalMapper.writeValueAsBytes(mapper.readValue(json, Object.class));
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(canonical));
+    }
+
+    /**
+     * @return l'empreinte enregistrée de chaque ligne existante parmi les ids donnés (null si jamais calculée).
+     */
+    private static Map<String, String> existingHashes(Handle handle, String table, Collection<String> ids) {
+        Map<String, String> hashes = new HashMap<>();
+        handle.createQuery("SELECT id, content_hash FROM " + table + " WHERE id = ANY(:ids)")
+                .bindArray("ids", String.class, ids)
+                .map((rs, ctx) -> Map.entry(rs.getString("id"), Objects.toString(rs.getString("content_hash"), "")))
+                .forEach(entry -> hashes.put(entry.getKey(), entry.getValue()));
+        return hashes;
+    }
+
+    /**
+     * Enregistre le programme et réécrit, dans la même transaction, ses lignes de {@code program_courses}.
+     * @return les ids distincts des cours du programme, dans l'ordre de l'arbre segments/blocs.
+     */
+    public List<String> upsertProgram(JsonNode program) {
+        String id = program.path("id").asText(null);
+        if (id == null || id.isBlank()) {
+            return List.of();
+        }
+
+        try {
+            return upsertProgramsInTransaction(List.of(program), new WriteCounts());
         } catch (Exception e) {
             throw new RuntimeException("Erreur upsert program " + id, e);
         }
     }
 
+    /**
+     * Enregistre plusieurs programmes et leurs lignes de {@code program_courses} en lots, dans une seule
+     * transaction. Les programmes sans id sont ignorés, ceux dont l'empreinte n'a pas changé ne sont
+     * pas réécrits.
+     * @param counts compteurs de la table {@code programs}, complétés après la validation du lot.
+     * @return les ids distincts des cours de ces programmes, dans l'ordre des programmes puis de leur arbre.
+     */
+    public List<String> upsertPrograms(Collection<JsonNode> programs, WriteCounts counts) {
+        try {
+            return upsertProgramsInTransaction(programs, counts);
+        } catch (Exception e) {
+            throw new RuntimeException("Erreur upsert de " + programs.size() + " programmes", e);
+        }
+    }
+
+    private List<String> upsertProgramsInTransaction(Collection<JsonNode> programs, WriteCounts counts)
+            throws Exception {
+        Map<String, JsonNode> byId = new LinkedHashMap<>();
+        for (JsonNode program : programs) {
+            String id = program.path("id").asText(null);
+            if (id != null && !id.isBlank()) {
+                byId.put(id, program);
+            }
+        }
+        if (byId.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, String> rawData = new HashMap<>();
+        Map<String, String> hashes = new HashMap<>();
+        Map<String, List<ProgramCourse>> memberships = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonNode> program : byId.entrySet()) {
+            String json = mapper.writeValueAsString(program.getValue());
+            rawData.put(program.getKey(), json);
+            hashes.put(program.getKey(), contentHash(json));
+            List<ProgramCourse> programCourses = new ArrayList<>();
+            collectProgramCourses(program.getValue(), ProgramCourse.ROOT, programCourses);
+            memberships.put(program.getKey(), programCourses);
+        }
+
+        int[] written = jdbi.inTransaction(handle -> {
+            Map<String, String> existing = existingHashes(handle, "programs", byId.keySet());
+            Map<String, List<ProgramCourse>> changed = new LinkedHashMap<>();
+            PreparedBatch batch = handle.prepareBatch("""
+                    INSERT INTO programs (id, name, raw_data, content_hash)
+                    VALUES (:id, :name, CAST(:rawData AS jsonb), :contentHash)
+                    ON CONFLICT (id) DO UPDATE SET
+                        name = EXCLUDED.name,
+                        raw_data = EXCLUDED.raw_data,
+                        content_hash = EXCLUDED.content_hash
+                    WHERE programs.content_hash IS DISTINCT FROM EXCLUDED.content_hash
+                    """);
+            for (Map.Entry<String, JsonNode> program : byId.entrySet()) {
+                String id = program.getKey();
+                if (existing.containsKey(id) && hashes.get(id).equals(existing.get(id))) {
+                    continue;
+                }
+                changed.put(id, memberships.get(id));
+                batch.bind("id", id)
+                        .bind("name", program.getValue().path("name").asText(null))
+                        .bind("rawData", rawData.get(id))
+                        .bind("contentHash", hashes.get(id))
+                        .add();
+            }
+            if (changed.isEmpty()) {
+                return new int[] {0, 0};
+            }
+            batch.execute();
+            replaceProgramCourses(handle, changed);
+            int inserted = (int) changed.keySet().stream().filter(id -> !existing.containsKey(id)).count();
+            return new int[] {inserted, changed.size()};
+        });
+        counts.add(written[0], written[1] - written[0], byId.size() - written[1]);
+
+        return memberships.values().stream()
+                .flatMap(List::stream)
+                .map(membership -> membership.courseId)
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * Supprime les programmes absents de la liste (leurs lignes de {@code program_courses} suivent).
+     * Sans effet si la liste est vide.
+     * @param programIds ids de tous les programmes renvoyés par Planifium.
+     */
+    public void deleteProgramsNotIn(Collection<String> programIds, WriteCounts counts) {
+        if (programIds.isEmpty()) {
+            return;
+        }
+        counts.addDeleted(jdbi.withHandle(handle -> handle.createUpdate("DELETE FROM programs WHERE NOT (id = ANY(:ids))")
+                .bindArray("ids", String.class, programIds)
+                .execute()));
+    }
+
+    private void replaceProgramCourses(Handle handle, Map<String, List<ProgramCourse>> membershipsByProgram) {
+        handle.createUpdate("DELETE FROM program_courses WHERE program_id = ANY(:programIds)")
+                .bindArray("programIds", String.class, membershipsByProgram.keySet())
+                .execute();
+
+        PreparedBatch batch = handle.prepareBatch("""
+                INSERT INTO program_courses (program_id, position, course_id, segment_position, segment_name,
+                                             bloc_position, bloc_id, bloc_name)
+                VALUES (:programId, :position, :courseId, :segmentPosition, :segmentName,
+                        :blocPosition, :blocId, :blocName)
+                """);
+        for (Map.Entry<String, List<ProgramCourse>> program : membershipsByProgram.entrySet()) {
+            int position = 0;
+            for (ProgramCourse membership : program.getValue()) {
+                position++;
+                batch.bind("programId", program.getKey())
+                        .bind("position", position)
+                        .bind("courseId", membership.courseId)
+                        .bind("segmentPosition", membership.segmentPosition)
+                        .bind("segmentName", membership.segmentName)
+                        .bind("blocPosition", membership.blocPosition)
+                        .bind("blocId", membership.blocId)
+                        .bind("blocName", membership.blocName)
+                        .add();
+            }
+        }
+        if (batch.size() > 0) {
+            batch.execute();
+        }
+    }
+
+    private static final String UPSERT_SCHEDULE_SQL = """
+            INSERT INTO schedules (course_id, semester, raw_data, content_hash, fetched_at)
+            VALUES (:courseId, :semester, CAST(:rawData AS jsonb), :contentHash, now())
+            ON CONFLICT (course_id, semester) DO UPDATE SET
+                raw_data = EXCLUDED.raw_data,
+                content_hash = EXCLUDED.content_hash,
+                fetched_at = now()
+            WHERE schedules.content_hash IS DISTINCT FROM EXCLUDED.content_hash
+            """;
+
     public void upsertSchedule(String courseId, Cours.Schedule schedule) {
         if (courseId == null || courseId.isBlank() || schedule.getSemester() == null) {
             return;
         }
 
         try {
-            String rawData = mapper.writeValueAsString(schedule);
-            jdbi.useHandle(handle -> handle.createUpdate("""
-                            INSERT INTO schedules (course_id, semester, raw_data, fetched_at)
-                            VALUES (:courseId, :semester, CAST(:rawData AS jsonb), now())
-                            ON CONFLICT (course_id, semester) DO UPDATE SET
-                                raw_data = EXCLUDED.raw_data,
-                                fetched_at = now()
-                            """)
-                    .bind("courseId", courseId)
-                    .bind("semester", schedule.getSemester())
-                    .bind("rawData", rawData)
-                    .execute());
+            upsertSchedulesInTransaction(Map.of(courseId, List.of(schedule)), new WriteCounts());
         } catch (Exception e) {
             throw new RuntimeException("Erreur upsert schedule " + courseId + " " + schedule.getSemester(), e);
         }
     }
 
+    /**
+     * Enregistre les horaires de plusieurs cours dans une seule transaction : les lignes de
+     * {@code schedules} en un lot, puis leurs sections / volets / activities. Les horaires sans
+     * session sont ignorés, ceux dont l'empreinte n'a pas changé ne sont pas réécrits.
+     * @param schedulesByCourse horaires à enregistrer, par id de cours.
+     * @param counts compteurs de la table {@code schedules}, complétés après la validation du lot.
+     */
+    public void upsertSchedules(Map<String, ? extends Collection<Cours.Schedule>> schedulesByCourse,
+                                WriteCounts counts) {
+        try {
+            upsertSchedulesInTransaction(schedulesByCourse, counts);
+        } catch (Exception e) {
+            throw new RuntimeException("Erreur upsert des horaires de " + schedulesByCourse.size() + " cours", e);
+        }
+    }
+
+    private void upsertSchedulesInTransaction(Map<String, ? extends Collection<Cours.Schedule>> schedulesByCourse,
+                                              WriteCounts counts) throws Exception {
+        Map<String, ScheduleRow> rows = new LinkedHashMap<>();
+        for (Map.Entry<String, ? extends Collection<Cours.Schedule>> course : schedulesByCourse.entrySet()) {
+            if (course.getKey() == null || course.getKey().isBlank()) {
+                continue;
+            }
+            for (Cours.Schedule schedule : course.getValue()) {
+                if (schedule.getSemester() != null) {
+                    String json = mapper.writeValueAsString(schedule);
+                    ScheduleRow row = new ScheduleRow(course.getKey(), schedule, json, contentHash(json));
+                    rows.put(row.key(), row);
+                }
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        List<ScheduleRow> changed = new ArrayList<>();
+        int inserted = jdbi.inTransaction(handle -> {
+            Map<String, String> existing = new HashMap<>();
+            handle.createQuery("""
+                            SELECT course_id || '|' || semester AS key, content_hash
+                            FROM schedules
+                            WHERE course_id = ANY(:ids)
+                            """)
+                    .bindArray("ids", String.class, schedulesByCourse.keySet())
+                    .map((rs, ctx) -> Map.entry(rs.getString("key"), Objects.toString(rs.getString("content_hash"), "")))
+                    .forEach(entry -> existing.put(entry.getKey(), entry.getValue()));
+
+            PreparedBatch batch = handle.prepareBatch(UPSERT_SCHEDULE_SQL);
+            for (ScheduleRow row : rows.values()) {
+                if (existing.containsKey(row.key()) && row.contentHash.equals(existing.get(row.key()))) {
+                    continue;
+                }
+                changed.add(row);
+                batch.bind("courseId", row.courseId)
+                        .bind("semester", row.schedule.getSemester())
+                        .bind("rawData", row.rawData)
+                        .bind("contentHash", row.contentHash)
+                        .add();
+            }
+            if (changed.isEmpty()) {
+                return 0;
+            }
+            batch.execute();
+            replaceNormalizedSchedules(handle, changed);
+            return (int) changed.stream().filter(row -> !existing.containsKey(row.key())).count();
+        });
+        counts.add(inserted, changed.size() - inserted, rows.size() - changed.size());
+        changed.forEach(row -> courseCache.evictCourse(row.courseId));
+    }
+
+    /**
+     * Supprime les horaires qu'un cours n'a plus : pour chaque cours donné, les sessions absentes de sa
+     * liste, avec leurs sections / volets / activities.
+     * @param semestersByCourse sessions renvoyées par Planifium pour chaque cours dont le détail a été lu.
+     */
+    public void deleteStaleSchedules(Map<String, ? extends Collection<String>> semestersByCourse, WriteCounts counts) {
+        if (semestersByCourse.isEmpty()) {
+            return;
+        }
+
+        List<String> keep = new ArrayList<>();
+        semestersByCourse.forEach((courseId, semesters) -> semesters.forEach(semester -> keep.add(courseId + "|" + semester)));
+        counts.addDeleted(jdbi.inTransaction(handle -> handle.createQuery("""
+                        WITH stale AS (
+                            DELETE FROM schedules
+                            WHERE course_id = ANY(:courseIds)
+                              AND NOT (course_id || '|' || semester = ANY(:keep))
+                            RETURNING course_id, semester
+                        ), stale_sections AS (
+                            DELETE FROM sections s
+                            USING stale
+                            WHERE s.course_id = stale.course_id AND s.semester = stale.semester
+                        )
+                        SELECT count(*) FROM stale
+                        """)
+                .bindArray("courseIds", String.class, semestersByCourse.keySet())
+                .bindArray("keep", String.class, keep)
+                .mapTo(Integer.class)
+                .one()));
+    }
+
+    private static final class ScheduleRow {
+        private final String courseId;
+        private final Cours.Schedule schedule;
+        private final String rawData;
+        private final String contentHash;
+
+        private ScheduleRow(String courseId, Cours.Schedule schedule, String rawData, String contentHash) {
+            this.courseId = courseId;
+            this.schedule = schedule;
+            this.rawData = rawData;
+            this.contentHash = contentHash;
+        }
+
+        private String key() {
+            return courseId + "|" + schedule.getSemester();
+        }
+    }
+
+    /**
+     * Réécrit les lignes sections / volets / activities des horaires donnés, dans la transaction de leur
+     * upsert. Les ids des sections et des volets sont réservés d'avance dans leurs séquences : chaque
+     * niveau part alors en un seul batch, au lieu d'un INSERT ... RETURNING par section et par volet.
+     */
+    private void replaceNormalizedSchedules(Handle handle, List<ScheduleRow> rows) {
+        List<String> courseIds = new ArrayList<>(rows.size());
+        List<String> semesters = new ArrayList<>(rows.size());
+        int sectionCount = 0;
+        int voletCount = 0;
+        for (ScheduleRow row : rows) {
+            courseIds.add(row.courseId);
+            semesters.add(row.schedule.getSemester());
+            if (row.schedule.getSections() == null) {
+                continue;
+            }
+            for (Cours.Section section : row.schedule.getSections()) {
+                sectionCount++;
+                voletCount += section.getVolets() == null ? 0 : section.getVolets().size();
+            }
+        }
+
+        handle.createUpdate("""
+                        DELETE FROM sections s
+                        USING unnest(:courseIds, :semesters) AS k(course_id, semester)
+                        WHERE s.course_id = k.course_id AND s.semester = k.semester
+                        """)
+                .bindArray("courseIds", String.class, courseIds)
+                .bindArray("semesters", String.class, semesters)
+                .execute();
+        if (sectionCount == 0) {
+            return;
+        }
+
+        Iterator<Long> sectionIds = reserveIds(handle, "sections_id_seq", sectionCount).iterator();
+        Iterator<Long> voletIds = reserveIds(handle, "volets_id_seq", voletCount).iterator();
+        PreparedBatch sections = handle.prepareBatch("""
+                INSERT INTO sections (id, course_id, semester, position, name, capacity, number_inscription, teachers)
+                VALUES (:id, :courseId, :semester, :position, :name, :capacity, :numberInscription, :teachers)
+                """);
+        PreparedBatch volets = handle.prepareBatch("""
+                INSERT INTO volets (id, section_id, position, name, is_exam)
+                VALUES (:id, :sectionId, :position, :name, :exam)
+                """);
+        PreparedBatch activities = handle.prepareBatch("""
+                INSERT INTO activities (volet_id, course_id, semester, days_mask, start_minute, end_minute,
+                                        start_date, end_date, campus, pavillon_name, room, mode)
+                VALUES (:voletId, :courseId, :semester, :daysMask, :startMinute, :endMinute,
+                        :startDate, :endDate, :campus, :pavillonName, :room, :mode)
+                """);
+
+        for (ScheduleRow row : rows) {
+            if (row.schedule.getSections() == null) {
+                continue;
+            }
+            String semester = row.schedule.getSemester();
+            int sectionPosition = 0;
+            for (Cours.Section section : row.schedule.getSections()) {
+                long sectionId = sectionIds.next();
+                sections.bind("id", sectionId)
+                        .bind("courseId", row.courseId)
+                        .bind("semester", semester)
+                        .bind("position", ++sectionPosition)
+                        .bind("name", section.getName())
+                        .bind("capacity", parseCount(section.getCapacity()))
+                        .bind("numberInscription", parseCount(section.getNumber_inscription()))
+                        .bindArray("teachers", String.class, section.getTeachers() == null ? List.of() : section.getTeachers())
+                        .add();
+                if (section.getVolets() == null) {
+                    continue;
+                }
+
+                int voletPosition = 0;
+                for (Cours.Volet volet : section.getVolets()) {
+                    long voletId = voletIds.next();
+                    String voletName = volet.getName() == null ? "" : volet.getName().toLowerCase();
+                    volets.bind("id", voletId)
+                            .bind("sectionId", sectionId)
+                            .bind("position", ++voletPosition)
+                            .bind("name", volet.getName())
+                            .bind("exam", voletName.contains("intra") || voletName.contains("final"))
+                            .add();
+                    if (volet.getActivities() == null) {
+                        continue;
+                    }
+                    for (Cours.Activity activity : volet.getActivities()) {
+                        activities.bind("voletId", voletId)
+                                .bind("courseId", row.courseId)
+                                .bind("semester", semester)
+                                .bind("daysMask", ScheduleSlots.dayMask(activity.getDays()))
+                                .bind("startMinute", ScheduleSlots.minuteOfDay(activity.getStart_time()))
+                                .bind("endMinute", ScheduleSlots.minuteOfDay(activity.getEnd_time()))
+                                .bind("startDate", activity.getStart_date())
+                                .bind("endDate", activity.getEnd_date())
+                                .bind("campus", activity.getCampus())
+                                .bind("pavillonName", activity.getPavillon_name())
+                                .bind("room", activity.getRoom())
+                                .bind("mode", activity.getMode())
+                                .add();
+                    }
+                }
+            }
+        }
+
+        sections.execute();
+        if (volets.size() > 0) {
+            volets.execute();
+        }
+        if (activities.size() > 0) {
+            activities.execute();
+        }
+    }
+
+    /**
+     * Réserve {@code count} ids dans une séquence, en un aller-retour. Les séquences restent dans public,
+     * partagées par toutes les générations du catalogue (voir V11).
+     */
+    private static List<Long> reserveIds(Handle handle, String sequence, int count) {
+        if (count == 0) {
+            return List.of();
+        }
+        return handle.createQuery("SELECT nextval(CAST(:sequence AS regclass)) FROM generate_series(1, :count)")
+                .bind("sequence", "public." + sequence)
+                .bind("count", count)
+                .mapTo(Long.class)
+                .list();
+    }
+
+    private static Integer parseCount(String value) {
+        if (value == null || !value.trim().matches("\\d+")) {
+            return null;
+        }
+        return Integer.valueOf(value.trim());
+    }
+
+    /**
+     * Cours offrant au moins une section dont toutes les activités hebdomadaires (hors examens)
+     * tiennent dans les jours et la plage horaire donnés, ex. « seulement les après-midi du mardi et jeudi ».
+     * @param semester session, ex. "A25".
+     * @param daysMask jours permis (voir {@link ScheduleSlots}).
+     * @param fromMinute début de la plage permise, en minutes depuis minuit.
+     * @param toMinute fin de la plage permise, en minutes depuis minuit.
+     * @return les ids de cours, triés.
+     */
+    public List<String> findCourseIdsFittingWithin(String semester, int daysMask, int fromMinute, int toMinute) {
+        return jdbi.withHandle(handle -> handle.createQuery("""
+                        SELECT DISTINCT s.course_id
+                        FROM sections s
+                        WHERE s.semester = :semester
+                          AND EXISTS (
+                              SELECT 1 FROM volets v JOIN activities a ON a.volet_id = v.id
+                              WHERE v.section_id = s.id AND NOT v.is_exam AND a.days_mask <> 0
+                          )
+                          AND NOT EXISTS (
+                              SELECT 1 FROM volets v JOIN activities a ON a.volet_id = v.id
+                              WHERE v.section_id = s.id
+                                AND NOT v.is_exam
+                                AND a.days_mask <> 0
+                                AND ((a.days_mask & ~CAST(:daysMask AS smallint)) <> 0
+                                     OR a.start_minute < :fromMinute
+                                     OR a.end_minute > :toMinute)
+                          )
+                        ORDER BY s.course_id
+                        """)
+                .bind("semester", semester)
+                .bind("daysMask", daysMask)
+                .bind("fromMinute", fromMinute)
+                .bind("toMinute", toMinute)
+                .mapTo(String.class)
+                .list());
+    }
+
     public Optional<List<Cours>> findCoursesBy(String param, String value, boolean includeSchedule, String semester) {
         if (param == null || value == null) {
             return Optional.empty();
         }
 
-        String sql;
-        String queryValue;
-        if (param.equalsIgnoreCase("id")) {
-            sql = value.matches("^[A-Z]{3}\\d{4}$")
-                    ? "SELECT raw_data::text FROM courses WHERE upper(id) = upper(:value) ORDER BY id"
-                    : "SELECT raw_data::text FROM courses WHERE upper(id) LIKE upper(:value) ORDER BY id";
-            queryValue = value.matches("^[A-Z]{3}\\d{4}$") ? value : value + "%";
-        } else if (param.equalsIgnoreCase("name")) {
-            sql = "SELECT raw_data::text FROM courses WHERE lower(name) LIKE lower(:value) ORDER BY id";
-            queryValue = "%" + value + "%";
-        } else if (param.equalsIgnoreCase("description")) {
-            sql = "SELECT raw_data::text FROM courses WHERE lower(description) LIKE lower(:value) ORDER BY id";
-            queryValue = "%" + value + "%";
-        } else {
+        CatalogSnapshot current = currentSnapshot();
+        if (current != null) {
+            List<Cours> courses = current.findCoursesBy(param, value, includeSchedule, semester);
+            return courses.isEmpty() ? Optional.empty() : Optional.of(courses);
+        }
+
+        String[] filter = courseFilter(param, value);
+        if (filter == null) {
             return Optional.empty();
         }
+        String sql = "SELECT id FROM courses WHERE " + filter[0] + " ORDER BY id";
+        String queryValue = filter[1];
 
-        List<Cours> courses = jdbi.withHandle(handle ->
-                handle.createQuery(sql)
-                        .bind("value", queryValue)
-                        .map((rs, ctx) -> readCourse(rs.getString(1)))
-                        .list()
-        );
+        // Only matching ids are selected; courses already decoded come from the cache and the
+        // rest are loaded with their schedules in two more statements, whatever the match count.
+        List<Cours> courses = jdbi.withHandle(handle -> {
+            List<String> ids = handle.createQuery(sql)
+                    .bind("value", queryValue)
+                    .mapTo(String.class)
+                    .list();
 
-        if (courses.isEmpty()) {
+            Map<String, Cours> found = loadCourses(handle, ids, includeSchedule, semester);
+            List<Cours> ordered = new ArrayList<>(found.size());
+            for (String id : ids) {
+                Cours course = found.get(id);
+                if (course != null) {
+                    ordered.add(course);
+                }
+            }
+            return ordered;
+        });
+
+        return courses.isEmpty() ? Optional.empty() : Optional.of(courses);
+    }
+
+    /**
+     * Variante « passthrough » de {@link #findCoursesBy} : PostgreSQL assemble directement le tableau JSON
+     * à partir des documents JSONB stockés (horaires insérés dans "schedules" au besoin), sans construire
+     * de {@link Cours} ni resérialiser. Une session restreint aussi les cours à ceux qui ont un horaire pour
+     * cette session, comme le filtrage de CoursService.
+     * Le tableau entier est construit puis renvoyé en une seule chaîne : pour un grand nombre de cours,
+     * {@link #findCoursesPage} lit le résultat page par page.
+     * @return le tableau JSON ("[]" si aucun cours), ou vide si le paramètre est inconnu ou si le mode
+     * instantané est actif (les lectures doivent alors rester en mémoire).
+     */
+    public Optional<String> buildCoursesJsonArrayBy(String param, String value, boolean includeSchedule, String semester) {
+        if (param == null || value == null || snapshotEnabled) {
+            return Optional.empty();
+        }
+        String[] filter = courseFilter(param, value);
+        if (filter == null) {
+            return Optional.empty();
+        }
+
+        boolean filterSemester = includeSchedule && semester != null && !semester.isBlank();
+        String document = includeSchedule
+                ? "jsonb_set(c.raw_data, '{schedules}', coalesce(sch.docs, '[]'::jsonb))"
+                : "c.raw_data";
+        String sql = """
+                SELECT coalesce(jsonb_agg(d.doc ORDER BY d.id), '[]'::jsonb)::text
+                FROM (
+                    SELECT c.id, %s AS doc
+                    FROM courses c
+                    LEFT JOIN LATERAL (
+                        SELECT jsonb_agg(s.raw_data ORDER BY s.semester) AS docs
+                        FROM schedules s
+                        WHERE s.course_id = c.id%s
+                    ) sch ON %s
+                    WHERE %s%s
+                ) d
+                """.formatted(
+                document,
+                filterSemester ? " AND s.semester = :semester" : "",
+                includeSchedule ? "true" : "false",
+                filter[0],
+                filterSemester
+                        ? " AND EXISTS (SELECT 1 FROM schedules f WHERE f.course_id = c.id AND f.semester = :semester)"
+                        : "");
+
+        return Optional.of(jdbi.withHandle(handle -> {
+            var query = handle.createQuery(sql).bind("value", filter[1]);
+            if (filterSemester) {
+                query.bind("semester", semester);
+            }
+            return query.mapTo(String.class).one();
+        }));
+    }
+
+    /**
+     * Page par curseur de {@link #findCoursesBy} : les cours correspondants dont l'id suit {@code after},
+     * par id croissant. Avec une session, seuls les cours ayant un horaire pour cette session sont retenus,
+     * pour que chaque page soit complète.
+     * @param after id du dernier cours de la page précédente, ou null pour la première page.
+     * @param limit nombre maximal de cours.
+     * @return la page et, s'il reste des cours, le curseur de la suivante ; vide si le paramètre est inconnu.
+     */
+    public Optional<KeysetPage<Cours>> findCoursesPage(
+            String param,
+            String value,
+            boolean includeSchedule,
+            String semester,
+            String after,
+            int limit
+    ) {
+        if (param == null || value == null) {
+            return Optional.empty();
+        }
+
+        boolean filterSemester = includeSchedule && semester != null && !semester.isBlank();
+        CatalogSnapshot current = currentSnapshot();
+        if (current != null) {
+            if (courseFilter(param, value) == null) {
+                return Optional.empty();
+            }
+            List<Cours> courses = current.findCoursesAfter(param, value, includeSchedule,
+                    filterSemester ? semester : null, after, limit + 1);
+            return Optional.of(toKeysetPage(courses, limit));
+        }
+
+        String[] filter = courseFilter(param, value);
+        if (filter == null) {
             return Optional.empty();
         }
+        String sql = "SELECT id FROM courses WHERE " + filter[0]
+                + (after == null ? "" : " AND id > :after")
+                + (filterSemester
+                        ? " AND EXISTS (SELECT 1 FROM schedules s WHERE s.course_id = courses.id AND s.semester = :semester)"
+                        : "")
+                + " ORDER BY id LIMIT :limit";
+
+        List<Cours> courses = jdbi.withHandle(handle -> {
+            var query = handle.createQuery(sql)
+                    .bind("value", filter[1])
+                    .bind("limit", limit + 1);
+            if (after != null) {
+                query.bind("after", after);
+            }
+            if (filterSemester) {
+                query.bind("semester", semester);
+            }
+            List<String> ids = query.mapTo(String.class).list();
+
+            Map<String, Cours> found = loadCourses(handle, ids, includeSchedule, semester);
+            return ids.stream().map(found::get).filter(Objects::nonNull).toList();
+        });
+        return Optional.of(toKeysetPage(courses, limit));
+    }
+
+    private static KeysetPage<Cours> toKeysetPage(List<Cours> courses, int limit) {
+        if (courses.size() <= limit) {
+            return new KeysetPage<>(courses, null);
+        }
+        List<Cours> page = courses.subList(0, limit);
+        return new KeysetPage<>(page, page.get(limit - 1).getId());
+    }
+
+    /**
+     * @return la condition SQL sur la table courses et la valeur à lier à :value, ou null si le paramètre est inconnu.
+     */
+    private static String[] courseFilter(String param, String value) {
+        if (param.equalsIgnoreCase("id")) {
+            return value.matches("^[A-Z]{3}\\d{4}$")
+                    ? new String[]{"upper(id) = upper(:value)", value}
+                    : new String[]{"upper(id) LIKE upper(:value)", value + "%"};
+        }
+        if (param.equalsIgnoreCase("name")) {
+            return new String[]{"lower(name) LIKE lower(:value)", "%" + value + "%"};
+        }
+        if (param.equalsIgnoreCase("description")) {
+            return new String[]{"lower(description) LIKE lower(:value)", "%" + value + "%"};
+        }
+        return null;
+    }
+
+    /**
+     * Recherche plein texte (id, nom, description) insensible à la casse et aux accents, triée par
+     * pertinence (ts_rank) puis par id. Chaque mot est cherché comme préfixe et tous doivent correspondre.
+     * @param text mots recherchés.
+     * @param includeSchedule true pour joindre les horaires.
+     * @param semester si non null, seuls les cours ayant un horaire pour cette session sont retenus.
+     * @param limit taille de la page.
+     * @param offset nombre de résultats à sauter.
+     * @return la page demandée et le nombre total de correspondances.
+     */
+    public CourseSearchPage searchCourses(String text, boolean includeSchedule, String semester, int limit, int offset) {
+        String tsQuery = toPrefixTsQuery(text);
+        if (tsQuery.isEmpty()) {
+            return new CourseSearchPage(List.of(), 0, limit, offset);
+        }
+
+        boolean filterSemester = semester != null && !semester.isBlank();
+        String sql = """
+                SELECT c.id, count(*) OVER () AS total
+                FROM courses c, to_tsquery('simple', :query) AS q
+                WHERE c.search_vector @@ q
+                """
+                + (filterSemester
+                        ? "  AND EXISTS (SELECT 1 FROM schedules s WHERE s.course_id = c.id AND s.semester = :semester)\n"
+                        : "")
+                + """
+                ORDER BY ts_rank(c.search_vector, q) DESC, c.id
+                LIMIT :limit OFFSET :offset
+                """;
+
+        long[] total = new long[1];
+        CatalogSnapshot current = currentSnapshot();
+        List<Cours> courses = jdbi.withHandle(handle -> {
+            var query = handle.createQuery(sql)
+                    .bind("query", tsQuery)
+                    .bind("limit", limit)
+                    .bind("offset", offset);
+            if (filterSemester) {
+                query.bind("semester", semester);
+            }
+            List<String> ids = query.map((rs, ctx) -> {
+                        total[0] = rs.getLong("total");
+                        return rs.getString("id");
+                    })
+                    .list();
+
+            Map<String, Cours> found = new HashMap<>();
+            if (current != null) {
+                for (String id : ids) {
+                    current.findCourse(id, includeSchedule, semester).ifPresent(course -> found.put(id, course));
+                }
+            } else if (!ids.isEmpty()) {
+                found.putAll(loadCourses(handle, ids, includeSchedule, filterSemester ? semester : null));
+            }
+            return ids.stream().map(found::get).filter(Objects::nonNull).toList();
+        });
+
+        if (courses.isEmpty() && offset > 0 && total[0] == 0) {
+            // Page au-delà de la fin : le total reste utile au client.
+            total[0] = countMatches(tsQuery, filterSemester ? semester : null);
+        }
+        return new CourseSearchPage(courses, total[0], limit, offset);
+    }
+
+    private long countMatches(String tsQuery, String semester) {
+        String sql = "SELECT count(*) FROM courses c WHERE c.search_vector @@ to_tsquery('simple', :query)"
+                + (semester == null
+                        ? ""
+                        : " AND EXISTS (SELECT 1 FROM schedules s WHERE s.course_id = c.id AND s.semester = :semester)");
+        return jdbi.withHandle(handle -> {
+            var query = handle.createQuery(sql).bind("query", tsQuery);
+            if (semester != null) {
+                query.bind("semester", semester);
+            }
+            return query.mapTo(Long.class).one();
+        });
+    }
+
+    /**
+     * Transforme une saisie libre en requête tsquery de préfixes : "Génie logi" devient "genie:* & logi:*".
+     * Seuls les lettres et chiffres sont conservés, ce qui rend la requête sûre pour to_tsquery.
+     */
+    static String toPrefixTsQuery(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringJoiner query = new StringJoiner(" & ");
+        for (String token : fold(text).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                query.add(token + ":*");
+            }
+        }
+        return query.toString();
+    }
+
+    /**
+     * Équivalent Java de la fonction SQL pickcourse_fold : minuscules, sans accents.
+     */
+    static String fold(String text) {
+        String lower = text.toLowerCase(Locale.ROOT).replace("œ", "oe").replace("æ", "ae");
+        return Normalizer.normalize(lower, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+    }
+
+    /**
+     * Charge un ensemble de cours et leurs horaires avec au plus deux requêtes au total.
+     * @param courseIds ids exacts des cours.
+     * @param semester session à retenir pour les horaires, ou null pour toutes les sessions.
+     * @return les cours trouvés, dans l'ordre des ids demandés.
+     */
+    public Map<String, Cours> findCoursesByIds(Collection<String> courseIds, String semester) {
+        if (courseIds == null || courseIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Set<String> ids = new LinkedHashSet<>(courseIds);
+        Map<String, Cours> found = new HashMap<>();
+
+        CatalogSnapshot current = currentSnapshot();
+        if (current != null) {
+            for (String id : ids) {
+                current.findCourse(id, semester)
+                        .filter(course -> id.equals(course.getId()))
+                        .ifPresent(course -> found.put(id, course));
+            }
+        } else {
+            found.putAll(jdbi.withHandle(handle -> loadCourses(handle, ids, true, semester)));
+        }
+
+        Map<String, Cours> ordered = new LinkedHashMap<>();
+        for (String id : ids) {
+            Cours course = found.get(id);
+            if (course != null) {
+                ordered.put(id, course);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Charge en une seule requête les horaires d'un ensemble de cours, groupés par cours.
+     * @param courseIds ids des cours.
+     * @param semester session à retenir, ou null pour toutes les sessions.
+     * @return les horaires triés par session, indexés par id de cours (absents si aucun horaire).
+     */
+    public Map<String, List<Cours.Schedule>> findSchedulesFor(Collection<String> courseIds, String semester) {
+        if (courseIds == null || courseIds.isEmpty()) {
+            return Map.of();
+        }
 
-        if (includeSchedule) {
-            for (Cours course : courses) {
-                course.setSchedules(findSchedules(course.getId(), semester));
+        CatalogSnapshot current = currentSnapshot();
+        if (current != null) {
+            Map<String, List<Cours.Schedule>> grouped = new HashMap<>();
+            for (String courseId : courseIds) {
+                List<Cours.Schedule> schedules = current.findSchedules(courseId, semester);
+                if (!schedules.isEmpty()) {
+                    grouped.put(courseId, schedules);
+                }
             }
+            return grouped;
         }
 
-        return Optional.of(courses);
+        return jdbi.withHandle(handle -> findSchedulesFor(handle, courseIds, semester));
     }
 
     public List<Cours.Schedule> findSchedules(String courseId, String semester) {
+        CatalogSnapshot current = currentSnapshot();
+        if (current != null) {
+            return current.findSchedules(courseId, semester);
+        }
+
         String sql = semester == null || semester.isBlank()
                 ? "SELECT raw_data::text FROM schedules WHERE course_id = :courseId ORDER BY semester"
                 : "SELECT raw_data::text FROM schedules WHERE course_id = :courseId AND semester = :semester ORDER BY semester";
@@ -188,6 +1413,16 @@ public class CatalogCacheRepository {
     }
 
     public Optional<List<String>> findAllCourseIds() {
+        CatalogSnapshot current = currentSnapshot();
+        if (current != null) {
+            if (!current.isEmpty()) {
+                return Optional.of(current.allCourseIds());
+            }
+            Set<String> fromPrograms = new HashSet<>();
+            current.allProgramCourses().forEach(fromPrograms::addAll);
+            return Optional.of(new ArrayList<>(fromPrograms));
+        }
+
         List<String> ids = jdbi.withHandle(handle ->
                 handle.createQuery("SELECT id FROM courses ORDER BY id")
                         .mapTo(String.class)
@@ -198,15 +1433,19 @@ public class CatalogCacheRepository {
             return Optional.of(ids);
         }
 
-        Set<String> fromPrograms = new HashSet<>();
-        for (JsonNode program : findProgramRawData()) {
-            collectCourseIds(program, fromPrograms);
-        }
-
-        return Optional.of(new ArrayList<>(fromPrograms));
+        return Optional.of(jdbi.withHandle(handle ->
+                handle.createQuery("SELECT DISTINCT course_id FROM program_courses ORDER BY course_id")
+                        .mapTo(String.class)
+                        .list()
+        ));
     }
 
     public List<Map<String, String>> findAllPrograms() {
+        CatalogSnapshot current = currentSnapshot();
+        if (current != null) {
+            return current.programs();
+        }
+
         return jdbi.withHandle(handle ->
                 handle.createQuery("SELECT id, name FROM programs ORDER BY id")
                         .map((rs, ctx) -> {
@@ -220,42 +1459,297 @@ public class CatalogCacheRepository {
     }
 
     public String coursesForProgramJson(String programId) {
-        Optional<String> raw = jdbi.withHandle(handle ->
-                handle.createQuery("SELECT raw_data::text FROM programs WHERE id = :id")
-                        .bind("id", programId)
-                        .mapTo(String.class)
-                        .findOne()
-        );
+        CatalogSnapshot current = currentSnapshot();
+        if (current != null) {
+            Optional<List<String>> courses = current.coursesForProgram(programId);
+            if (courses.isEmpty()) {
+                return "[]";
+            }
+            try {
+                return mapper.writeValueAsString(List.of(Map.of("courses", courses.get())));
+            } catch (Exception e) {
+                throw new RuntimeException("Erreur lecture programme " + programId, e);
+            }
+        }
+
+        Optional<List<String>> courses = jdbi.withHandle(handle -> {
+            List<String> ids = handle.createQuery("""
+                            SELECT course_id
+                            FROM program_courses
+                            WHERE program_id = :id
+                            GROUP BY course_id
+                            ORDER BY min(position)
+                            """)
+                    .bind("id", programId)
+                    .mapTo(String.class)
+                    .list();
+            if (!ids.isEmpty()) {
+                return Optional.of(ids);
+            }
+            return handle.createQuery("SELECT 1 FROM programs WHERE id = :id")
+                    .bind("id", programId)
+                    .mapTo(Integer.class)
+                    .findOne()
+                    .map(found -> ids);
+        });
 
-        if (raw.isEmpty()) {
+        if (courses.isEmpty()) {
             return "[]";
         }
 
         try {
-            JsonNode program = mapper.readTree(raw.get());
-            Set<String> courses = new HashSet<>();
-            collectCourseIds(program, courses);
-            return mapper.writeValueAsString(List.of(Map.of("courses", new ArrayList<>(courses))));
+            return mapper.writeValueAsString(List.of(Map.of("courses", courses.get())));
         } catch (Exception e) {
             throw new RuntimeException("Erreur lecture programme " + programId, e);
         }
     }
 
+    /**
+     * Recherche inverse : les programmes qui incluent un cours, par l'index de {@code program_courses}.
+     * @param courseId id exact du cours, ex. "IFT2255".
+     * @return les programmes (id, nom), triés par id ; vide si aucun.
+     */
+    public List<Map<String, String>> findProgramsForCourse(String courseId) {
+        CatalogSnapshot current = currentSnapshot();
+        if (current != null) {
+            return current.programsForCourse(courseId);
+        }
+
+        return jdbi.withHandle(handle ->
+                handle.createQuery("""
+                                SELECT p.id, p.name
+                                FROM programs p
+                                WHERE p.id IN (SELECT program_id FROM program_courses WHERE course_id = :courseId)
+                                ORDER BY p.id
+                                """)
+                        .bind("courseId", courseId)
+                        .map((rs, ctx) -> {
+                            Map<String, String> map = new HashMap<>();
+                            map.put("id", rs.getString("id"));
+                            map.put("name", rs.getString("name"));
+                            return map;
+                        })
+                        .list()
+        );
+    }
+
+    /**
+     * Horaires d'un cours sous forme de tableau JSON. Hors mode instantané, les documents JSONB stockés
+     * sont agrégés par PostgreSQL et renvoyés tels quels, sans passer par {@link Cours.Schedule}.
+     */
     public InputStream schedulesAsInputStream(String courseId, String semester) {
         try {
-            String json = mapper.writeValueAsString(findSchedules(courseId, semester));
+            String json;
+            if (snapshotEnabled) {
+                json = mapper.writeValueAsString(findSchedules(courseId, semester));
+            } else {
+                boolean filterSemester = semester != null && !semester.isBlank();
+                String sql = "SELECT coalesce(jsonb_agg(raw_data ORDER BY semester), '[]'::jsonb)::text FROM schedules WHERE course_id = :courseId"
+                        + (filterSemester ? " AND semester = :semester" : "");
+                json = jdbi.withHandle(handle -> {
+                    var query = handle.createQuery(sql).bind("courseId", courseId);
+                    if (filterSemester) {
+                        query.bind("semester", semester);
+                    }
+                    return query.mapTo(String.class).one();
+                });
+            }
             return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
         } catch (Exception e) {
             throw new RuntimeException("Erreur lecture horaires " + courseId, e);
         }
     }
 
-    private List<JsonNode> findProgramRawData() {
-        return jdbi.withHandle(handle ->
-                handle.createQuery("SELECT raw_data::text FROM programs")
-                        .map((rs, ctx) -> readJson(rs.getString(1)))
+    private Map<String, List<Cours.Schedule>> findSchedulesFor(
+            Handle handle,
+            Collection<String> courseIds,
+            String semester
+    ) {
+        return findSchedulesFor(handle, courseIds, semester, new HashMap<>());
+    }
+
+    /**
+     * @param jsonChars reçoit, par cours, la taille cumulée du JSON des horaires lus.
+     */
+    private Map<String, List<Cours.Schedule>> findSchedulesFor(
+            Handle handle,
+            Collection<String> courseIds,
+            String semester,
+            Map<String, Long> jsonChars
+    ) {
+        boolean filterSemester = semester != null && !semester.isBlank();
+        String sql = filterSemester
+                ? "SELECT course_id, raw_data::text FROM schedules WHERE course_id = ANY(:ids) AND semester = :semester ORDER BY course_id, semester"
+                : "SELECT course_id, raw_data::text FROM schedules WHERE course_id = ANY(:ids) ORDER BY course_id, semester";
+
+        var query = handle.createQuery(sql).bindArray("ids", String.class, new LinkedHashSet<>(courseIds));
+        if (filterSemester) {
+            query.bind("semester", semester);
+        }
+
+        Map<String, List<Cours.Schedule>> grouped = new HashMap<>();
+        query.map((rs, ctx) -> {
+                    String json = rs.getString(2);
+                    jsonChars.merge(rs.getString(1), (long) json.length(), Long::sum);
+                    return Map.entry(rs.getString(1), readSchedule(json));
+                })
+                .forEach(row -> grouped.computeIfAbsent(row.getKey(), key -> new ArrayList<>()).add(row.getValue()));
+        return grouped;
+    }
+
+    /**
+     * Résout des ids exacts en cours décodés : le cache d'abord, puis une requête pour les cours
+     * manquants et une pour leurs horaires. Les cours retournés sont partagés avec le cache.
+     */
+    private Map<String, Cours> loadCourses(
+            Handle handle,
+            Collection<String> courseIds,
+            boolean includeSchedule,
+            String semester
+    ) {
+        long version = catalogVersion.get();
+        Map<String, Cours> found = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        for (String id : courseIds) {
+            Cours cached = courseCache.get(CourseCache.key(id, includeSchedule, semester), version);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        Map<String, Long> jsonChars = new HashMap<>();
+        Map<String, Cours> decoded = new HashMap<>();
+        handle.createQuery("SELECT id, raw_data::text FROM courses WHERE id = ANY(:ids)")
+                .bindArray("ids", String.class, missing)
+                .map((rs, ctx) -> {
+                    String json = rs.getString(2);
+                    jsonChars.merge(rs.getString(1), (long) json.length(), Long::sum);
+                    return Map.entry(rs.getString(1), readCourse(json));
+                })
+                .forEach(row -> decoded.put(row.getKey(), row.getValue()));
+
+        Map<String, List<Cours.Schedule>> schedules = includeSchedule && !decoded.isEmpty()
+                ? findSchedulesFor(handle, decoded.keySet(), semester, jsonChars)
+                : Map.of();
+
+        for (Map.Entry<String, Cours> entry : decoded.entrySet()) {
+            Cours course = entry.getValue();
+            if (includeSchedule) {
+                course.setSchedules(List.copyOf(schedules.getOrDefault(entry.getKey(), List.of())));
+            }
+            courseCache.put(CourseCache.key(entry.getKey(), includeSchedule, semester), course,
+                    jsonChars.getOrDefault(entry.getKey(), 0L), version);
+            found.put(entry.getKey(), course);
+        }
+        return found;
+    }
+
+    private CatalogSnapshot currentSnapshot() {
+        if (!snapshotEnabled) {
+            return null;
+        }
+
+        CatalogSnapshot current = snapshot.get();
+        if (current == null) {
+            synchronized (snapshot) {
+                current = snapshot.get();
+                if (current == null) {
+                    current = loadSnapshot();
+                    snapshot.set(current);
+                    LOGGER.info("Catalog snapshot loaded: " + current.stats());
+                }
+            }
+        }
+        return current;
+    }
+
+    private CourseAutocompleteIndex loadAutocompleteIndex() {
+        long version = catalogVersion.get();
+        CatalogSnapshot current = currentSnapshot();
+        if (current != null) {
+            return new CourseAutocompleteIndex(current.courseNames(), version);
+        }
+
+        List<CourseAutocompleteIndex.Suggestion> courses = jdbi.withHandle(handle ->
+                handle.createQuery("SELECT id, name FROM courses ORDER BY id")
+                        .map((rs, ctx) -> new CourseAutocompleteIndex.Suggestion(rs.getString("id"), rs.getString("name")))
                         .list()
         );
+        return new CourseAutocompleteIndex(courses, version);
+    }
+
+    private CourseAvailabilityIndex loadAvailabilityIndex() {
+        long version = catalogVersion.get();
+        CatalogSnapshot current = currentSnapshot();
+        if (current != null) {
+            return new CourseAvailabilityIndex(current.coursesByProgram(), current.courseIdsBySemester(), version);
+        }
+
+        return jdbi.withHandle(handle -> {
+            Map<String, Set<String>> bySemester = new HashMap<>();
+            handle.createQuery("SELECT course_id, semester FROM schedules")
+                    .map((rs, ctx) -> Map.entry(rs.getString(1), rs.getString(2)))
+                    .forEach(row -> bySemester.computeIfAbsent(row.getValue(), key -> new HashSet<>()).add(row.getKey()));
+
+            Map<String, Set<String>> byProgram = new HashMap<>();
+            handle.createQuery("SELECT program_id, course_id FROM program_courses")
+                    .map((rs, ctx) -> Map.entry(rs.getString(1), rs.getString(2)))
+                    .forEach(row -> byProgram.computeIfAbsent(row.getKey(), key -> new HashSet<>()).add(row.getValue()));
+            return new CourseAvailabilityIndex(byProgram, bySemester, version);
+        });
+    }
+
+    private CatalogSnapshot loadSnapshot() {
+        long start = System.nanoTime();
+        long[] rawJsonChars = new long[1];
+
+        return jdbi.withHandle(handle -> {
+            List<Cours> courses = handle.createQuery("SELECT raw_data::text FROM courses ORDER BY id")
+                    .map((rs, ctx) -> {
+                        String json = rs.getString(1);
+                        rawJsonChars[0] += json.length();
+                        return readCourse(json);
+                    })
+                    .list();
+
+            List<CatalogSnapshot.ScheduleRow> schedules = handle.createQuery(
+                            "SELECT course_id, semester, raw_data::text FROM schedules ORDER BY course_id, semester")
+                    .map((rs, ctx) -> {
+                        String json = rs.getString(3);
+                        rawJsonChars[0] += json.length();
+                        return new CatalogSnapshot.ScheduleRow(
+                                rs.getString(1), rs.getString(2), readSchedule(json));
+                    })
+                    .list();
+
+            Map<String, String> programNames = new LinkedHashMap<>();
+            Map<String, Set<String>> programCourses = new HashMap<>();
+            handle.createQuery("""
+                            SELECT p.id, p.name, pc.course_id
+                            FROM programs p
+                            LEFT JOIN program_courses pc ON pc.program_id = p.id
+                            ORDER BY p.id, pc.position
+                            """)
+                    .map((rs, ctx) -> new String[]{rs.getString(1), rs.getString(2), rs.getString(3)})
+                    .forEach(row -> {
+                        programNames.putIfAbsent(row[0], row[1]);
+                        Set<String> courseIds = programCourses.computeIfAbsent(row[0], key -> new LinkedHashSet<>());
+                        if (row[2] != null) {
+                            courseIds.add(row[2]);
+                        }
+                    });
+            List<CatalogSnapshot.ProgramRow> programs = new ArrayList<>(programNames.size());
+            programNames.forEach((id, name) ->
+                    programs.add(new CatalogSnapshot.ProgramRow(id, name, programCourses.get(id))));
+
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            return new CatalogSnapshot(courses, schedules, programs, rawJsonChars[0], millis);
+        });
     }
 
     private Cours readCourse(String json) {
@@ -274,30 +1768,83 @@ public class CatalogCacheRepository {
         }
     }
 
-    private JsonNode readJson(String json) {
-        try {
-            return mapper.readTree(json);
-        } catch (Exception e) {
-            throw new RuntimeException("Erreur mapping JSON cache", e);
+    /**
+     * Parcourt l'arbre d'un programme et ajoute, dans l'ordre, chaque cours de chaque liste {@code courses}
+     * rencontrée, avec le segment et le bloc qui l'englobent.
+     * Le remplissage initial de V6 ne suit que {@code segments → blocs → courses} : pour d'autres formes,
+     * ses lignes diffèrent de celles écrites ici. Ces programmes ont été migrés sans empreinte
+     * ({@code content_hash} ajouté par V9 à NULL), donc la synchronisation suivante les réécrit tous
+     * avec ce parcours.
+     */
+    private static void collectProgramCourses(JsonNode node, ProgramCourse where, List<ProgramCourse> out) {
+        if (node == null || !node.isContainerNode()) {
+            return;
         }
-    }
-
-    private void collectCourseIds(JsonNode node, Set<String> courseIds) {
-        if (node == null || node.isNull()) {
+        if (node.isArray()) {
+            for (JsonNode child : node) {
+                collectProgramCourses(child, where, out);
+            }
             return;
         }
 
-        JsonNode courses = node.get("courses");
-        if (courses != null && courses.isArray()) {
-            for (JsonNode course : courses) {
-                courseIds.add(course.asText());
+        for (Map.Entry<String, JsonNode> field : node.properties()) {
+            JsonNode value = field.getValue();
+            if (!value.isArray()) {
+                collectProgramCourses(value, where, out);
+                continue;
+            }
+            for (int i = 0; i < value.size(); i++) {
+                JsonNode child = value.get(i);
+                switch (field.getKey()) {
+                    case "courses" -> {
+                        if (child.isValueNode()) {
+                            out.add(where.course(child.asText()));
+                        } else {
+                            collectProgramCourses(child, where, out);
+                        }
+                    }
+                    case "segments" -> collectProgramCourses(child, where.segment(i + 1, child), out);
+                    case "blocs" -> collectProgramCourses(child, where.bloc(i + 1, child), out);
+                    default -> collectProgramCourses(child, where, out);
+                }
             }
         }
+    }
 
-        if (node.isObject() || node.isArray()) {
-            for (JsonNode child : node) {
-                collectCourseIds(child, courseIds);
-            }
+    /**
+     * Ligne de {@code program_courses} : un cours et sa place dans l'arbre du programme.
+     */
+    private static final class ProgramCourse {
+        private static final ProgramCourse ROOT = new ProgramCourse(null, null, null, null, null, null);
+
+        private final String courseId;
+        private final Integer segmentPosition;
+        private final String segmentName;
+        private final Integer blocPosition;
+        private final String blocId;
+        private final String blocName;
+
+        private ProgramCourse(String courseId, Integer segmentPosition, String segmentName,
+                              Integer blocPosition, String blocId, String blocName) {
+            this.courseId = courseId;
+            this.segmentPosition = segmentPosition;
+            this.segmentName = segmentName;
+            this.blocPosition = blocPosition;
+            this.blocId = blocId;
+            this.blocName = blocName;
+        }
+
+        private ProgramCourse segment(int position, JsonNode segment) {
+            return new ProgramCourse(null, position, segment.path("name").asText(null), null, null, null);
+        }
+
+        private ProgramCourse bloc(int position, JsonNode bloc) {
+            return new ProgramCourse(null, segmentPosition, segmentName, position,
+                    bloc.path("id").asText(null), bloc.path("name").asText(null));
+        }
+
+        private ProgramCourse course(String id) {
+            return new ProgramCourse(id, segmentPosition, segmentName, blocPosition, blocId, blocName);
         }
     }
 }
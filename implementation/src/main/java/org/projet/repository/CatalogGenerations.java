@@ -0,0 +1,270 @@
+package org.projet.repository;
+
+import org.jdbi.v3.core.ConnectionFactory;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.HandleCallback;
+import org.jdbi.v3.core.Jdbi;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Générations du catalogue. La synchronisation écrit dans une copie des tables du catalogue, placée dans
+ * le schéma {@code catalog_next}, pendant que l'API continue de lire les tables de {@code public}. Une
+ * seule transaction publie ensuite la copie en déplaçant les tables d'un schéma à l'autre : les lecteurs
+ * passent de l'ancien catalogue complet au nouveau, jamais à un catalogue à moitié synchronisé. La
+ * génération remplacée est gardée dans {@code catalog_prev} pour revenir en arrière sans resynchroniser.
+ */
+public class CatalogGenerations {
+    private static final Logger LOGGER = Logger.getLogger(CatalogGenerations.class.getName());
+    static final String LIVE_SCHEMA = "public";
+    static final String NEXT_SCHEMA = "catalog_next";
+    static final String PREVIOUS_SCHEMA = "catalog_prev";
+    // Tables d'une génération, les tables référencées avant celles qui les référencent.
+    static final List<String> TABLES = List.of(
+            "programs", "program_courses", "courses", "schedules", "sections", "volets", "activities");
+    // Le déplacement des tables attend la fin des lectures en cours ; au-delà, il est retenté.
+    private static final String SWAP_LOCK_TIMEOUT = "5s";
+    private static final int SWAP_ATTEMPTS = 3;
+    private static final String LOCK_NOT_AVAILABLE = "55P03";
+
+    private final Jdbi jdbi;
+
+    public CatalogGenerations(Jdbi jdbi) {
+        this.jdbi = jdbi;
+    }
+
+    /**
+     * Recrée {@code catalog_next} comme copie de la génération publiée, avec les mêmes contraintes et
+     * index (sous les mêmes noms), dans une transaction pour que la copie soit cohérente. Une copie
+     * laissée par une synchronisation interrompue est d'abord supprimée.
+     * @return un repository dont toutes les lectures et écritures portent sur {@code catalog_next}.
+     */
+    public CatalogCacheRepository prepareNext() {
+        jdbi.useTransaction(handle -> {
+            dropTables(handle, NEXT_SCHEMA);
+            List<Map<String, Object>> constraints = handle.createQuery("""
+                            SELECT cl.relname AS table_name, con.conname AS name, pg_get_constraintdef(con.oid) AS definition
+                            FROM pg_constraint con
+                            JOIN pg_class cl ON cl.oid = con.conrelid
+                            JOIN pg_namespace ns ON ns.oid = cl.relnamespace
+                            WHERE ns.nspname = :schema
+                              AND cl.relname = ANY(:tables)
+                              AND con.contype IN ('p', 'u', 'f')
+                            ORDER BY con.contype = 'f', cl.relname, con.conname
+                            """)
+                    .bind("schema", LIVE_SCHEMA)
+                    .bindArray("tables", String.class, TABLES)
+                    .mapToMap()
+                    .list();
+            // Index qui ne portent pas une contrainte : recréés tels quels à partir de leur définition.
+            List<Map<String, Object>> indexes = handle.createQuery("""
+                            SELECT ix.tablename AS table_name, ix.indexdef AS definition
+                            FROM pg_indexes ix
+                            WHERE ix.schemaname = :schema
+                              AND ix.tablename = ANY(:tables)
+                              AND NOT EXISTS (
+                                  SELECT 1
+                                  FROM pg_constraint con
+                                  WHERE con.conindid = format('%I.%I', ix.schemaname, ix.indexname)::regclass
+                                    AND con.contype IN ('p', 'u', 'x')
+                              )
+                            ORDER BY ix.tablename, ix.indexname
+                            """)
+                    .bind("schema", LIVE_SCHEMA)
+                    .bindArray("tables", String.class, TABLES)
+                    .mapToMap()
+                    .list();
+
+            for (String table : TABLES) {
+                handle.execute("CREATE TABLE " + NEXT_SCHEMA + "." + table
+                        + " (LIKE " + LIVE_SCHEMA + "." + table + " INCLUDING ALL EXCLUDING INDEXES)");
+                String columns = copiedColumns(handle, table);
+                handle.execute("INSERT INTO " + NEXT_SCHEMA + "." + table + " (" + columns + ") SELECT "
+                        + columns + " FROM " + LIVE_SCHEMA + "." + table);
+            }
+
+            // Définitions lues avec le search_path par défaut : les tables référencées n'y sont pas
+            // qualifiées et se résolvent maintenant vers catalog_next.
+            handle.execute("SET LOCAL search_path TO " + NEXT_SCHEMA + ", " + LIVE_SCHEMA);
+            for (Map<String, Object> constraint : constraints) {
+                handle.execute("ALTER TABLE " + NEXT_SCHEMA + "." + constraint.get("table_name")
+                        + " ADD CONSTRAINT " + constraint.get("name") + " " + constraint.get("definition"));
+            }
+            for (Map<String, Object> index : indexes) {
+                String table = (String) index.get("table_name");
+                String definition = (String) index.get("definition");
+                String live = " ON " + LIVE_SCHEMA + "." + table + " ";
+                if (!definition.contains(live)) {
+                    throw new IllegalStateException("Unexpected index definition: " + definition);
+                }
+                handle.execute(definition.replace(live, " ON " + NEXT_SCHEMA + "." + table + " "));
+            }
+        });
+        LOGGER.info("Next catalog generation prepared in " + NEXT_SCHEMA);
+        return new CatalogCacheRepository(nextJdbi());
+    }
+
+    /**
+     * Publie {@code catalog_next} : la génération publiée passe dans {@code catalog_prev}, qui perd
+     * l'avant-dernière, et la copie la remplace dans {@code public}, le tout dans une transaction.
+     */
+    public void publishNext() {
+        // Statistiques à jour avant que la copie ne serve ses premières lectures.
+        jdbi.useHandle(handle -> {
+            for (String table : TABLES) {
+                handle.execute("ANALYZE " + NEXT_SCHEMA + "." + table);
+            }
+        });
+        swap(handle -> {
+            dropTables(handle, PREVIOUS_SCHEMA);
+            moveTables(handle, LIVE_SCHEMA, PREVIOUS_SCHEMA);
+            moveTables(handle, NEXT_SCHEMA, LIVE_SCHEMA);
+            return null;
+        });
+        LOGGER.info("Next catalog generation published, previous one kept in " + PREVIOUS_SCHEMA);
+    }
+
+    /**
+     * Supprime {@code catalog_next}, sans toucher à la génération publiée.
+     */
+    public void discardNext() {
+        jdbi.useHandle(handle -> dropTables(handle, NEXT_SCHEMA));
+    }
+
+    /**
+     * Échange la génération publiée et celle gardée dans {@code catalog_prev}. Un second appel annule le
+     * premier.
+     * @return false s'il n'y a pas de génération précédente.
+     */
+    public boolean rollback() {
+        boolean rolledBack = swap(handle -> {
+            if (!hasGeneration(handle, PREVIOUS_SCHEMA)) {
+                return false;
+            }
+            dropTables(handle, NEXT_SCHEMA);
+            moveTables(handle, LIVE_SCHEMA, NEXT_SCHEMA);
+            moveTables(handle, PREVIOUS_SCHEMA, LIVE_SCHEMA);
+            moveTables(handle, NEXT_SCHEMA, PREVIOUS_SCHEMA);
+            return true;
+        });
+        if (rolledBack) {
+            LOGGER.info("Catalog rolled back to the previous generation");
+        }
+        return rolledBack;
+    }
+
+    /**
+     * @return true si une génération précédente est gardée dans {@code catalog_prev}.
+     */
+    public boolean hasPreviousGeneration() {
+        return jdbi.withHandle(handle -> hasGeneration(handle, PREVIOUS_SCHEMA));
+    }
+
+    private <T> T swap(HandleCallback<T, RuntimeException> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return jdbi.inTransaction(handle -> {
+                    handle.execute("SET LOCAL lock_timeout = '" + SWAP_LOCK_TIMEOUT + "'");
+                    return work.withHandle(handle);
+                });
+            } catch (RuntimeException e) {
+                if (attempt >= SWAP_ATTEMPTS || !isLockTimeout(e)) {
+                    throw e;
+                }
+                LOGGER.warning("Catalog tables busy, retrying generation swap (attempt " + (attempt + 1) + ")");
+            }
+        }
+    }
+
+    private static boolean isLockTimeout(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && LOCK_NOT_AVAILABLE.equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasGeneration(Handle handle, String schema) {
+        int tables = handle.createQuery("SELECT count(*) FROM pg_tables WHERE schemaname = :schema AND tablename = ANY(:tables)")
+                .bind("schema", schema)
+                .bindArray("tables", String.class, TABLES)
+                .mapTo(Integer.class)
+                .one();
+        return tables == TABLES.size();
+    }
+
+    private static void dropTables(Handle handle, String schema) {
+        handle.execute("DROP TABLE IF EXISTS " + TABLES.stream()
+                .map(table -> schema + "." + table)
+                .collect(Collectors.joining(", ")));
+    }
+
+    /**
+     * Déplace les tables avec leurs index et contraintes ; les clés étrangères suivent les tables
+     * qu'elles référencent, qui changent de schéma avec elles.
+     */
+    private static void moveTables(Handle handle, String from, String to) {
+        for (String table : TABLES) {
+            handle.execute("ALTER TABLE " + from + "." + table + " SET SCHEMA " + to);
+        }
+    }
+
+    /**
+     * @return les colonnes de la table, sans les colonnes générées que PostgreSQL recalcule.
+     */
+    private static String copiedColumns(Handle handle, String table) {
+        return handle.createQuery("""
+                        SELECT string_agg(quote_ident(column_name), ', ' ORDER BY ordinal_position)
+                        FROM information_schema.columns
+                        WHERE table_schema = :schema
+                          AND table_name = :table
+                          AND is_generated = 'NEVER'
+                        """)
+                .bind("schema", LIVE_SCHEMA)
+                .bind("table", table)
+                .mapTo(String.class)
+                .one();
+    }
+
+    /**
+     * Jdbi dont les connexions, prises dans le même pool, résolvent les tables du catalogue vers
+     * {@code catalog_next}. Le search_path est rétabli avant que la connexion ne retourne au pool.
+     */
+    private Jdbi nextJdbi() {
+        Map<Connection, Handle> handles = new ConcurrentHashMap<>();
+        return Jdbi.create(new ConnectionFactory() {
+            @Override
+            public Connection openConnection() {
+                Handle handle = jdbi.open();
+                try {
+                    handle.execute("SET search_path TO " + NEXT_SCHEMA + ", " + LIVE_SCHEMA);
+                } catch (RuntimeException e) {
+                    handle.close();
+                    throw e;
+                }
+                handles.put(handle.getConnection(), handle);
+                return handle.getConnection();
+            }
+
+            @Override
+            public void closeConnection(Connection connection) {
+                Handle handle = handles.remove(connection);
+                if (handle == null) {
+                    return;
+                }
+                try {
+                    handle.execute("RESET search_path");
+                } finally {
+                    handle.close();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,434 @@
+package org.projet.repository;
+
+import org.projet.model.Cours;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Instantané immuable du catalogue (cours, horaires, programmes) indexé en mémoire.
+ * Une instance n'est jamais modifiée après sa construction : une synchronisation produit un
+ * nouvel instantané qui remplace l'ancien d'un seul coup dans {@link CatalogCacheRepository}.
+ */
+public final class CatalogSnapshot {
+    private static final String FULL_ID_PATTERN = "^[A-Z]{3}\\d{4}$";
+    private static final Map<Class<?>, List<Field>> FIELDS = new ConcurrentHashMap<>();
+
+    private final NavigableMap<String, Cours> coursesById;
+    private final Map<String, NavigableMap<String, Cours.Schedule>> schedulesByCourse;
+    private final Map<String, NavigableSet<String>> courseIdsBySemester;
+    private final List<Map<String, String>> programs;
+    private final Map<String, List<String>> coursesByProgram;
+    private final Map<String, List<Map<String, String>>> programsByCourse;
+    private final Stats stats;
+
+    CatalogSnapshot(
+            List<Cours> courses,
+            List<ScheduleRow> schedules,
+            List<ProgramRow> programRows,
+            long rawJsonChars,
+            long loadMillis
+    ) {
+        NavigableMap<String, Cours> byId = new TreeMap<>();
+        for (Cours course : courses) {
+            byId.put(normalizeId(course.getId()), course);
+        }
+
+        Map<String, NavigableMap<String, Cours.Schedule>> byCourse = new HashMap<>();
+        Map<String, NavigableSet<String>> bySemester = new HashMap<>();
+        for (ScheduleRow row : schedules) {
+            byCourse.computeIfAbsent(row.courseId, key -> new TreeMap<>()).put(row.semester, row.schedule);
+            bySemester.computeIfAbsent(row.semester, key -> new TreeSet<>()).add(row.courseId);
+        }
+        byCourse.replaceAll((key, value) -> Collections.unmodifiableNavigableMap(value));
+        bySemester.replaceAll((key, value) -> Collections.unmodifiableNavigableSet(value));
+
+        List<Map<String, String>> programList = new ArrayList<>();
+        Map<String, List<String>> byProgram = new HashMap<>();
+        Map<String, List<Map<String, String>>> byMember = new HashMap<>();
+        for (ProgramRow row : programRows) {
+            Map<String, String> program = new HashMap<>();
+            program.put("id", row.id);
+            program.put("name", row.name);
+            Map<String, String> unmodifiableProgram = Collections.unmodifiableMap(program);
+            programList.add(unmodifiableProgram);
+            byProgram.put(row.id, List.copyOf(row.courseIds));
+            for (String courseId : row.courseIds) {
+                byMember.computeIfAbsent(courseId, key -> new ArrayList<>()).add(unmodifiableProgram);
+            }
+        }
+        byMember.replaceAll((key, value) -> Collections.unmodifiableList(value));
+
+        this.coursesById = Collections.unmodifiableNavigableMap(byId);
+        this.schedulesByCourse = Collections.unmodifiableMap(byCourse);
+        this.courseIdsBySemester = Collections.unmodifiableMap(bySemester);
+        this.programs = Collections.unmodifiableList(programList);
+        this.coursesByProgram = Collections.unmodifiableMap(byProgram);
+        this.programsByCourse = Collections.unmodifiableMap(byMember);
+        this.stats = new Stats(
+                coursesById.size(),
+                schedules.size(),
+                programs.size(),
+                courseIdsBySemester.size(),
+                rawJsonChars,
+                estimateBytes(List.of(coursesById, schedulesByCourse, courseIdsBySemester, programs, coursesByProgram,
+                        programsByCourse)),
+                loadMillis,
+                Instant.now().toString()
+        );
+    }
+
+    public boolean isEmpty() {
+        return coursesById.isEmpty();
+    }
+
+    /**
+     * Même sémantique que la recherche SQL de {@link CatalogCacheRepository#findCoursesBy}.
+     * Les cours retournés sont des copies : l'appelant peut remplacer leurs horaires sans
+     * altérer l'instantané partagé.
+     */
+    public List<Cours> findCoursesBy(String param, String value, boolean includeSchedule, String semester) {
+        Collection<Cours> matches;
+        if (param.equalsIgnoreCase("id")) {
+            String key = normalizeId(value);
+            if (value.matches(FULL_ID_PATTERN)) {
+                Cours course = coursesById.get(key);
+                matches = course == null ? List.of() : List.of(course);
+            } else {
+                matches = coursesById.subMap(key, true, key + Character.MAX_VALUE, false).values();
+            }
+        } else if (param.equalsIgnoreCase("name")) {
+            String needle = value.toLowerCase(Locale.ROOT);
+            matches = coursesById.values().stream()
+                    .filter(course -> contains(course.getName(), needle))
+                    .toList();
+        } else if (param.equalsIgnoreCase("description")) {
+            String needle = value.toLowerCase(Locale.ROOT);
+            matches = coursesById.values().stream()
+                    .filter(course -> contains(course.getDescription(), needle))
+                    .toList();
+        } else {
+            return List.of();
+        }
+
+        List<Cours> result = new ArrayList<>(matches.size());
+        for (Cours course : matches) {
+            result.add(course.withSchedules(includeSchedule
+                    ? findSchedules(course.getId(), semester)
+                    : course.getSchedules()));
+        }
+        return result;
+    }
+
+    /**
+     * Page par curseur de {@link #findCoursesBy} : parcourt les cours par id à partir de {@code after}
+     * et s'arrête dès que {@code limit} cours correspondent.
+     * @param semester si non null, seuls les cours ayant un horaire pour cette session sont retenus.
+     */
+    public List<Cours> findCoursesAfter(String param, String value, boolean includeSchedule, String semester,
+                                        String after, int limit) {
+        NavigableMap<String, Cours> range = coursesById;
+        if (param.equalsIgnoreCase("id")) {
+            String key = normalizeId(value);
+            range = value.matches(FULL_ID_PATTERN)
+                    ? coursesById.subMap(key, true, key, true)
+                    : coursesById.subMap(key, true, key + Character.MAX_VALUE, false);
+        }
+        if (after != null) {
+            String cursor = normalizeId(after);
+            range = range.isEmpty() || cursor.compareTo(range.lastKey()) >= 0
+                    ? Collections.emptyNavigableMap()
+                    : cursor.compareTo(range.firstKey()) < 0 ? range : range.tailMap(cursor, false);
+        }
+        String needle = value.toLowerCase(Locale.ROOT);
+
+        List<Cours> result = new ArrayList<>(Math.min(limit, range.size()));
+        for (Cours course : range.values()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if ((param.equalsIgnoreCase("name") && !contains(course.getName(), needle))
+                    || (param.equalsIgnoreCase("description") && !contains(course.getDescription(), needle))) {
+                continue;
+            }
+            if (semester != null && findSchedules(course.getId(), semester).isEmpty()) {
+                continue;
+            }
+            result.add(course.withSchedules(includeSchedule
+                    ? findSchedules(course.getId(), semester)
+                    : course.getSchedules()));
+        }
+        return result;
+    }
+
+    /**
+     * Recherche exacte d'un cours par id, avec ses horaires ; retourne une copie.
+     */
+    public Optional<Cours> findCourse(String courseId, String semester) {
+        return findCourse(courseId, true, semester);
+    }
+
+    public Optional<Cours> findCourse(String courseId, boolean includeSchedule, String semester) {
+        Cours course = coursesById.get(normalizeId(courseId));
+        if (course == null) {
+            return Optional.empty();
+        }
+        return Optional.of(course.withSchedules(includeSchedule
+                ? findSchedules(course.getId(), semester)
+                : course.getSchedules()));
+    }
+
+    public List<Cours.Schedule> findSchedules(String courseId, String semester) {
+        NavigableMap<String, Cours.Schedule> schedules = schedulesByCourse.get(courseId);
+        if (schedules == null) {
+            return List.of();
+        }
+        if (semester == null || semester.isBlank()) {
+            return List.copyOf(schedules.values());
+        }
+        Cours.Schedule schedule = schedules.get(semester);
+        return schedule == null ? List.of() : List.of(schedule);
+    }
+
+    public List<String> allCourseIds() {
+        return coursesById.values().stream().map(Cours::getId).toList();
+    }
+
+    /**
+     * @return l'id et le nom de chaque cours, triés par id, pour construire l'index d'autocomplétion.
+     */
+    public List<CourseAutocompleteIndex.Suggestion> courseNames() {
+        return coursesById.values().stream()
+                .map(course -> new CourseAutocompleteIndex.Suggestion(course.getId(), course.getName()))
+                .toList();
+    }
+
+    public Set<String> courseIdsForSemester(String semester) {
+        return courseIdsBySemester.getOrDefault(semester, Collections.emptyNavigableSet());
+    }
+
+    public List<Map<String, String>> programs() {
+        return programs;
+    }
+
+    public Optional<List<String>> coursesForProgram(String programId) {
+        return Optional.ofNullable(coursesByProgram.get(programId));
+    }
+
+    /**
+     * @return les ids des cours de chaque programme, indexés par id de programme.
+     */
+    public Map<String, List<String>> coursesByProgram() {
+        return coursesByProgram;
+    }
+
+    /**
+     * @return les programmes (id, nom) qui incluent le cours, triés par id ; vide si aucun.
+     */
+    public List<Map<String, String>> programsForCourse(String courseId) {
+        return programsByCourse.getOrDefault(courseId, List.of());
+    }
+
+    /**
+     * @return les ids des cours ayant un horaire, indexés par session.
+     */
+    public Map<String, NavigableSet<String>> courseIdsBySemester() {
+        return courseIdsBySemester;
+    }
+
+    public Collection<List<String>> allProgramCourses() {
+        return coursesByProgram.values();
+    }
+
+    public Stats stats() {
+        return stats;
+    }
+
+    private static boolean contains(String text, String needle) {
+        return text != null && text.toLowerCase(Locale.ROOT).contains(needle);
+    }
+
+    private static String normalizeId(String id) {
+        return id == null ? "" : id.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Estimation grossière de l'empreinte mémoire d'un graphe d'objets (en-têtes, références,
+     * chaînes compactes). Suffisant pour suivre l'évolution de la taille de l'instantané.
+     */
+    private static long estimateBytes(Object root) {
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(root);
+        long total = 0;
+
+        while (!pending.isEmpty()) {
+            Object current = pending.pop();
+            if (!seen.add(current)) {
+                continue;
+            }
+
+            if (current instanceof String text) {
+                total += 40 + text.length();
+            } else if (current instanceof Number || current instanceof Boolean) {
+                total += 16;
+            } else if (current instanceof Collection<?> collection) {
+                total += 40 + 8L * collection.size();
+                collection.forEach(element -> pushIfPresent(pending, element));
+            } else if (current instanceof Map<?, ?> map) {
+                total += 64 + 48L * map.size();
+                map.forEach((key, value) -> {
+                    pushIfPresent(pending, key);
+                    pushIfPresent(pending, value);
+                });
+            } else if (current instanceof Object[] array) {
+                total += 16 + 8L * array.length;
+                for (Object element : array) {
+                    pushIfPresent(pending, element);
+                }
+            } else {
+                List<Field> fields = FIELDS.computeIfAbsent(current.getClass(), CatalogSnapshot::instanceFields);
+                total += 16 + 8L * fields.size();
+                for (Field field : fields) {
+                    if (!field.getType().isPrimitive()) {
+                        try {
+                            pushIfPresent(pending, field.get(current));
+                        } catch (IllegalAccessException e) {
+                            // Champ inaccessible : compté comme une simple référence.
+                        }
+                    }
+                }
+            }
+        }
+        return total;
+    }
+
+    private static void pushIfPresent(Deque<Object> pending, Object value) {
+        if (value != null) {
+            pending.push(value);
+        }
+    }
+
+    private static List<Field> instanceFields(Class<?> type) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && field.trySetAccessible()) {
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    static final class ScheduleRow {
+        private final String courseId;
+        private final String semester;
+        private final Cours.Schedule schedule;
+
+        ScheduleRow(String courseId, String semester, Cours.Schedule schedule) {
+            this.courseId = courseId;
+            this.semester = semester;
+            this.schedule = schedule;
+        }
+    }
+
+    static final class ProgramRow {
+        private final String id;
+        private final String name;
+        private final Collection<String> courseIds;
+
+        ProgramRow(String id, String name, Collection<String> courseIds) {
+            this.id = id;
+            this.name = name;
+            this.courseIds = courseIds;
+        }
+    }
+
+    /**
+     * Statistiques d'un instantané, exposées pour le suivi de la mémoire.
+     */
+    public static final class Stats {
+        private final int courses;
+        private final int schedules;
+        private final int programs;
+        private final int semesters;
+        private final long rawJsonChars;
+        private final long estimatedHeapBytes;
+        private final long loadMillis;
+        private final String loadedAt;
+
+        public Stats(int courses, int schedules, int programs, int semesters, long rawJsonChars,
+                     long estimatedHeapBytes, long loadMillis, String loadedAt) {
+            this.courses = courses;
+            this.schedules = schedules;
+            this.programs = programs;
+            this.semesters = semesters;
+            this.rawJsonChars = rawJsonChars;
+            this.estimatedHeapBytes = estimatedHeapBytes;
+            this.loadMillis = loadMillis;
+            this.loadedAt = loadedAt;
+        }
+
+        public int getCourses() {
+            return courses;
+        }
+
+        public int getSchedules() {
+            return schedules;
+        }
+
+        public int getPrograms() {
+            return programs;
+        }
+
+        public int getSemesters() {
+            return semesters;
+        }
+
+        public long getRawJsonChars() {
+            return rawJsonChars;
+        }
+
+        public long getEstimatedHeapBytes() {
+            return estimatedHeapBytes;
+        }
+
+        public long getLoadMillis() {
+            return loadMillis;
+        }
+
+        public String getLoadedAt() {
+            return loadedAt;
+        }
+
+        @Override
+        public String toString() {
+            return "courses=" + courses
+                    + ", schedules=" + schedules
+                    + ", programs=" + programs
+                    + ", semesters=" + semesters
+                    + ", rawJsonChars=" + rawJsonChars
+                    + ", estimatedHeapBytes=" + estimatedHeapBytes
+                    + ", loadMs=" + loadMillis;
+        }
+    }
+}
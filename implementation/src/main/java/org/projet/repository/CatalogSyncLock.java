@@ -0,0 +1,148 @@
+package org.projet.repository;
+
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+import org.projet.config.DatabaseConfig;
+
+import java.lang.management.ManagementFactory;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Verrou de synchronisation du catalogue partagé par tous les nœuds : un verrou consultatif PostgreSQL
+ * ({@code pg_try_advisory_lock}) tenu par une connexion dédiée pendant toute la synchronisation. Si le
+ * nœud meurt, la connexion se ferme et PostgreSQL libère le verrou. Chaque synchronisation est inscrite
+ * dans {@code catalog_sync_runs}, ce qui permet aux autres nœuds de donner l'id de celle en cours.
+ */
+public class CatalogSyncLock {
+    private static final Logger LOGGER = Logger.getLogger(CatalogSyncLock.class.getName());
+    // Clé du verrou consultatif, propre à la synchronisation du catalogue.
+    private static final long LOCK_KEY = 0x7069636B_73796E63L;
+    private static CatalogSyncLock instance;
+
+    private final Jdbi jdbi;
+    private final String node = ManagementFactory.getRuntimeMXBean().getName();
+
+    public CatalogSyncLock(Jdbi jdbi) {
+        this.jdbi = jdbi;
+    }
+
+    public static CatalogSyncLock getInstance() {
+        if (instance == null) {
+            instance = new CatalogSyncLock(DatabaseConfig.jdbi());
+        }
+        return instance;
+    }
+
+    /**
+     * Prend le verrou sans attendre et inscrit une nouvelle synchronisation.
+     * @param trigger origine de la synchronisation ("admin" ou "scheduled").
+     * @return le bail à terminer en fin de synchronisation, ou vide si une synchronisation est déjà en
+     * cours sur un nœud.
+     */
+    public Optional<Lease> tryAcquire(String trigger) {
+        Handle handle = jdbi.open();
+        boolean locked = false;
+        try {
+            locked = handle.createQuery("SELECT pg_try_advisory_lock(:key)")
+                    .bind("key", LOCK_KEY)
+                    .mapTo(Boolean.class)
+                    .one();
+            if (!locked) {
+                handle.close();
+                return Optional.empty();
+            }
+
+            // Verrou tenu : une ligne encore ouverte vient d'un nœud mort pendant sa synchronisation.
+            handle.execute("""
+                    UPDATE catalog_sync_runs
+                    SET finished_at = now(), status = 'abandoned'
+                    WHERE finished_at IS NULL
+                    """);
+            UUID id = UUID.randomUUID();
+            handle.createUpdate("INSERT INTO catalog_sync_runs (id, trigger, node) VALUES (:id, :trigger, :node)")
+                    .bind("id", id)
+                    .bind("trigger", trigger)
+                    .bind("node", node)
+                    .execute();
+            return Optional.of(new Lease(handle, id));
+        } catch (RuntimeException e) {
+            if (locked) {
+                unlock(handle);
+            }
+            handle.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Libère le verrou avant que la connexion ne retourne au pool, qui ne réinitialise pas la session.
+     */
+    private static void unlock(Handle handle) {
+        try {
+            handle.createQuery("SELECT pg_advisory_unlock(:key)")
+                    .bind("key", LOCK_KEY)
+                    .mapTo(Boolean.class)
+                    .one();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Unable to release the catalog sync lock", e);
+        }
+    }
+
+    /**
+     * @return l'id de la synchronisation en cours, ou vide si aucune n'est inscrite.
+     */
+    public Optional<String> runningSyncId() {
+        return jdbi.withHandle(handle -> handle.createQuery("""
+                        SELECT id::text
+                        FROM catalog_sync_runs
+                        WHERE finished_at IS NULL
+                        ORDER BY started_at DESC
+                        LIMIT 1
+                        """)
+                .mapTo(String.class)
+                .findOne());
+    }
+
+    /**
+     * Synchronisation en cours sur ce nœud : garde la connexion qui tient le verrou.
+     */
+    public static class Lease {
+        private final Handle handle;
+        private final UUID id;
+        private boolean finished;
+
+        Lease(Handle handle, UUID id) {
+            this.handle = handle;
+            this.id = id;
+        }
+
+        public String getId() {
+            return id.toString();
+        }
+
+        /**
+         * Inscrit la fin de la synchronisation et libère le verrou.
+         * @param succeeded false si la synchronisation s'est arrêtée sur une erreur.
+         */
+        public synchronized void finish(boolean succeeded) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            try {
+                handle.createUpdate("UPDATE catalog_sync_runs SET finished_at = now(), status = :status WHERE id = :id")
+                        .bind("status", succeeded ? "succeeded" : "failed")
+                        .bind("id", id)
+                        .execute();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Unable to record the end of catalog sync " + id, e);
+            } finally {
+                unlock(handle);
+                handle.close();
+            }
+        }
+    }
+}
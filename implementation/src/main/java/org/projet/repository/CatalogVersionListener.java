@@ -0,0 +1,106 @@
+package org.projet.repository;
+
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Écoute les changements de version du catalogue publiés par les autres nœuds ({@code LISTEN}) et
+ * invalide les caches locaux de {@link CatalogCacheRepository}. Entre deux notifications, la version
+ * est relue à intervalle fixe ; si la connexion d'écoute tombe, la relecture continue pendant les
+ * tentatives de reconnexion. La connexion d'écoute, gardée ouverte en permanence, doit venir d'un
+ * Jdbi hors du pool (voir {@code DatabaseConfig.unpooledJdbi()}) pour ne pas y occuper une place.
+ */
+public final class CatalogVersionListener implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(CatalogVersionListener.class.getName());
+
+    private final Jdbi jdbi;
+    private final CatalogCacheRepository repository;
+    private final long pollMillis;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    /**
+     * @param jdbi Jdbi hors du pool qui ouvre la connexion d'écoute ; elle est fermée, et non rendue à un pool, à chaque reconnexion.
+     */
+    public CatalogVersionListener(Jdbi jdbi, CatalogCacheRepository repository, long pollMillis) {
+        this.jdbi = jdbi;
+        this.repository = repository;
+        this.pollMillis = pollMillis;
+        this.thread = new Thread(this::run, "catalog-version-listener");
+        this.thread.setDaemon(true);
+    }
+
+    public CatalogVersionListener start() {
+        thread.start();
+        return this;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            try (Handle handle = jdbi.open()) {
+                PGConnection connection = handle.getConnection().unwrap(PGConnection.class);
+                handle.execute("LISTEN " + CatalogCacheRepository.CATALOG_CHANNEL);
+                LOGGER.info("Listening for catalog version changes (poll every " + pollMillis + " ms)");
+
+                // Rattrape les versions publiées pendant que personne n'écoutait.
+                repository.applyCatalogVersion(CatalogCacheRepository.readCatalogVersion(handle));
+                while (running) {
+                    PGNotification[] notifications = connection.getNotifications((int) pollMillis);
+                    if (notifications != null && notifications.length > 0) {
+                        repository.applyCatalogVersion(latest(notifications));
+                    } else {
+                        // Aucune notification : relecture, qui vérifie aussi que la connexion est vivante.
+                        repository.applyCatalogVersion(CatalogCacheRepository.readCatalogVersion(handle));
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                LOGGER.log(Level.WARNING, "Catalog version listener disconnected, polling until it reconnects", e);
+                pollOnce();
+                sleep();
+            }
+        }
+    }
+
+    private void pollOnce() {
+        try {
+            repository.applyCatalogVersion(repository.persistedCatalogVersion());
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE, "Catalog version poll failed", e);
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(pollMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private static long latest(PGNotification[] notifications) {
+        long latest = -1;
+        for (PGNotification notification : notifications) {
+            try {
+                latest = Math.max(latest, Long.parseLong(notification.getParameter()));
+            } catch (NumberFormatException e) {
+                LOGGER.warning("Ignoring malformed catalog version notification: " + notification.getParameter());
+            }
+        }
+        return latest;
+    }
+}
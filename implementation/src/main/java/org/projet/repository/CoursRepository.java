@@ -24,7 +24,7 @@ public class CoursRepository implements IRepository {
     private final CatalogCacheRepository catalogCacheRepository;
 
     private CoursRepository() {
-        this(new CatalogCacheRepository());
+        this(CatalogCacheRepository.getInstance());
     }
 
     public CoursRepository(CatalogCacheRepository catalogCacheRepository) {
@@ -64,6 +64,85 @@ public class CoursRepository implements IRepository {
         return catalogCacheRepository.findCoursesBy(param, value, includeSchedule, semester);
     }
 
+    /**
+     * Cette méthode permet de récupérer les cours du cache local directement en JSON, tels que stockés.
+     * @param param paramètre de la recherche ( id, nom, ou description)
+     * @param value valeur de la recherche.
+     * @param includeScheduleBool "true" ou "false" dépendamment de si on veut inclure ou non le schedule
+     * @param semester le semestre si jamais on veut inclure le schedule
+     * @return le tableau JSON, ou vide en mode instantané.
+     * @throws Exception en cas d'erreur
+     */
+    public Optional<String> getCoursesJsonArrayBy(
+            String param,
+            String value,
+            String includeScheduleBool,
+            String semester
+    ) throws Exception {
+        boolean includeSchedule = "true".equalsIgnoreCase(includeScheduleBool);
+        return catalogCacheRepository.buildCoursesJsonArrayBy(param, value, includeSchedule, semester);
+    }
+
+    /**
+     * Cette méthode permet de récupérer une page de cours du cache local, par curseur sur l'id.
+     * @param param paramètre de la recherche ( id, nom, ou description)
+     * @param value valeur de la recherche.
+     * @param includeScheduleBool "true" ou "false" dépendamment de si on veut inclure ou non le schedule
+     * @param semester le semestre si jamais on veut inclure le schedule
+     * @param after id du dernier cours de la page précédente, ou null pour la première page.
+     * @param limit nombre maximal de cours.
+     * @return la page, ou vide si le paramètre est inconnu.
+     * @throws Exception en cas d'erreur
+     */
+    public Optional<KeysetPage<Cours>> getCoursePageBy(
+            String param,
+            String value,
+            String includeScheduleBool,
+            String semester,
+            String after,
+            int limit
+    ) throws Exception {
+        boolean includeSchedule = "true".equalsIgnoreCase(includeScheduleBool);
+        return catalogCacheRepository.findCoursesPage(param, value, includeSchedule, semester, after, limit);
+    }
+
+    /**
+     * Cette méthode permet de récupérer plusieurs cours (avec leurs horaires) du cache local en une seule opération.
+     * @param ids ids exacts des cours recherchés.
+     * @param semester session à retenir pour les horaires, ou null pour toutes les sessions.
+     * @return les cours trouvés indexés par id, dans l'ordre des ids demandés.
+     * @throws Exception en cas d'erreur
+     */
+    public Map<String, Cours> getCoursesByIds(Collection<String> ids, String semester) throws Exception {
+        return catalogCacheRepository.findCoursesByIds(ids, semester);
+    }
+
+    /**
+     * Cette méthode permet une recherche plein texte paginée des cours du cache local.
+     * @param text mots recherchés.
+     * @param includeSchedule "true" pour inclure les horaires.
+     * @param semester session à laquelle restreindre les résultats, ou null.
+     * @param limit taille de la page.
+     * @param offset nombre de résultats à sauter.
+     * @return la page de résultats et le nombre total de correspondances.
+     * @throws Exception en cas d'erreur
+     */
+    public CourseSearchPage searchCourses(String text, String includeSchedule, String semester, int limit, int offset)
+            throws Exception {
+        return catalogCacheRepository.searchCourses(text, "true".equalsIgnoreCase(includeSchedule), semester, limit, offset);
+    }
+
+    /**
+     * Cette méthode permet l'autocomplétion des cours à partir de l'index en mémoire du cache local.
+     * @param query début de l'id ou du nom saisi.
+     * @param limit nombre maximal de suggestions.
+     * @return les suggestions (id et nom).
+     * @throws Exception en cas d'erreur
+     */
+    public List<CourseAutocompleteIndex.Suggestion> autocompleteCourses(String query, int limit) throws Exception {
+        return catalogCacheRepository.autocomplete(query, limit);
+    }
+
     /**
      * Cette méthode permet de récupérer tous les ids de Cours du cache local.
      * Nous n'avions pas trouvé de routes permettant de récupérer directement tous les ids de Cours,
@@ -77,6 +156,14 @@ public class CoursRepository implements IRepository {
         return catalogCacheRepository.findAllCourseIds();
     }
 
+    /**
+     * Cette méthode permet de récupérer la version courante du catalogue du cache local.
+     * @return la version du catalogue, incrémentée après chaque synchronisation.
+     */
+    public long getCatalogVersion() {
+        return catalogCacheRepository.catalogVersion();
+    }
+
     /**
      * Cette methode retourne une liste qui contient des clés valeurs avec l'id des programmes et le nom.
      * @return Une liste clés valeurs avec l'id des programmes et le nom.
@@ -137,6 +224,42 @@ public class CoursRepository implements IRepository {
         return catalogCacheRepository.coursesForProgramJson(programID);
     }
 
+    /**
+     * Cette méthode permet de récupérer les programmes qui incluent un cours donné, depuis la table
+     * d'appartenance {@code program_courses} du cache local.
+     * @param courseID id du cours, ex. "IFT2255".
+     * @return les programmes (id, nom), triés par id.
+     * @throws Exception en cas d'erreur
+     */
+    public List<Map<String, String>> getProgramsForCourse(String courseID) throws Exception {
+        return catalogCacheRepository.findProgramsForCourse(courseID);
+    }
+
+    /**
+     * Cette méthode permet de récupérer les cours d'un programme offerts pendant une session, depuis
+     * l'index des disponibilités construit à partir du cache local.
+     * @param programID id du programme.
+     * @param semester session, ex. "A25".
+     * @return les ids des cours, triés.
+     * @throws Exception en cas d'erreur
+     */
+    public List<String> getCoursesAvailable(String programID, String semester) throws Exception {
+        return catalogCacheRepository.findCoursesAvailable(programID, semester);
+    }
+
+    /**
+     * Cette méthode permet de récupérer les cours offrant, pendant une session, au moins une section dont
+     * toutes les activités hebdomadaires tiennent dans les jours et la plage horaire donnés.
+     * @param semester session, ex. "A25".
+     * @param daysMask jours permis, en masque de bits (voir {@link ScheduleSlots}).
+     * @param fromMinute début de la plage permise, en minutes depuis minuit.
+     * @param toMinute fin de la plage permise, en minutes depuis minuit.
+     * @return les ids des cours, triés.
+     */
+    public List<String> getCoursesFittingWithin(String semester, int daysMask, int fromMinute, int toMinute) {
+        return catalogCacheRepository.findCourseIdsFittingWithin(semester, daysMask, fromMinute, toMinute);
+    }
+
     /**
      * Cette méthode permet de fetch les schedules.
      * @param courseID id du cours dont on veut fetch les schedules.
@@ -0,0 +1,206 @@
+package org.projet.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Index en mémoire, immuable, pour l'autocomplétion des cours par préfixe d'id ou de nom.
+ * Les clés (repliées : minuscules, sans accents) sont gardées dans des tableaux triés ; une recherche
+ * est une recherche dichotomique suivie d'un parcours tant que le préfixe correspond, sans accès à la base.
+ * Les correspondances sur l'id passent avant celles sur le début du nom, puis sur un mot du nom.
+ */
+public final class CourseAutocompleteIndex {
+    private static final CourseAutocompleteIndex EMPTY = new CourseAutocompleteIndex(List.of(), 0);
+
+    private final String[] ids;
+    private final String[] names;
+    private final String[][] nameWords;
+    private final Tier byId;
+    private final Tier byName;
+    private final Tier byWord;
+    private final long catalogVersion;
+
+    /**
+     * @param courses paires (id, nom) du catalogue.
+     * @param catalogVersion version du catalogue à partir de laquelle l'index est construit.
+     */
+    public CourseAutocompleteIndex(List<Suggestion> courses, long catalogVersion) {
+        int size = courses.size();
+        this.ids = new String[size];
+        this.names = new String[size];
+        this.nameWords = new String[size][];
+        this.catalogVersion = catalogVersion;
+
+        List<String> idKeys = new ArrayList<>(size);
+        List<String> nameKeys = new ArrayList<>(size);
+        List<String> wordKeys = new ArrayList<>(size * 4);
+        List<Integer> wordCourses = new ArrayList<>(size * 4);
+        for (int i = 0; i < size; i++) {
+            Suggestion course = courses.get(i);
+            ids[i] = course.getId();
+            names[i] = course.getName();
+            idKeys.add(String.join("", tokens(course.getId())));
+            String[] words = tokens(course.getName());
+            nameWords[i] = words;
+            nameKeys.add(String.join(" ", words));
+            for (String word : words) {
+                wordKeys.add(word);
+                wordCourses.add(i);
+            }
+        }
+
+        this.byId = new Tier(idKeys, null);
+        this.byName = new Tier(nameKeys, null);
+        this.byWord = new Tier(wordKeys, wordCourses);
+    }
+
+    public static CourseAutocompleteIndex empty() {
+        return EMPTY;
+    }
+
+    public long catalogVersion() {
+        return catalogVersion;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @param query début d'un sigle ("ift2", "IFT 22") ou de mots du nom ("prog", "génie log").
+     * @param limit nombre maximal de suggestions.
+     * @return les cours correspondants, sans doublon, les correspondances sur l'id en premier.
+     */
+    public List<Suggestion> suggest(String query, int limit) {
+        if (query == null || limit <= 0 || ids.length == 0) {
+            return List.of();
+        }
+        String[] queryTokens = tokens(query);
+        if (queryTokens.length == 0) {
+            return List.of();
+        }
+
+        List<Suggestion> suggestions = new ArrayList<>(Math.min(limit, 16));
+        BitSet seen = new BitSet(ids.length);
+        collect(byId, String.join("", queryTokens), limit, seen, suggestions, null);
+        collect(byName, String.join(" ", queryTokens), limit, seen, suggestions, null);
+
+        // Mot le plus long comme point d'entrée ; les autres doivent préfixer un mot du même nom.
+        String longest = queryTokens[0];
+        for (String token : queryTokens) {
+            if (token.length() > longest.length()) {
+                longest = token;
+            }
+        }
+        collect(byWord, longest, limit, seen, suggestions, queryTokens.length == 1 ? null : queryTokens);
+        return suggestions;
+    }
+
+    private boolean everyTokenPrefixesAWord(int course, String[] queryTokens) {
+        for (String token : queryTokens) {
+            boolean matched = false;
+            for (String word : nameWords[course]) {
+                if (word.startsWith(token)) {
+                    matched = true;
+                    break;
+                }
+            }
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String[] tokens(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        return Arrays.stream(CatalogCacheRepository.fold(text).split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> !token.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Ajoute, dans l'ordre des clés, les cours dont une clé commence par le préfixe.
+     * @param allTokens si non null, mots de la requête qui doivent tous préfixer un mot du nom.
+     */
+    private void collect(Tier tier, String prefix, int limit, BitSet seen, List<Suggestion> out, String[] allTokens) {
+        for (int i = tier.lowerBound(prefix); i < tier.keys.length && out.size() < limit; i++) {
+            if (!tier.keys[i].startsWith(prefix)) {
+                return;
+            }
+            int course = tier.courses[i];
+            if (seen.get(course) || (allTokens != null && !everyTokenPrefixesAWord(course, allTokens))) {
+                continue;
+            }
+            seen.set(course);
+            out.add(new Suggestion(ids[course], names[course]));
+        }
+    }
+
+    /**
+     * Clés triées et, en parallèle, le cours auquel chacune renvoie.
+     */
+    private static final class Tier {
+        private final String[] keys;
+        private final int[] courses;
+
+        private Tier(List<String> keys, List<Integer> courses) {
+            Integer[] order = new Integer[keys.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparing((Integer i) -> keys.get(i))
+                    .thenComparingInt(i -> courses == null ? i : courses.get(i)));
+
+            this.keys = new String[order.length];
+            this.courses = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                this.keys[i] = keys.get(order[i]);
+                this.courses[i] = courses == null ? order[i] : courses.get(order[i]);
+            }
+        }
+
+        /**
+         * @return l'indice de la première clé supérieure ou égale au préfixe.
+         */
+        private int lowerBound(String prefix) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (keys[middle].compareTo(prefix) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Suggestion renvoyée au client : seulement l'id et le nom du cours.
+     */
+    public static final class Suggestion {
+        private final String id;
+        private final String name;
+
+        public Suggestion(String id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.projet.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Index en mémoire, immuable, de la disponibilité des cours par programme et par session.
+ * Chaque cours reçoit un ordinal dense (ordre des ids) ; un programme et une session sont chacun
+ * un {@link BitSet} sur ces ordinaux, et les cours d'un programme offerts pendant une session
+ * sont l'intersection des deux, sans accès à la base.
+ */
+public final class CourseAvailabilityIndex {
+    private static final CourseAvailabilityIndex EMPTY = new CourseAvailabilityIndex(Map.of(), Map.of(), 0);
+
+    private final String[] courseIds;
+    private final Map<String, BitSet> byProgram;
+    private final Map<String, BitSet> bySemester;
+    private final long catalogVersion;
+
+    /**
+     * @param coursesByProgram ids des cours de chaque programme.
+     * @param coursesBySemester ids des cours ayant un horaire pour chaque session.
+     * @param catalogVersion version du catalogue à partir de laquelle l'index est construit.
+     */
+    public CourseAvailabilityIndex(
+            Map<String, ? extends Collection<String>> coursesByProgram,
+            Map<String, ? extends Collection<String>> coursesBySemester,
+            long catalogVersion
+    ) {
+        TreeSet<String> ids = new TreeSet<>();
+        coursesByProgram.values().forEach(ids::addAll);
+        this.courseIds = ids.toArray(String[]::new);
+        this.byProgram = toBitSets(coursesByProgram);
+        this.bySemester = toBitSets(coursesBySemester);
+        this.catalogVersion = catalogVersion;
+    }
+
+    public static CourseAvailabilityIndex empty() {
+        return EMPTY;
+    }
+
+    public long catalogVersion() {
+        return catalogVersion;
+    }
+
+    /**
+     * @param programId id du programme.
+     * @param semester session, ex. "A25".
+     * @return les ids des cours du programme ayant un horaire pour la session, triés ; vide si le
+     * programme ou la session sont inconnus.
+     */
+    public List<String> coursesAvailable(String programId, String semester) {
+        BitSet program = programId == null ? null : byProgram.get(programId);
+        BitSet offered = semester == null ? null : bySemester.get(semester);
+        if (program == null || offered == null) {
+            return List.of();
+        }
+
+        BitSet available = (BitSet) program.clone();
+        available.and(offered);
+        List<String> result = new ArrayList<>(available.cardinality());
+        for (int ordinal = available.nextSetBit(0); ordinal >= 0; ordinal = available.nextSetBit(ordinal + 1)) {
+            result.add(courseIds[ordinal]);
+        }
+        return result;
+    }
+
+    public int courseCount() {
+        return courseIds.length;
+    }
+
+    public int programCount() {
+        return byProgram.size();
+    }
+
+    public int semesterCount() {
+        return bySemester.size();
+    }
+
+    /**
+     * Les cours absents de tout programme sont ignorés : ils ne peuvent figurer dans aucun résultat.
+     */
+    private Map<String, BitSet> toBitSets(Map<String, ? extends Collection<String>> groups) {
+        Map<String, BitSet> bitSets = new HashMap<>(groups.size() * 2);
+        for (Map.Entry<String, ? extends Collection<String>> group : groups.entrySet()) {
+            BitSet bits = new BitSet(courseIds.length);
+            for (String id : group.getValue()) {
+                int ordinal = Arrays.binarySearch(courseIds, id);
+                if (ordinal >= 0) {
+                    bits.set(ordinal);
+                }
+            }
+            bitSets.put(group.getKey(), bits);
+        }
+        return Map.copyOf(bitSets);
+    }
+}
@@ -0,0 +1,186 @@
+package org.projet.repository;
+
+import org.projet.model.Cours;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache borné des cours déjà décodés (avec leurs horaires), pour éviter de redésérialiser le même
+ * JSONB à chaque requête. Éviction LRU selon un poids (taille du JSON source) ; tout le contenu est
+ * invalidé dès que la version du catalogue change.
+ * Les cours mis en cache sont partagés : les appelants ne doivent pas les modifier
+ * (voir {@link Cours#withSchedules}).
+ */
+public final class CourseCache {
+    private final long maxWeight;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long weight;
+    private long version;
+
+    /**
+     * @param maxWeight poids total maximal (en caractères JSON) ; 0 désactive le cache.
+     */
+    public CourseCache(long maxWeight) {
+        this.maxWeight = Math.max(0, maxWeight);
+    }
+
+    /**
+     * @param id id du cours.
+     * @param includeSchedule true si les horaires font partie de l'entrée.
+     * @param semester session des horaires, ou null pour toutes.
+     * @return la clé de cache correspondante.
+     */
+    static String key(String id, boolean includeSchedule, String semester) {
+        if (!includeSchedule) {
+            return id + "|-";
+        }
+        return id + "|" + (semester == null || semester.isBlank() ? "*" : semester);
+    }
+
+    public boolean isEnabled() {
+        return maxWeight > 0;
+    }
+
+    synchronized Cours get(String key, long catalogVersion) {
+        if (!isEnabled()) {
+            return null;
+        }
+        resetIfStale(catalogVersion);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.course;
+    }
+
+    /**
+     * Ajoute un cours décodé sous la version lue avant la requête ; ignoré si le catalogue a changé
+     * entre-temps, pour ne jamais réinsérer une donnée périmée.
+     */
+    synchronized void put(String key, Cours course, long entryWeight, long catalogVersion) {
+        if (!isEnabled() || entryWeight > maxWeight) {
+            return;
+        }
+        resetIfStale(catalogVersion);
+        if (catalogVersion != version) {
+            return;
+        }
+
+        Entry previous = entries.put(key, new Entry(course, entryWeight));
+        if (previous != null) {
+            weight -= previous.weight;
+        }
+        weight += entryWeight;
+
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            weight -= eldest.next().getValue().weight;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Retire toutes les entrées d'un cours (toutes sessions), après sa réécriture.
+     */
+    synchronized void evictCourse(String id) {
+        if (id == null || entries.isEmpty()) {
+            return;
+        }
+        String prefix = id + "|";
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> entry = iterator.next();
+            if (entry.getKey().startsWith(prefix)) {
+                weight -= entry.getValue().weight;
+                iterator.remove();
+            }
+        }
+    }
+
+    synchronized void invalidate(long catalogVersion) {
+        entries.clear();
+        weight = 0;
+        version = catalogVersion;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(entries.size(), weight, maxWeight, hits.sum(), misses.sum(), evictions.sum(), version);
+    }
+
+    private void resetIfStale(long catalogVersion) {
+        if (catalogVersion > version) {
+            invalidate(catalogVersion);
+        }
+    }
+
+    private static final class Entry {
+        private final Cours course;
+        private final long weight;
+
+        private Entry(Cours course, long weight) {
+            this.course = course;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Compteurs du cache, exposés pour le suivi.
+     */
+    public static final class Stats {
+        private final int entries;
+        private final long weight;
+        private final long maxWeight;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long catalogVersion;
+
+        public Stats(int entries, long weight, long maxWeight, long hits, long misses, long evictions,
+                     long catalogVersion) {
+            this.entries = entries;
+            this.weight = weight;
+            this.maxWeight = maxWeight;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.catalogVersion = catalogVersion;
+        }
+
+        public int getEntries() {
+            return entries;
+        }
+
+        public long getWeight() {
+            return weight;
+        }
+
+        public long getMaxWeight() {
+            return maxWeight;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getCatalogVersion() {
+            return catalogVersion;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.projet.repository;
+
+import org.projet.model.Cours;
+
+import java.util.List;
+
+/**
+ * Une page de résultats de la recherche plein texte, triée par pertinence.
+ */
+public final class CourseSearchPage {
+    private final List<Cours> courses;
+    private final long total;
+    private final int limit;
+    private final int offset;
+
+    public CourseSearchPage(List<Cours> courses, long total, int limit, int offset) {
+        this.courses = List.copyOf(courses);
+        this.total = total;
+        this.limit = limit;
+        this.offset = offset;
+    }
+
+    public List<Cours> getCourses() {
+        return courses;
+    }
+
+    /**
+     * @return le nombre total de cours correspondants, toutes pages confondues.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+}
@@ -3,6 +3,7 @@ package org.projet.repository;
 import org.projet.model.Cours;
 
 import java.io.InputStream;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -29,6 +30,78 @@ public interface IRepository {
             String semester
     ) throws Exception;
 
+    /**
+     * Cette méthode permet de récupérer le résultat de getCourseBy directement sous forme de tableau JSON,
+     * construit en entier à partir des documents stockés, sans passer par des objets Cours.
+     * @param param paramètre de la recherche ( id, nom, ou description)
+     * @param value valeur de la recherche.
+     * @param includeScheduleBool "true" ou "false" dépendamment de si on veut inclure ou non le schedule
+     * @param semester le semestre si jamais on veut inclure le schedule
+     * @return le tableau JSON, ou vide si la source ne permet pas ce mode de lecture.
+     * @throws Exception une erreur
+     */
+    public Optional<String> getCoursesJsonArrayBy(
+            String param,
+            String value,
+            String includeScheduleBool,
+            String semester
+    ) throws Exception;
+
+    /**
+     * Cette méthode permet de récupérer une page de cours par curseur : mêmes critères que getCourseBy,
+     * triés par id, à partir de l'id qui suit le curseur.
+     * @param param paramètre de la recherche ( id, nom, ou description)
+     * @param value valeur de la recherche.
+     * @param includeScheduleBool "true" ou "false" dépendamment de si on veut inclure ou non le schedule
+     * @param semester le semestre si jamais on veut inclure le schedule
+     * @param after id du dernier cours de la page précédente, ou null pour la première page.
+     * @param limit nombre maximal de cours.
+     * @return la page, ou vide si le paramètre est inconnu.
+     * @throws Exception une erreur
+     */
+    public Optional<KeysetPage<Cours>> getCoursePageBy(
+            String param,
+            String value,
+            String includeScheduleBool,
+            String semester,
+            String after,
+            int limit
+    ) throws Exception;
+
+    /**
+     * Cette méthode permet de récupérer plusieurs cours, avec leurs horaires, en une seule opération
+     * groupée plutôt qu'un appel à getCourseBy par cours.
+     * @param ids ids exacts des cours recherchés.
+     * @param semester session à retenir pour les horaires, ou null pour toutes les sessions.
+     * @return les cours trouvés indexés par id, dans l'ordre des ids demandés (les ids introuvables sont absents).
+     * @throws Exception une erreur
+     */
+    public Map<String, Cours> getCoursesByIds(Collection<String> ids, String semester) throws Exception;
+
+    /**
+     * Cette méthode permet une recherche plein texte paginée des cours (id, nom, description),
+     * insensible à la casse et aux accents, triée par pertinence.
+     * @param text mots recherchés.
+     * @param includeSchedule "true" pour inclure les horaires.
+     * @param semester session à laquelle restreindre les résultats, ou null.
+     * @param limit taille de la page.
+     * @param offset nombre de résultats à sauter.
+     * @return la page de résultats et le nombre total de correspondances.
+     * @throws Exception une erreur
+     */
+    public CourseSearchPage searchCourses(String text, String includeSchedule, String semester, int limit, int offset)
+            throws Exception;
+
+    /**
+     * Cette méthode permet l'autocomplétion des cours : seulement l'id et le nom des cours dont l'id
+     * ou un mot du nom commence par la saisie.
+     * @param query début de l'id ou du nom saisi.
+     * @param limit nombre maximal de suggestions.
+     * @return les suggestions, les correspondances sur l'id en premier.
+     * @throws Exception une erreur
+     */
+    public List<CourseAutocompleteIndex.Suggestion> autocompleteCourses(String query, int limit) throws Exception;
+
     /**
      * Cette methode retourne une liste qui contient des clés valeurs avec l'id des programmes et le nom.
      * @return Une liste clés valeurs avec l'id des programmes et le nom.
@@ -43,6 +116,12 @@ public interface IRepository {
      * @throws Exception une erreur
      */
     public Optional<List<String>> getAllCoursesId() throws Exception;
+    /**
+     * Cette méthode permet de récupérer la version courante du catalogue, incrémentée après chaque
+     * synchronisation, pour savoir quand les données dérivées du catalogue doivent être reconstruites.
+     * @return la version du catalogue.
+     */
+    public long getCatalogVersion();
     /**
      * Cette méthode permet de récupérer le body response de la requête de la source permet de vérifier
      * l'éligibilité à un cours.
@@ -60,6 +139,33 @@ public interface IRepository {
      */
 
     public String getCoursesForAProgram(String programID) throws Exception;
+    /**
+     * Cette méthode permet de récupérer les programmes qui incluent un cours donné.
+     * @param courseID id du cours, ex. "IFT2255".
+     * @return les programmes (id, nom), triés par id.
+     * @throws Exception en cas d'erreur.
+     */
+    public List<Map<String, String>> getProgramsForCourse(String courseID) throws Exception;
+    /**
+     * Cette méthode permet de récupérer les cours d'un programme offerts pendant une session donnée.
+     * @param programID id du programme.
+     * @param semester session, ex. "A25".
+     * @return les ids des cours ayant un horaire pour cette session, triés.
+     * @throws Exception en cas d'erreur.
+     */
+    public List<String> getCoursesAvailable(String programID, String semester) throws Exception;
+
+    /**
+     * Cette méthode permet de récupérer les cours offrant, pendant une session, au moins une section dont
+     * toutes les activités hebdomadaires (hors examens) tiennent dans les jours et la plage horaire donnés.
+     * @param semester session, ex. "A25".
+     * @param daysMask jours permis, en masque de bits (voir {@link ScheduleSlots}).
+     * @param fromMinute début de la plage permise, en minutes depuis minuit.
+     * @param toMinute fin de la plage permise, en minutes depuis minuit.
+     * @return les ids des cours, triés.
+     */
+    public List<String> getCoursesFittingWithin(String semester, int daysMask, int fromMinute, int toMinute);
+
     /**
      * Cette méthode permet de fetch les schedules.
      * @param courseID id du cours dont on veut fetch les schedules.
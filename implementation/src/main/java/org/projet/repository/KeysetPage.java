@@ -0,0 +1,33 @@
+package org.projet.repository;
+
+import java.util.List;
+
+/**
+ * Une page d'une liste parcourue par curseur (keyset) : les éléments suivent le dernier curseur
+ * transmis, dans l'ordre de la clé, et le curseur suivant permet de demander la page d'après.
+ * @param <T> type des éléments.
+ */
+public final class KeysetPage<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    public KeysetPage(List<T> items, String nextCursor) {
+        this.items = List.copyOf(items);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return la clé du dernier élément de la page, ou null s'il n'y a pas de page suivante.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
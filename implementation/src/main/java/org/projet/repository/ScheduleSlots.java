@@ -0,0 +1,72 @@
+package org.projet.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Conversions entre le format Planifium des horaires (jours "Lu".."Di", heures "HH:mm") et le
+ * format des tables normalisées (masque de jours, minutes depuis minuit).
+ */
+public final class ScheduleSlots {
+    /** Codes de jours Planifium ; l'index donne le bit dans le masque. */
+    public static final List<String> DAY_CODES = List.of("Lu", "Ma", "Me", "Je", "Ve", "Sa", "Di");
+    public static final int ALL_DAYS = (1 << DAY_CODES.size()) - 1;
+
+    private ScheduleSlots() {
+    }
+
+    /**
+     * @param days codes de jours Planifium (les codes inconnus sont ignorés).
+     * @return le masque de bits correspondant.
+     */
+    public static int dayMask(Collection<String> days) {
+        if (days == null) {
+            return 0;
+        }
+        int mask = 0;
+        for (String day : days) {
+            int index = day == null ? -1 : DAY_CODES.indexOf(day.trim());
+            if (index >= 0) {
+                mask |= 1 << index;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * @param time heure au format "HH:mm" (les secondes éventuelles sont ignorées).
+     * @return le nombre de minutes depuis minuit, ou null si l'heure est absente ou illisible.
+     */
+    public static Integer minuteOfDay(String time) {
+        if (time == null) {
+            return null;
+        }
+        String[] parts = time.trim().split(":");
+        if (parts.length < 2) {
+            return null;
+        }
+        try {
+            int hours = Integer.parseInt(parts[0]);
+            int minutes = Integer.parseInt(parts[1]);
+            if (hours < 0 || hours > 24 || minutes < 0 || minutes > 59) {
+                return null;
+            }
+            return hours * 60 + minutes;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param time heure au format "HH:mm" (les secondes éventuelles sont ignorées).
+     * @return le nombre de minutes depuis minuit.
+     * @throws IllegalArgumentException si l'heure est illisible.
+     */
+    public static int parseMinuteOfDay(String time) {
+        Integer minute = minuteOfDay(time);
+        if (minute == null) {
+            throw new IllegalArgumentException("Heure invalide : " + time);
+        }
+        return minute;
+    }
+}
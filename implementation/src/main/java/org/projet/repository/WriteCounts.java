@@ -0,0 +1,54 @@
+package org.projet.repository;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compteurs d'écriture d'une table pendant une synchronisation : lignes insérées, mises à jour,
+ * inchangées (même empreinte de contenu, non réécrites) et supprimées. Partagés entre les fils de
+ * synchronisation.
+ */
+public final class WriteCounts {
+    private final AtomicInteger inserted = new AtomicInteger();
+    private final AtomicInteger updated = new AtomicInteger();
+    private final AtomicInteger unchanged = new AtomicInteger();
+    private final AtomicInteger deleted = new AtomicInteger();
+
+    void add(int insertedRows, int updatedRows, int unchangedRows) {
+        inserted.addAndGet(insertedRows);
+        updated.addAndGet(updatedRows);
+        unchanged.addAndGet(unchangedRows);
+    }
+
+    void addDeleted(int deletedRows) {
+        deleted.addAndGet(deletedRows);
+    }
+
+    public int getInserted() {
+        return inserted.get();
+    }
+
+    public int getUpdated() {
+        return updated.get();
+    }
+
+    public int getUnchanged() {
+        return unchanged.get();
+    }
+
+    public int getDeleted() {
+        return deleted.get();
+    }
+
+    /**
+     * @return true si au moins une ligne a été insérée, mise à jour ou supprimée.
+     */
+    public boolean hasChanges() {
+        return getInserted() + getUpdated() + getDeleted() > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "inserted=" + getInserted() + ", updated=" + getUpdated() + ", unchanged=" + getUnchanged()
+                + ", deleted=" + getDeleted();
+    }
+}
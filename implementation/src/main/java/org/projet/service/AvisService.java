@@ -2,8 +2,11 @@ package org.projet.service;
 
 import org.projet.model.Avis;
 import org.projet.repository.AvisRepository;
+import org.projet.repository.KeysetPage;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 /**
  * Service responsable de la gestion des avis étudiants.
  * Il permet de valider, enregistrer et récupérer les avis
@@ -118,6 +121,24 @@ public class AvisService {
 
     }
 
+    /**
+     * Cette méthode permet de récupérer la version des avis d'un cours, qui change à chaque avis ajouté,
+     * modifié ou supprimé, pour répondre aux requêtes conditionnelles sans relire les avis.
+     * @param sigle sigle du cours
+     * @return la version des avis du cours.
+     */
+    public String getVersionAvis(String sigle) {
+        return avisRepository.versionBySigleCours(sigle);
+    }
+
+    /**
+     * Cette méthode permet de récupérer la version de l'ensemble des avis, qui change à chaque nouvel avis.
+     * @return la version des avis.
+     */
+    public String getVersionAvis() {
+        return avisRepository.version();
+    }
+
     /**
      * Cette méthode permet de récupérer tous les avis stockés.
      * @return la liste de tous les avis.
@@ -125,4 +146,39 @@ public class AvisService {
     public List<Avis> getAllAvis(){
         return avisRepository.findAll();
     }
+
+    /**
+     * Nombre d'avis par page par défaut et maximal de la pagination par curseur.
+     */
+    static final int LIMITE_PAGE_DEFAUT = 100;
+    static final int LIMITE_PAGE_MAX = 1000;
+
+    /**
+     * Cette méthode permet de récupérer une page d'avis par curseur, sans charger toute la table.
+     * @param apres curseur retourné avec la page précédente (id du dernier avis), ou null pour la première page.
+     * @param limite nombre d'avis voulus (100 par défaut, 1000 au maximum).
+     * @return la page d'avis et le curseur de la page suivante.
+     * @throws IllegalArgumentException si le curseur est invalide.
+     */
+    public KeysetPage<Avis> getAvisPage(String apres, Integer limite) {
+        Long curseur = null;
+        if (apres != null && !apres.isBlank()) {
+            try {
+                curseur = Long.valueOf(apres.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Curseur invalide : " + apres);
+            }
+        }
+
+        int taille = limite == null || limite < 1 ? LIMITE_PAGE_DEFAUT : Math.min(limite, LIMITE_PAGE_MAX);
+        return avisRepository.findPage(curseur, taille);
+    }
+
+    /**
+     * Cette méthode permet de parcourir tous les avis sous forme de flux, lus au fur et à mesure de la base.
+     * @param consumer reçoit le flux, valide seulement pendant l'appel.
+     */
+    public void parcourirAvis(Consumer<Stream<Avis>> consumer) {
+        avisRepository.streamAll(consumer);
+    }
 }
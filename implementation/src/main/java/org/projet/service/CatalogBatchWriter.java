@@ -0,0 +1,124 @@
+package org.projet.service;
+
+import org.projet.model.Cours;
+import org.projet.repository.CatalogCacheRepository;
+import org.projet.repository.WriteCounts;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Buffers the courses and schedules fetched by the sync threads and writes them in batches, each batch
+ * in one transaction. A batch that fails is replayed row by row, so one bad row only skips itself.
+ */
+final class CatalogBatchWriter {
+    private static final Logger LOGGER = Logger.getLogger(CatalogBatchWriter.class.getName());
+
+    private final CatalogCacheRepository cacheRepository;
+    private final int batchSize;
+    private final WriteCounts courseCounts;
+    private final WriteCounts scheduleCounts;
+    private List<Cours> courses = new ArrayList<>();
+    private Map<String, List<Cours.Schedule>> schedules = new LinkedHashMap<>();
+    private int pendingRows;
+
+    /**
+     * @param courseCounts tallies of the rows written to {@code courses}.
+     * @param scheduleCounts tallies of the rows written to {@code schedules}.
+     */
+    CatalogBatchWriter(CatalogCacheRepository cacheRepository, int batchSize, WriteCounts courseCounts,
+                       WriteCounts scheduleCounts) {
+        this.cacheRepository = cacheRepository;
+        this.batchSize = Math.max(1, batchSize);
+        this.courseCounts = courseCounts;
+        this.scheduleCounts = scheduleCounts;
+    }
+
+    /**
+     * Queues a course with its schedules; both always land in the same batch.
+     * @param course the course, or null to queue schedules only.
+     */
+    void add(Cours course, String courseId, List<Cours.Schedule> courseSchedules) {
+        List<Cours> fullCourses = null;
+        Map<String, List<Cours.Schedule>> fullSchedules = null;
+        synchronized (this) {
+            if (course != null) {
+                courses.add(course);
+                pendingRows++;
+            }
+            if (!courseSchedules.isEmpty()) {
+                schedules.computeIfAbsent(courseId, ignored -> new ArrayList<>()).addAll(courseSchedules);
+                pendingRows += courseSchedules.size();
+            }
+            if (pendingRows >= batchSize) {
+                fullCourses = courses;
+                fullSchedules = schedules;
+                reset();
+            }
+        }
+        if (fullCourses != null) {
+            write(fullCourses, fullSchedules);
+        }
+    }
+
+    /**
+     * Writes whatever is still buffered.
+     */
+    void flush() {
+        List<Cours> remainingCourses;
+        Map<String, List<Cours.Schedule>> remainingSchedules;
+        synchronized (this) {
+            remainingCourses = courses;
+            remainingSchedules = schedules;
+            reset();
+        }
+        write(remainingCourses, remainingSchedules);
+    }
+
+    private void reset() {
+        courses = new ArrayList<>();
+        schedules = new LinkedHashMap<>();
+        pendingRows = 0;
+    }
+
+    private void write(List<Cours> batchCourses, Map<String, List<Cours.Schedule>> batchSchedules) {
+        if (!batchCourses.isEmpty()) {
+            try {
+                cacheRepository.upsertCourses(batchCourses, courseCounts);
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Course batch of " + batchCourses.size()
+                        + " failed, retrying row by row", e);
+                for (Cours course : batchCourses) {
+                    try {
+                        cacheRepository.upsertCourses(List.of(course), courseCounts);
+                    } catch (Exception rowError) {
+                        LOGGER.log(Level.WARNING, "Unable to write course " + course.getId(), rowError);
+                    }
+                }
+            }
+        }
+
+        if (!batchSchedules.isEmpty()) {
+            try {
+                cacheRepository.upsertSchedules(batchSchedules, scheduleCounts);
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Schedule batch for " + batchSchedules.size()
+                        + " courses failed, retrying row by row", e);
+                batchSchedules.forEach((courseId, courseSchedules) -> {
+                    for (Cours.Schedule schedule : courseSchedules) {
+                        try {
+                            cacheRepository.upsertSchedules(Map.of(courseId, List.of(schedule)), scheduleCounts);
+                        } catch (Exception rowError) {
+                            LOGGER.log(Level.WARNING, "Unable to write schedule " + courseId + " "
+                                    + schedule.getSemester(), rowError);
+                        }
+                    }
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package org.projet.service;
+
+import org.projet.repository.CatalogSyncLock;
+
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Starts catalog syncs, on admin request or on a schedule, so that at most one runs across the cluster.
+ * A sync only starts once {@link CatalogSyncLock} is held, and the lock is released when it ends.
+ */
+public class CatalogSyncScheduler implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(CatalogSyncScheduler.class.getName());
+    private static CatalogSyncScheduler instance;
+
+    private final CatalogSyncService syncService;
+    private final CatalogSyncLock syncLock;
+    private final Executor executor;
+    private ScheduledExecutorService timer;
+
+    /**
+     * @param executor runs the syncs once started.
+     */
+    public CatalogSyncScheduler(CatalogSyncService syncService, CatalogSyncLock syncLock, Executor executor) {
+        this.syncService = syncService;
+        this.syncLock = syncLock;
+        this.executor = executor;
+    }
+
+    public static CatalogSyncScheduler getInstance() {
+        if (instance == null) {
+            instance = new CatalogSyncScheduler(new CatalogSyncService(), CatalogSyncLock.getInstance(),
+                    Executors.newSingleThreadExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "catalog-sync");
+                        thread.setDaemon(true);
+                        return thread;
+                    }));
+        }
+        return instance;
+    }
+
+    /**
+     * Starts a sync unless one is already running on any node.
+     * @param trigger origin of the sync ("admin" or "scheduled"), recorded with it.
+     * @return the id of the sync started, or of the one already running.
+     */
+    public SyncStart trigger(String trigger) {
+        Optional<CatalogSyncLock.Lease> lease = syncLock.tryAcquire(trigger);
+        if (lease.isEmpty()) {
+            return new SyncStart(false, syncLock.runningSyncId().orElse(null));
+        }
+
+        CatalogSyncLock.Lease acquired = lease.get();
+        try {
+            executor.execute(() -> run(acquired));
+        } catch (RejectedExecutionException e) {
+            acquired.finish(false);
+            throw e;
+        }
+        return new SyncStart(true, acquired.getId());
+    }
+
+    /**
+     * Swaps the previous catalog generation back in, holding the sync lock so that no sync publishes
+     * in between.
+     */
+    public Rollback rollback() {
+        Optional<CatalogSyncLock.Lease> lease = syncLock.tryAcquire("rollback");
+        if (lease.isEmpty()) {
+            return Rollback.SYNC_RUNNING;
+        }
+
+        boolean succeeded = false;
+        try {
+            Rollback rollback = syncService.rollback() ? Rollback.ROLLED_BACK : Rollback.NO_PREVIOUS_GENERATION;
+            succeeded = true;
+            return rollback;
+        } finally {
+            lease.get().finish(succeeded);
+        }
+    }
+
+    /**
+     * @return the id of the sync running on any node, or empty if none is.
+     */
+    public Optional<String> runningSyncId() {
+        return syncLock.runningSyncId();
+    }
+
+    /**
+     * Schedules a sync every {@code intervalMillis} plus a random delay of up to {@code jitterMillis}.
+     * Does nothing if the interval is 0.
+     */
+    public synchronized CatalogSyncScheduler schedule(long intervalMillis, long jitterMillis) {
+        if (intervalMillis <= 0 || timer != null) {
+            return this;
+        }
+
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-sync-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduleNext(intervalMillis, jitterMillis);
+        LOGGER.info("Catalog sync scheduled every " + intervalMillis / 1000 + " s (+ up to "
+                + jitterMillis / 1000 + " s)");
+        return this;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    private synchronized void scheduleNext(long intervalMillis, long jitterMillis) {
+        if (timer == null || timer.isShutdown()) {
+            return;
+        }
+        long delay = intervalMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+        timer.schedule(() -> {
+            try {
+                SyncStart start = trigger("scheduled");
+                if (start.isStarted()) {
+                    LOGGER.info("Scheduled catalog sync " + start.getSyncId() + " started");
+                } else {
+                    LOGGER.info("Scheduled catalog sync skipped: sync " + start.getSyncId() + " is already running");
+                }
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Scheduled catalog sync could not start", e);
+            } finally {
+                scheduleNext(intervalMillis, jitterMillis);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void run(CatalogSyncLock.Lease lease) {
+        boolean succeeded = false;
+        try {
+            LOGGER.info("Catalog sync " + lease.getId() + " started");
+            syncService.syncAll();
+            succeeded = true;
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Catalog sync " + lease.getId() + " failed", e);
+        } finally {
+            lease.finish(succeeded);
+        }
+    }
+
+    /**
+     * Outcome of {@link #rollback}.
+     */
+    public enum Rollback {
+        ROLLED_BACK,
+        NO_PREVIOUS_GENERATION,
+        SYNC_RUNNING
+    }
+
+    /**
+     * Outcome of {@link #trigger}: whether a sync was started, and the id of the sync now running.
+     */
+    public static final class SyncStart {
+        private final boolean started;
+        private final String syncId;
+
+        public SyncStart(boolean started, String syncId) {
+            this.started = started;
+            this.syncId = syncId;
+        }
+
+        public boolean isStarted() {
+            return started;
+        }
+
+        /**
+         * @return the id of the running sync, or null if the one holding the lock finished in between.
+         */
+        public String getSyncId() {
+            return syncId;
+        }
+    }
+}
@@ -1,12 +1,18 @@
 package org.projet.service;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.projet.config.CatalogConfig;
 import org.projet.model.Cours;
 import org.projet.repository.CatalogCacheRepository;
+import org.projet.repository.CatalogGenerations;
+import org.projet.repository.WriteCounts;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
@@ -16,11 +22,22 @@ import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -30,84 +47,187 @@ import java.util.logging.Logger;
 public class CatalogSyncService {
     private static final Logger LOGGER = Logger.getLogger(CatalogSyncService.class.getName());
     private static final String PLANIFIUM_BASE_URL = "https://planifium-api.onrender.com/api/v1";
+    private static final Duration SCHEDULES_TIMEOUT = Duration.ofSeconds(30);
+    // Bytes of a non-array response kept for the error message.
+    private static final int ERROR_BODY_LIMIT = 64 * 1024;
+    // Bytes of an error status response kept for the error message.
+    private static final int STATUS_BODY_LIMIT = 4096;
 
     private final CatalogCacheRepository cacheRepository;
     private final HttpClient httpClient;
     private final ObjectMapper mapper = new ObjectMapper();
+    private final int concurrency;
+    private final TokenBucket rateLimiter;
+    // Caps the Planifium requests in flight across both pipeline stages.
+    private final Semaphore requestPermits;
+    private final AtomicLong planifiumRequests = new AtomicLong();
+    private final int batchSize;
+    private final int scheduleBatchSize;
 
     public CatalogSyncService() {
-        this(new CatalogCacheRepository());
+        this(CatalogCacheRepository.getInstance());
     }
 
     public CatalogSyncService(CatalogCacheRepository cacheRepository) {
+        this(cacheRepository, CatalogConfig.syncConcurrency(), CatalogConfig.syncRequestsPerSecond(),
+                CatalogConfig.syncBatchSize());
+    }
+
+    /**
+     * @param concurrency nombre maximal de cours synchronisés en même temps.
+     * @param requestsPerSecond débit maximal de requêtes vers Planifium (0 pour aucune limite).
+     * @param batchSize nombre de lignes accumulées avant chaque écriture groupée.
+     */
+    CatalogSyncService(CatalogCacheRepository cacheRepository, int concurrency, double requestsPerSecond,
+                       int batchSize) {
+        this(cacheRepository, concurrency, requestsPerSecond, batchSize, CatalogConfig.syncScheduleBatchSize());
+    }
+
+    /**
+     * @param scheduleBatchSize nombre maximal de cours demandés ensemble à {@code /schedules}.
+     */
+    CatalogSyncService(CatalogCacheRepository cacheRepository, int concurrency, double requestsPerSecond,
+                       int batchSize, int scheduleBatchSize) {
         this.cacheRepository = cacheRepository;
+        // Un seul client pour toutes les requêtes : connexions réutilisées, multiplexées en HTTP/2 si
+        // Planifium le propose.
         this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(5))
                 .followRedirects(HttpClient.Redirect.ALWAYS)
                 .build();
+        this.concurrency = Math.max(1, concurrency);
+        this.rateLimiter = new TokenBucket(requestsPerSecond);
+        this.requestPermits = new Semaphore(this.concurrency);
+        this.batchSize = Math.max(1, batchSize);
+        this.scheduleBatchSize = Math.max(1, scheduleBatchSize);
     }
 
+    /**
+     * Syncs the whole catalog into the next catalog generation, then publishes it in one transaction if
+     * anything changed. Readers keep the published catalog until then, and a sync that dies halfway
+     * leaves it untouched.
+     * @throws IllegalStateException if the next generation cannot be prepared or published.
+     */
     public void syncAll() {
         Instant start = Instant.now();
+        long requestsBefore = planifiumRequests.get();
+        CatalogGenerations generations = cacheRepository.generations();
+        CatalogDelta delta;
+        try {
+            delta = new CatalogDelta(generations.prepareNext());
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to prepare the next catalog generation", e);
+        }
 
-        // Pass 1: programs.
+        // Stage 1: listings, streamed. Programs are written as they are read, listed courses that are not
+        // cached yet are inserted; the union of their course ids is what stage 2 fetches.
         try {
-            JsonNode programs = fetchProgramsRaw();
-            SyncCounts counts = syncFromLivePrograms(programs);
+            int programs = syncPrograms(delta);
             long millis = Duration.between(start, Instant.now()).toMillis();
-            LOGGER.info("Program sync completed: programs=" + counts.programs
+            LOGGER.info("Program sync completed: programs=" + programs + ", courses=" + delta.courseIds.size()
                     + ", durationMs=" + millis);
-            if (counts.programs == 0) {
-                LOGGER.warning("Catalog sync completed with missing data: programs=" + counts.programs
-                        + ", courses=0, schedules=0, durationMs=" + millis);
+            if (programs == 0) {
+                LOGGER.warning("Catalog sync completed with missing data: programs=0, durationMs=" + millis);
             }
         } catch (Exception e) {
             LOGGER.log(Level.WARNING, "Catalog sync failed", e);
         }
 
-        // Pass 2: direct courses.
-        List<Cours> directCourses = new ArrayList<>();
         try {
-            directCourses = syncDirectCourses(fetchCoursesRaw());
-            long millis = Duration.between(start, Instant.now()).toMillis();
-            LOGGER.info("Direct courses sync completed: " + directCourses.size() + " courses upserted");
-            if (directCourses.isEmpty()) {
-                LOGGER.warning("Direct courses sync completed with zero courses upserted, durationMs=" + millis);
+            int listed = syncDirectCourses(delta);
+            LOGGER.info("Direct courses sync completed: " + listed + " courses listed");
+            if (listed == 0) {
+                LOGGER.warning("Direct courses listing returned zero courses");
             }
         } catch (Exception e) {
             LOGGER.log(Level.WARNING, "Direct courses sync failed", e);
         }
 
-        // Pass 3: schedules driven by the direct course list.
+        // Stage 2: each course of the union is fetched once, then its schedules once.
         try {
-            int scheduleCount = syncSchedulesForDirectCourses(directCourses);
+            Instant passStart = Instant.now();
+            SyncCounts counts = syncCourses(delta);
             long millis = Duration.between(start, Instant.now()).toMillis();
-            LOGGER.info("Schedule sync completed: " + scheduleCount
-                    + " schedules upserted across " + directCourses.size() + " courses");
-            if (scheduleCount == 0) {
-                LOGGER.warning("Schedule sync completed with zero schedules upserted across "
-                        + directCourses.size() + " courses, durationMs=" + millis);
+            LOGGER.info("Course sync completed: courses=" + counts.courses + ", schedules=" + counts.schedules
+                    + " across " + delta.courseIds.size() + " courses, durationMs=" + millis + ", throughput="
+                    + throughput(counts.courses.get(), passStart) + " courses/s");
+            if (counts.schedules.get() == 0) {
+                LOGGER.warning("Course sync completed with zero schedules upserted across "
+                        + delta.courseIds.size() + " courses, durationMs=" + millis);
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Course sync failed", e);
+        }
+
+        try {
+            int refreshed = refreshUndetailedCourses(delta);
+            if (refreshed > 0) {
+                LOGGER.info("Updated " + refreshed + " courses from the /courses listing after their detail failed");
             }
         } catch (Exception e) {
-            LOGGER.log(Level.WARNING, "Schedule sync failed", e);
+            LOGGER.log(Level.WARNING, "Listing update of undetailed courses failed", e);
+        }
+
+        LOGGER.info("Planifium requests: " + (planifiumRequests.get() - requestsBefore));
+
+        deleteMissingRows(delta);
+        LOGGER.info("Catalog delta: programs[" + delta.programCounts + "], courses[" + delta.courseCounts
+                + "], schedules[" + delta.scheduleCounts + "]");
+
+        // Readers switch to the new catalog only once every pass has been written, and only if it changed.
+        if (!delta.hasChanges()) {
+            discardNext(generations);
+            LOGGER.info("Catalog unchanged, version stays at " + cacheRepository.catalogVersion());
+            return;
         }
+        try {
+            generations.publishNext();
+        } catch (Exception e) {
+            discardNext(generations);
+            throw new IllegalStateException("Unable to publish the next catalog generation", e);
+        }
+        long version = cacheRepository.markCatalogChanged();
+        LOGGER.info("Catalog version is now " + version);
     }
 
-    public JsonNode fetchProgramsRaw() throws Exception {
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(buildUri("/programs", null))
-                .build();
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        String body = response.body();
-        if (response.statusCode() != 200) {
-            throw new IllegalStateException("Planifium programs status: " + response.statusCode()
-                    + ", body: " + body);
+    /**
+     * Swaps the previous catalog generation back in and invalidates the caches of every node.
+     * @return false if no previous generation is kept.
+     */
+    public boolean rollback() {
+        if (!cacheRepository.generations().rollback()) {
+            return false;
         }
+        long version = cacheRepository.markCatalogChanged();
+        LOGGER.info("Catalog rolled back, version is now " + version);
+        return true;
+    }
 
-        JsonNode programs = mapper.readTree(body);
-        if (!programs.isArray()) {
-            throw new IllegalStateException("Planifium programs response must be a JSON array, got: " + body);
+    private static void discardNext(CatalogGenerations generations) {
+        try {
+            generations.discardNext();
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Unable to drop the next catalog generation", e);
+        }
+    }
+
+    /**
+     * Deletes the rows Planifium no longer returns. Each deletion only runs when the listing it relies on
+     * was fetched in full, so a failed or empty listing never wipes the cache.
+     */
+    private void deleteMissingRows(CatalogDelta delta) {
+        try {
+            if (delta.programsListed) {
+                delta.target.deleteProgramsNotIn(delta.programIds, delta.programCounts);
+            }
+            if (delta.programsListed && delta.coursesListed) {
+                delta.target.deleteCoursesNotIn(delta.courseIds, delta.courseCounts, delta.scheduleCounts);
+            }
+            delta.target.deleteStaleSchedules(delta.semestersByCourse, delta.scheduleCounts);
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Unable to delete rows missing from Planifium", e);
         }
-        return programs;
     }
 
     public Optional<Cours> fetchCourseFromPlanifium(String courseId, boolean includeSchedule) throws Exception {
@@ -120,7 +240,14 @@ public class CatalogSyncService {
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(uri)
                 .build();
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response;
+        beforeRequest();
+        requestPermits.acquire();
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } finally {
+            requestPermits.release();
+        }
         if (response.statusCode() != 200) {
             LOGGER.warning("Skipping course " + courseId + ": Planifium status=" + response.statusCode()
                     + ", body: " + response.body());
@@ -137,150 +264,408 @@ public class CatalogSyncService {
         return Optional.of(mapper.treeToValue(root, Cours.class));
     }
 
-    public JsonNode fetchCoursesRaw() throws Exception {
+    /**
+     * Reads a Planifium endpoint that returns a JSON array with Jackson's streaming parser, handing each
+     * element to {@code handler} as soon as it is parsed. Only one element is held in memory at a time.
+     * @param label name of the endpoint in error messages.
+     * @return the number of elements read.
+     */
+    int streamArray(String path, String label, Consumer<JsonNode> handler) throws Exception {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(buildUri("/courses", null))
+                .uri(buildUri(path, null))
                 .build();
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        String body = response.body();
-        if (response.statusCode() != 200) {
-            throw new IllegalStateException("Planifium courses status: " + response.statusCode()
-                    + ", body: " + body);
-        }
-
-        JsonNode courses = mapper.readTree(body);
-        if (!courses.isArray()) {
-            throw new IllegalStateException("Planifium courses response must be a JSON array, got: " + body);
-        }
-        return courses;
-    }
-
-    public Optional<Cours.Schedule> fetchScheduleFromPlanifium(String courseId, String semester) {
-        if (semester == null || semester.isBlank()) {
-            return Optional.empty();
-        }
-
-        try (InputStream response = fetchSchedulesFromPlanifium(courseId, semester)) {
-            if (response == null) {
-                LOGGER.warning("Skipping schedule " + courseId + " " + semester + ": empty Planifium response");
-                return Optional.empty();
+        beforeRequest();
+        HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = new BufferedInputStream(response.body())) {
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Planifium " + label + " status: " + response.statusCode()
+                        + ", body: " + new String(body.readNBytes(STATUS_BODY_LIMIT), StandardCharsets.UTF_8));
             }
 
-            JsonNode schedules = mapper.readTree(response);
-            if (!schedules.isArray()) {
-                LOGGER.warning("Skipping schedule " + courseId + " " + semester
-                        + ": Planifium response is not an array: " + schedules);
-                return Optional.empty();
-            }
+            body.mark(ERROR_BODY_LIMIT);
+            try (JsonParser parser = mapper.getFactory().createParser(body)) {
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw new IllegalStateException("Planifium " + label + " response must be a JSON array, got: "
+                            + unexpectedBody(body, parser));
+                }
 
-            for (JsonNode schedule : schedules) {
-                if (semester.equals(schedule.path("semester").asText())) {
-                    return Optional.of(mapper.treeToValue(schedule, Cours.Schedule.class));
+                int count = 0;
+                JsonToken token;
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token == null) {
+                        throw new IllegalStateException("Planifium " + label + " response ended inside the array");
+                    }
+                    handler.accept(mapper.readTree(parser));
+                    count++;
                 }
+                return count;
             }
-        } catch (Exception e) {
-            LOGGER.log(Level.WARNING, "Unable to fetch schedule " + courseId + " " + semester, e);
         }
+    }
 
-        LOGGER.warning("Skipping schedule " + courseId + " " + semester
-                + ": no matching schedule returned by Planifium");
-        return Optional.empty();
+    /**
+     * @return the start of a body that is not a JSON array, as sent, for the error message.
+     */
+    private String unexpectedBody(InputStream body, JsonParser parser) {
+        try {
+            body.reset();
+            byte[] start = body.readNBytes(ERROR_BODY_LIMIT);
+            return new String(start, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            // The parser read past the mark: fall back to the parsed value.
+            try {
+                return String.valueOf(parser.currentToken() == null ? "" : mapper.readTree(parser));
+            } catch (IOException parseError) {
+                return "<unreadable>";
+            }
+        }
     }
 
-    public InputStream fetchSchedulesFromPlanifium(String courseId, String semester) throws Exception {
+    /**
+     * Requests the schedules of several courses at once, from {@code minSemester} on.
+     * @return the response body, a JSON array of schedules for all the courses.
+     */
+    public InputStream fetchSchedulesFromPlanifium(Collection<String> courseIds, String minSemester) throws Exception {
         URI uri = buildUri(
                 "/schedules",
                 Map.of(
-                        "courses_list", "[\"" + courseId + "\"]",
-                        "min_semester", semester
+                        "courses_list", mapper.writeValueAsString(courseIds),
+                        "min_semester", minSemester
                 )
         );
 
-        HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
-        connection.setRequestMethod("GET");
-        connection.setConnectTimeout(5000);
-        connection.setReadTimeout(5000);
-        return connection.getInputStream();
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(uri)
+                .timeout(SCHEDULES_TIMEOUT)
+                .build();
+        beforeRequest();
+        HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("Planifium schedules status: " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    /**
+     * Streams /programs, writes the programs in batches and adds the courses they list to the union
+     * fetched by stage 2.
+     * @return the number of programs written.
+     */
+    private int syncPrograms(CatalogDelta delta) throws Exception {
+        int[] written = {0};
+        Set<String> courseIds = new LinkedHashSet<>();
+        List<JsonNode> batch = new ArrayList<>(batchSize);
+        streamArray("/programs", "programs", program -> {
+            String programId = program.path("id").asText(null);
+            if (programId != null && !programId.isBlank()) {
+                delta.programIds.add(programId);
+            }
+            batch.add(program);
+            if (batch.size() == batchSize) {
+                written[0] += upsertPrograms(delta.target, batch, courseIds, delta.programCounts);
+                batch.clear();
+            }
+        });
+        written[0] += upsertPrograms(delta.target, batch, courseIds, delta.programCounts);
+        delta.programsListed = true;
+        delta.courseIds.addAll(courseIds);
+        return written[0];
     }
 
-    private SyncCounts syncFromLivePrograms(JsonNode programs) throws Exception {
-        SyncCounts counts = new SyncCounts();
-        Set<String> courseIds = new HashSet<>();
+    /**
+     * Streams /courses, adds each course id to the union fetched by stage 2 and inserts, with COPY and
+     * {@code batchSize} courses at a time, the listed courses that are not cached yet. Cached courses are
+     * left to stage 2, whose detail is richer than the listing entry, and to
+     * {@link #refreshUndetailedCourses} when their detail cannot be fetched.
+     * @return the number of courses listed.
+     */
+    private int syncDirectCourses(CatalogDelta delta) throws Exception {
+        int listed = streamListedCourses(delta.target::bulkInsertMissingCourses, delta.courseCounts, courseId -> {
+            delta.courseIds.add(courseId);
+            return true;
+        });
+        delta.coursesListed = true;
+        return listed;
+    }
 
-        for (JsonNode program : programs) {
-            cacheRepository.upsertProgram(program);
-            counts.programs++;
-            collectCourseIds(program, courseIds);
+    /**
+     * Updates from the /courses listing, with the content-hash guarded upsert, the listed courses whose
+     * detail stage 2 could not fetch, so that a failing detail does not freeze a cached course. Courses
+     * whose detail was written are skipped: rewriting them with the poorer listing entry would change
+     * their hash on every sync. The listing is only read again when some detail is missing.
+     * @return the number of courses read from the listing.
+     */
+    private int refreshUndetailedCourses(CatalogDelta delta) throws Exception {
+        if (!delta.coursesListed || delta.detailedCourseIds.containsAll(delta.courseIds)) {
+            return 0;
         }
+        int[] undetailed = {0};
+        streamListedCourses(delta.target::bulkLoadCourses, delta.courseCounts, courseId -> {
+            if (delta.detailedCourseIds.contains(courseId)) {
+                return false;
+            }
+            undetailed[0]++;
+            return true;
+        });
+        return undetailed[0];
+    }
 
-        for (String courseId : courseIds) {
-            Optional<Cours> courseOpt = fetchCourseFromPlanifium(courseId, true);
-            if (courseOpt.isEmpty()) {
-                continue;
+    /**
+     * Streams /courses and writes the entries selected by {@code include} in batches of {@code batchSize}.
+     * A batch that fails is written one course at a time so that a malformed course only skips itself.
+     * @param include called with the id of each listed course, true to write its entry.
+     * @return the number of courses listed.
+     */
+    private int streamListedCourses(BiConsumer<Collection<Cours>, WriteCounts> write, WriteCounts counts,
+                                    Predicate<String> include) throws Exception {
+        List<Cours> batch = new ArrayList<>(batchSize);
+        int listed = streamArray("/courses", "courses", courseNode -> {
+            String courseId = courseNode.path("id").asText(null);
+            if (courseId == null || courseId.isBlank() || !include.test(courseId)) {
+                return;
+            }
+            try {
+                batch.add(mapper.treeToValue(courseNode, Cours.class));
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Skipping malformed direct course payload: " + courseNode, e);
+            }
+            if (batch.size() == batchSize) {
+                writeListedCourses(batch, counts, write);
+                batch.clear();
             }
+        });
+        writeListedCourses(batch, counts, write);
+        return listed;
+    }
 
-            Cours course = courseOpt.get();
-            cacheRepository.upsertCourse(course);
-            counts.courses++;
+    private void writeListedCourses(List<Cours> courses, WriteCounts counts,
+                                    BiConsumer<Collection<Cours>, WriteCounts> write) {
+        if (courses.isEmpty()) {
+            return;
+        }
+        try {
+            write.accept(courses, counts);
+            return;
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Bulk load of " + courses.size() + " direct courses failed, "
+                    + "retrying one by one", e);
+        }
+        for (Cours course : courses) {
+            try {
+                write.accept(List.of(course), counts);
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Skipping direct course " + course.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * Fetches every course of the union through two stages connected by bounded queues: course details,
+     * then schedules. Each stage runs {@code concurrency} workers; a failure only skips its course. Courses
+     * are grouped by earliest semester so that one /schedules request covers up to
+     * {@code scheduleBatchSize} of them.
+     */
+    private SyncCounts syncCourses(CatalogDelta delta) throws InterruptedException {
+        SyncCounts counts = new SyncCounts();
+        if (delta.courseIds.isEmpty()) {
+            return counts;
+        }
 
-            if (course.getSchedules() != null) {
-                for (Cours.Schedule schedule : course.getSchedules()) {
-                    Cours.Schedule freshSchedule = fetchScheduleFromPlanifium(courseId, schedule.getSemester())
-                            .orElse(schedule);
-                    cacheRepository.upsertSchedule(courseId, freshSchedule);
-                    counts.schedules++;
+        CatalogBatchWriter writer = new CatalogBatchWriter(delta.target, batchSize, delta.courseCounts,
+                delta.scheduleCounts);
+        int queueCapacity = concurrency * 4;
+        PipelineStage<ScheduleBatch> scheduleStage = new PipelineStage<>("catalog-sync-schedules", concurrency,
+                queueCapacity, batch -> {
+                    Map<String, Map<String, Cours.Schedule>> fetched = fetchScheduleBatch(
+                            batch.courses.stream().map(Cours::getId).toList(), batch.minSemester);
+                    for (Cours course : batch.courses) {
+                        List<Cours.Schedule> schedules = freshSchedules(course.getId(), course.getSchedules(),
+                                fetched.getOrDefault(course.getId(), Map.of()));
+                        writer.add(course, course.getId(), schedules);
+                        counts.courses.incrementAndGet();
+                        counts.schedules.addAndGet(schedules.size());
+                    }
+                });
+        ScheduleBatches pending = new ScheduleBatches(scheduleBatchSize);
+        PipelineStage<String> courseStage = new PipelineStage<>("catalog-sync-courses", concurrency,
+                queueCapacity, courseId -> {
+                    Optional<Cours> courseOpt = fetchCourseFromPlanifium(courseId, true);
+                    if (courseOpt.isEmpty()) {
+                        return;
+                    }
+                    Cours course = courseOpt.get();
+                    delta.detailedCourseIds.add(courseId);
+                    delta.recordSemesters(courseId, course.getSchedules());
+
+                    String minSemester = earliestSemester(course.getSchedules());
+                    if (minSemester == null) {
+                        writer.add(course, courseId, List.of());
+                        counts.courses.incrementAndGet();
+                        return;
+                    }
+                    ScheduleBatch full = pending.add(minSemester, course);
+                    if (full != null) {
+                        scheduleStage.submit(full);
+                    }
+                });
+
+        try {
+            try {
+                for (String courseId : delta.courseIds) {
+                    courseStage.submit(courseId);
                 }
+            } finally {
+                courseStage.finish();
+            }
+            for (ScheduleBatch batch : pending.drain()) {
+                scheduleStage.submit(batch);
             }
+        } finally {
+            scheduleStage.finish();
         }
-
+        writer.flush();
         return counts;
     }
 
-    private List<Cours> syncDirectCourses(JsonNode courses) throws Exception {
-        List<Cours> directCourses = new ArrayList<>();
-        for (JsonNode courseNode : courses) {
+    /**
+     * Writes a batch of programs, falling back to one program at a time if the batch fails.
+     * @return the number of programs written.
+     */
+    private int upsertPrograms(CatalogCacheRepository target, List<JsonNode> programs, Set<String> courseIds,
+                               WriteCounts counts) {
+        if (programs.isEmpty()) {
+            return 0;
+        }
+        try {
+            courseIds.addAll(target.upsertPrograms(programs, counts));
+            return programs.size();
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Program batch of " + programs.size() + " failed, retrying one by one", e);
+        }
+
+        int written = 0;
+        for (JsonNode program : programs) {
             try {
-                Cours course = mapper.treeToValue(courseNode, Cours.class);
-                cacheRepository.upsertCourse(course);
-                directCourses.add(course);
+                courseIds.addAll(target.upsertPrograms(List.of(program), counts));
+                written++;
             } catch (Exception e) {
-                LOGGER.log(Level.WARNING, "Skipping malformed direct course payload: " + courseNode, e);
+                LOGGER.log(Level.WARNING, "Unable to write program " + program.path("id").asText(), e);
             }
         }
-        return directCourses;
+        return written;
     }
 
-    private int syncSchedulesForDirectCourses(List<Cours> directCourses) {
-        int schedulesSynced = 0;
+    /**
+     * Replaces each embedded schedule of a course with the one fetched from /schedules, keeping the
+     * embedded one when Planifium did not return it.
+     * @param fetched schedules returned for this course, by semester.
+     */
+    private List<Cours.Schedule> freshSchedules(String courseId, List<Cours.Schedule> schedules,
+                                                Map<String, Cours.Schedule> fetched) {
+        if (schedules == null || schedules.isEmpty()) {
+            return List.of();
+        }
 
-        for (Cours directCourse : directCourses) {
-            try {
-                Optional<Cours> detailedCourseOpt = fetchCourseFromPlanifium(directCourse.getId(), true);
-                if (detailedCourseOpt.isEmpty()) {
-                    LOGGER.warning("Skipping schedule sync for course " + directCourse.getId()
-                            + ": unable to load detailed course data");
-                    continue;
-                }
+        List<Cours.Schedule> fresh = new ArrayList<>(schedules.size());
+        for (Cours.Schedule schedule : schedules) {
+            Cours.Schedule refreshed = schedule.getSemester() == null ? null : fetched.get(schedule.getSemester());
+            if (refreshed == null && schedule.getSemester() != null) {
+                LOGGER.warning("Skipping schedule " + courseId + " " + schedule.getSemester()
+                        + ": no matching schedule returned by Planifium");
+            }
+            fresh.add(refreshed != null ? refreshed : schedule);
+        }
+        return fresh;
+    }
+
+    /**
+     * Fetches the schedules of several courses with one /schedules request and splits the returned array
+     * by {@code sigle} and {@code semester}.
+     * @return the schedules returned by Planifium, by course id then semester; empty if the request failed.
+     */
+    Map<String, Map<String, Cours.Schedule>> fetchScheduleBatch(List<String> courseIds, String minSemester) {
+        Map<String, Map<String, Cours.Schedule>> fetched = new HashMap<>();
+        try {
+            requestPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fetched;
+        }
+
+        try (InputStream response = fetchSchedulesFromPlanifium(courseIds, minSemester)) {
+            JsonNode schedules = mapper.readTree(response);
+            if (!schedules.isArray()) {
+                LOGGER.warning("Skipping schedules of " + courseIds.size() + " courses from " + minSemester
+                        + ": Planifium response is not an array: " + schedules);
+                return fetched;
+            }
 
-                Cours detailedCourse = detailedCourseOpt.get();
-                if (detailedCourse.getSchedules() == null || detailedCourse.getSchedules().isEmpty()) {
-                    LOGGER.warning("Skipping schedule sync for course " + directCourse.getId()
-                            + ": no schedules returned by Planifium");
+            Set<String> requested = new HashSet<>(courseIds);
+            for (JsonNode schedule : schedules) {
+                String courseId = schedule.path("sigle").asText(null);
+                if (courseId == null && courseIds.size() == 1) {
+                    courseId = courseIds.get(0);
+                }
+                String semester = schedule.path("semester").asText(null);
+                if (courseId == null || semester == null || !requested.contains(courseId)) {
                     continue;
                 }
-
-                for (Cours.Schedule schedule : detailedCourse.getSchedules()) {
-                    Cours.Schedule freshSchedule = fetchScheduleFromPlanifium(directCourse.getId(), schedule.getSemester())
-                            .orElse(schedule);
-                    cacheRepository.upsertSchedule(directCourse.getId(), freshSchedule);
-                    schedulesSynced++;
+                Map<String, Cours.Schedule> bySemester = fetched.computeIfAbsent(courseId, ignored -> new HashMap<>());
+                if (!bySemester.containsKey(semester)) {
+                    bySemester.put(semester, mapper.treeToValue(schedule, Cours.Schedule.class));
                 }
-            } catch (Exception e) {
-                LOGGER.log(Level.WARNING, "Unable to sync schedules for course " + directCourse.getId(), e);
             }
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Unable to fetch schedules of " + courseIds.size() + " courses from "
+                    + minSemester, e);
+        } finally {
+            requestPermits.release();
+        }
+        return fetched;
+    }
+
+    /**
+     * @return the earliest semester of the schedules, or the first one if none can be ordered; null if none.
+     */
+    private static String earliestSemester(List<Cours.Schedule> schedules) {
+        if (schedules == null) {
+            return null;
+        }
+        String earliest = null;
+        for (Cours.Schedule schedule : schedules) {
+            String semester = schedule.getSemester();
+            if (semester == null || semester.isBlank()) {
+                continue;
+            }
+            if (earliest == null
+                    || (semesterRank(semester) >= 0
+                    && (semesterRank(earliest) < 0 || semesterRank(semester) < semesterRank(earliest)))) {
+                earliest = semester;
+            }
+        }
+        return earliest;
+    }
+
+    /**
+     * Orders semester codes such as "H26", "E26" and "A26": by year, then winter, summer, autumn.
+     * @return the rank of the semester, or -1 if its code does not follow that pattern.
+     */
+    static int semesterRank(String semester) {
+        if (semester == null || !semester.matches("[HEA]\\d{2}")) {
+            return -1;
         }
+        return Integer.parseInt(semester.substring(1)) * 3 + "HEA".indexOf(semester.charAt(0));
+    }
+
+    private void beforeRequest() throws InterruptedException {
+        rateLimiter.acquire();
+        planifiumRequests.incrementAndGet();
+    }
 
-        return schedulesSynced;
+    private static String throughput(int courses, Instant since) {
+        long millis = Math.max(1, Duration.between(since, Instant.now()).toMillis());
+        return String.format(Locale.ROOT, "%.1f", courses * 1000.0 / millis);
     }
 
     private URI buildUri(String path, Map<String, String> params) {
@@ -308,28 +693,93 @@ public class CatalogSyncService {
         return PLANIFIUM_BASE_URL;
     }
 
-    private void collectCourseIds(JsonNode node, Set<String> courseIds) {
-        if (node == null || node.isNull()) {
-            return;
+    /**
+     * Courses whose schedules are requested together, from their common earliest semester.
+     */
+    private static final class ScheduleBatch {
+        private final String minSemester;
+        private final List<Cours> courses;
+
+        private ScheduleBatch(String minSemester, List<Cours> courses) {
+            this.minSemester = minSemester;
+            this.courses = courses;
         }
+    }
 
-        JsonNode courses = node.get("courses");
-        if (courses != null && courses.isArray()) {
-            for (JsonNode course : courses) {
-                courseIds.add(course.asText());
-            }
+    /**
+     * Courses waiting for their schedules, grouped by earliest semester until a group is full.
+     */
+    private static final class ScheduleBatches {
+        private final int size;
+        private final Map<String, List<Cours>> pending = new HashMap<>();
+
+        private ScheduleBatches(int size) {
+            this.size = size;
         }
 
-        if (node.isObject() || node.isArray()) {
-            for (JsonNode child : node) {
-                collectCourseIds(child, courseIds);
+        /**
+         * @return the group of the course if it is now full, otherwise null.
+         */
+        private synchronized ScheduleBatch add(String minSemester, Cours course) {
+            List<Cours> courses = pending.computeIfAbsent(minSemester, ignored -> new ArrayList<>());
+            courses.add(course);
+            if (courses.size() < size) {
+                return null;
             }
+            pending.remove(minSemester);
+            return new ScheduleBatch(minSemester, courses);
+        }
+
+        private synchronized List<ScheduleBatch> drain() {
+            List<ScheduleBatch> batches = new ArrayList<>();
+            pending.forEach((minSemester, courses) -> batches.add(new ScheduleBatch(minSemester, courses)));
+            pending.clear();
+            return batches;
         }
     }
 
     private static class SyncCounts {
-        private int programs;
-        private int courses;
-        private int schedules;
+        private final AtomicInteger courses = new AtomicInteger();
+        private final AtomicInteger schedules = new AtomicInteger();
+    }
+
+    /**
+     * What one sync run wrote to each table, and what Planifium listed, so that rows it no longer
+     * returns can be deleted once every pass is done.
+     */
+    private static class CatalogDelta {
+        // Repository of the next catalog generation, which every write of this sync goes to.
+        private final CatalogCacheRepository target;
+        private final WriteCounts programCounts = new WriteCounts();
+        private final WriteCounts courseCounts = new WriteCounts();
+        private final WriteCounts scheduleCounts = new WriteCounts();
+        private final Set<String> programIds = new HashSet<>();
+        // Union of the courses listed by the programs and by /courses, in listing order.
+        private final Set<String> courseIds = new LinkedHashSet<>();
+        // Semesters returned for each course whose detail was fetched.
+        private final Map<String, Set<String>> semestersByCourse = new ConcurrentHashMap<>();
+        // Courses whose detail stage 2 fetched, and so rewrites.
+        private final Set<String> detailedCourseIds = ConcurrentHashMap.newKeySet();
+        private boolean programsListed;
+        private boolean coursesListed;
+
+        private CatalogDelta(CatalogCacheRepository target) {
+            this.target = target;
+        }
+
+        private void recordSemesters(String courseId, List<Cours.Schedule> schedules) {
+            Set<String> semesters = semestersByCourse.computeIfAbsent(courseId, ignored -> ConcurrentHashMap.newKeySet());
+            if (schedules != null) {
+                for (Cours.Schedule schedule : schedules) {
+                    if (schedule.getSemester() != null) {
+                        semesters.add(schedule.getSemester());
+                    }
+                }
+            }
+        }
+
+        private boolean hasChanges() {
+            return programCounts.hasChanges() || courseCounts.hasChanges() || scheduleCounts.hasChanges();
+        }
     }
 }
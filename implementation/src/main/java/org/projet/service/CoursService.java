@@ -8,7 +8,10 @@ import org.projet.exception.HoraireException;
 import org.projet.model.Avis;
 import org.projet.model.Cours;
 import org.projet.model.Resultats;
+import org.projet.repository.CourseAutocompleteIndex;
+import org.projet.repository.CourseSearchPage;
 import org.projet.repository.CoursRepository;
+import org.projet.repository.KeysetPage;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -21,6 +24,8 @@ import java.nio.charset.StandardCharsets;
 import java.time.LocalTime;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.net.URL;
 
 /**
@@ -70,14 +75,24 @@ public class CoursService {
      */
     public void setCoursRepository(CoursRepository coursRepository) {
         this.coursRepository = coursRepository;
+        this.idsCours = null;
     }
 
-    // pour stocker les ids de cours issu de l'appel à getAllCoursesId() afin de réduire le nombre d'appels HTTP quand on appelle validateIdCours.
     /**
-     * Cache local contenant les identifiants de cours afin de
-     * réduire le nombre d’appels réseau lors des validations.
+     * Cette méthode permet de récupérer la version courante du catalogue, qui ne change qu'après une
+     * synchronisation. Les réponses du catalogue sont identiques tant qu'elle ne change pas.
+     *
+     * @return la version du catalogue
      */
-    public List<String> cacheCoursIds = new ArrayList<>();
+    public long getCatalogVersion() {
+        return coursRepository.getCatalogVersion();
+    }
+
+    /**
+     * Ensemble immuable des ids de cours connus, publié d'un seul coup et reconstruit quand la
+     * version du catalogue change (après une synchronisation).
+     */
+    private volatile IdsCours idsCours;
 
     /**
      * Cette méthode gère la logique derrière la validation de l'id d'un cours ( permet de vérifier
@@ -86,23 +101,65 @@ public class CoursService {
      * @param id id du Cours à vérifier
      * @return un booléen indiquant si l'id est valide ou non
      */
-
     protected boolean validateIdCours(String id) {
-        try {
-            //  Si le cache est vide, on va chercher les données une seule fois
-            if (cacheCoursIds.isEmpty()) {
-                Optional<List<String>> listeCours = this.coursRepository.getAllCoursesId();
-                cacheCoursIds = listeCours.orElse(List.of()); // évite les null
+        return id != null && idsCours().ids.contains(id);
+    }
+
+    /**
+     * Cette méthode valide un lot d'ids de cours en une seule passe sur le même ensemble d'ids.
+     *
+     * @param ids ids des cours à vérifier
+     * @return les ids invalides, sans doublon, dans l'ordre reçu ; vide si tous sont valides
+     */
+    public Set<String> validateAll(Collection<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Set.of();
+        }
+
+        Set<String> connus = idsCours().ids;
+        Set<String> invalides = new LinkedHashSet<>();
+        for (String id : ids) {
+            if (id == null || !connus.contains(id)) {
+                invalides.add(id);
             }
+        }
+        return invalides;
+    }
 
-            // On utilise le cache pour vérifier l'ID
-            return cacheCoursIds.contains(id);
-        } catch (Exception e) {
-            System.out.println(e.getMessage());
-            return false;
+    private IdsCours idsCours() {
+        long version = coursRepository.getCatalogVersion();
+        IdsCours courant = idsCours;
+        if (courant != null && courant.version == version) {
+            return courant;
+        }
+
+        synchronized (this) {
+            courant = idsCours;
+            if (courant != null && courant.version == version) {
+                return courant;
+            }
+            try {
+                courant = new IdsCours(Set.copyOf(coursRepository.getAllCoursesId().orElse(List.of())), version);
+            } catch (Exception e) {
+                // ensemble vide non publié : le prochain appel réessaie le chargement
+                System.out.println(e.getMessage());
+                return IdsCours.VIDE;
+            }
+            idsCours = courant;
+            return courant;
         }
+    }
+
+    private static final class IdsCours {
+        private static final IdsCours VIDE = new IdsCours(Set.of(), -1);
 
+        private final Set<String> ids;
+        private final long version;
 
+        private IdsCours(Set<String> ids, long version) {
+            this.ids = ids;
+            this.version = version;
+        }
     }
 
     /**
@@ -118,29 +175,28 @@ public class CoursService {
 
         List<List<String>> resultatDeComparaison = new ArrayList<>();
 
-        // Charger les cours
-        List<Cours> coursTrouves = new ArrayList<>();
+        Set<String> invalides = validateAll(Arrays.asList(cours));
+        if (!invalides.isEmpty()) {
+            System.out.println("Cours non valides : " + invalides);
+            return null;
+        }
 
+        // Charger les cours en une seule opération groupée.
+        Map<String, Cours> coursCharges;
+        try {
+            coursCharges = this.coursRepository.getCoursesByIds(Arrays.asList(cours), null);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
 
+        List<Cours> coursTrouves = new ArrayList<>();
         for (String idCours : cours) {
-            if (!validateIdCours(idCours)) {
-                System.out.println("Cours non valide : " + idCours);
+            Cours coursObj = coursCharges.get(idCours);
+            if (coursObj == null) {
+                System.out.println("Cours introuvable : " + idCours);
                 return null;
             }
-
-            try {
-                Optional<List<Cours>> opt = this.coursRepository.getCourseBy("id", idCours, "true", null);
-                if (opt.isEmpty()) {
-                    System.out.println("Cours introuvable : " + idCours);
-                    return null;
-                }
-
-                coursTrouves.add(opt.get().get(0));
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-
-
+            coursTrouves.add(coursObj);
         }
 
         // Ce bloc de code fait un mapping entre les critères demandés et les propriétés des cours, et
@@ -290,28 +346,39 @@ public class CoursService {
         List<List<String>> resultat = new ArrayList<>();
         int index = 1;
 
+        // Les combinaisons partagent souvent des cours : on charge l'union des ids une seule fois.
+        Set<String> tousLesIds = new LinkedHashSet<>();
+        for (List<String> combinaison : listeDeListesDeCours) {
+            tousLesIds.addAll(combinaison);
+        }
+        Set<String> invalides = validateAll(tousLesIds);
+        if (!invalides.isEmpty()) {
+            System.out.println("Cours non valides : " + invalides);
+            return null;
+        }
+
+        Map<String, Cours> coursCharges;
+        try {
+            coursCharges = this.coursRepository.getCoursesByIds(tousLesIds, null);
+        } catch (Exception e) {
+            throw new RuntimeException("Erreur lors du chargement de " + tousLesIds, e);
+        }
+
+        // Résultats et avis sont eux aussi calculés une seule fois par cours distinct.
+        Map<String, Resultats> resultatsParCours = new HashMap<>();
+        Map<String, List<Avis>> avisParCours = new HashMap<>();
+
         for (List<String> combinaison : listeDeListesDeCours) {
 
             // Transformer les ids en objets Cours
             List<Cours> coursCombinaison = new ArrayList<>();
 
             for (String idCours : combinaison) {
-                if (!validateIdCours(idCours)) {
-                    System.out.println("Cours non valide : " + idCours);
-                    return null;
-                }
-                try {
-                    Optional<List<Cours>> opt =
-                            this.coursRepository.getCourseBy("id", idCours, "true", null);
-
-                    if (opt.isEmpty())
-                        throw new RuntimeException("Cours introuvable : " + idCours);
-
-                    coursCombinaison.add(opt.get().get(0));
+                Cours coursObj = coursCharges.get(idCours);
+                if (coursObj == null)
+                    throw new RuntimeException("Cours introuvable : " + idCours);
 
-                } catch (Exception e) {
-                    throw new RuntimeException("Erreur lors du chargement de " + idCours, e);
-                }
+                coursCombinaison.add(coursObj);
             }
 
             // métriques de comparaison
@@ -330,8 +397,8 @@ float moyenneAvisDifficulte = 0;
             float sumDifficulteTotal = 0;
             int nbAvisTotal = 0;
             for (Cours c : coursCombinaison) {
-                moyenneScoreResultats += getResultats(c.getId()).getScore()/ coursCombinaison.size();
-                List<Avis> avis = avisService.getAvisParCours(c.getId());
+                moyenneScoreResultats += resultatsParCours.computeIfAbsent(c.getId(), this::getResultats).getScore()/ coursCombinaison.size();
+                List<Avis> avis = avisParCours.computeIfAbsent(c.getId(), avisService::getAvisParCours);
                 if (avis != null && !avis.isEmpty()) {
                     for (Avis av : avis) {
                         sumChargeTotal += av.getNoteChargeTravail();
@@ -556,35 +623,103 @@ float moyenneAvisDifficulte = 0;
 
 
     /**
-     * Cette méthode permet de gérer la logique derrière la recherche de cours, que ce soit une recherche simple ou détaillée.
+     * Nombre de suggestions par défaut et maximal de l'autocomplétion.
+     */
+    static final int LIMITE_SUGGESTIONS_DEFAUT = 10;
+    static final int LIMITE_SUGGESTIONS_MAX = 50;
+
+    /**
+     * Cette méthode permet l'autocomplétion des cours pendant la saisie : seuls l'id et le nom des cours
+     * dont le sigle ou un mot du nom commence par la saisie sont retournés, sans accès à la base de données.
      *
-     * @param param           paramètre de la recherche ( id, nom ou description)
-     * @param value           valeur de la recherche ( par exemple IFT1025)
-     * @param includeSchedule "true" ou "false" indiquant si on veut inclure ou non le schedule ( absent pour la recherche simple)
-     * @param session         session si on veut être plus spécifiqeu ( absent pour la recherche simple)
-     * @return la liste de cours associée à la recherche.
+     * @param saisie texte saisi (ex: "ift2", "génie log")
+     * @param limite nombre maximal de suggestions (10 par défaut, 50 au maximum)
+     * @return les suggestions, vide si la saisie est vide.
      */
+    public List<CourseAutocompleteIndex.Suggestion> autocompleterCours(String saisie, Integer limite) {
+        if (saisie == null || saisie.isBlank()) {
+            return List.of();
+        }
+
+        int nombre = limite == null || limite < 1 ? LIMITE_SUGGESTIONS_DEFAUT : Math.min(limite, LIMITE_SUGGESTIONS_MAX);
+        try {
+            return this.coursRepository.autocompleteCourses(saisie, nombre);
+        } catch (Exception e) {
+            System.out.println("Erreur lors de l'autocomplétion des cours : " + e.getMessage());
+            return List.of();
+        }
+    }
 
+    /**
+     * Taille de page par défaut et maximale de la recherche plein texte.
+     */
+    static final int TAILLE_PAGE_DEFAUT = 20;
+    static final int TAILLE_PAGE_MAX = 100;
 
-    public Optional<List<Cours>> rechercherCours(String param, String value, String includeSchedule, String session) {
+    /**
+     * Cette méthode permet une recherche plein texte des cours (sigle, nom et description), insensible à la casse
+     * et aux accents, triée par pertinence et paginée.
+     *
+     * @param value           mots recherchés (ex: "genie logiciel")
+     * @param includeSchedule "true" ou "false" indiquant si on veut inclure ou non les horaires
+     * @param session         session à laquelle restreindre les résultats (nécessite includeSchedule=true)
+     * @param page            numéro de page, à partir de 1 (1 par défaut)
+     * @param taille          nombre de cours par page (20 par défaut, 100 au maximum)
+     * @return la page de résultats, ou vide si la requête est invalide.
+     */
+    public Optional<CourseSearchPage> rechercherCoursTexte(String value, String includeSchedule, String session,
+                                                           Integer page, Integer taille) {
+        if (value == null || value.isBlank()) {
+            System.out.println("La valeur de recherche est vide.");
+            return Optional.empty();
+        }
+
+        if ((includeSchedule == null || includeSchedule.equalsIgnoreCase("false"))
+                && session != null && !session.isEmpty()) {
+            System.out.println("Impossible de filtrer par semester si includeSchedule=false");
+            return Optional.empty();
+        }
+
+        int numeroPage = page == null || page < 1 ? 1 : page;
+        int taillePage = taille == null || taille < 1 ? TAILLE_PAGE_DEFAUT : Math.min(taille, TAILLE_PAGE_MAX);
+        String sessionNormalisee = session == null || session.isBlank() ? null : session.toUpperCase();
+
+        try {
+            return Optional.of(this.coursRepository.searchCourses(
+                    value, includeSchedule, sessionNormalisee, taillePage, (numeroPage - 1) * taillePage));
+        } catch (Exception e) {
+            System.out.println("Erreur lors de la recherche des cours : " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Valide les paramètres communs aux recherches par id, nom ou description.
+     * @return la valeur à chercher (en majuscules pour un id), ou null si la requête est invalide.
+     */
+    private String validerRecherche(String param, String value, String includeSchedule, String session) {
         // Vérification que param est valide (id, name, description)
         if (param == null ||
                 !(param.equalsIgnoreCase("id") || param.equalsIgnoreCase("name") || param.equalsIgnoreCase("description"))) {
             System.out.println("Param doit être 'id', 'name' ou 'description'");
-            return Optional.empty();
+            return null;
 
         }
 
+        if (value == null) {
+            System.out.println("La valeur de recherche est vide.");
+            return null;
+        }
 
         // Transformation en upper case si param == id ( pour ne pas générer d'erreur si l'utilisateur saisit ift1015 par exemple)
-        if (param.equalsIgnoreCase("id") && value != null) {
+        if (param.equalsIgnoreCase("id")) {
             value = value.toUpperCase();
 
             // On valide si ça ressemble à un sigle complet
             if (value.matches("^[A-Z]{3}\\d{4}$")) {
                 if (!this.validateIdCours(value)) {
                     System.out.println("L'id de cours est invalide. Veuillez saisir un id valide ( Ex: IFT1025)");
-                    return Optional.empty();
+                    return null;
                 }
             }
         }
@@ -593,6 +728,116 @@ float moyenneAvisDifficulte = 0;
         if ((includeSchedule == null || includeSchedule.equalsIgnoreCase("false"))
                 && session != null && !session.isEmpty()) {
             System.out.println("Impossible de filtrer par semester si includeSchedule=false");
+            return null;
+        }
+        return value;
+    }
+
+    /**
+     * Cette méthode permet la même recherche que {@link #rechercherCours}, mais renvoie directement le tableau JSON
+     * assemblé par la base à partir des documents stockés, sans désérialiser puis resérialiser les cours.
+     *
+     * @return le tableau JSON ("[]" si aucun cours ou si la requête est invalide, comme {@link #rechercherCours}
+     * qui renvoie alors vide), ou vide si ce mode de lecture n'est pas disponible ; l'appelant passe alors par
+     * {@link #rechercherCours}.
+     */
+    public Optional<String> rechercherCoursJson(String param, String value, String includeSchedule, String session) {
+        String valeur = validerRecherche(param, value, includeSchedule, session);
+        if (valeur == null) {
+            return Optional.of("[]");
+        }
+
+        String sessionNormalisee = session == null || session.isBlank() ? null : session.toUpperCase();
+        try {
+            return this.coursRepository.getCoursesJsonArrayBy(param, valeur, includeSchedule, sessionNormalisee);
+        } catch (Exception e) {
+            System.out.println("Erreur lors de la récupération des cours : " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Cette méthode permet une recherche par id, nom ou description paginée par curseur : les cours sont triés
+     * par id et chaque page reprend après le dernier id de la précédente, sans décalage (OFFSET) à parcourir.
+     *
+     * @param param           paramètre de la recherche (id, name ou description)
+     * @param value           valeur de la recherche
+     * @param includeSchedule "true" ou "false" indiquant si on veut inclure ou non les horaires
+     * @param session         session à laquelle restreindre les résultats (nécessite includeSchedule=true)
+     * @param apres           id du dernier cours de la page précédente, ou null pour la première page
+     * @param taille          nombre de cours par page (20 par défaut, 100 au maximum)
+     * @return la page (éventuellement vide), ou vide si la requête est invalide.
+     */
+    public Optional<KeysetPage<Cours>> rechercherCoursPage(String param, String value, String includeSchedule,
+                                                          String session, String apres, Integer taille) {
+        value = validerRecherche(param, value, includeSchedule, session);
+        if (value == null) {
+            return Optional.empty();
+        }
+
+        int taillePage = taille == null || taille < 1 ? TAILLE_PAGE_DEFAUT : Math.min(taille, TAILLE_PAGE_MAX);
+        String sessionNormalisee = session == null || session.isBlank() ? null : session.toUpperCase();
+        String curseur = apres == null || apres.isBlank() ? null : apres.trim().toUpperCase();
+        try {
+            return this.coursRepository.getCoursePageBy(param, value, includeSchedule, sessionNormalisee, curseur, taillePage);
+        } catch (Exception e) {
+            System.out.println("Erreur lors de la récupération des cours : " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Cette méthode permet de parcourir tous les résultats d'une recherche par id, nom ou description sous forme
+     * de flux : les pages de {@link #TAILLE_PAGE_MAX} cours ne sont chargées qu'au fur et à mesure de la lecture,
+     * ce qui borne la mémoire utilisée quel que soit le nombre de résultats.
+     *
+     * @return le flux des cours, ou vide si la requête est invalide.
+     */
+    public Optional<Stream<Cours>> parcourirCours(String param, String value, String includeSchedule, String session) {
+        Optional<KeysetPage<Cours>> premiere = rechercherCoursPage(param, value, includeSchedule, session, null, TAILLE_PAGE_MAX);
+        if (premiere.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Iterator<Cours> pages = new Iterator<>() {
+            private KeysetPage<Cours> page = premiere.get();
+            private Iterator<Cours> courant = page.getItems().iterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!courant.hasNext() && page.hasNext()) {
+                    page = rechercherCoursPage(param, value, includeSchedule, session, page.getNextCursor(), TAILLE_PAGE_MAX)
+                            .orElseThrow(() -> new IllegalStateException("Erreur lors de la lecture de la page suivante"));
+                    courant = page.getItems().iterator();
+                }
+                return courant.hasNext();
+            }
+
+            @Override
+            public Cours next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return courant.next();
+            }
+        };
+        return Optional.of(StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED), false));
+    }
+
+    /**
+     * Cette méthode permet de gérer la logique derrière la recherche de cours, que ce soit une recherche simple ou détaillée.
+     *
+     * @param param           paramètre de la recherche ( id, nom ou description)
+     * @param value           valeur de la recherche ( par exemple IFT1025)
+     * @param includeSchedule "true" ou "false" indiquant si on veut inclure ou non le schedule ( absent pour la recherche simple)
+     * @param session         session si on veut être plus spécifiqeu ( absent pour la recherche simple)
+     * @return la liste de cours associée à la recherche.
+     */
+
+
+    public Optional<List<Cours>> rechercherCours(String param, String value, String includeSchedule, String session) {
+        value = validerRecherche(param, value, includeSchedule, session);
+        if (value == null) {
             return Optional.empty();
         }
 
@@ -621,10 +866,8 @@ float moyenneAvisDifficulte = 0;
                                 return null;
                             }
 
-                            // remplacer la liste des schedules par les schedules filtrés
-                            cours.setSchedules(schedulesFiltres);
-
-                            return cours;
+                            // copie avec les schedules filtrés : les cours du repository sont partagés avec son cache
+                            return cours.withSchedules(schedulesFiltres);
                         })
                         .filter(Objects::nonNull)
                         .toList();
@@ -683,10 +926,7 @@ float moyenneAvisDifficulte = 0;
             return "La liste des cours complétés est invalide";
         }
 
-        boolean allValid = listeCours.stream()
-                .allMatch(this::validateIdCours);
-
-        if (!allValid) {
+        if (!validateAll(listeCours).isEmpty()) {
             return "Il y a des cours complétés invalides";
         }
 
@@ -775,29 +1015,31 @@ float moyenneAvisDifficulte = 0;
         // pour éviter les doublons d'activités (un horaire peut apparaître plusieurs fois dans l'API)
         Set<String> seen = new HashSet<>();
 
-        // on parcourt chaque cours demandé
-        for (String id : idCours) {
+        Set<String> invalides = validateAll(idCours);
+        if (!invalides.isEmpty()) {
+            throw new HoraireException("Identifiant de cours invalide : " + invalides.iterator().next());
+        }
 
-            if (!validateIdCours(id)) {
-                throw new HoraireException("Identifiant de cours invalide : " + id);
-            }
+        // tous les cours demandés sont chargés en une seule opération groupée
+        Map<String, Cours> coursCharges;
+        try {
+            coursCharges = coursRepository.getCoursesByIds(idCours, null);
+        } catch (Exception e) {
+            throw new HoraireException(
+                    "Erreur lors de la récupération des cours " + idCours
+            );
+        }
 
-            Optional<List<Cours>> opt;
-            try {
-                opt = coursRepository.getCourseBy("id", id, "true", null);
-            } catch (Exception e) {
-                throw new HoraireException(
-                        "Erreur lors de la récupération du cours " + id
-                );
-            }
+        // on parcourt chaque cours demandé
+        for (String id : idCours) {
 
-            if (opt.isEmpty()) {
+            Cours cours = coursCharges.get(id);
+            if (cours == null) {
                 throw new HoraireException(
                         "Le cours " + id + " n’a pas pu être récupéré."
                 );
             }
 
-            Cours cours = opt.get().get(0);
             if (cours.getSchedules() == null) continue;
 
             resultat.putIfAbsent(cours.getId(), new HashMap<>());
@@ -1213,6 +1455,22 @@ float moyenneAvisDifficulte = 0;
         }
         return listeCours;
     }
+    /**
+     * Cette methode permet d'obtenir les programmes qui incluent un cours donne.
+     * @param courseID ID du cours, ex. "IFT2255".
+     * @return Une liste clés valeurs avec l'id et le nom des programmes, vide si aucun.
+     **/
+    public List<Map<String,String>> getProgramsForCourse(String courseID) {
+        if (courseID == null || courseID.isBlank()) {
+            return List.of();
+        }
+        try {
+            return coursRepository.getProgramsForCourse(courseID.trim().toUpperCase(Locale.ROOT));
+        } catch (Exception e) {
+            System.out.println("Erreur lors de la récupération des programmes du cours : " + e.getMessage());
+            return List.of();
+        }
+    }
     /**
      * Cette methode permet d'obtenir la liste des cours disponible pour un trimestre donnee dans un programme.
      * @param programID ID du programme dans lequel il faut effectuer la recherche.
@@ -1220,10 +1478,32 @@ float moyenneAvisDifficulte = 0;
      * @return Une liste contenant les ID des cours offerts pour le trimestre.
      **/
     public List<String> getCourseBySemester(String semester, String programID){
-        return getCoursesForAProgram(programID)
-                .parallelStream()
-                .filter(id -> isCourseAvailable(id, semester))
-                .toList();
+        try {
+            return coursRepository.getCoursesAvailable(programID, semester);
+        } catch (Exception e) {
+            System.out.println("Erreur lors de la récupération des cours disponibles : " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Variante de {@link #getCourseBySemester(String, String)} qui ne garde que les cours offrant au moins
+     * une section dont toutes les activités hebdomadaires tiennent dans les jours et la plage horaire donnés.
+     * @param joursMask jours permis, en masque de bits (voir ScheduleSlots).
+     * @param debut début de la plage permise, en minutes depuis minuit.
+     * @param fin fin de la plage permise, en minutes depuis minuit.
+     * @return les ID des cours offerts et compatibles, triés.
+     **/
+    public List<String> getCourseBySemester(String semester, String programID, int joursMask, int debut, int fin){
+        try {
+            Set<String> compatibles = new HashSet<>(coursRepository.getCoursesFittingWithin(semester, joursMask, debut, fin));
+            return coursRepository.getCoursesAvailable(programID, semester).stream()
+                    .filter(compatibles::contains)
+                    .toList();
+        } catch (Exception e) {
+            System.out.println("Erreur lors de la récupération des cours disponibles : " + e.getMessage());
+            return List.of();
+        }
     }
 
 
@@ -1369,16 +1649,6 @@ float moyenneAvisDifficulte = 0;
 
 
 
-    /**
-     * Cette methode permet de verifier si un cours est disponible pour un trimestre donné.
-     * @param id ID du cours.
-     * @param semester Trimestre pour lequel on desire verifier la disponibilité d'un cours.
-     * @return Un booléen qui est vrai si le cours est disponible et faux si le cours est indisponible.
-     **/
-    private boolean isCourseAvailable(String id, String semester){
-        return fetchSchedule(id, semester).isPresent();
-    }
-
     /**
      * Cette methode retourne le contenu pour un cours disponible pour un trimestre donné.
      * @param courseID ID du cours.
@@ -0,0 +1,98 @@
+package org.projet.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * One stage of the sync pipeline: a fixed pool of daemon workers fed through a bounded queue.
+ * {@link #submit} blocks while the queue is full, so a slow stage holds back the one feeding it instead
+ * of buffering the whole catalog in memory.
+ */
+final class PipelineStage<T> {
+    private static final Logger LOGGER = Logger.getLogger(PipelineStage.class.getName());
+    private static final Object END = new Object();
+
+    private final BlockingQueue<Object> queue;
+    private final ExecutorService executor;
+    private final int workers;
+
+    /**
+     * @param name prefix of the worker thread names.
+     * @param workers number of items processed at the same time.
+     * @param capacity number of items waiting in the queue before {@link #submit} blocks.
+     * @param task work done on each item; its errors are logged and skip only that item.
+     */
+    PipelineStage(String name, int workers, int capacity, Task<T> task) {
+        this.workers = Math.max(1, workers);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.workers, runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < this.workers; i++) {
+            executor.execute(() -> work(task));
+        }
+    }
+
+    /**
+     * Queues an item, waiting for room in the queue.
+     */
+    void submit(T item) throws InterruptedException {
+        queue.put(item);
+    }
+
+    /**
+     * Signals that no more items will be submitted and waits until every queued item is processed.
+     */
+    void finish() throws InterruptedException {
+        try {
+            for (int i = 0; i < workers; i++) {
+                queue.put(END);
+            }
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOGGER.info("Waiting for " + queue.size() + " queued sync items");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void work(Task<T> task) {
+        while (true) {
+            Object item;
+            try {
+                item = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (item == END) {
+                return;
+            }
+
+            try {
+                task.accept((T) item);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Catalog sync task failed", e);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface Task<T> {
+        void accept(T item) throws Exception;
+    }
+}
@@ -0,0 +1,59 @@
+package org.projet.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Seau à jetons partagé entre les fils de synchronisation, pour borner le débit des requêtes vers
+ * Planifium. Le seau se remplit au débit configuré et contient au plus une seconde de jetons ;
+ * un appelant qui trouve le seau vide réserve son jeton et attend qu'il soit produit.
+ */
+final class TokenBucket {
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double permitsPerNano;
+    private final double capacity;
+    private final LongSupplier nanoClock;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * @param permitsPerSecond débit maximal ; 0 ou moins retire toute limite.
+     */
+    TokenBucket(double permitsPerSecond) {
+        this(permitsPerSecond, System::nanoTime);
+    }
+
+    TokenBucket(double permitsPerSecond, LongSupplier nanoClock) {
+        this.permitsPerNano = Math.max(0.0, permitsPerSecond) / NANOS_PER_SECOND;
+        this.capacity = Math.max(1.0, permitsPerSecond);
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.lastRefill = nanoClock.getAsLong();
+    }
+
+    /**
+     * Prend un jeton, en attendant si nécessaire.
+     */
+    void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Réserve un jeton sans attendre.
+     * @return le délai, en nanosecondes, avant que le jeton réservé soit disponible.
+     */
+    synchronized long reserve() {
+        if (permitsPerNano == 0.0) {
+            return 0;
+        }
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * permitsPerNano);
+        lastRefill = now;
+        tokens -= 1.0;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / permitsPerNano);
+    }
+}
@@ -0,0 +1,15 @@
+-- One row per catalog sync, written by the node that holds the sync advisory lock.
+-- trigger: 'admin' (POST /admin/sync) or 'scheduled'.
+-- finished_at / status stay NULL while the sync runs; a row left open by a node that died is closed as
+-- 'abandoned' by the next sync.
+CREATE TABLE IF NOT EXISTS catalog_sync_runs (
+    id UUID PRIMARY KEY,
+    trigger TEXT NOT NULL,
+    node TEXT NOT NULL,
+    started_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    finished_at TIMESTAMPTZ,
+    status TEXT
+);
+
+CREATE INDEX IF NOT EXISTS idx_catalog_sync_runs_running ON catalog_sync_runs (started_at DESC)
+    WHERE finished_at IS NULL;
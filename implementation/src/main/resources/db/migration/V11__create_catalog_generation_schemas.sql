@@ -0,0 +1,12 @@
+-- Catalog generations (see CatalogGenerations): each sync writes a copy of the catalog tables in
+-- catalog_next, then one transaction moves the live tables to catalog_prev and the copy to public.
+-- A migration that changes the catalog tables should also drop the catalog_prev tables, whose shape
+-- would no longer match the code after a rollback.
+CREATE SCHEMA IF NOT EXISTS catalog_next;
+CREATE SCHEMA IF NOT EXISTS catalog_prev;
+
+-- The BIGSERIAL sequences are shared by every generation: detach them from their tables so that they stay
+-- in public when a table moves to catalog_prev, and survive when it is dropped.
+ALTER SEQUENCE sections_id_seq OWNED BY NONE;
+ALTER SEQUENCE volets_id_seq OWNED BY NONE;
+ALTER SEQUENCE activities_id_seq OWNED BY NONE;
@@ -0,0 +1,22 @@
+-- Single-row version of the reviews, bumped by a statement trigger on every write so that readers get
+-- the version with a one-row lookup instead of aggregating the whole reviews table.
+CREATE TABLE IF NOT EXISTS reviews_version (
+    id BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (id),
+    version BIGINT NOT NULL
+);
+
+INSERT INTO reviews_version (id, version) VALUES (TRUE, 0) ON CONFLICT (id) DO NOTHING;
+
+CREATE OR REPLACE FUNCTION bump_reviews_version() RETURNS trigger
+    LANGUAGE plpgsql
+AS $$
+BEGIN
+    UPDATE reviews_version SET version = version + 1;
+    RETURN NULL;
+END
+$$;
+
+DROP TRIGGER IF EXISTS reviews_version_bump ON reviews;
+CREATE TRIGGER reviews_version_bump
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON reviews
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_reviews_version();
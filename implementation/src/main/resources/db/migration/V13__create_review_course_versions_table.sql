@@ -0,0 +1,47 @@
+-- Per-course version of the reviews, behind the ETag of /cours/{sigle}/avis. A row trigger bumps the
+-- counter of every course an insert, update or delete touches, so an edited comment or validation flag
+-- changes the ETag too. Counters never go back, even when reviews are deleted or truncated, so an old
+-- ETag can never match newer reviews.
+CREATE TABLE IF NOT EXISTS review_course_versions (
+    sigle_cours VARCHAR(16) PRIMARY KEY,
+    version BIGINT NOT NULL
+);
+
+INSERT INTO review_course_versions (sigle_cours, version)
+SELECT DISTINCT sigle_cours, 1 FROM reviews
+ON CONFLICT (sigle_cours) DO NOTHING;
+
+CREATE OR REPLACE FUNCTION bump_review_course_version() RETURNS trigger
+    LANGUAGE plpgsql
+AS $$
+BEGIN
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO review_course_versions (sigle_cours, version) VALUES (NEW.sigle_cours, 1)
+        ON CONFLICT (sigle_cours) DO UPDATE SET version = review_course_versions.version + 1;
+    END IF;
+    IF TG_OP = 'DELETE' OR (TG_OP = 'UPDATE' AND OLD.sigle_cours IS DISTINCT FROM NEW.sigle_cours) THEN
+        INSERT INTO review_course_versions (sigle_cours, version) VALUES (OLD.sigle_cours, 1)
+        ON CONFLICT (sigle_cours) DO UPDATE SET version = review_course_versions.version + 1;
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+CREATE OR REPLACE FUNCTION bump_all_review_course_versions() RETURNS trigger
+    LANGUAGE plpgsql
+AS $$
+BEGIN
+    UPDATE review_course_versions SET version = version + 1;
+    RETURN NULL;
+END
+$$;
+
+DROP TRIGGER IF EXISTS review_course_version_bump ON reviews;
+CREATE TRIGGER review_course_version_bump
+    AFTER INSERT OR UPDATE OR DELETE ON reviews
+    FOR EACH ROW EXECUTE FUNCTION bump_review_course_version();
+
+DROP TRIGGER IF EXISTS review_course_versions_truncate ON reviews;
+CREATE TRIGGER review_course_versions_truncate
+    AFTER TRUNCATE ON reviews
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_all_review_course_versions();
@@ -0,0 +1,3 @@
+-- Prefix searches (upper(id) LIKE 'IFT%') and exact id lookups both go through upper(id);
+-- text_pattern_ops lets the planner use the index for LIKE regardless of the collation.
+CREATE INDEX IF NOT EXISTS idx_courses_upper_id ON courses (upper(id) text_pattern_ops);
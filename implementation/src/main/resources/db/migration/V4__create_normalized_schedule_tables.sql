@@ -0,0 +1,115 @@
+-- Normalized copy of schedules.raw_data, rewritten on each schedule upsert.
+-- days_mask: bit 0 = Lu, 1 = Ma, 2 = Me, 3 = Je, 4 = Ve, 5 = Sa, 6 = Di.
+-- start_minute / end_minute: minutes since midnight.
+-- volets.is_exam flags the intra/final volets, which are not part of the weekly schedule.
+CREATE TABLE IF NOT EXISTS sections (
+    id BIGSERIAL PRIMARY KEY,
+    course_id VARCHAR(16) NOT NULL,
+    semester TEXT NOT NULL,
+    position INTEGER NOT NULL,
+    name TEXT,
+    capacity INTEGER,
+    number_inscription INTEGER,
+    teachers TEXT[],
+    UNIQUE (course_id, semester, position)
+);
+
+CREATE TABLE IF NOT EXISTS volets (
+    id BIGSERIAL PRIMARY KEY,
+    section_id BIGINT NOT NULL REFERENCES sections (id) ON DELETE CASCADE,
+    position INTEGER NOT NULL,
+    name TEXT,
+    is_exam BOOLEAN NOT NULL DEFAULT FALSE,
+    UNIQUE (section_id, position)
+);
+
+CREATE TABLE IF NOT EXISTS activities (
+    id BIGSERIAL PRIMARY KEY,
+    volet_id BIGINT NOT NULL REFERENCES volets (id) ON DELETE CASCADE,
+    course_id VARCHAR(16) NOT NULL,
+    semester TEXT NOT NULL,
+    days_mask SMALLINT NOT NULL DEFAULT 0,
+    start_minute SMALLINT,
+    end_minute SMALLINT,
+    start_date TEXT,
+    end_date TEXT,
+    campus TEXT,
+    pavillon_name TEXT,
+    room TEXT,
+    mode TEXT
+);
+
+CREATE INDEX IF NOT EXISTS idx_volets_section ON volets (section_id);
+CREATE INDEX IF NOT EXISTS idx_activities_volet ON activities (volet_id);
+CREATE INDEX IF NOT EXISTS idx_activities_semester_time ON activities (semester, start_minute, end_minute);
+CREATE INDEX IF NOT EXISTS idx_activities_course ON activities (course_id, semester);
+
+-- Backfill from the schedules already cached.
+INSERT INTO sections (course_id, semester, position, name, capacity, number_inscription, teachers)
+SELECT s.course_id,
+       s.semester,
+       sec.ord,
+       sec.value ->> 'name',
+       CASE WHEN sec.value ->> 'capacity' ~ '^\d+$' THEN (sec.value ->> 'capacity')::int END,
+       CASE WHEN sec.value ->> 'number_inscription' ~ '^\d+$' THEN (sec.value ->> 'number_inscription')::int END,
+       CASE WHEN jsonb_typeof(sec.value -> 'teachers') = 'array'
+            THEN ARRAY(SELECT jsonb_array_elements_text(sec.value -> 'teachers')) END
+FROM schedules s
+CROSS JOIN LATERAL jsonb_array_elements(
+        CASE WHEN jsonb_typeof(s.raw_data -> 'sections') = 'array' THEN s.raw_data -> 'sections' ELSE '[]'::jsonb END
+    ) WITH ORDINALITY AS sec(value, ord);
+
+INSERT INTO volets (section_id, position, name, is_exam)
+SELECT sections.id,
+       vol.ord,
+       vol.value ->> 'name',
+       COALESCE(lower(vol.value ->> 'name') LIKE '%intra%' OR lower(vol.value ->> 'name') LIKE '%final%', FALSE)
+FROM schedules s
+CROSS JOIN LATERAL jsonb_array_elements(
+        CASE WHEN jsonb_typeof(s.raw_data -> 'sections') = 'array' THEN s.raw_data -> 'sections' ELSE '[]'::jsonb END
+    ) WITH ORDINALITY AS sec(value, ord)
+JOIN sections ON sections.course_id = s.course_id
+             AND sections.semester = s.semester
+             AND sections.position = sec.ord
+CROSS JOIN LATERAL jsonb_array_elements(
+        CASE WHEN jsonb_typeof(sec.value -> 'volets') = 'array' THEN sec.value -> 'volets' ELSE '[]'::jsonb END
+    ) WITH ORDINALITY AS vol(value, ord);
+
+INSERT INTO activities (volet_id, course_id, semester, days_mask, start_minute, end_minute,
+                        start_date, end_date, campus, pavillon_name, room, mode)
+SELECT volets.id,
+       s.course_id,
+       s.semester,
+       COALESCE((
+           SELECT sum(CASE d.day
+                          WHEN 'Lu' THEN 1 WHEN 'Ma' THEN 2 WHEN 'Me' THEN 4 WHEN 'Je' THEN 8
+                          WHEN 'Ve' THEN 16 WHEN 'Sa' THEN 32 WHEN 'Di' THEN 64 ELSE 0 END)
+           FROM (SELECT DISTINCT day FROM jsonb_array_elements_text(
+                   CASE WHEN jsonb_typeof(act.value -> 'days') = 'array' THEN act.value -> 'days' ELSE '[]'::jsonb END
+               ) AS day) d
+       ), 0),
+       CASE WHEN act.value ->> 'start_time' ~ '^\d{1,2}:\d{2}'
+            THEN split_part(act.value ->> 'start_time', ':', 1)::int * 60 + substr(split_part(act.value ->> 'start_time', ':', 2), 1, 2)::int END,
+       CASE WHEN act.value ->> 'end_time' ~ '^\d{1,2}:\d{2}'
+            THEN split_part(act.value ->> 'end_time', ':', 1)::int * 60 + substr(split_part(act.value ->> 'end_time', ':', 2), 1, 2)::int END,
+       act.value ->> 'start_date',
+       act.value ->> 'end_date',
+       act.value ->> 'campus',
+       act.value ->> 'pavillon_name',
+       act.value ->> 'room',
+       act.value ->> 'mode'
+FROM schedules s
+CROSS JOIN LATERAL jsonb_array_elements(
+        CASE WHEN jsonb_typeof(s.raw_data -> 'sections') = 'array' THEN s.raw_data -> 'sections' ELSE '[]'::jsonb END
+    ) WITH ORDINALITY AS sec(value, ord)
+JOIN sections ON sections.course_id = s.course_id
+             AND sections.semester = s.semester
+             AND sections.position = sec.ord
+CROSS JOIN LATERAL jsonb_array_elements(
+        CASE WHEN jsonb_typeof(sec.value -> 'volets') = 'array' THEN sec.value -> 'volets' ELSE '[]'::jsonb END
+    ) WITH ORDINALITY AS vol(value, ord)
+JOIN volets ON volets.section_id = sections.id
+           AND volets.position = vol.ord
+CROSS JOIN LATERAL jsonb_array_elements(
+        CASE WHEN jsonb_typeof(vol.value -> 'activities') = 'array' THEN vol.value -> 'activities' ELSE '[]'::jsonb END
+    ) AS act(value);
@@ -0,0 +1,21 @@
+-- Case- and accent-insensitive form used by full-text search (é -> e, œ -> oe, ...).
+-- translate() keeps the function IMMUTABLE, which unaccent() is not, so it can feed a generated column.
+CREATE OR REPLACE FUNCTION pickcourse_fold(value text) RETURNS text
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE
+AS $$
+    SELECT replace(replace(
+        translate(lower(coalesce(value, '')),
+                  'àáâãäåçèéêëìíîïñòóôõöùúûüýÿ',
+                  'aaaaaaceeeeiiiinooooouuuuyy'),
+        'œ', 'oe'), 'æ', 'ae')
+$$;
+
+-- Id and name weigh more than description in ts_rank.
+ALTER TABLE courses ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', pickcourse_fold(id)), 'A')
+        || setweight(to_tsvector('simple', pickcourse_fold(name)), 'A')
+        || setweight(to_tsvector('simple', pickcourse_fold(description)), 'B')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_courses_search_vector ON courses USING gin (search_vector);
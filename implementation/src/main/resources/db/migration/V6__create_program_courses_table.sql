@@ -0,0 +1,39 @@
+-- Course membership of each program, rewritten on each program upsert from programs.raw_data.
+-- position: order of the course in the program tree, starting at 1.
+-- segment_* / bloc_*: enclosing segment and bloc, NULL for course lists outside of them.
+CREATE TABLE IF NOT EXISTS program_courses (
+    program_id TEXT NOT NULL REFERENCES programs (id) ON DELETE CASCADE,
+    position INTEGER NOT NULL,
+    course_id VARCHAR(16) NOT NULL,
+    segment_position INTEGER,
+    segment_name TEXT,
+    bloc_position INTEGER,
+    bloc_id TEXT,
+    bloc_name TEXT,
+    PRIMARY KEY (program_id, position)
+);
+
+CREATE INDEX IF NOT EXISTS idx_program_courses_program_course ON program_courses (program_id, course_id);
+CREATE INDEX IF NOT EXISTS idx_program_courses_course ON program_courses (course_id, program_id);
+
+-- Backfill from the programs already cached (segments -> blocs -> courses).
+INSERT INTO program_courses (program_id, position, course_id, segment_position, segment_name,
+                             bloc_position, bloc_id, bloc_name)
+SELECT p.id,
+       row_number() OVER (PARTITION BY p.id ORDER BY seg.ord, bloc.ord, course.ord),
+       course.value,
+       seg.ord,
+       seg.value ->> 'name',
+       bloc.ord,
+       bloc.value ->> 'id',
+       bloc.value ->> 'name'
+FROM programs p
+CROSS JOIN LATERAL jsonb_array_elements(
+        CASE WHEN jsonb_typeof(p.raw_data -> 'segments') = 'array' THEN p.raw_data -> 'segments' ELSE '[]'::jsonb END
+    ) WITH ORDINALITY AS seg(value, ord)
+CROSS JOIN LATERAL jsonb_array_elements(
+        CASE WHEN jsonb_typeof(seg.value -> 'blocs') = 'array' THEN seg.value -> 'blocs' ELSE '[]'::jsonb END
+    ) WITH ORDINALITY AS bloc(value, ord)
+CROSS JOIN LATERAL jsonb_array_elements_text(
+        CASE WHEN jsonb_typeof(bloc.value -> 'courses') = 'array' THEN bloc.value -> 'courses' ELSE '[]'::jsonb END
+    ) WITH ORDINALITY AS course(value, ord);
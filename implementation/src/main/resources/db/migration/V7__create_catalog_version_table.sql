@@ -0,0 +1,9 @@
+-- Single-row catalog version shared by every API node.
+-- Bumped at the end of each sync; the new value is broadcast with NOTIFY catalog_changed.
+CREATE TABLE IF NOT EXISTS catalog_version (
+    id BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (id),
+    version BIGINT NOT NULL,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+INSERT INTO catalog_version (id, version) VALUES (TRUE, 0) ON CONFLICT (id) DO NOTHING;
@@ -0,0 +1,13 @@
+-- Staging area for bulk course loads: COPY fills it, a single INSERT ... SELECT merges it into courses.
+-- UNLOGGED: rows only live for the duration of one load transaction, so they skip the WAL.
+-- position: order of the row in the load, the last row wins when an id appears twice.
+CREATE UNLOGGED TABLE IF NOT EXISTS courses_staging (
+    position INTEGER NOT NULL,
+    id VARCHAR(16) NOT NULL,
+    name TEXT,
+    description TEXT,
+    credits NUMERIC,
+    requirement_text TEXT,
+    udem_website TEXT,
+    raw_data JSONB NOT NULL
+);
@@ -0,0 +1,6 @@
+-- SHA-256 of the canonical JSON payload (object keys sorted), compared during sync so that rows
+-- Planifium returned unchanged are not rewritten. NULL for rows written before this column existed.
+ALTER TABLE courses ADD COLUMN IF NOT EXISTS content_hash TEXT;
+ALTER TABLE programs ADD COLUMN IF NOT EXISTS content_hash TEXT;
+ALTER TABLE schedules ADD COLUMN IF NOT EXISTS content_hash TEXT;
+ALTER TABLE courses_staging ADD COLUMN IF NOT EXISTS content_hash TEXT;
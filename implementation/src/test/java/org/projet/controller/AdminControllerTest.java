@@ -4,6 +4,11 @@ import io.javalin.Javalin;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.projet.repository.CatalogCacheRepository;
+import org.projet.repository.CatalogSnapshot;
+import org.projet.repository.CatalogSyncLock;
+import org.projet.repository.CourseCache;
+import org.projet.service.CatalogSyncScheduler;
 import org.projet.service.CatalogSyncService;
 
 import java.io.IOException;
@@ -12,30 +17,45 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.util.concurrent.Executor;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class AdminControllerTest {
     private final HttpClient httpClient = HttpClient.newHttpClient();
 
     private Javalin app;
     private CatalogSyncService syncService;
+    private CatalogSyncLock syncLock;
+    private CatalogSyncLock.Lease lease;
+    private CatalogCacheRepository cacheRepository;
     private int port;
 
     @BeforeEach
     void setUp() throws IOException {
         syncService = mock(CatalogSyncService.class);
+        syncLock = mock(CatalogSyncLock.class);
+        lease = mock(CatalogSyncLock.Lease.class);
+        cacheRepository = mock(CatalogCacheRepository.class);
         port = findFreePort();
+        when(lease.getId()).thenReturn("sync-1");
+        when(syncLock.tryAcquire("admin")).thenReturn(Optional.of(lease));
 
-        Executor directExecutor = Runnable::run;
-        AdminController controller = new AdminController(syncService, () -> "test-token", directExecutor);
+        CatalogSyncScheduler scheduler = new CatalogSyncScheduler(syncService, syncLock, Runnable::run);
+        AdminController controller = new AdminController(scheduler, cacheRepository, () -> "test-token");
 
         app = Javalin.create().start(port);
         app.post("/admin/sync", controller::syncCatalog);
+        app.post("/admin/catalog/rollback", controller::rollbackCatalog);
+        app.get("/admin/catalog/snapshot", controller::snapshotStats);
+        app.get("/admin/db/pool", controller::poolMetrics);
+        app.get("/admin/catalog/cache", controller::courseCacheStats);
     }
 
     @AfterEach
@@ -51,7 +71,32 @@ class AdminControllerTest {
 
         assertEquals(202, response.statusCode());
         assertEquals("Sync started", response.body());
+        assertEquals("sync-1", response.headers().firstValue("X-Sync-Id").orElse(null));
         verify(syncService).syncAll();
+        verify(lease).finish(true);
+    }
+
+    @Test
+    void syncAdminEndpointReturns409WhenSyncAlreadyRunning() throws Exception {
+        when(syncLock.tryAcquire("admin")).thenReturn(Optional.empty());
+        when(syncLock.runningSyncId()).thenReturn(Optional.of("abc"));
+
+        HttpResponse<String> response = sendSyncRequest("test-token");
+
+        assertEquals(409, response.statusCode());
+        assertEquals("Sync already running: abc", response.body());
+        assertEquals("abc", response.headers().firstValue("X-Sync-Id").orElse(null));
+        verify(syncService, never()).syncAll();
+    }
+
+    @Test
+    void syncAdminEndpointReleasesLockWhenSyncFails() throws Exception {
+        doThrow(new IllegalStateException("planifium down")).when(syncService).syncAll();
+
+        HttpResponse<String> response = sendSyncRequest("test-token");
+
+        assertEquals(202, response.statusCode());
+        verify(lease).finish(false);
     }
 
     @Test
@@ -72,9 +117,114 @@ class AdminControllerTest {
         verify(syncService, never()).syncAll();
     }
 
+    @Test
+    void rollbackEndpointRestoresPreviousGeneration() throws Exception {
+        when(syncLock.tryAcquire("rollback")).thenReturn(Optional.of(lease));
+        when(syncService.rollback()).thenReturn(true);
+
+        HttpResponse<String> response = sendPost("/admin/catalog/rollback", "test-token");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("Catalog rolled back", response.body());
+        verify(lease).finish(true);
+    }
+
+    @Test
+    void rollbackEndpointReturns404WithoutPreviousGeneration() throws Exception {
+        when(syncLock.tryAcquire("rollback")).thenReturn(Optional.of(lease));
+        when(syncService.rollback()).thenReturn(false);
+
+        HttpResponse<String> response = sendPost("/admin/catalog/rollback", "test-token");
+
+        assertEquals(404, response.statusCode());
+    }
+
+    @Test
+    void rollbackEndpointReturns409WhenSyncAlreadyRunning() throws Exception {
+        when(syncLock.tryAcquire("rollback")).thenReturn(Optional.empty());
+        when(syncLock.runningSyncId()).thenReturn(Optional.of("abc"));
+
+        HttpResponse<String> response = sendPost("/admin/catalog/rollback", "test-token");
+
+        assertEquals(409, response.statusCode());
+        assertEquals("Sync already running: abc", response.body());
+        verify(syncService, never()).rollback();
+    }
+
+    @Test
+    void snapshotStatsEndpointReturnsMemoryReport() throws Exception {
+        CatalogSnapshot.Stats stats = new CatalogSnapshot.Stats(42, 10, 1, 2, 9000, 123456, 15, "2025-01-01T00:00:00Z");
+        when(cacheRepository.isSnapshotEnabled()).thenReturn(true);
+        when(cacheRepository.snapshotStats()).thenReturn(Optional.of(stats));
+
+        HttpResponse<String> response = sendGet("/admin/catalog/snapshot", "test-token");
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"courses\":42"));
+        assertTrue(response.body().contains("\"estimatedHeapBytes\":123456"));
+    }
+
+    @Test
+    void snapshotStatsEndpointReturns404WhenSnapshotDisabled() throws Exception {
+        when(cacheRepository.isSnapshotEnabled()).thenReturn(false);
+
+        HttpResponse<String> response = sendGet("/admin/catalog/snapshot", "test-token");
+
+        assertEquals(404, response.statusCode());
+    }
+
+    @Test
+    void snapshotStatsEndpointRejectsMissingToken() throws Exception {
+        HttpResponse<String> response = sendGet("/admin/catalog/snapshot", null);
+
+        assertEquals(401, response.statusCode());
+    }
+
+    @Test
+    void courseCacheStatsEndpointReturnsCounters() throws Exception {
+        when(cacheRepository.courseCacheStats()).thenReturn(new CourseCache.Stats(3, 1200, 16000, 7, 3, 0, 2));
+
+        HttpResponse<String> response = sendGet("/admin/catalog/cache", "test-token");
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"hits\":7"));
+        assertTrue(response.body().contains("\"catalogVersion\":2"));
+    }
+
+    @Test
+    void poolMetricsEndpointReturns404BeforePoolStarts() throws Exception {
+        HttpResponse<String> response = sendGet("/admin/db/pool", "test-token");
+
+        assertEquals(404, response.statusCode());
+        assertEquals("Database pool not started", response.body());
+    }
+
+    @Test
+    void poolMetricsEndpointRejectsMissingToken() throws Exception {
+        HttpResponse<String> response = sendGet("/admin/db/pool", null);
+
+        assertEquals(401, response.statusCode());
+    }
+
+    private HttpResponse<String> sendGet(String path, String token) throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + port + path))
+                .GET();
+
+        if (token != null) {
+            builder.header("X-Admin-Token", token);
+        }
+
+        return httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
     private HttpResponse<String> sendSyncRequest(String token) throws Exception {
+        return sendPost("/admin/sync", token);
+    }
+
+    private HttpResponse<String> sendPost(String path, String token) throws Exception {
         HttpRequest.Builder builder = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:" + port + "/admin/sync"))
+                .uri(URI.create("http://localhost:" + port + path))
                 .POST(HttpRequest.BodyPublishers.noBody());
 
         if (token != null) {
@@ -9,6 +9,7 @@ import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.projet.controller.AvisController.RequeteAvis;
 import org.projet.model.Avis;
+import org.projet.repository.KeysetPage;
 import org.projet.service.AvisService;
 
 import java.util.ArrayList;
@@ -160,6 +161,40 @@ class AvisControllerTest {
         verify(ctx, never()).json(any());
     }
 
+    /**
+     * Teste la pagination par curseur de getAllAvis() : une page et l'en-tête du curseur suivant.
+     */
+    @Test
+    void testGetAllAvis_PageParCurseur() {
+        List<Avis> avisList = List.of(new Avis("IFT1234", "Prof A", 4, 3, "Bon cours", true));
+        when(ctx.queryParam("stream")).thenReturn(null);
+        when(ctx.queryParam("limit")).thenReturn("1");
+        when(ctx.queryParam("after")).thenReturn("10");
+        when(avisService.getAvisPage("10", 1)).thenReturn(new KeysetPage<>(avisList, "11"));
+        when(ctx.status(200)).thenReturn(ctx);
+
+        avisController.getAllAvis(ctx);
+
+        verify(ctx).header("X-Next-Cursor", "11");
+        verify(ctx).json(avisList);
+        verify(avisService, never()).getAllAvis();
+    }
+
+    /**
+     * Teste qu'une limite non numérique est refusée avec un code 400.
+     */
+    @Test
+    void testGetAllAvis_LimiteInvalide() {
+        when(ctx.queryParam("stream")).thenReturn(null);
+        when(ctx.queryParam("limit")).thenReturn("beaucoup");
+        when(ctx.status(400)).thenReturn(ctx);
+
+        avisController.getAllAvis(ctx);
+
+        verify(ctx).status(400);
+        verify(ctx).result("Erreur : paramètres de pagination invalides");
+    }
+
     /**
      * Teste la gestion d'une IllegalArgumentException dans getAllAvis().
      * Vérifie qu'une erreur de validation retourne un code 400.
@@ -212,6 +247,45 @@ class AvisControllerTest {
         verify(ctx).json(avisList);
     }
 
+    /**
+     * Teste getAvisParCours() avec un If-None-Match égal à la version courante des avis.
+     * Vérifie qu'un code 304 est retourné sans relire les avis.
+     */
+    @Test
+    void testGetAvisParCours_NonModifie() {
+        when(ctx.pathParam("sigle")).thenReturn("IFT1234");
+        when(avisService.getVersionAvis("IFT1234")).thenReturn("7.2");
+        when(ctx.header("If-None-Match")).thenReturn("\"avis-7.2\"");
+
+        avisController.getAvisParCours(ctx);
+
+        verify(ctx).status(304);
+        verify(ctx).header("ETag", "\"avis-7.2\"");
+        verify(avisService, never()).getAvisParCours(anyString());
+        verify(ctx, never()).json(any());
+    }
+
+    /**
+     * Teste getAvisParCours() avec un If-None-Match périmé.
+     * Vérifie que les avis sont renvoyés avec le nouvel ETag.
+     */
+    @Test
+    void testGetAvisParCours_EtagPerime() {
+        List<Avis> avisList = List.of(new Avis("IFT1234", "Prof A", 4, 3, "Bon cours", true));
+        when(ctx.pathParam("sigle")).thenReturn("IFT1234");
+        when(avisService.getVersionAvis("IFT1234")).thenReturn("8.3");
+        when(ctx.header("If-None-Match")).thenReturn("\"avis-7.2\"");
+        when(ctx.header("Accept-Encoding")).thenReturn(null);
+        when(avisService.getAvisParCours("IFT1234")).thenReturn(avisList);
+        when(ctx.status(200)).thenReturn(ctx);
+
+        avisController.getAvisParCours(ctx);
+
+        verify(ctx).header("ETag", "\"avis-8.3\"");
+        verify(ctx).status(200);
+        verify(ctx).json(avisList);
+    }
+
     /**
      * Teste getAvisParCours() lorsque le sigle est manquant (chaîne vide).
      * Vérifie qu'un code 400 est retourné sans appeler le service.
@@ -0,0 +1,249 @@
+package org.projet.controller;
+
+import io.javalin.Javalin;
+import org.flywaydb.core.Flyway;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.projet.config.CompressionConfig;
+import org.projet.model.Cours;
+import org.projet.repository.CatalogCacheRepository;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@Testcontainers
+class CompressedResponsesTest {
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16")
+            .withDatabaseName("pickcourse")
+            .withUsername("pickcourse")
+            .withPassword("devpassword");
+
+    private static final String ETAG = "\"catalogue-3\"";
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final AtomicInteger computed = new AtomicInteger();
+
+    private Javalin app;
+    private CompressedResponses responses;
+    private int port;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        responses = new CompressedResponses(1_000_000, 256, CompressionConfig.brotliAvailable());
+        port = findFreePort();
+
+        app = Javalin.create(config -> config.http.customCompression(CompressionConfig.strategy())).start(port);
+        app.get("/cours-programme/{id}", ctx -> {
+            if (EtagSupport.notModified(ctx, ETAG) || responses.serveCached(ctx, ETAG)) {
+                return;
+            }
+            computed.incrementAndGet();
+            int size = "petit".equals(ctx.pathParam("id")) ? 2 : 500;
+            responses.write(ctx, ETAG, courses(size));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (app != null) {
+            app.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Une réponse gzip est compressée une seule fois puis servie depuis le cache")
+    void gzipResponseIsCompressedOnce() throws Exception {
+        HttpResponse<byte[]> first = get("/cours-programme/117510", "gzip, deflate");
+        HttpResponse<byte[]> second = get("/cours-programme/117510", "gzip");
+
+        assertEquals(200, second.statusCode());
+        assertEquals("gzip", second.headers().firstValue("Content-Encoding").orElse(null));
+        assertEquals("W/" + ETAG, second.headers().firstValue("ETag").orElse(null));
+        assertEquals(json(courses(500)), gunzip(second.body()));
+        assertEquals(gunzip(first.body()), gunzip(second.body()));
+        assertTrue(second.body().length < json(courses(500)).length() / 4);
+        assertEquals(1, computed.get());
+        assertEquals(1, responses.hits());
+    }
+
+    @Test
+    @DisplayName("Brotli est préféré quand le client l'accepte et que le natif est disponible")
+    void brotliIsPreferredWhenAvailable() throws Exception {
+        assumeTrue(CompressionConfig.brotliAvailable());
+
+        HttpResponse<byte[]> response = get("/cours-programme/117510", "gzip;q=1.0, br");
+
+        assertEquals("br", response.headers().firstValue("Content-Encoding").orElse(null));
+        HttpResponse<byte[]> refused = get("/cours-programme/117510", "br;q=0, gzip");
+        assertEquals("gzip", refused.headers().firstValue("Content-Encoding").orElse(null));
+    }
+
+    @Test
+    @DisplayName("Sans Accept-Encoding ou sous la taille minimale, la réponse n'est pas compressée")
+    void identityBelowThresholdOrWithoutAcceptEncoding() throws Exception {
+        HttpResponse<byte[]> plain = get("/cours-programme/117510", null);
+        assertFalse(plain.headers().firstValue("Content-Encoding").isPresent());
+        assertEquals(ETAG, plain.headers().firstValue("ETag").orElse(null));
+        assertEquals(json(courses(500)), new String(plain.body(), StandardCharsets.UTF_8));
+
+        HttpResponse<byte[]> small = get("/cours-programme/petit", "gzip");
+        assertFalse(small.headers().firstValue("Content-Encoding").isPresent());
+        assertEquals(json(courses(2)), new String(small.body(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Un ETag faible reçu avec une réponse compressée permet la revalidation en 304")
+    void weakEtagRevalidates() throws Exception {
+        HttpResponse<byte[]> first = get("/cours-programme/117510", "gzip");
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/cours-programme/117510"))
+                .header("Accept-Encoding", "gzip")
+                .header("If-None-Match", etag)
+                .build();
+        HttpResponse<byte[]> revalidated = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(304, revalidated.statusCode());
+        assertEquals(1, computed.get());
+    }
+
+    @Test
+    @DisplayName("Une réponse mise en cache pendant le rechargement de l'instantané ne survit pas à la synchronisation")
+    void responseCachedDuringSnapshotReloadIsNotServedAfterSync() throws Exception {
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .load()
+                .migrate();
+        Jdbi jdbi = Jdbi.create(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        jdbi.useHandle(handle -> handle.execute("TRUNCATE TABLE program_courses, activities, volets, sections, schedules, courses, programs RESTART IDENTITY"));
+        CatalogCacheRepository catalog = new CatalogCacheRepository(jdbi, true);
+        catalog.upsertCourse(cours("IFT1025"));
+
+        // Sans taille minimale : chaque réponse est compressée et gardée sous l'ETag du catalogue.
+        CompressedResponses cache = new CompressedResponses(1_000_000, 0, false);
+        Javalin catalogApp = Javalin.create().start(0);
+        catalogApp.get("/cours", ctx -> {
+            String etag = EtagSupport.etag("catalogue", Long.toString(catalog.catalogVersion()));
+            if (EtagSupport.notModified(ctx, etag) || cache.serveCached(ctx, etag)) {
+                return;
+            }
+            cache.write(ctx, etag, catalog.findAllCourseIds().orElseThrow().stream().sorted().toList());
+        });
+        try {
+            String url = "http://localhost:" + catalogApp.port() + "/cours";
+            assertEquals("[\"IFT1025\"]", gunzip(get(URI.create(url), "gzip").body()));
+
+            catalog.upsertCourse(cours("IFT3000"));
+            Thread sync;
+            try (Handle blocker = jdbi.open()) {
+                // Le rechargement de l'instantané attend ce verrou : la synchronisation reste à mi-chemin.
+                blocker.begin();
+                blocker.execute("LOCK TABLE courses IN ACCESS EXCLUSIVE MODE");
+                sync = new Thread(catalog::markCatalogChanged);
+                sync.start();
+                awaitBlockedOnCourses(jdbi);
+
+                assertEquals("[\"IFT1025\"]", gunzip(get(URI.create(url), "gzip").body()));
+                blocker.rollback();
+            }
+            sync.join(10_000);
+
+            HttpResponse<byte[]> afterSync = get(URI.create(url), "gzip");
+            assertEquals("[\"IFT1025\",\"IFT3000\"]", gunzip(afterSync.body()));
+            assertEquals("W/" + EtagSupport.etag("catalogue", Long.toString(catalog.catalogVersion())),
+                    afterSync.headers().firstValue("ETag").orElse(null));
+        } finally {
+            catalogApp.stop();
+        }
+    }
+
+    private HttpResponse<byte[]> get(String path, String acceptEncoding) throws Exception {
+        return get(URI.create("http://localhost:" + port + path), acceptEncoding);
+    }
+
+    private HttpResponse<byte[]> get(URI uri, String acceptEncoding) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri);
+        if (acceptEncoding != null) {
+            request.header("Accept-Encoding", acceptEncoding);
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static List<Map<String, String>> courses(int count) {
+        List<Map<String, String>> courses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            courses.add(Map.of("id", "IFT" + (1000 + i)));
+        }
+        return courses;
+    }
+
+    private static String json(List<Map<String, String>> courses) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < courses.size(); i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":\"").append(courses.get(i).get("id")).append("\"}");
+        }
+        return json.append("]").toString();
+    }
+
+    private static String gunzip(byte[] body) throws IOException {
+        try (InputStream in = new GZIPInputStream(new java.io.ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void awaitBlockedOnCourses(Jdbi jdbi) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            int waiting = jdbi.withHandle(handle -> handle.createQuery("""
+                            SELECT count(*) FROM pg_stat_activity
+                            WHERE wait_event_type = 'Lock' AND query LIKE '%FROM courses%'
+                            """)
+                    .mapTo(Integer.class)
+                    .one());
+            if (waiting > 0) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        fail("Snapshot reload never reached the courses lock");
+    }
+
+    private static Cours cours(String id) {
+        Cours cours = new Cours();
+        cours.setId(id);
+        cours.setName(id);
+        cours.setCredits(3);
+        return cours;
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
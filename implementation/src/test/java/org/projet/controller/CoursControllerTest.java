@@ -4,10 +4,14 @@ import io.javalin.http.Context;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.projet.model.Cours;
+import org.projet.repository.CourseAutocompleteIndex;
+import org.projet.repository.CourseSearchPage;
+import org.projet.repository.KeysetPage;
 import org.projet.service.CoursService;
 
 import java.lang.reflect.Field;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.fail;
@@ -106,6 +110,53 @@ public class CoursControllerTest {
         verify(ctx).status(200);
     }
 
+    @Test
+    @DisplayName("Recherche plein texte paginée avec le total en en-tête")
+    void testRechercherCours_byText() {
+        CoursController controller = new CoursController();
+        CoursService service = mock(CoursService.class);
+        injectCoursService(controller, service);
+
+        Context ctx = mock(Context.class);
+        CoursController.RequeteRecherche req = new CoursController.RequeteRecherche();
+        req.param = "text";
+        req.valeur = "génie logiciel";
+        req.includeSchedule = "false";
+        req.page = 2;
+        req.taille = 10;
+
+        when(ctx.bodyAsClass(CoursController.RequeteRecherche.class)).thenReturn(req);
+        when(service.rechercherCoursTexte(req.valeur, req.includeSchedule, null, 2, 10))
+                .thenReturn(Optional.of(new CourseSearchPage(List.of(cours("IFT2255")), 11, 10, 10)));
+
+        controller.rechercherCours(ctx);
+
+        verify(ctx).header("X-Total-Count", "11");
+        verify(ctx).status(200);
+        verify(service, never()).rechercherCours(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Recherche plein texte sans résultat")
+    void testRechercherCours_byTextNotFound() {
+        CoursController controller = new CoursController();
+        CoursService service = mock(CoursService.class);
+        injectCoursService(controller, service);
+
+        Context ctx = mock(Context.class);
+        CoursController.RequeteRecherche req = new CoursController.RequeteRecherche();
+        req.param = "text";
+        req.valeur = "astrophysique";
+
+        when(ctx.bodyAsClass(CoursController.RequeteRecherche.class)).thenReturn(req);
+        when(service.rechercherCoursTexte(req.valeur, null, null, null, null))
+                .thenReturn(Optional.of(new CourseSearchPage(List.of(), 0, 20, 0)));
+
+        controller.rechercherCours(ctx);
+
+        verify(ctx).status(404);
+    }
+
     @Test
     @DisplayName("Recherche avec paramètre invalide")
     void testRechercherCours_byInvalidParam() {
@@ -223,6 +274,279 @@ public class CoursControllerTest {
         verifyNoInteractions(service);
     }
 
+    @Test
+    @DisplayName("Recherche : les documents JSON stockés sont renvoyés tels quels")
+    void testRechercherCours_passthroughJson() {
+        CoursController controller = new CoursController();
+        CoursService service = mock(CoursService.class);
+        injectCoursService(controller, service);
+
+        Context ctx = mock(Context.class);
+        CoursController.RequeteRecherche req = new CoursController.RequeteRecherche();
+        req.param = "id";
+        req.valeur = "IFT1025";
+        req.includeSchedule = "false";
+        String json = "[{\"id\": \"IFT1025\"}]";
+
+        when(ctx.bodyAsClass(CoursController.RequeteRecherche.class)).thenReturn(req);
+        when(service.rechercherCoursJson("id", "IFT1025", "false", null)).thenReturn(Optional.of(json));
+
+        controller.rechercherCours(ctx);
+
+        verify(ctx).status(200);
+        verify(ctx).result(json);
+        verify(service, never()).rechercherCours(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Recherche : un tableau JSON vide donne un 404")
+    void testRechercherCours_passthroughJsonVide() {
+        CoursController controller = new CoursController();
+        CoursService service = mock(CoursService.class);
+        injectCoursService(controller, service);
+
+        Context ctx = mock(Context.class);
+        CoursController.RequeteRecherche req = new CoursController.RequeteRecherche();
+        req.param = "name";
+        req.valeur = "inexistant";
+
+        when(ctx.bodyAsClass(CoursController.RequeteRecherche.class)).thenReturn(req);
+        when(service.rechercherCoursJson("name", "inexistant", null, null)).thenReturn(Optional.of("[]"));
+
+        controller.rechercherCours(ctx);
+
+        verify(ctx).status(404);
+        verify(service, never()).rechercherCours(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Recherche paginée par curseur : en-tête X-Next-Cursor et liste de cours")
+    void testRechercherCours_pageParCurseur() {
+        CoursController controller = new CoursController();
+        CoursService service = mock(CoursService.class);
+        injectCoursService(controller, service);
+
+        Context ctx = mock(Context.class);
+        CoursController.RequeteRecherche req = new CoursController.RequeteRecherche();
+        req.param = "id";
+        req.valeur = "IFT";
+        req.includeSchedule = "false";
+        req.taille = 1;
+        List<Cours> courses = List.of(cours("IFT1015"));
+
+        when(ctx.bodyAsClass(CoursController.RequeteRecherche.class)).thenReturn(req);
+        when(service.rechercherCoursPage("id", "IFT", "false", null, null, 1))
+                .thenReturn(Optional.of(new KeysetPage<>(courses, "IFT1015")));
+
+        controller.rechercherCours(ctx);
+
+        verify(ctx).header("X-Next-Cursor", "IFT1015");
+        verify(ctx).status(200);
+        verify(ctx).json(courses);
+        verify(service, never()).rechercherCours(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Recherche en flux : les cours sont écrits dans la réponse au fil de la lecture")
+    void testRechercherCours_enFlux() {
+        CoursController controller = new CoursController();
+        CoursService service = mock(CoursService.class);
+        injectCoursService(controller, service);
+
+        Context ctx = mock(Context.class);
+        CoursController.RequeteRecherche req = new CoursController.RequeteRecherche();
+        req.param = "name";
+        req.valeur = "prog";
+        req.stream = true;
+        java.util.stream.Stream<Cours> flux = java.util.stream.Stream.of(cours("IFT1015"));
+
+        when(ctx.bodyAsClass(CoursController.RequeteRecherche.class)).thenReturn(req);
+        when(service.parcourirCours("name", "prog", null, null)).thenReturn(Optional.of(flux));
+
+        controller.rechercherCours(ctx);
+
+        verify(ctx).status(200);
+        verify(ctx).writeJsonStream(any());
+    }
+
+    @Test
+    @DisplayName("Recherche en flux sans résultat : 404, comme la recherche sans flux")
+    void testRechercherCours_enFluxVide() {
+        CoursController controller = new CoursController();
+        CoursService service = mock(CoursService.class);
+        injectCoursService(controller, service);
+
+        Context ctx = mock(Context.class);
+        CoursController.RequeteRecherche req = new CoursController.RequeteRecherche();
+        req.param = "name";
+        req.valeur = "inexistant";
+        req.stream = true;
+
+        when(ctx.bodyAsClass(CoursController.RequeteRecherche.class)).thenReturn(req);
+        when(service.parcourirCours("name", "inexistant", null, null)).thenReturn(Optional.of(java.util.stream.Stream.empty()));
+
+        controller.rechercherCours(ctx);
+
+        verify(ctx).status(404);
+        verify(ctx, never()).writeJsonStream(any());
+    }
+
+    @Test
+    @DisplayName("Cours d'une session : une plage horaire illisible donne un 400")
+    void testGetCourseBySemesterPlageInvalide() {
+        CoursController controller = new CoursController();
+        CoursService service = mock(CoursService.class);
+        injectCoursService(controller, service);
+
+        Context ctx = mock(Context.class);
+        when(ctx.pathParam("id")).thenReturn("117510");
+        when(ctx.pathParam("session")).thenReturn("A25");
+        when(ctx.queryParam("jours")).thenReturn("Ma,Xx");
+        when(ctx.status(400)).thenReturn(ctx);
+
+        controller.getCourseBySemester(ctx);
+
+        verify(ctx).status(400);
+        verify(service, never()).getCourseBySemester(any(), any());
+        verify(service, never()).getCourseBySemester(any(), any(), anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Autocomplétion retourne les suggestions id + nom")
+    void testAutocompleterCours() {
+        CoursController controller = new CoursController();
+        CoursService service = mock(CoursService.class);
+        injectCoursService(controller, service);
+
+        Context ctx = mock(Context.class);
+        List<CourseAutocompleteIndex.Suggestion> suggestions =
+                List.of(new CourseAutocompleteIndex.Suggestion("IFT2255", "Génie logiciel"));
+        when(ctx.queryParam("q")).thenReturn("ift22");
+        when(ctx.queryParam("limit")).thenReturn("5");
+        when(service.autocompleterCours("ift22", 5)).thenReturn(suggestions);
+
+        controller.autocompleterCours(ctx);
+
+        verify(ctx).status(200);
+        verify(ctx).json(suggestions);
+    }
+
+    @Test
+    @DisplayName("Autocomplétion refuse une limite non numérique")
+    void testAutocompleterCoursLimiteInvalide() {
+        CoursController controller = new CoursController();
+        CoursService service = mock(CoursService.class);
+        injectCoursService(controller, service);
+
+        Context ctx = mock(Context.class);
+        when(ctx.queryParam("q")).thenReturn("ift");
+        when(ctx.queryParam("limit")).thenReturn("dix");
+
+        controller.autocompleterCours(ctx);
+
+        verify(ctx).status(400);
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    @DisplayName("Programmes d'un cours : liste des programmes qui l'incluent, 404 si aucun")
+    void testGetProgramsForCourse() {
+        CoursController controller = new CoursController();
+        CoursService service = mock(CoursService.class);
+        injectCoursService(controller, service);
+
+        Context ctx = mock(Context.class);
+        when(ctx.status(anyInt())).thenReturn(ctx);
+        List<Map<String, String>> programmes = List.of(Map.of("id", "117510", "name", "Informatique"));
+        when(ctx.pathParam("sigle")).thenReturn("IFT2255");
+        when(service.getProgramsForCourse("IFT2255")).thenReturn(programmes);
+
+        controller.getProgramsForCourse(ctx);
+
+        verify(ctx).status(200);
+        verify(ctx).json(programmes);
+
+        Context absent = mock(Context.class);
+        when(absent.status(anyInt())).thenReturn(absent);
+        when(absent.pathParam("sigle")).thenReturn("IFT9999");
+        when(service.getProgramsForCourse("IFT9999")).thenReturn(List.of());
+
+        controller.getProgramsForCourse(absent);
+
+        verify(absent).status(404);
+    }
+
+    @Test
+    @DisplayName("Horaire d'un cours : 304 sans recalcul quand l'ETag correspond à la version du catalogue")
+    void testGetCourseScheduleNonModifie() {
+        CoursController controller = new CoursController();
+        CoursService service = mock(CoursService.class);
+        injectCoursService(controller, service);
+
+        Context ctx = mock(Context.class);
+        when(service.getCatalogVersion()).thenReturn(4L);
+        when(ctx.pathParam("id")).thenReturn("IFT2255");
+        when(ctx.pathParam("session")).thenReturn("A25");
+        when(ctx.header("If-None-Match")).thenReturn("W/\"catalogue-3\", \"catalogue-4\"");
+
+        controller.getCourseSchedule(ctx);
+
+        verify(ctx).status(304);
+        verify(ctx).header("ETag", "\"catalogue-4\"");
+        verify(service, never()).getCourseScheduleMap(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Cours d'un programme : réponse complète avec l'ETag de la nouvelle version après une synchronisation")
+    void testGetCoursesForAProgramEtagPerime() {
+        CoursController controller = new CoursController();
+        CoursService service = mock(CoursService.class);
+        injectCoursService(controller, service);
+
+        Context ctx = mock(Context.class);
+        when(ctx.status(anyInt())).thenReturn(ctx);
+        when(service.getCatalogVersion()).thenReturn(5L);
+        when(ctx.pathParam("id")).thenReturn("117510");
+        when(ctx.header("If-None-Match")).thenReturn("\"catalogue-4\"");
+        when(service.getCoursesForAProgram("117510")).thenReturn(List.of("IFT2255"));
+
+        controller.getCoursesForAProgram(ctx);
+
+        verify(ctx).status(200);
+        verify(ctx).header("ETag", "\"catalogue-5\"");
+        verify(ctx).header("Cache-Control", "no-cache");
+        verify(ctx).json(List.of("IFT2255"));
+    }
+
+    @Test
+    @DisplayName("If-None-Match: * donne un 304 si le programme existe, mais pas s'il est introuvable")
+    void testGetCoursesForAProgramEtagEtoile() {
+        CoursController controller = new CoursController();
+        CoursService service = mock(CoursService.class);
+        injectCoursService(controller, service);
+        when(service.getCatalogVersion()).thenReturn(5L);
+        when(service.getCoursesForAProgram("117510")).thenReturn(List.of("IFT2255"));
+        when(service.getCoursesForAProgram("000000")).thenReturn(List.of());
+
+        Context existant = mock(Context.class);
+        when(existant.status(anyInt())).thenReturn(existant);
+        when(existant.pathParam("id")).thenReturn("117510");
+        when(existant.header("If-None-Match")).thenReturn("*");
+        controller.getCoursesForAProgram(existant);
+
+        verify(existant).status(304);
+        verify(existant, never()).json(any());
+
+        Context absent = mock(Context.class);
+        when(absent.status(anyInt())).thenReturn(absent);
+        when(absent.pathParam("id")).thenReturn("000000");
+        when(absent.header("If-None-Match")).thenReturn("*");
+        controller.getCoursesForAProgram(absent);
+
+        verify(absent).status(404);
+        verify(absent, never()).status(304);
+    }
+
     private void injectCoursService(CoursController controller, CoursService service) {
         try {
             Field field = CoursController.class.getDeclaredField("coursService");
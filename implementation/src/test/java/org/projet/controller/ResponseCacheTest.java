@@ -0,0 +1,135 @@
+package org.projet.controller;
+
+import io.javalin.Javalin;
+import io.javalin.http.Handler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ResponseCacheTest {
+    private static final long TTL = 60_000;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final AtomicInteger computed = new AtomicInteger();
+    private final AtomicReference<String> version = new AtomicReference<>("1");
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    private Javalin app;
+    private ResponseCache cache;
+    private int port;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cache = new ResponseCache(1_000_000, TTL, Optional.empty(), now::get);
+        port = findFreePort();
+
+        app = Javalin.create().start(port);
+        app.post("/cours/rechercher", cache.cached("/cours/rechercher", version::get, ctx -> {
+            int call = computed.incrementAndGet();
+            Map<?, ?> body = ctx.bodyAsClass(Map.class);
+            if ("absent".equals(body.get("valeur"))) {
+                ctx.status(404).json("Cours pas trouvé.");
+                return;
+            }
+            ctx.header("X-Total-Count", "42");
+            ctx.status(200).json(Map.of("valeur", body.get("valeur"), "calcul", call));
+        }));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (app != null) {
+            app.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Deux corps JSON équivalents partagent la même réponse en cache, en-têtes compris")
+    void equivalentBodiesShareCachedResponse() throws Exception {
+        HttpResponse<String> first = post("{\"param\":\"id\",\"valeur\":\"IFT2255\"}");
+        HttpResponse<String> second = post("{ \"valeur\" : \"IFT2255\",\n \"param\" : \"id\" }");
+
+        assertEquals(200, second.statusCode());
+        assertEquals(first.body(), second.body());
+        assertEquals("42", second.headers().firstValue("X-Total-Count").orElse(null));
+        assertEquals("application/json", second.headers().firstValue("Content-Type").orElse(null));
+        assertEquals(1, computed.get());
+
+        ResponseCache.RouteStats stats = cache.stats().getRoutes().get("/cours/rechercher");
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0.5, stats.getHitRatio());
+        assertEquals(1, cache.stats().getEntries());
+    }
+
+    @Test
+    @DisplayName("Une nouvelle version des données ou l'expiration de l'entrée force un nouveau calcul")
+    void versionChangeAndExpiryRecompute() throws Exception {
+        String body = "{\"param\":\"id\",\"valeur\":\"IFT2255\"}";
+        post(body);
+
+        version.set("2");
+        post(body);
+        assertEquals(2, computed.get());
+
+        post(body);
+        assertEquals(2, computed.get());
+
+        now.addAndGet(TTL);
+        post(body);
+        assertEquals(3, computed.get());
+    }
+
+    @Test
+    @DisplayName("Les erreurs et les corps qui ne sont pas du JSON ne sont pas mis en cache")
+    void errorsAndInvalidBodiesAreNotCached() throws Exception {
+        String absent = "{\"param\":\"id\",\"valeur\":\"absent\"}";
+        assertEquals(404, post(absent).statusCode());
+        assertEquals(404, post(absent).statusCode());
+        assertEquals(2, computed.get());
+
+        post("pas du json");
+        assertEquals(1, cache.stats().getRoutes().get("/cours/rechercher").getBypassed());
+        assertEquals(0, cache.stats().getEntries());
+    }
+
+    @Test
+    @DisplayName("Une route absente de la configuration n'est pas mise en cache")
+    void routeNotEnabledIsNotWrapped() {
+        ResponseCache seulementHoraire = new ResponseCache(1_000_000, TTL, Optional.of(Set.of("/horaire")), now::get);
+        Handler handler = ctx -> ctx.result("ok");
+
+        assertSame(handler, seulementHoraire.cached("/cours/comparer", () -> "1", handler));
+        assertSame(handler, new ResponseCache(0, TTL, Optional.empty(), now::get).cached("/horaire", () -> "1", handler));
+    }
+
+    private HttpResponse<String> post(String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/cours/rechercher"))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -12,6 +12,9 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 @Testcontainers
 class AvisRepositoryTest {
@@ -21,6 +24,7 @@ class AvisRepositoryTest {
             .withUsername("pickcourse")
             .withPassword("devpassword");
 
+    private Jdbi jdbi;
     private AvisRepository repository;
 
     @BeforeEach
@@ -30,7 +34,7 @@ class AvisRepositoryTest {
                 .load()
                 .migrate();
 
-        Jdbi jdbi = Jdbi.create(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        jdbi = Jdbi.create(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
         jdbi.useHandle(handle -> handle.execute("TRUNCATE TABLE reviews RESTART IDENTITY"));
         repository = new AvisRepository(jdbi);
     }
@@ -59,4 +63,72 @@ class AvisRepositoryTest {
         assertEquals(1, avis.size());
         assertEquals("Avis A", avis.get(0).getCommentaire());
     }
+
+    @Test
+    void versionBySigleCoursChangeAChaqueAvis() {
+        String initiale = repository.versionBySigleCours("IFT2255");
+
+        repository.insert(new Avis("IFT2255", "Prof A", 4, 3, "Avis A", true));
+        String version = repository.versionBySigleCours("IFT2255");
+        assertNotEquals(initiale, version);
+        repository.insert(new Avis("IFT1025", "Prof B", 2, 5, "Avis B", true));
+        assertEquals(version, repository.versionBySigleCours("IFT2255"));
+
+        repository.insert(new Avis("IFT2255", "Prof C", 3, 3, "Avis C", true));
+        assertNotEquals(version, repository.versionBySigleCours("IFT2255"));
+    }
+
+    @Test
+    void versionBySigleCoursChangeQuandUnAvisEstModifie() {
+        repository.insert(new Avis("IFT2255", "Prof A", 4, 3, "Avis A", true));
+        String version = repository.versionBySigleCours("IFT2255");
+
+        jdbi.useHandle(handle -> handle.execute("UPDATE reviews SET valide = false, commentaire = 'Retiré' WHERE sigle_cours = 'IFT2255'"));
+        String apresModification = repository.versionBySigleCours("IFT2255");
+        assertNotEquals(version, apresModification);
+
+        jdbi.useHandle(handle -> handle.execute("TRUNCATE TABLE reviews"));
+        assertNotEquals(apresModification, repository.versionBySigleCours("IFT2255"));
+    }
+
+    @Test
+    void versionChangeAChaqueAvisSansDependreDuCours() {
+        String version = repository.version();
+
+        repository.insert(new Avis("IFT1025", "Prof B", 2, 5, "Avis B", true));
+        String apresAjout = repository.version();
+        assertNotEquals(version, apresAjout);
+        assertEquals(apresAjout, repository.version());
+    }
+
+    @Test
+    void findPageParcourtLesAvisParCurseur() {
+        for (int i = 1; i <= 5; i++) {
+            repository.insert(new Avis("IFT2255", "Prof " + i, 3, 3, "Avis " + i, true));
+        }
+
+        KeysetPage<Avis> premiere = repository.findPage(null, 2);
+        assertEquals(List.of("Avis 1", "Avis 2"), premiere.getItems().stream().map(Avis::getCommentaire).toList());
+        assertEquals("2", premiere.getNextCursor());
+
+        KeysetPage<Avis> derniere = repository.findPage(4L, 2);
+        assertEquals(List.of("Avis 5"), derniere.getItems().stream().map(Avis::getCommentaire).toList());
+        assertFalse(derniere.hasNext());
+
+        assertNull(repository.findPage(3L, 2).getNextCursor());
+    }
+
+    @Test
+    void streamAllParcourtTousLesAvisDansLOrdre() {
+        for (int i = 1; i <= AvisRepository.STREAM_FETCH_SIZE + 3; i++) {
+            repository.insert(new Avis("IFT2255", "Prof", 3, 3, "Avis " + i, true));
+        }
+
+        List<String> commentaires = new java.util.ArrayList<>();
+        repository.streamAll(avis -> avis.forEach(a -> commentaires.add(a.getCommentaire())));
+
+        assertEquals(AvisRepository.STREAM_FETCH_SIZE + 3, commentaires.size());
+        assertEquals("Avis 1", commentaires.get(0));
+        assertEquals("Avis " + (AvisRepository.STREAM_FETCH_SIZE + 3), commentaires.get(commentaires.size() - 1));
+    }
 }
@@ -0,0 +1,874 @@
+package org.projet.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.flywaydb.core.Flyway;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.statement.SqlLogger;
+import org.jdbi.v3.core.statement.StatementContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.projet.model.Cours;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+class CatalogCacheRepositoryTest {
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16")
+            .withDatabaseName("pickcourse")
+            .withUsername("pickcourse")
+            .withPassword("devpassword");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private Jdbi jdbi;
+    private CatalogCacheRepository writer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .load()
+                .migrate();
+
+        jdbi = Jdbi.create(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        jdbi.useHandle(handle -> handle.execute("TRUNCATE TABLE program_courses, activities, volets, sections, schedules, courses, programs RESTART IDENTITY"));
+
+        writer = new CatalogCacheRepository(jdbi);
+        seedCatalog();
+    }
+
+    @Test
+    @DisplayName("findCoursesBy() charge les horaires de tous les cours trouvés en une seule requête")
+    void findCoursesByLoadsSchedulesInBulk() {
+        writer.upsertSchedule("IFT1025", schedule("IFT1025", "H26"));
+        writer.upsertSchedule("IFT1025", schedule("IFT1025", "A25"));
+
+        AtomicInteger statements = new AtomicInteger();
+        jdbi.setSqlLogger(new SqlLogger() {
+            @Override
+            public void logAfterExecution(StatementContext context) {
+                statements.incrementAndGet();
+            }
+        });
+
+        List<Cours> courses = writer.findCoursesBy("id", "IFT", true, null).orElseThrow();
+
+        assertEquals(3, statements.get());
+        assertEquals(List.of("A25", "H26"), courses.get(0).getSchedules().stream()
+                .map(Cours.Schedule::getSemester)
+                .toList());
+        assertEquals(1, courses.get(1).getSchedules().size());
+
+        List<Cours> winter = writer.findCoursesBy("id", "IFT", true, "H26").orElseThrow();
+        assertEquals(1, winter.get(0).getSchedules().size());
+        assertTrue(winter.get(1).getSchedules().isEmpty());
+
+        statements.set(0);
+        writer.findCoursesBy("id", "IFT", true, null).orElseThrow();
+        assertEquals(1, statements.get());
+    }
+
+    @Test
+    @DisplayName("Le cache des cours décodés sert les relectures et compte les succès et les échecs")
+    void courseCacheServesRepeatedReads() {
+        Cours first = writer.findCoursesByIds(List.of("IFT2255"), null).get("IFT2255");
+        Cours second = writer.findCoursesByIds(List.of("IFT2255"), null).get("IFT2255");
+
+        assertSame(first, second);
+        assertThrows(UnsupportedOperationException.class, () -> second.getSchedules().add(schedule("IFT2255", "H26")));
+        CourseCache.Stats stats = writer.courseCacheStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getEntries());
+        assertTrue(stats.getWeight() > 0);
+
+        Cours withoutSchedules = writer.findCoursesBy("id", "IFT2255", false, null).orElseThrow().get(0);
+        assertNotSame(first, withoutSchedules);
+    }
+
+    @Test
+    @DisplayName("Une réécriture de cours ou un changement de version invalide le cache")
+    void courseCacheIsInvalidatedByWritesAndCatalogVersion() {
+        Cours before = writer.findCoursesByIds(List.of("IFT2255"), null).get("IFT2255");
+
+        writer.upsertCourse(cours("IFT2255", "Génie logiciel avancé", "Projet logiciel"));
+        assertEquals("Génie logiciel avancé", writer.findCoursesByIds(List.of("IFT2255"), null).get("IFT2255").getName());
+
+        long version = writer.persistedCatalogVersion();
+        assertEquals(version + 1, writer.markCatalogChanged());
+        assertEquals(0, writer.courseCacheStats().getEntries());
+        assertEquals(version + 1, writer.courseCacheStats().getCatalogVersion());
+        assertNotSame(before, writer.findCoursesByIds(List.of("IFT2255"), null).get("IFT2255"));
+    }
+
+    @Test
+    @DisplayName("Le cache évince les cours les moins récemment utilisés selon leur poids")
+    void courseCacheEvictsByWeight() {
+        CatalogCacheRepository small = new CatalogCacheRepository(jdbi, false, 1);
+        small.findCoursesByIds(List.of("IFT2255"), null);
+        assertEquals(0, small.courseCacheStats().getEntries());
+
+        writer.findCoursesByIds(List.of("IFT1025"), null);
+        long firstWeight = writer.courseCacheStats().getWeight();
+        writer.findCoursesByIds(List.of("IFT2255"), null);
+        long bothWeight = writer.courseCacheStats().getWeight();
+
+        // Chaque cours tient seul dans le cache, mais pas les deux ensemble.
+        CatalogCacheRepository bounded = new CatalogCacheRepository(jdbi, false, bothWeight - 1);
+        bounded.findCoursesByIds(List.of("IFT1025"), null);
+        bounded.findCoursesByIds(List.of("IFT2255"), null);
+        assertTrue(firstWeight > 0);
+
+        CourseCache.Stats stats = bounded.courseCacheStats();
+        assertEquals(1, stats.getEntries());
+        assertEquals(1, stats.getEvictions());
+        assertTrue(stats.getWeight() <= stats.getMaxWeight());
+    }
+
+    @Test
+    @DisplayName("findSchedulesFor() groupe les horaires par cours")
+    void findSchedulesForGroupsByCourse() {
+        writer.upsertSchedule("IFT1025", schedule("IFT1025", "A25"));
+
+        Map<String, List<Cours.Schedule>> grouped = writer.findSchedulesFor(List.of("IFT1025", "IFT2255", "IFT9999"), "A25");
+
+        assertEquals(2, grouped.size());
+        assertEquals("IFT1025", grouped.get("IFT1025").get(0).getSigle());
+        assertFalse(grouped.containsKey("IFT9999"));
+        assertTrue(writer.findSchedulesFor(List.of(), null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("findCoursesByIds() charge plusieurs cours dans l'ordre demandé")
+    void findCoursesByIdsKeepsRequestedOrder() {
+        AtomicInteger statements = new AtomicInteger();
+        jdbi.setSqlLogger(new SqlLogger() {
+            @Override
+            public void logAfterExecution(StatementContext context) {
+                statements.incrementAndGet();
+            }
+        });
+
+        Map<String, Cours> courses = writer.findCoursesByIds(List.of("IFT2255", "IFT9999", "IFT1025"), null);
+
+        assertEquals(2, statements.get());
+        assertEquals(List.of("IFT2255", "IFT1025"), List.copyOf(courses.keySet()));
+        assertEquals(1, courses.get("IFT2255").getSchedules().size());
+        assertTrue(courses.get("IFT1025").getSchedules().isEmpty());
+        assertTrue(writer.findCoursesByIds(List.of("IFT2255"), "H26").get("IFT2255").getSchedules().isEmpty());
+        assertTrue(writer.findCoursesByIds(List.of(), null).isEmpty());
+
+        CatalogCacheRepository snapshotRepository = new CatalogCacheRepository(jdbi, true);
+        assertFalse(snapshotRepository.isEmpty());
+        truncateCatalog();
+        assertEquals(List.of("IFT2255", "IFT1025"),
+                List.copyOf(snapshotRepository.findCoursesByIds(List.of("IFT2255", "IFT1025"), "A25").keySet()));
+    }
+
+    @Test
+    @DisplayName("Le mode instantané sert les lectures sans retourner à PostgreSQL")
+    void snapshotServesReadsFromMemory() {
+        CatalogCacheRepository snapshotRepository = new CatalogCacheRepository(jdbi, true);
+        assertFalse(snapshotRepository.isEmpty());
+
+        truncateCatalog();
+
+        List<Cours> prefix = snapshotRepository.findCoursesBy("id", "ift", true, null).orElseThrow();
+        assertEquals(List.of("IFT1025", "IFT2255"), prefix.stream().map(Cours::getId).toList());
+        assertEquals(1, prefix.get(1).getSchedules().size());
+
+        List<Cours> byName = snapshotRepository.findCoursesBy("name", "LOGICIEL", false, null).orElseThrow();
+        assertEquals("IFT2255", byName.get(0).getId());
+
+        assertEquals("A25", snapshotRepository.findSchedules("IFT2255", "A25").get(0).getSemester());
+        assertTrue(snapshotRepository.findSchedules("IFT2255", "H26").isEmpty());
+        assertEquals(List.of("IFT1025", "IFT2255"), snapshotRepository.findAllCourseIds().orElseThrow());
+        assertEquals("Informatique", snapshotRepository.findAllPrograms().get(0).get("name"));
+        assertTrue(snapshotRepository.coursesForProgramJson("117510").contains("IFT2255"));
+        assertEquals("[]", snapshotRepository.coursesForProgramJson("inconnu"));
+    }
+
+    @Test
+    @DisplayName("refreshSnapshot() remplace l'instantané par l'état courant de la base")
+    void refreshSnapshotSwapsToCurrentDatabaseState() {
+        CatalogCacheRepository snapshotRepository = new CatalogCacheRepository(jdbi, true);
+        assertTrue(snapshotRepository.findCoursesBy("id", "IFT3000", false, null).isEmpty());
+
+        writer.upsertCourse(cours("IFT3000", "Projet avancé", "Atelier"));
+        assertTrue(snapshotRepository.findCoursesBy("id", "IFT3000", false, null).isEmpty());
+
+        snapshotRepository.refreshSnapshot();
+
+        assertEquals("IFT3000", snapshotRepository.findCoursesBy("id", "IFT3000", false, null)
+                .orElseThrow()
+                .get(0)
+                .getId());
+        CatalogSnapshot.Stats stats = snapshotRepository.snapshotStats().orElseThrow();
+        assertEquals(3, stats.getCourses());
+        assertEquals(1, stats.getSchedules());
+        assertEquals(1, stats.getPrograms());
+        assertTrue(stats.getEstimatedHeapBytes() > 0);
+    }
+
+    @Test
+    @DisplayName("Les cours retournés par l'instantané peuvent être modifiés sans l'altérer")
+    void snapshotReturnsCopies() {
+        CatalogCacheRepository snapshotRepository = new CatalogCacheRepository(jdbi, true);
+
+        Cours first = snapshotRepository.findCoursesBy("id", "IFT2255", true, null).orElseThrow().get(0);
+        first.setSchedules(List.of());
+
+        Cours second = snapshotRepository.findCoursesBy("id", "IFT2255", true, null).orElseThrow().get(0);
+        assertEquals(1, second.getSchedules().size());
+    }
+
+    @Test
+    @DisplayName("Sans mode instantané, aucune statistique n'est exposée")
+    void snapshotDisabledByDefault() {
+        assertFalse(writer.isSnapshotEnabled());
+        writer.refreshSnapshot();
+        assertTrue(writer.snapshotStats().isEmpty());
+    }
+
+    @Test
+    @DisplayName("upsertSchedule() écrit les sections, volets et activités normalisés")
+    void upsertScheduleWritesNormalizedRows() {
+        writer.upsertSchedule("IFT1025", weeklySchedule("IFT1025", "A25",
+                activity(List.of("Lu", "Me"), "08:30", "10:30"),
+                activity(List.of("Ve"), "13:00", "15:00")));
+
+        Map<String, Object> row = jdbi.withHandle(handle -> handle.createQuery("""
+                        SELECT a.days_mask, a.start_minute, a.end_minute, v.name, v.is_exam, s.name AS section
+                        FROM activities a
+                        JOIN volets v ON v.id = a.volet_id
+                        JOIN sections s ON s.id = v.section_id
+                        WHERE a.course_id = 'IFT1025'
+                        ORDER BY a.start_minute
+                        LIMIT 1
+                        """)
+                .mapToMap()
+                .one());
+        assertEquals(5, ((Number) row.get("days_mask")).intValue());
+        assertEquals(510, ((Number) row.get("start_minute")).intValue());
+        assertEquals(630, ((Number) row.get("end_minute")).intValue());
+        assertEquals("TH", row.get("name"));
+        assertEquals(false, row.get("is_exam"));
+        assertEquals("A", row.get("section"));
+
+        writer.upsertSchedule("IFT1025", weeklySchedule("IFT1025", "A25",
+                activity(List.of("Ma"), "10:00", "12:00")));
+
+        assertEquals(1, countRows("sections", "IFT1025"));
+        assertEquals(1, countRows("activities", "IFT1025"));
+    }
+
+    @Test
+    @DisplayName("upsertSchedules() rattache chaque volet et activité à sa section, pour tout le lot")
+    void upsertSchedulesLinksNormalizedRowsAcrossBatch() {
+        Cours.Schedule ift1025 = weeklySchedule("IFT1025", "A25", activity(List.of("Lu"), "08:30", "10:30"));
+        Cours.Section sectionB = new Cours.Section();
+        sectionB.setName("B");
+        Cours.Volet tp = new Cours.Volet();
+        tp.setName("TP");
+        tp.setActivities(List.of(activity(List.of("Me"), "13:00", "15:00"), activity(List.of("Ve"), "13:00", "15:00")));
+        sectionB.setVolets(List.of(tp));
+        ift1025.setSections(List.of(ift1025.getSections().get(0), sectionB));
+
+        writer.upsertSchedules(Map.of(
+                "IFT1025", List.of(ift1025),
+                "IFT2255", List.of(weeklySchedule("IFT2255", "H26", activity(List.of("Ma"), "10:00", "12:00")))),
+                new WriteCounts());
+
+        List<String> rows = jdbi.withHandle(handle -> handle.createQuery("""
+                        SELECT s.course_id || ' ' || s.semester || ' ' || s.position || s.name || ' '
+                               || v.position || v.name || ' ' || a.days_mask
+                        FROM activities a
+                        JOIN volets v ON v.id = a.volet_id
+                        JOIN sections s ON s.id = v.section_id
+                        WHERE a.course_id = s.course_id AND a.semester = s.semester
+                        ORDER BY s.course_id, s.position, a.days_mask
+                        """)
+                .mapTo(String.class)
+                .list());
+        assertEquals(List.of("IFT1025 A25 1A 1TH 1", "IFT1025 A25 2B 1TP 4", "IFT1025 A25 2B 1TP 16",
+                "IFT2255 H26 1A 1TH 2"), rows);
+    }
+
+    @Test
+    @DisplayName("Les requêtes normalisées filtrent les cours par jour et par plage horaire")
+    void normalizedQueriesFilterByDayAndTime() {
+        writer.upsertSchedule("IFT1025", weeklySchedule("IFT1025", "A25",
+                activity(List.of("Lu"), "08:30", "10:30")));
+        writer.upsertSchedule("IFT2255", weeklySchedule("IFT2255", "A25",
+                activity(List.of("Ma", "Je"), "13:00", "15:00")));
+
+        int monday = ScheduleSlots.dayMask(List.of("Lu"));
+        assertEquals(List.of("IFT1025"), writer.findCourseIdsFittingWithin("A25", monday, 0, 12 * 60));
+        assertTrue(writer.findCourseIdsFittingWithin("H26", monday, 0, 12 * 60).isEmpty());
+        assertTrue(writer.findCourseIdsFittingWithin("A25", monday, 9 * 60, 12 * 60).isEmpty());
+
+        int tuesdayThursday = ScheduleSlots.dayMask(List.of("Ma", "Je"));
+        assertEquals(List.of("IFT2255"), writer.findCourseIdsFittingWithin("A25", tuesdayThursday, 12 * 60, 18 * 60));
+        assertEquals(List.of("IFT1025", "IFT2255"),
+                writer.findCourseIdsFittingWithin("A25", ScheduleSlots.ALL_DAYS, 8 * 60, 18 * 60));
+    }
+
+    @Test
+    @DisplayName("Les volets d'examen sont ignorés par les requêtes hebdomadaires")
+    void examVoletsAreIgnoredByWeeklyQueries() {
+        Cours.Schedule schedule = weeklySchedule("IFT1025", "A25", activity(List.of("Ma"), "13:00", "15:00"));
+        Cours.Volet intra = new Cours.Volet();
+        intra.setName("Intra");
+        intra.setActivities(List.of(activity(List.of("Lu"), "08:30", "10:30")));
+        schedule.getSections().get(0).setVolets(List.of(schedule.getSections().get(0).getVolets().get(0), intra));
+        writer.upsertSchedule("IFT1025", schedule);
+
+        int monday = ScheduleSlots.dayMask(List.of("Lu"));
+        assertTrue(writer.findCourseIdsFittingWithin("A25", monday, 0, 24 * 60).isEmpty());
+        assertEquals(List.of("IFT1025"),
+                writer.findCourseIdsFittingWithin("A25", ScheduleSlots.dayMask(List.of("Ma")), 12 * 60, 16 * 60));
+    }
+
+    @Test
+    @DisplayName("searchCourses() trie par pertinence, ignore les accents et pagine")
+    void searchCoursesRanksAndPaginates() {
+        writer.upsertCourse(cours("IFT3913", "Qualité du logiciel", "Métriques et génie logiciel"));
+        writer.upsertCourse(cours("IFT6755", "Séminaire", "Lectures diverses en génie logiciel"));
+
+        CourseSearchPage page = writer.searchCourses("GENIE logi", false, null, 2, 0);
+        assertEquals(3, page.getTotal());
+        assertEquals("IFT2255", page.getCourses().get(0).getId());
+        assertEquals(2, page.getCourses().size());
+
+        CourseSearchPage second = writer.searchCourses("genie logi", false, null, 2, 2);
+        assertEquals(1, second.getCourses().size());
+        assertEquals(3, second.getTotal());
+
+        CourseSearchPage beyond = writer.searchCourses("genie logi", false, null, 2, 10);
+        assertTrue(beyond.getCourses().isEmpty());
+        assertEquals(3, beyond.getTotal());
+
+        assertEquals("IFT3913", writer.searchCourses("qualite", false, null, 10, 0).getCourses().get(0).getId());
+        assertEquals("IFT1025", writer.searchCourses("ift1025", false, null, 10, 0).getCourses().get(0).getId());
+        assertEquals(0, writer.searchCourses("!!", false, null, 10, 0).getTotal());
+    }
+
+    @Test
+    @DisplayName("searchCourses() restreint aux cours offerts pendant la session demandée")
+    void searchCoursesFiltersBySemester() {
+        CourseSearchPage page = writer.searchCourses("logiciel", true, "A25", 10, 0);
+        assertEquals(1, page.getTotal());
+        assertEquals("A25", page.getCourses().get(0).getSchedules().get(0).getSemester());
+
+        assertEquals(0, writer.searchCourses("logiciel", true, "H26", 10, 0).getTotal());
+    }
+
+    @Test
+    @DisplayName("toPrefixTsQuery() produit une requête de préfixes sans accents ni ponctuation")
+    void toPrefixTsQueryBuildsSafePrefixQuery() {
+        assertEquals("genie:* & logi:*", CatalogCacheRepository.toPrefixTsQuery(" Génie, logi' "));
+        assertEquals("oeuvre:*", CatalogCacheRepository.toPrefixTsQuery("Œuvre"));
+        assertEquals("", CatalogCacheRepository.toPrefixTsQuery("&|!:*"));
+        assertEquals("", CatalogCacheRepository.toPrefixTsQuery(null));
+    }
+
+    @Test
+    @DisplayName("buildCoursesJsonArrayBy() renvoie les documents stockés, identiques au chemin objet")
+    void buildCoursesJsonArrayByMatchesObjectPath() throws Exception {
+        writer.upsertSchedule("IFT2255", schedule("IFT2255", "H26"));
+
+        for (boolean includeSchedule : new boolean[]{false, true}) {
+            String json = writer.buildCoursesJsonArrayBy("id", "IFT", includeSchedule, null).orElseThrow();
+            List<Cours> objects = writer.findCoursesBy("id", "IFT", includeSchedule, null).orElseThrow();
+            assertEquals(mapper.readTree(mapper.writeValueAsString(objects)), mapper.readTree(json));
+        }
+
+        String a25 = writer.buildCoursesJsonArrayBy("name", "logiciel", true, "A25").orElseThrow();
+        assertEquals(1, mapper.readTree(a25).size());
+        assertEquals(1, mapper.readTree(a25).get(0).get("schedules").size());
+        assertEquals("[]", writer.buildCoursesJsonArrayBy("id", "IFT", true, "E26").orElseThrow());
+        assertEquals("[]", writer.buildCoursesJsonArrayBy("name", "inexistant", false, null).orElseThrow());
+        assertTrue(writer.buildCoursesJsonArrayBy("credits", "3", false, null).isEmpty());
+        assertTrue(new CatalogCacheRepository(jdbi, true).buildCoursesJsonArrayBy("id", "IFT", false, null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("schedulesAsInputStream() renvoie les horaires stockés sans passer par les objets")
+    void schedulesAsInputStreamReturnsStoredDocuments() throws Exception {
+        writer.upsertSchedule("IFT2255", schedule("IFT2255", "H26"));
+
+        var all = mapper.readTree(writer.schedulesAsInputStream("IFT2255", null));
+        assertEquals(2, all.size());
+        assertEquals("A25", all.get(0).get("semester").asText());
+        assertEquals(mapper.readTree(mapper.writeValueAsString(writer.findSchedules("IFT2255", "H26"))),
+                mapper.readTree(writer.schedulesAsInputStream("IFT2255", "H26")));
+        assertEquals(0, mapper.readTree(writer.schedulesAsInputStream("IFT1025", null)).size());
+    }
+
+    @Test
+    @DisplayName("findCoursesPage() pagine par curseur sur l'id, en SQL comme depuis l'instantané")
+    void findCoursesPageWalksByCursor() {
+        writer.upsertCourse(cours("IFT1015", "Programmation 1", "Programmation"));
+        writer.upsertCourse(cours("IFT1227", "Architecture", "Ordinateurs"));
+        writer.upsertSchedule("IFT1227", schedule("IFT1227", "A25"));
+
+        for (CatalogCacheRepository repository : List.of(writer, new CatalogCacheRepository(jdbi, true))) {
+            KeysetPage<Cours> first = repository.findCoursesPage("id", "IFT1", false, null, null, 2).orElseThrow();
+            assertEquals(List.of("IFT1015", "IFT1025"), first.getItems().stream().map(Cours::getId).toList());
+            assertEquals("IFT1025", first.getNextCursor());
+
+            KeysetPage<Cours> last = repository.findCoursesPage("id", "IFT1", false, null, "IFT1025", 2).orElseThrow();
+            assertEquals(List.of("IFT1227"), last.getItems().stream().map(Cours::getId).toList());
+            assertFalse(last.hasNext());
+
+            KeysetPage<Cours> bySemester = repository.findCoursesPage("id", "IFT", true, "A25", null, 1).orElseThrow();
+            assertEquals(List.of("IFT1227"), bySemester.getItems().stream().map(Cours::getId).toList());
+            assertEquals("IFT1227", bySemester.getNextCursor());
+            assertEquals("A25", bySemester.getItems().get(0).getSchedules().get(0).getSemester());
+
+            assertEquals(List.of("IFT1015", "IFT1025"), repository.findCoursesPage("name", "programmation", false, null, null, 5)
+                    .orElseThrow().getItems().stream().map(Cours::getId).toList());
+            assertTrue(repository.findCoursesPage("id", "IFT1015", false, null, "IFT2255", 5).orElseThrow().getItems().isEmpty());
+            assertTrue(repository.findCoursesPage("credits", "3", false, null, null, 5).isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("findCoursesAvailable() répond depuis l'index et suit les changements de catalogue")
+    void findCoursesAvailableFollowsCatalogChanges() {
+        assertEquals(List.of("IFT2255"), writer.findCoursesAvailable("117510", "A25"));
+        assertTrue(writer.findCoursesAvailable("117510", "H26").isEmpty());
+
+        writer.upsertSchedule("IFT1025", schedule("IFT1025", "A25"));
+        writer.markCatalogChanged();
+        assertEquals(List.of("IFT1025", "IFT2255"), writer.findCoursesAvailable("117510", "A25"));
+        assertTrue(writer.findCoursesAvailable("000000", "A25").isEmpty());
+
+        CatalogCacheRepository snapshotReader = new CatalogCacheRepository(jdbi, true);
+        assertEquals(List.of("IFT1025", "IFT2255"), snapshotReader.findCoursesAvailable("117510", "A25"));
+    }
+
+    @Test
+    @DisplayName("autocomplete() sert l'index en mémoire et le reconstruit après un changement de catalogue")
+    void autocompleteRebuildsAfterCatalogChange() {
+        assertEquals(List.of("IFT2255"), writer.autocomplete("genie", 10).stream()
+                .map(CourseAutocompleteIndex.Suggestion::getId).toList());
+        assertEquals("Génie logiciel", writer.autocomplete("ift22", 10).get(0).getName());
+
+        writer.upsertCourse(cours("IFT2035", "Concepts des langages", "Langages"));
+        assertEquals(List.of("IFT2255"), writer.autocomplete("ift2", 10).stream()
+                .map(CourseAutocompleteIndex.Suggestion::getId).toList());
+
+        writer.markCatalogChanged();
+        assertEquals(List.of("IFT2035", "IFT2255"), writer.autocomplete("ift2", 10).stream()
+                .map(CourseAutocompleteIndex.Suggestion::getId).toList());
+        assertEquals(writer.catalogVersion(), writer.autocompleteIndex().catalogVersion());
+
+        CatalogCacheRepository snapshotReader = new CatalogCacheRepository(jdbi, true);
+        assertEquals(3, snapshotReader.autocompleteIndex().size());
+    }
+
+    @Test
+    @DisplayName("upsertProgram() matérialise l'appartenance des cours avec leur segment et leur bloc")
+    void upsertProgramMaterializesProgramCourses() throws Exception {
+        List<String> courseIds = writer.upsertProgram(mapper.readTree("""
+                {
+                  "id": "146811",
+                  "name": "Génie logiciel",
+                  "segments": [
+                    {"name": "Tronc commun", "blocs": [{"id": "A", "name": "Obligatoire", "courses": ["IFT2255", "IFT1025"]}]},
+                    {"name": "Options", "blocs": [{"id": "B", "name": "Option", "courses": ["IFT3913", "IFT2255"]}]}
+                  ]
+                }
+                """));
+
+        assertEquals(List.of("IFT2255", "IFT1025", "IFT3913"), courseIds);
+        List<String> rows = jdbi.withHandle(handle -> handle.createQuery("""
+                        SELECT concat_ws('|', position, course_id, segment_position, segment_name, bloc_position, bloc_id, bloc_name)
+                        FROM program_courses
+                        WHERE program_id = '146811'
+                        ORDER BY position
+                        """)
+                .mapTo(String.class)
+                .list());
+        assertEquals(List.of(
+                "1|IFT2255|1|Tronc commun|1|A|Obligatoire",
+                "2|IFT1025|1|Tronc commun|1|A|Obligatoire",
+                "3|IFT3913|2|Options|1|B|Option",
+                "4|IFT2255|2|Options|1|B|Option"), rows);
+        assertEquals("[{\"courses\":[\"IFT2255\",\"IFT1025\",\"IFT3913\"]}]", writer.coursesForProgramJson("146811"));
+
+        writer.upsertProgram(mapper.readTree("""
+                {"id": "146811", "name": "Génie logiciel", "segments": [{"blocs": [{"courses": ["IFT1025"]}]}]}
+                """));
+        assertEquals("[{\"courses\":[\"IFT1025\"]}]", writer.coursesForProgramJson("146811"));
+        assertEquals("[]", writer.coursesForProgramJson("999999"));
+    }
+
+    @Test
+    @DisplayName("upsertCourses() et upsertSchedules() écrivent chaque lot en une transaction")
+    void batchUpsertsWriteInOneTransaction() {
+        AtomicInteger statements = new AtomicInteger();
+        jdbi.setSqlLogger(new SqlLogger() {
+            @Override
+            public void logAfterExecution(StatementContext context) {
+                statements.incrementAndGet();
+            }
+        });
+
+        writer.upsertCourses(List.of(
+                cours("IFT3913", "Qualité logicielle", "Métriques"),
+                cours("IFT1025", "Programmation 2", "Programmation orientée objet")), new WriteCounts());
+        // Lecture des empreintes existantes, puis le lot.
+        assertEquals(2, statements.get());
+
+        writer.upsertSchedules(Map.of(
+                "IFT3913", List.of(schedule("IFT3913", "A25"), schedule("IFT3913", "H26")),
+                "IFT1025", List.of(weeklySchedule("IFT1025", "A25", activity(List.of("Lu"), "08:30", "10:30")))),
+                new WriteCounts());
+
+        assertEquals("Programmation orientée objet", writer.findCoursesByIds(List.of("IFT1025"), null).get("IFT1025").getDescription());
+        assertEquals(2, countRows("schedules", "IFT3913"));
+        assertEquals(1, countRows("activities", "IFT1025"));
+
+        assertThrows(RuntimeException.class, () -> writer.upsertCourses(List.of(
+                cours("IFT4000", "Valide", "Valide"),
+                cours(null, "Sans id", "Refusé")), new WriteCounts()));
+        assertTrue(writer.findCoursesByIds(List.of("IFT4000"), null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("bulkLoadCourses() copie les cours en transit puis les fusionne, le dernier doublon l'emportant")
+    void bulkLoadCoursesCopiesThenMerges() {
+        WriteCounts counts = new WriteCounts();
+        writer.bulkLoadCourses(List.of(
+                cours("IFT2255", "Génie logiciel", "Ancienne description"),
+                cours("IFT3913", "Qualité, \"logicielle\"", "Ligne 1\nLigne 2"),
+                cours("IFT4055", null, ""),
+                cours("IFT2255", "Génie logiciel", "Analyse, conception et \"tests\"")), counts);
+
+        assertEquals("Analyse, conception et \"tests\"", writer.findCoursesByIds(List.of("IFT2255"), null).get("IFT2255").getDescription());
+        Cours quoted = writer.findCoursesByIds(List.of("IFT3913"), null).get("IFT3913");
+        assertEquals("Qualité, \"logicielle\"", quoted.getName());
+        assertEquals("Ligne 1\nLigne 2", quoted.getDescription());
+        Map<String, Object> row = jdbi.withHandle(handle -> handle.createQuery(
+                        "SELECT name, description, credits FROM courses WHERE id = 'IFT4055'")
+                .mapToMap()
+                .one());
+        assertNull(row.get("name"));
+        assertEquals("", row.get("description"));
+        assertEquals(0, new BigDecimal("3").compareTo((BigDecimal) row.get("credits")));
+        int staged = jdbi.withHandle(handle -> handle.createQuery("SELECT count(*) FROM courses_staging")
+                .mapTo(Integer.class)
+                .one());
+        assertEquals(0, staged);
+        assertEquals(1, writer.searchCourses("tests", false, null, 10, 0).getTotal());
+        assertEquals(2, counts.getInserted());
+        assertEquals(1, counts.getUpdated());
+
+        WriteCounts again = new WriteCounts();
+        writer.bulkLoadCourses(List.of(
+                cours("IFT3913", "Qualité, \"logicielle\"", "Ligne 1\nLigne 2"),
+                cours("IFT4055", null, "Nouvelle description")), again);
+        assertEquals("inserted=0, updated=1, unchanged=1, deleted=0", again.toString());
+    }
+
+    @Test
+    @DisplayName("bulkInsertMissingCourses() n'insère que les cours absents du cache")
+    void bulkInsertMissingCoursesKeepsCachedCourses() {
+        WriteCounts counts = new WriteCounts();
+        writer.bulkInsertMissingCourses(List.of(
+                cours("IFT2255", "Génie logiciel", "Entrée de la liste"),
+                cours("IFT3913", "Qualité logicielle", "Métriques")), counts);
+
+        assertEquals("inserted=1, updated=0, unchanged=1, deleted=0", counts.toString());
+        assertEquals("Projet logiciel", writer.findCoursesByIds(List.of("IFT2255"), null).get("IFT2255").getDescription());
+        assertEquals("Métriques", writer.findCoursesByIds(List.of("IFT3913"), null).get("IFT3913").getDescription());
+    }
+
+    @Test
+    @DisplayName("upsertPrograms() enregistre plusieurs programmes et leurs cours en une transaction")
+    void upsertProgramsWritesSeveralPrograms() throws Exception {
+        List<String> courseIds = writer.upsertPrograms(List.of(
+                mapper.readTree("""
+                        {"id": "117510", "name": "Informatique", "segments": [{"blocs": [{"courses": ["IFT2255"]}]}]}
+                        """),
+                mapper.readTree("""
+                        {"id": "146811", "name": "Génie logiciel", "segments": [{"blocs": [{"courses": ["IFT3913", "IFT2255"]}]}]}
+                        """),
+                mapper.readTree("{\"name\": \"Sans id\"}")), new WriteCounts());
+
+        assertEquals(List.of("IFT2255", "IFT3913"), courseIds);
+        assertEquals("[{\"courses\":[\"IFT2255\"]}]", writer.coursesForProgramJson("117510"));
+        assertEquals("[{\"courses\":[\"IFT3913\",\"IFT2255\"]}]", writer.coursesForProgramJson("146811"));
+    }
+
+    @Test
+    @DisplayName("les lignes dont l'empreinte de contenu n'a pas changé ne sont pas réécrites")
+    void unchangedRowsAreSkipped() throws Exception {
+        WriteCounts courses = new WriteCounts();
+        writer.upsertCourses(List.of(
+                cours("IFT2255", "Génie logiciel", "Analyse et conception"),
+                cours("IFT3913", "Qualité logicielle", "Métriques")), courses);
+        assertEquals("inserted=1, updated=1, unchanged=0, deleted=0", courses.toString());
+
+        String fetchedAt = jdbi.withHandle(handle -> handle.createQuery(
+                        "SELECT fetched_at::text FROM schedules WHERE course_id = 'IFT2255'")
+                .mapTo(String.class)
+                .one());
+        AtomicInteger statements = new AtomicInteger();
+        jdbi.setSqlLogger(new SqlLogger() {
+            @Override
+            public void logAfterExecution(StatementContext context) {
+                statements.incrementAndGet();
+            }
+        });
+
+        WriteCounts again = new WriteCounts();
+        writer.upsertCourses(List.of(
+                cours("IFT2255", "Génie logiciel", "Analyse et conception"),
+                cours("IFT3913", "Qualité logicielle", "Métriques")), again);
+        WriteCounts schedules = new WriteCounts();
+        writer.upsertSchedules(Map.of("IFT2255", List.of(schedule("IFT2255", "A25"))), schedules);
+        WriteCounts programs = new WriteCounts();
+        writer.upsertPrograms(List.of(mapper.readTree("""
+                {"id": "117510", "name": "Informatique", "segments": [{"blocs": [{"courses": ["IFT1025", "IFT2255"]}]}]}
+                """)), programs);
+
+        // Seules les empreintes sont lues.
+        assertEquals(3, statements.get());
+        assertEquals("inserted=0, updated=0, unchanged=2, deleted=0", again.toString());
+        assertFalse(again.hasChanges());
+        assertEquals(1, schedules.getUnchanged());
+        assertEquals(1, programs.getUnchanged());
+        assertEquals(fetchedAt, jdbi.withHandle(handle -> handle.createQuery(
+                        "SELECT fetched_at::text FROM schedules WHERE course_id = 'IFT2255'")
+                .mapTo(String.class)
+                .one()));
+    }
+
+    @Test
+    @DisplayName("deleteCoursesNotIn() et deleteStaleSchedules() suppriment ce que Planifium ne renvoie plus")
+    void deletesRowsMissingFromPlanifium() throws Exception {
+        writer.upsertSchedule("IFT2255", schedule("IFT2255", "H26"));
+        writer.upsertSchedule("IFT1025", weeklySchedule("IFT1025", "A25", activity(List.of("Ma"), "10:30", "12:30")));
+        WriteCounts programs = new WriteCounts();
+        WriteCounts courses = new WriteCounts();
+        WriteCounts schedules = new WriteCounts();
+
+        writer.deleteStaleSchedules(Map.of("IFT2255", List.of("A25")), schedules);
+        writer.deleteCoursesNotIn(List.of("IFT2255"), courses, schedules);
+        writer.deleteProgramsNotIn(List.of(), programs);
+
+        assertEquals(1, courses.getDeleted());
+        assertEquals(2, schedules.getDeleted());
+        assertEquals(0, programs.getDeleted());
+        assertEquals(List.of("IFT2255"), writer.findAllCourseIds().orElseThrow());
+        assertEquals(1, countRows("schedules", "IFT2255"));
+        assertEquals(0, countRows("sections", "IFT1025"));
+        assertEquals("[{\"courses\":[\"IFT1025\",\"IFT2255\"]}]", writer.coursesForProgramJson("117510"));
+    }
+
+    @Test
+    @DisplayName("findProgramsForCourse() trouve les programmes qui incluent un cours, en SQL et depuis l'instantané")
+    void findProgramsForCourseIsAReverseLookup() throws Exception {
+        writer.upsertProgram(mapper.readTree("""
+                {"id": "146811", "name": "Génie logiciel", "segments": [{"blocs": [{"courses": ["IFT2255"]}]}]}
+                """));
+
+        assertEquals(List.of("117510", "146811"), writer.findProgramsForCourse("IFT2255").stream()
+                .map(program -> program.get("id")).toList());
+        assertEquals(List.of(Map.of("id", "117510", "name", "Informatique")), writer.findProgramsForCourse("IFT1025"));
+        assertTrue(writer.findProgramsForCourse("IFT3913").isEmpty());
+
+        CatalogCacheRepository snapshotReader = new CatalogCacheRepository(jdbi, true);
+        assertEquals(List.of("117510", "146811"), snapshotReader.findProgramsForCourse("IFT2255").stream()
+                .map(program -> program.get("id")).toList());
+        assertTrue(snapshotReader.findProgramsForCourse("IFT3913").isEmpty());
+    }
+
+    @Test
+    @DisplayName("findAllCourseIds() se rabat sur program_courses quand la table des cours est vide")
+    void findAllCourseIdsFallsBackToProgramCourses() throws Exception {
+        truncateCatalog();
+        writer.upsertProgram(mapper.readTree("""
+                {"id": "117510", "name": "Informatique", "segments": [{"blocs": [{"courses": ["IFT2255", "IFT1025"]}]}]}
+                """));
+
+        assertEquals(List.of("IFT1025", "IFT2255"), writer.findAllCourseIds().orElseThrow());
+    }
+
+    @Test
+    @DisplayName("applyCatalogVersion() n'invalide les caches que pour une version plus récente")
+    void applyCatalogVersionOnlyMovesForward() {
+        CatalogCacheRepository node = new CatalogCacheRepository(jdbi);
+        long version = writer.markCatalogChanged();
+
+        assertEquals(version, writer.persistedCatalogVersion());
+        assertTrue(node.applyCatalogVersion(version));
+        assertEquals(version, node.catalogVersion());
+        assertFalse(node.applyCatalogVersion(version));
+        assertFalse(node.applyCatalogVersion(version - 1));
+        assertEquals(version, node.catalogVersion());
+    }
+
+    @Test
+    @DisplayName("markCatalogChanged() sans base n'invente pas de version qui masquerait la suivante")
+    void markCatalogChangedDoesNotInventVersionWhenDatabaseIsDown() {
+        CatalogCacheRepository node = new CatalogCacheRepository(Jdbi.create("jdbc:postgresql://localhost:1/absent"));
+
+        assertThrows(IllegalStateException.class, node::markCatalogChanged);
+        assertEquals(0, node.catalogVersion());
+        assertTrue(node.applyCatalogVersion(1));
+    }
+
+    @Test
+    @DisplayName("En mode instantané, la version n'avance qu'une fois le nouvel instantané en place")
+    void snapshotIsSwappedBeforeVersionAdvances() throws Exception {
+        CatalogCacheRepository node = new CatalogCacheRepository(jdbi, true);
+        long before = node.catalogVersion();
+        assertFalse(node.findAllCourseIds().orElseThrow().contains("IFT3000"));
+        writer.upsertCourse(cours("IFT3000", "Projet avancé", "Atelier"));
+
+        Thread sync;
+        try (Handle blocker = jdbi.open()) {
+            // Le rechargement de l'instantané attend ce verrou : la synchronisation reste à mi-chemin.
+            blocker.begin();
+            blocker.execute("LOCK TABLE courses IN ACCESS EXCLUSIVE MODE");
+            sync = new Thread(node::markCatalogChanged);
+            sync.start();
+            awaitBlockedOnCourses();
+
+            // Ce que CoursService.idsCours() lit pendant le rechargement : la version, puis les ids.
+            long version = node.catalogVersion();
+            List<String> ids = node.findAllCourseIds().orElseThrow();
+            assertEquals(before, version);
+            assertFalse(ids.contains("IFT3000"));
+
+            blocker.rollback();
+        }
+        sync.join(10_000);
+
+        assertTrue(node.catalogVersion() > before);
+        assertTrue(node.findAllCourseIds().orElseThrow().contains("IFT3000"));
+    }
+
+    @Test
+    @DisplayName("Un autre nœud reçoit la nouvelle version par NOTIFY et reconstruit ses index")
+    void listenerInvalidatesOtherNodesOnNotify() throws Exception {
+        CatalogCacheRepository node = new CatalogCacheRepository(jdbi);
+        // Relecture périodique trop lente pour le test : seule la notification peut le faire passer.
+        try (CatalogVersionListener listener = new CatalogVersionListener(jdbi, node, 60_000).start()) {
+            long initial = writer.persistedCatalogVersion();
+            awaitVersion(node, initial);
+            assertEquals(List.of("IFT2255"), node.autocomplete("ift2", 10).stream()
+                    .map(CourseAutocompleteIndex.Suggestion::getId).toList());
+
+            writer.upsertCourse(cours("IFT2035", "Concepts des langages", "Langages"));
+            long version = writer.markCatalogChanged();
+
+            awaitVersion(node, version);
+            assertEquals(List.of("IFT2035", "IFT2255"), node.autocomplete("ift2", 10).stream()
+                    .map(CourseAutocompleteIndex.Suggestion::getId).toList());
+        }
+    }
+
+    private void awaitBlockedOnCourses() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            int waiting = jdbi.withHandle(handle -> handle.createQuery("""
+                            SELECT count(*) FROM pg_stat_activity
+                            WHERE wait_event_type = 'Lock' AND query LIKE '%FROM courses%'
+                            """)
+                    .mapTo(Integer.class)
+                    .one());
+            if (waiting > 0) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        fail("Snapshot reload never reached the courses lock");
+    }
+
+    private void awaitVersion(CatalogCacheRepository node, long version) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (node.catalogVersion() < version && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(version, node.catalogVersion());
+    }
+
+    private void seedCatalog() throws Exception {
+        writer.upsertCourse(cours("IFT1025", "Programmation 2", "Programmation objet"));
+        writer.upsertCourse(cours("IFT2255", "Génie logiciel", "Projet logiciel"));
+        writer.upsertProgram(mapper.readTree("""
+                {
+                  "id": "117510",
+                  "name": "Informatique",
+                  "segments": [{"blocs": [{"courses": ["IFT1025", "IFT2255"]}]}]
+                }
+                """));
+
+        writer.upsertSchedule("IFT2255", schedule("IFT2255", "A25"));
+    }
+
+    private Cours.Schedule schedule(String sigle, String semester) {
+        Cours.Schedule schedule = new Cours.Schedule();
+        schedule.setSigle(sigle);
+        schedule.setSemester(semester);
+        return schedule;
+    }
+
+    private Cours.Schedule weeklySchedule(String sigle, String semester, Cours.Activity... activities) {
+        Cours.Volet volet = new Cours.Volet();
+        volet.setName("TH");
+        volet.setActivities(List.of(activities));
+
+        Cours.Section section = new Cours.Section();
+        section.setName("A");
+        section.setCapacity("60");
+        section.setVolets(List.of(volet));
+
+        Cours.Schedule schedule = schedule(sigle, semester);
+        schedule.setSections(List.of(section));
+        return schedule;
+    }
+
+    private Cours.Activity activity(List<String> days, String start, String end) {
+        Cours.Activity activity = new Cours.Activity();
+        activity.setDays(days);
+        activity.setStart_time(start);
+        activity.setEnd_time(end);
+        return activity;
+    }
+
+    private int countRows(String table, String courseId) {
+        return jdbi.withHandle(handle -> handle.createQuery("SELECT count(*) FROM " + table + " WHERE course_id = :id")
+                .bind("id", courseId)
+                .mapTo(Integer.class)
+                .one());
+    }
+
+    private void truncateCatalog() {
+        jdbi.useHandle(handle -> handle.execute("TRUNCATE TABLE program_courses, activities, volets, sections, schedules, courses, programs RESTART IDENTITY"));
+    }
+
+    private Cours cours(String id, String name, String description) {
+        Cours cours = new Cours();
+        cours.setId(id);
+        cours.setName(name);
+        cours.setDescription(description);
+        cours.setCredits(3);
+        return cours;
+    }
+}
@@ -0,0 +1,175 @@
+package org.projet.repository;
+
+import org.flywaydb.core.Flyway;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.projet.model.Cours;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+class CatalogGenerationsTest {
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16")
+            .withDatabaseName("pickcourse")
+            .withUsername("pickcourse")
+            .withPassword("devpassword");
+
+    private Jdbi jdbi;
+    private CatalogCacheRepository live;
+    private CatalogGenerations generations;
+
+    @BeforeEach
+    void setUp() {
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .load()
+                .migrate();
+
+        jdbi = Jdbi.create(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        jdbi.useHandle(handle -> {
+            for (String schema : List.of(CatalogGenerations.NEXT_SCHEMA, CatalogGenerations.PREVIOUS_SCHEMA)) {
+                handle.execute("DROP TABLE IF EXISTS " + CatalogGenerations.TABLES.stream()
+                        .map(table -> schema + "." + table)
+                        .collect(Collectors.joining(", ")));
+            }
+            handle.execute("TRUNCATE TABLE program_courses, activities, volets, sections, schedules, courses, programs RESTART IDENTITY");
+        });
+
+        live = new CatalogCacheRepository(jdbi);
+        generations = live.generations();
+        live.upsertCourse(cours("IFT1025", "Programmation 2"));
+    }
+
+    @Test
+    @DisplayName("prepareNext() écrit dans une copie que les lecteurs ne voient qu'après publishNext()")
+    void nextGenerationIsInvisibleUntilPublished() {
+        CatalogCacheRepository next = generations.prepareNext();
+        next.upsertCourse(cours("IFT2255", "Génie logiciel"));
+        next.upsertSchedule("IFT2255", weeklySchedule("IFT2255", "A25"));
+
+        assertEquals(List.of("IFT1025"), courseIds("public"));
+        assertEquals(List.of("IFT1025", "IFT2255"), courseIds(CatalogGenerations.NEXT_SCHEMA));
+        assertEquals(0, count("public.activities"));
+
+        generations.publishNext();
+
+        assertEquals(List.of("IFT1025", "IFT2255"), courseIds("public"));
+        assertEquals(1, count("public.activities"));
+        assertEquals(List.of("IFT1025"), courseIds(CatalogGenerations.PREVIOUS_SCHEMA));
+        assertTrue(generations.hasPreviousGeneration());
+        assertEquals(1, live.findCoursesBy("id", "IFT2255", true, "A25").orElseThrow().get(0).getSchedules().size());
+    }
+
+    @Test
+    @DisplayName("publishNext() garde les noms des index et contraintes de la génération publiée")
+    void publishedGenerationKeepsIndexNames() {
+        List<String> before = indexNames();
+
+        generations.prepareNext();
+        generations.publishNext();
+
+        assertEquals(before, indexNames());
+        int foreignKeys = jdbi.withHandle(handle -> handle.createQuery("""
+                        SELECT count(*)
+                        FROM pg_constraint con
+                        JOIN pg_namespace ns ON ns.oid = con.connamespace
+                        WHERE ns.nspname = 'public' AND con.contype = 'f'
+                        """)
+                .mapTo(Integer.class)
+                .one());
+        assertEquals(3, foreignKeys);
+    }
+
+    @Test
+    @DisplayName("rollback() rétablit la génération précédente, et un second appel l'annule")
+    void rollbackSwapsPreviousGenerationBackIn() {
+        assertFalse(generations.rollback());
+
+        CatalogCacheRepository next = generations.prepareNext();
+        next.upsertCourse(cours("IFT2255", "Génie logiciel"));
+        generations.publishNext();
+
+        assertTrue(generations.rollback());
+        assertEquals(List.of("IFT1025"), courseIds("public"));
+
+        assertTrue(generations.rollback());
+        assertEquals(List.of("IFT1025", "IFT2255"), courseIds("public"));
+    }
+
+    @Test
+    @DisplayName("discardNext() abandonne la copie sans toucher au catalogue publié")
+    void discardNextLeavesPublishedCatalog() {
+        CatalogCacheRepository next = generations.prepareNext();
+        next.upsertCourse(cours("IFT2255", "Génie logiciel"));
+
+        generations.discardNext();
+
+        assertEquals(List.of("IFT1025"), courseIds("public"));
+        int tables = jdbi.withHandle(handle -> handle.createQuery("SELECT count(*) FROM pg_tables WHERE schemaname = 'catalog_next'")
+                .mapTo(Integer.class)
+                .one());
+        assertEquals(0, tables);
+    }
+
+    private List<String> courseIds(String schema) {
+        return jdbi.withHandle(handle -> handle.createQuery("SELECT id FROM " + schema + ".courses ORDER BY id")
+                .mapTo(String.class)
+                .list());
+    }
+
+    private int count(String table) {
+        return jdbi.withHandle(handle -> handle.createQuery("SELECT count(*) FROM " + table)
+                .mapTo(Integer.class)
+                .one());
+    }
+
+    private List<String> indexNames() {
+        return jdbi.withHandle(handle -> handle.createQuery("""
+                        SELECT indexname
+                        FROM pg_indexes
+                        WHERE schemaname = 'public' AND tablename = ANY(:tables)
+                        ORDER BY indexname
+                        """)
+                .bindArray("tables", String.class, CatalogGenerations.TABLES)
+                .mapTo(String.class)
+                .list());
+    }
+
+    private Cours.Schedule weeklySchedule(String sigle, String semester) {
+        Cours.Activity activity = new Cours.Activity();
+        activity.setDays(List.of("Lu"));
+        activity.setStart_time("08:30");
+        activity.setEnd_time("10:30");
+
+        Cours.Volet volet = new Cours.Volet();
+        volet.setName("TH");
+        volet.setActivities(List.of(activity));
+
+        Cours.Section section = new Cours.Section();
+        section.setName("A");
+        section.setVolets(List.of(volet));
+
+        Cours.Schedule schedule = new Cours.Schedule();
+        schedule.setSigle(sigle);
+        schedule.setSemester(semester);
+        schedule.setSections(List.of(section));
+        return schedule;
+    }
+
+    private Cours cours(String id, String name) {
+        Cours cours = new Cours();
+        cours.setId(id);
+        cours.setName(name);
+        cours.setCredits(3);
+        return cours;
+    }
+}
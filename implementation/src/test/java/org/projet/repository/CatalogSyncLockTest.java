@@ -0,0 +1,80 @@
+package org.projet.repository;
+
+import org.flywaydb.core.Flyway;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+class CatalogSyncLockTest {
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16")
+            .withDatabaseName("pickcourse")
+            .withUsername("pickcourse")
+            .withPassword("devpassword");
+
+    private Jdbi jdbi;
+
+    @BeforeEach
+    void setUp() {
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .load()
+                .migrate();
+
+        jdbi = Jdbi.create(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        jdbi.useHandle(handle -> handle.execute("TRUNCATE TABLE catalog_sync_runs"));
+    }
+
+    @Test
+    @DisplayName("tryAcquire() refuse une deuxième synchronisation tant que la première n'est pas terminée")
+    void secondAcquireFailsWhileLockIsHeld() {
+        // Deux instances simulent deux nœuds : chacune ouvre ses propres connexions.
+        CatalogSyncLock first = new CatalogSyncLock(jdbi);
+        CatalogSyncLock second = new CatalogSyncLock(jdbi);
+
+        CatalogSyncLock.Lease lease = first.tryAcquire("admin").orElseThrow();
+
+        assertTrue(second.tryAcquire("scheduled").isEmpty());
+        assertEquals(Optional.of(lease.getId()), second.runningSyncId());
+
+        lease.finish(true);
+
+        assertTrue(second.runningSyncId().isEmpty());
+        CatalogSyncLock.Lease next = second.tryAcquire("scheduled").orElseThrow();
+        next.finish(false);
+
+        List<String> statuses = jdbi.withHandle(handle -> handle
+                .createQuery("SELECT trigger || ':' || status FROM catalog_sync_runs ORDER BY started_at")
+                .mapTo(String.class)
+                .list());
+        assertEquals(List.of("admin:succeeded", "scheduled:failed"), statuses);
+    }
+
+    @Test
+    @DisplayName("tryAcquire() clôt la synchronisation d'un nœud mort sans l'avoir terminée")
+    void acquireMarksOrphanRunsAbandoned() {
+        jdbi.useHandle(handle -> handle.execute("""
+                INSERT INTO catalog_sync_runs (id, trigger, node)
+                VALUES ('00000000-0000-0000-0000-000000000001', 'scheduled', 'dead-node')
+                """));
+
+        CatalogSyncLock.Lease lease = new CatalogSyncLock(jdbi).tryAcquire("admin").orElseThrow();
+        lease.finish(true);
+
+        String status = jdbi.withHandle(handle -> handle
+                .createQuery("SELECT status FROM catalog_sync_runs WHERE node = 'dead-node'")
+                .mapTo(String.class)
+                .one());
+        assertEquals("abandoned", status);
+    }
+}
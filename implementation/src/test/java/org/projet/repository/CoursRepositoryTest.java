@@ -39,7 +39,7 @@ public class CoursRepositoryTest {
 
         Jdbi jdbi = Jdbi.create(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
         jdbi.useHandle(handle -> {
-            handle.execute("TRUNCATE TABLE schedules, courses, programs RESTART IDENTITY");
+            handle.execute("TRUNCATE TABLE program_courses, schedules, courses, programs RESTART IDENTITY");
             handle.execute("TRUNCATE TABLE reviews RESTART IDENTITY");
         });
 
@@ -0,0 +1,53 @@
+package org.projet.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CourseAutocompleteIndexTest {
+
+    private final CourseAutocompleteIndex index = new CourseAutocompleteIndex(List.of(
+            new CourseAutocompleteIndex.Suggestion("IFT1015", "Programmation 1"),
+            new CourseAutocompleteIndex.Suggestion("IFT1025", "Programmation 2"),
+            new CourseAutocompleteIndex.Suggestion("IFT2255", "Génie logiciel"),
+            new CourseAutocompleteIndex.Suggestion("MAT1400", "Calcul 1"),
+            new CourseAutocompleteIndex.Suggestion("IFT3913", "Qualité du logiciel et métriques")
+    ), 3);
+
+    @Test
+    @DisplayName("suggest() trouve les sigles par préfixe, sans tenir compte de la casse ni des espaces")
+    void suggestMatchesIdPrefix() {
+        assertEquals(List.of("IFT1015", "IFT1025"), ids(index.suggest("ift10", 10)));
+        assertEquals(List.of("IFT2255"), ids(index.suggest("IFT 22", 10)));
+        assertEquals(List.of("IFT1015", "IFT1025", "IFT2255"), ids(index.suggest("ift", 3)));
+    }
+
+    @Test
+    @DisplayName("suggest() trouve les noms par mot, sans accents, les sigles d'abord")
+    void suggestMatchesNameWords() {
+        assertEquals(List.of("IFT2255"), ids(index.suggest("genie", 10)));
+        assertEquals(List.of("IFT2255", "IFT3913"), ids(index.suggest("logi", 10)));
+        assertEquals(List.of("IFT3913"), ids(index.suggest("qualite metr", 10)));
+        assertEquals(List.of("IFT1015", "IFT1025"), ids(index.suggest("prog", 10)));
+        assertEquals("Génie logiciel", index.suggest("génie log", 1).get(0).getName());
+    }
+
+    @Test
+    @DisplayName("suggest() ne retourne rien pour une saisie vide ou sans correspondance")
+    void suggestHandlesEmptyInput() {
+        assertTrue(index.suggest("  -- ", 10).isEmpty());
+        assertTrue(index.suggest(null, 10).isEmpty());
+        assertTrue(index.suggest("zzz", 10).isEmpty());
+        assertTrue(index.suggest("ift", 0).isEmpty());
+        assertTrue(CourseAutocompleteIndex.empty().suggest("ift", 10).isEmpty());
+        assertEquals(3, index.catalogVersion());
+        assertEquals(5, index.size());
+    }
+
+    private List<String> ids(List<CourseAutocompleteIndex.Suggestion> suggestions) {
+        return suggestions.stream().map(CourseAutocompleteIndex.Suggestion::getId).toList();
+    }
+}
@@ -0,0 +1,46 @@
+package org.projet.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CourseAvailabilityIndexTest {
+
+    private final CourseAvailabilityIndex index = new CourseAvailabilityIndex(
+            Map.of(
+                    "117510", List.of("IFT2255", "IFT1025", "MAT1400"),
+                    "146811", List.of("MAT1400", "MAT1600")
+            ),
+            Map.of(
+                    "A25", Set.of("IFT2255", "MAT1400", "PHY1001"),
+                    "H26", Set.of("IFT1025")
+            ),
+            7
+    );
+
+    @Test
+    @DisplayName("coursesAvailable() croise le programme et la session, trié par id")
+    void coursesAvailableIntersectsProgramAndSemester() {
+        assertEquals(List.of("IFT2255", "MAT1400"), index.coursesAvailable("117510", "A25"));
+        assertEquals(List.of("IFT1025"), index.coursesAvailable("117510", "H26"));
+        assertEquals(List.of("MAT1400"), index.coursesAvailable("146811", "A25"));
+    }
+
+    @Test
+    @DisplayName("coursesAvailable() est vide pour un programme ou une session inconnus")
+    void coursesAvailableIsEmptyForUnknownKeys() {
+        assertTrue(index.coursesAvailable("999999", "A25").isEmpty());
+        assertTrue(index.coursesAvailable("117510", "E26").isEmpty());
+        assertTrue(index.coursesAvailable(null, null).isEmpty());
+        assertTrue(CourseAvailabilityIndex.empty().coursesAvailable("117510", "A25").isEmpty());
+        assertEquals(4, index.courseCount());
+        assertEquals(2, index.programCount());
+        assertEquals(2, index.semesterCount());
+        assertEquals(7, index.catalogVersion());
+    }
+}
@@ -0,0 +1,31 @@
+package org.projet.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScheduleSlotsTest {
+
+    @Test
+    @DisplayName("dayMask() attribue un bit par jour et ignore les codes inconnus")
+    void dayMaskSetsOneBitPerDay() {
+        assertEquals(0b0000101, ScheduleSlots.dayMask(List.of("Lu", "Me")));
+        assertEquals(0b1000000, ScheduleSlots.dayMask(Arrays.asList("Di", "Xx", null)));
+        assertEquals(0, ScheduleSlots.dayMask(null));
+        assertEquals(ScheduleSlots.ALL_DAYS, ScheduleSlots.dayMask(ScheduleSlots.DAY_CODES));
+    }
+
+    @Test
+    @DisplayName("minuteOfDay() convertit HH:mm en minutes depuis minuit")
+    void minuteOfDayConvertsTimes() {
+        assertEquals(510, ScheduleSlots.minuteOfDay("08:30"));
+        assertEquals(810, ScheduleSlots.minuteOfDay("13:30:00"));
+        assertNull(ScheduleSlots.minuteOfDay(""));
+        assertNull(ScheduleSlots.minuteOfDay("midi"));
+        assertThrows(IllegalArgumentException.class, () -> ScheduleSlots.parseMinuteOfDay(null));
+    }
+}
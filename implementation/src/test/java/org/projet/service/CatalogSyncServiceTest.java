@@ -6,6 +6,7 @@ import org.jdbi.v3.core.Jdbi;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.projet.model.Cours;
 import org.projet.repository.CatalogCacheRepository;
 import org.projet.repository.CoursRepository;
 import org.testcontainers.containers.PostgreSQLContainer;
@@ -16,7 +17,14 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -30,6 +38,7 @@ class CatalogSyncServiceTest {
             .withUsername("pickcourse")
             .withPassword("devpassword");
 
+    private final List<String> planifiumRequests = Collections.synchronizedList(new ArrayList<>());
     private HttpServer server;
     private Jdbi jdbi;
     private CatalogCacheRepository cacheRepository;
@@ -43,7 +52,7 @@ class CatalogSyncServiceTest {
                 .migrate();
 
         jdbi = Jdbi.create(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
-        jdbi.useHandle(handle -> handle.execute("TRUNCATE TABLE schedules, courses, programs RESTART IDENTITY"));
+        jdbi.useHandle(handle -> handle.execute("TRUNCATE TABLE program_courses, schedules, courses, programs RESTART IDENTITY"));
 
         cacheRepository = new CatalogCacheRepository(jdbi);
         coursRepository = new CoursRepository(cacheRepository);
@@ -74,7 +83,7 @@ class CatalogSyncServiceTest {
     }
 
     @Test
-    void fetchProgramsRawEchoueSiPlanifiumRetourneUnObjetErreur() throws Exception {
+    void streamArrayEchoueSiPlanifiumRetourneUnObjetErreur() throws Exception {
         server.stop(0);
         server = startPlanifiumStub("""
                 {
@@ -86,7 +95,7 @@ class CatalogSyncServiceTest {
 
         IllegalStateException exception = assertThrows(
                 IllegalStateException.class,
-                () -> new CatalogSyncService(cacheRepository).fetchProgramsRaw()
+                () -> new CatalogSyncService(cacheRepository).streamArray("/programs", "programs", program -> { })
         );
 
         assertTrue(exception.getMessage().contains("Planifium programs response must be a JSON array"));
@@ -120,6 +129,54 @@ class CatalogSyncServiceTest {
                 .size());
     }
 
+    @Test
+    void syncAllLitLaListeDesCoursEnFluxEtIgnoreLesEntreesInvalides() throws Exception {
+        truncateCatalog();
+        server.stop(0);
+        String courses = directCoursesResponseWithNewIds().trim();
+        courses = courses.substring(0, courses.length() - 1) + ", {\"id\": \"IFT3500\", \"credits\": \"abc\"}]";
+        server = startPlanifiumStub(malformedProgramsResponse(), courses);
+        System.setProperty("planifium.base", "http://localhost:" + server.getAddress().getPort());
+
+        assertEquals(3, new CatalogSyncService(cacheRepository).streamArray("/courses", "courses", course -> { }));
+        new CatalogSyncService(cacheRepository).syncAll();
+
+        assertEquals(List.of("IFT3000", "IFT3999"), coursRepository.getAllCoursesId().orElseThrow().stream().sorted().toList());
+    }
+
+    @Test
+    void syncAllMetAJourDepuisLaListeUnCoursDontLeDetailEchoue() throws Exception {
+        server.stop(0);
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            String response;
+            if ("/api/v1/programs".equals(path)) {
+                response = validProgramsResponse();
+            } else if ("/api/v1/courses".equals(path)) {
+                response = """
+                        [{"id": "IFT2255", "name": "Génie logiciel II", "description": "Projet logiciel", "credits": 4}]
+                        """;
+            } else {
+                exchange.sendResponseHeaders(500, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = response.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+        System.setProperty("planifium.base", "http://localhost:" + server.getAddress().getPort());
+
+        new CatalogSyncService(cacheRepository).syncAll();
+
+        var cours = coursRepository.getCourseBy("id", "IFT2255", "false", null).orElseThrow();
+        assertEquals("Génie logiciel II", cours.get(0).getName());
+    }
+
     @Test
     void syncAllConserveLeCacheExistantQuandPlanifiumEchoue() throws Exception {
         server.stop(0);
@@ -132,6 +189,216 @@ class CatalogSyncServiceTest {
         assertEquals(List.of("IFT2255"), coursRepository.getAllCoursesId().orElseThrow());
     }
 
+    @Test
+    void syncAllSynchroniseLesCoursEnParalleleSansDepasserLaConcurrence() throws Exception {
+        truncateCatalog();
+        server.stop(0);
+        List<String> ids = IntStream.range(0, 24).mapToObj(i -> "IFT" + (4000 + i)).collect(Collectors.toList());
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        server = startSlowPlanifiumStub(ids, inFlight, maxInFlight);
+        System.setProperty("planifium.base", "http://localhost:" + server.getAddress().getPort());
+
+        new CatalogSyncService(cacheRepository, 4, 0, 5).syncAll();
+
+        assertEquals(ids, coursRepository.getAllCoursesId().orElseThrow().stream().sorted().toList());
+        assertEquals(1, coursRepository.getCourseBy("id", "IFT4023", "true", "A25")
+                .orElseThrow()
+                .get(0)
+                .getSchedules()
+                .size());
+        assertTrue(maxInFlight.get() > 1, "max in flight: " + maxInFlight.get());
+        assertTrue(maxInFlight.get() <= 4, "max in flight: " + maxInFlight.get());
+    }
+
+    @Test
+    void syncAllIsoleLEchecDUnCours() throws Exception {
+        truncateCatalog();
+        server.stop(0);
+        List<String> ids = List.of("IFT4000", "IFT4001", "IFT4002");
+        server = startSlowPlanifiumStub(List.of("IFT4000", "IFT4002"), new AtomicInteger(), new AtomicInteger(), ids);
+        System.setProperty("planifium.base", "http://localhost:" + server.getAddress().getPort());
+
+        new CatalogSyncService(cacheRepository, 3, 0, 2).syncAll();
+
+        assertEquals(List.of("IFT4000", "IFT4002"), coursRepository.getAllCoursesId().orElseThrow().stream().sorted().toList());
+    }
+
+    @Test
+    void syncAllRecupereChaqueCoursUneFoisEtSesHorairesParLots() throws Exception {
+        truncateCatalog();
+        server.stop(0);
+        List<String> ids = IntStream.range(0, 6).mapToObj(i -> "IFT" + (4000 + i)).collect(Collectors.toList());
+        server = startSlowPlanifiumStub(ids, new AtomicInteger(), new AtomicInteger());
+        System.setProperty("planifium.base", "http://localhost:" + server.getAddress().getPort());
+
+        new CatalogSyncService(cacheRepository, 3, 0, 4, 4).syncAll();
+
+        // Les cours sont listés par le programme et par /courses : un détail par cours, et une requête
+        // /schedules par lot de 4 cours, contre 2 + 6 * 2 * (1 + 2) = 38 requêtes en trois passes.
+        List<String> requests = List.copyOf(planifiumRequests);
+        assertEquals(2 + ids.size() + 2, requests.size(), requests.toString());
+        for (String id : ids) {
+            assertEquals(1, requests.stream().filter(("/api/v1/courses/" + id + "?include_schedule=true")::equals).count());
+            assertEquals(1, requests.stream().filter(request -> request.startsWith("/api/v1/schedules")
+                    && request.contains("\"" + id + "\"") && request.contains("min_semester=A25")).count());
+        }
+        List<Cours.Schedule> schedules = coursRepository.getCourseBy("id", "IFT4005", "true", null)
+                .orElseThrow()
+                .get(0)
+                .getSchedules();
+        assertEquals(2, schedules.size());
+        assertEquals("Horaire IFT4005", schedules.stream()
+                .filter(schedule -> "A25".equals(schedule.getSemester()))
+                .findFirst()
+                .orElseThrow()
+                .getName());
+    }
+
+    @Test
+    void semesterRankOrdonneLesSessionsParAnneePuisSaison() {
+        assertTrue(CatalogSyncService.semesterRank("A25") < CatalogSyncService.semesterRank("H26"));
+        assertTrue(CatalogSyncService.semesterRank("H26") < CatalogSyncService.semesterRank("E26"));
+        assertTrue(CatalogSyncService.semesterRank("E26") < CatalogSyncService.semesterRank("A26"));
+        assertEquals(-1, CatalogSyncService.semesterRank("Automne 2025"));
+    }
+
+    @Test
+    void syncAllNIncrementePasLaVersionQuandRienNAChange() throws Exception {
+        long version = cacheRepository.persistedCatalogVersion();
+        String fetchedAt = jdbi.withHandle(handle -> handle.createQuery(
+                        "SELECT fetched_at::text FROM schedules WHERE course_id = 'IFT2255'")
+                .mapTo(String.class)
+                .one());
+
+        new CatalogSyncService(cacheRepository).syncAll();
+
+        assertEquals(version, cacheRepository.persistedCatalogVersion());
+        assertEquals(fetchedAt, jdbi.withHandle(handle -> handle.createQuery(
+                        "SELECT fetched_at::text FROM schedules WHERE course_id = 'IFT2255'")
+                .mapTo(String.class)
+                .one()));
+        assertEquals(List.of("IFT2255"), coursRepository.getAllCoursesId().orElseThrow());
+    }
+
+    @Test
+    void syncAllSupprimeCeQuePlanifiumNeRenvoiePlus() throws Exception {
+        long version = cacheRepository.persistedCatalogVersion();
+        server.stop(0);
+        server = startPlanifiumStub("""
+                [{"id": "146811", "name": "Génie logiciel", "segments": [{"blocs": [{"courses": ["IFT3000"]}]}]}]
+                """, directCoursesResponseWithNewIds());
+        System.setProperty("planifium.base", "http://localhost:" + server.getAddress().getPort());
+
+        new CatalogSyncService(cacheRepository).syncAll();
+
+        assertEquals(List.of("146811"), coursRepository.getAllPrograms().stream()
+                .map(program -> program.get("id"))
+                .toList());
+        assertEquals(List.of("IFT3000", "IFT3999"), coursRepository.getAllCoursesId().orElseThrow().stream().sorted().toList());
+        int schedules = jdbi.withHandle(handle -> handle.createQuery(
+                        "SELECT count(*) FROM schedules WHERE course_id = 'IFT2255'")
+                .mapTo(Integer.class)
+                .one());
+        assertEquals(0, schedules);
+        assertTrue(cacheRepository.persistedCatalogVersion() > version);
+    }
+
+    @Test
+    void syncAllPublieUneNouvelleGenerationEtGardeLaPrecedentePourLeRetourArriere() throws Exception {
+        server.stop(0);
+        server = startPlanifiumStub("""
+                [{"id": "146811", "name": "Génie logiciel", "segments": [{"blocs": [{"courses": ["IFT3000"]}]}]}]
+                """, directCoursesResponseWithNewIds());
+        System.setProperty("planifium.base", "http://localhost:" + server.getAddress().getPort());
+        CatalogSyncService service = new CatalogSyncService(cacheRepository);
+
+        service.syncAll();
+        long version = cacheRepository.persistedCatalogVersion();
+
+        assertEquals(List.of("IFT3000", "IFT3999"), coursRepository.getAllCoursesId().orElseThrow().stream().sorted().toList());
+        assertTrue(service.rollback());
+        assertEquals(List.of("IFT2255"), coursRepository.getAllCoursesId().orElseThrow());
+        assertEquals(1, coursRepository.getCourseBy("id", "IFT2255", "true", "A25").orElseThrow().get(0).getSchedules().size());
+        assertTrue(cacheRepository.persistedCatalogVersion() > version);
+    }
+
+    private HttpServer startSlowPlanifiumStub(List<String> ids, AtomicInteger inFlight, AtomicInteger maxInFlight)
+            throws IOException {
+        return startSlowPlanifiumStub(ids, inFlight, maxInFlight, ids);
+    }
+
+    /**
+     * Planifium de test : un programme listant {@code programIds}, seuls les cours de {@code ids} existent,
+     * et chaque cours répond après un court délai en comptant les requêtes simultanées.
+     */
+    private HttpServer startSlowPlanifiumStub(List<String> ids, AtomicInteger inFlight, AtomicInteger maxInFlight,
+                                              List<String> programIds) throws IOException {
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress(0), 0);
+        httpServer.setExecutor(java.util.concurrent.Executors.newCachedThreadPool());
+        String programs = """
+                [{"id": "117510", "name": "Informatique", "segments": [{"blocs": [{"courses": [%s]}]}]}]
+                """.formatted(programIds.stream().map(id -> "\"" + id + "\"").collect(Collectors.joining(",")));
+        String courses = ids.stream()
+                .map(id -> "{\"id\": \"%s\", \"name\": \"Cours %s\", \"credits\": 3}".formatted(id, id))
+                .collect(Collectors.joining(",", "[", "]"));
+        httpServer.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            String query = exchange.getRequestURI().getQuery();
+            planifiumRequests.add(query == null ? path : path + "?" + query);
+            String response = null;
+
+            if ("/api/v1/programs".equals(path)) {
+                response = programs;
+            } else if ("/api/v1/courses".equals(path)) {
+                response = courses;
+            } else if (path.startsWith("/api/v1/courses/") && ids.contains(path.substring("/api/v1/courses/".length()))) {
+                String id = path.substring("/api/v1/courses/".length());
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+                response = """
+                        {
+                          "id": "%s",
+                          "name": "Cours %s",
+                          "credits": 3,
+                          "schedules": [
+                            {"sigle": "%s", "semester": "A25", "sections": []},
+                            {"sigle": "%s", "semester": "H26", "sections": []}
+                          ]
+                        }
+                        """.formatted(id, id, id, id);
+            } else if ("/api/v1/schedules".equals(path)) {
+                // Horaire A25 de chaque cours demandé, H26 reste celui du détail.
+                Matcher requested = Pattern.compile("\"(IFT\\d+)\"").matcher(query);
+                List<String> schedules = new ArrayList<>();
+                while (requested.find()) {
+                    schedules.add("{\"sigle\": \"%s\", \"name\": \"Horaire %s\", \"semester\": \"A25\", \"sections\": []}"
+                            .formatted(requested.group(1), requested.group(1)));
+                }
+                response = "[" + String.join(",", schedules) + "]";
+            }
+
+            if (response == null) {
+                exchange.sendResponseHeaders(404, 0);
+                exchange.close();
+                return;
+            }
+            byte[] body = response.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        httpServer.start();
+        return httpServer;
+    }
+
     private HttpServer startPlanifiumStub(String programsResponse, String coursesResponse) throws IOException {
         HttpServer httpServer = HttpServer.create(new InetSocketAddress(0), 0);
         httpServer.createContext("/", exchange -> {
@@ -330,6 +597,6 @@ class CatalogSyncServiceTest {
     }
 
     private void truncateCatalog() {
-        jdbi.useHandle(handle -> handle.execute("TRUNCATE TABLE schedules, courses, programs RESTART IDENTITY"));
+        jdbi.useHandle(handle -> handle.execute("TRUNCATE TABLE program_courses, schedules, courses, programs RESTART IDENTITY"));
     }
 }
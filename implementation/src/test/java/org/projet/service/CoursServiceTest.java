@@ -4,7 +4,10 @@ import org.projet.exception.HoraireException;
 import org.projet.model.Avis;
 import org.projet.model.Cours;
 import org.projet.model.Resultats;
+import org.projet.repository.CourseAutocompleteIndex;
+import org.projet.repository.CourseSearchPage;
 import org.projet.repository.CoursRepository;
+import org.projet.repository.KeysetPage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,6 +17,7 @@ import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyList;
@@ -115,6 +119,34 @@ class CoursServiceTest {
 
 
 
+    @Test
+    @DisplayName("validateAll() retourne les ids invalides en une passe, sans recharger les ids")
+    void testValidateAll() throws Exception {
+        when(mockRepo.getAllCoursesId())
+                .thenReturn(Optional.of(List.of("IFT1025", "IFT2255")));
+
+        assertEquals(Set.of(), service.validateAll(List.of("IFT1025", "IFT2255")));
+        assertEquals(List.of("IFT9999", "ift1025"),
+                List.copyOf(service.validateAll(List.of("IFT9999", "IFT1025", "ift1025", "IFT9999"))));
+        verify(mockRepo, times(1)).getAllCoursesId();
+    }
+
+    @Test
+    @DisplayName("validateIdCours() recharge les ids quand la version du catalogue change")
+    void testValidateIdCoursApresSynchronisation() throws Exception {
+        when(mockRepo.getCatalogVersion()).thenReturn(1L);
+        when(mockRepo.getAllCoursesId())
+                .thenReturn(Optional.of(List.of("IFT1025")))
+                .thenReturn(Optional.of(List.of("IFT1025", "IFT3913")));
+
+        assertFalse(service.validateIdCours("IFT3913"));
+        assertFalse(service.validateIdCours("IFT3913"));
+
+        when(mockRepo.getCatalogVersion()).thenReturn(2L);
+        assertTrue(service.validateIdCours("IFT3913"));
+        verify(mockRepo, times(2)).getAllCoursesId();
+    }
+
     // Tests pour la fonctionnalité "Vérifier son éligibilité à un cours"
         /**
          * Ce test vérifie que la méthode {@code checkEligibilityNew} retourne un message
@@ -334,8 +366,8 @@ void testGenererEnsembleHoraireCoursNonRecupere() throws Exception {
     when(mockRepo.getAllCoursesId())
             .thenReturn(Optional.of(List.of("IFT2255")));
 
-    when(mockRepo.getCourseBy("id", "IFT2255", "true", null))
-            .thenReturn(Optional.empty());
+    when(mockRepo.getCoursesByIds(List.of("IFT2255"), null))
+            .thenReturn(Map.of());
 
     HoraireException ex = assertThrows(
         HoraireException.class,
@@ -380,8 +412,8 @@ void testGenererEnsembleHoraireIgnoreExamens() throws Exception {
     s.setSections(List.of(sec));
     c.setSchedules(List.of(s));
 
-    when(mockRepo.getCourseBy("id", "IFT2255", "true", null))
-            .thenReturn(Optional.of(List.of(c)));
+    when(mockRepo.getCoursesByIds(List.of("IFT2255"), null))
+            .thenReturn(Map.of("IFT2255", c));
 
     var res = service.genererEnsembleHoraire(
             List.of("IFT2255"), "A25"
@@ -428,8 +460,8 @@ void testGenererEnsembleHoraireSansDoublons() throws Exception {
     s.setSections(List.of(sec));
     c.setSchedules(List.of(s));
 
-    when(mockRepo.getCourseBy("id", "IFT2255", "true", null))
-            .thenReturn(Optional.of(List.of(c)));
+    when(mockRepo.getCoursesByIds(List.of("IFT2255"), null))
+            .thenReturn(Map.of("IFT2255", c));
 
     var res = service.genererEnsembleHoraire(
             List.of("IFT2255"), "A25"
@@ -476,8 +508,8 @@ void testGenererEnsembleHoraireValide() throws Exception {
     s.setSections(List.of(sec));
     c.setSchedules(List.of(s));
 
-    when(mockRepo.getCourseBy("id", "IFT2255", "true", null))
-            .thenReturn(Optional.of(List.of(c)));
+    when(mockRepo.getCoursesByIds(List.of("IFT2255"), null))
+            .thenReturn(Map.of("IFT2255", c));
 
     var res = service.genererEnsembleHoraire(
             List.of("IFT2255"), "A25"
@@ -688,6 +720,168 @@ void testComparerCoursParAvisCritereInvalide() {
         );
 }
 
+@Test
+@DisplayName("comparerCombinaisonCours() charge tous les cours des combinaisons en une seule opération")
+void testComparerCombinaisonCoursChargementGroupe() throws Exception {
+        AvisService avisService = mock(AvisService.class);
+        injectAvisService(avisService);
+
+        when(mockRepo.getAllCoursesId())
+                .thenReturn(Optional.of(List.of("IFT1025", "IFT2255", "IFT2015")));
+
+        Cours ift1025 = new Cours();
+        ift1025.setId("IFT1025");
+        ift1025.setCredits(3);
+        Cours ift2255 = new Cours();
+        ift2255.setId("IFT2255");
+        ift2255.setCredits(3);
+        Cours ift2015 = new Cours();
+        ift2015.setId("IFT2015");
+        ift2015.setCredits(4);
+
+        when(mockRepo.getCoursesByIds(any(), isNull()))
+                .thenReturn(Map.of("IFT1025", ift1025, "IFT2255", ift2255, "IFT2015", ift2015));
+        when(avisService.getAvisParCours(anyString())).thenReturn(List.of());
+
+        List<List<String>> resultat = service.comparerCombinaisonCours(
+                List.of(List.of("IFT1025", "IFT2255"), List.of("IFT2255", "IFT2015")),
+                "A25"
+        );
+
+        assertEquals(2, resultat.size());
+        assertEquals("Crédits=6", resultat.get(0).get(2));
+        assertEquals("Crédits=7", resultat.get(1).get(2));
+        verify(mockRepo, times(1)).getCoursesByIds(any(), isNull());
+        verify(mockRepo, never()).getCourseBy(anyString(), anyString(), anyString(), any());
+        verify(avisService, times(1)).getAvisParCours("IFT2255");
+}
+
+@Test
+@DisplayName("rechercherCours() filtre les horaires par session sans modifier les cours du repository")
+void testRechercherCoursFiltreSessionSansModifierLeCache() throws Exception {
+        Cours.Schedule automne = new Cours.Schedule();
+        automne.setSemester("A25");
+        Cours.Schedule hiver = new Cours.Schedule();
+        hiver.setSemester("H26");
+
+        Cours partage = new Cours();
+        partage.setId("IFT2255");
+        partage.setSchedules(List.of(automne, hiver));
+
+        when(mockRepo.getCourseBy("name", "logiciel", "true", "A25"))
+                .thenReturn(Optional.of(List.of(partage)));
+
+        List<Cours> resultat = service.rechercherCours("name", "logiciel", "true", "A25").orElseThrow();
+
+        assertEquals(List.of(automne), resultat.get(0).getSchedules());
+        assertNotSame(partage, resultat.get(0));
+        assertEquals(2, partage.getSchedules().size());
+}
+
+@Test
+@DisplayName("rechercherCoursTexte() convertit la page et borne la taille demandée")
+void testRechercherCoursTextePagination() throws Exception {
+        when(mockRepo.searchCourses("génie", "true", "A25", 100, 100))
+                .thenReturn(new CourseSearchPage(List.of(), 150, 100, 100));
+
+        var resultat = service.rechercherCoursTexte("génie", "true", "a25", 2, 500);
+
+        assertEquals(150, resultat.orElseThrow().getTotal());
+        verify(mockRepo).searchCourses("génie", "true", "A25", 100, 100);
+}
+
+@Test
+@DisplayName("rechercherCoursTexte() refuse une valeur vide ou une session sans horaires")
+void testRechercherCoursTexteRequeteInvalide() throws Exception {
+        assertTrue(service.rechercherCoursTexte(" ", "true", null, null, null).isEmpty());
+        assertTrue(service.rechercherCoursTexte("genie", "false", "A25", null, null).isEmpty());
+        verify(mockRepo, never()).searchCourses(any(), any(), any(), anyInt(), anyInt());
+}
+
+@Test
+@DisplayName("rechercherCoursJson() délègue au repository et renvoie [] pour une requête invalide")
+void testRechercherCoursJson() throws Exception {
+        when(mockRepo.getCoursesJsonArrayBy("id", "IFT", "true", "A25")).thenReturn(Optional.of("[{}]"));
+
+        assertEquals("[{}]", service.rechercherCoursJson("id", "ift", "true", "a25").orElseThrow());
+        assertEquals("[]", service.rechercherCoursJson("credits", "3", "false", null).orElseThrow());
+        assertEquals("[]", service.rechercherCoursJson("id", "IFT", "false", "A25").orElseThrow());
+        verify(mockRepo, times(1)).getCoursesJsonArrayBy(any(), any(), any(), any());
+}
+
+@Test
+@DisplayName("rechercherCoursPage() borne la taille et normalise le curseur")
+void testRechercherCoursPage() throws Exception {
+        KeysetPage<Cours> page = new KeysetPage<>(List.of(), null);
+        when(mockRepo.getCoursePageBy("id", "IFT", "false", null, "IFT1025", CoursService.TAILLE_PAGE_MAX))
+                .thenReturn(Optional.of(page));
+
+        assertSame(page, service.rechercherCoursPage("id", "ift", "false", null, " ift1025 ", 1000).orElseThrow());
+        assertTrue(service.rechercherCoursPage("credits", "3", "false", null, null, null).isEmpty());
+}
+
+@Test
+@DisplayName("parcourirCours() enchaîne les pages au fil de la lecture du flux")
+void testParcourirCoursEnchaineLesPages() throws Exception {
+        Cours premier = new Cours();
+        premier.setId("IFT1015");
+        Cours second = new Cours();
+        second.setId("IFT1025");
+        when(mockRepo.getCoursePageBy("name", "prog", "false", null, null, CoursService.TAILLE_PAGE_MAX))
+                .thenReturn(Optional.of(new KeysetPage<>(List.of(premier), "IFT1015")));
+        when(mockRepo.getCoursePageBy("name", "prog", "false", null, "IFT1015", CoursService.TAILLE_PAGE_MAX))
+                .thenReturn(Optional.of(new KeysetPage<>(List.of(second), null)));
+
+        List<String> ids = service.parcourirCours("name", "prog", "false", null).orElseThrow()
+                .map(Cours::getId)
+                .toList();
+
+        assertEquals(List.of("IFT1015", "IFT1025"), ids);
+        verify(mockRepo, times(2)).getCoursePageBy(anyString(), anyString(), anyString(), any(), any(), anyInt());
+}
+
+@Test
+@DisplayName("getCourseBySemester() répond depuis l'index des disponibilités du repository")
+void testGetCourseBySemesterUtiliseLIndex() throws Exception {
+        when(mockRepo.getCoursesAvailable("117510", "A25")).thenReturn(List.of("IFT2255"));
+
+        assertEquals(List.of("IFT2255"), service.getCourseBySemester("A25", "117510"));
+        verify(mockRepo, never()).fetchSchedules(anyString(), anyString());
+        verify(mockRepo, never()).getCoursesForAProgram(anyString());
+}
+
+@Test
+@DisplayName("getCourseBySemester() avec une plage horaire ne garde que les cours disponibles qui y tiennent")
+void testGetCourseBySemesterFiltreParPlageHoraire() throws Exception {
+        when(mockRepo.getCoursesAvailable("117510", "A25")).thenReturn(List.of("IFT1025", "IFT2255"));
+        when(mockRepo.getCoursesFittingWithin("A25", 2, 12 * 60, 18 * 60)).thenReturn(List.of("IFT2255", "MAT1400"));
+
+        assertEquals(List.of("IFT2255"), service.getCourseBySemester("A25", "117510", 2, 12 * 60, 18 * 60));
+}
+
+@Test
+@DisplayName("getProgramsForCourse() normalise le sigle et ignore une saisie vide")
+void testGetProgramsForCourse() throws Exception {
+        List<Map<String, String>> programmes = List.of(Map.of("id", "117510", "name", "Informatique"));
+        when(mockRepo.getProgramsForCourse("IFT2255")).thenReturn(programmes);
+
+        assertEquals(programmes, service.getProgramsForCourse(" ift2255 "));
+        assertTrue(service.getProgramsForCourse(" ").isEmpty());
+        verify(mockRepo, times(1)).getProgramsForCourse(anyString());
+}
+
+@Test
+@DisplayName("autocompleterCours() borne la limite et ignore une saisie vide")
+void testAutocompleterCours() throws Exception {
+        List<CourseAutocompleteIndex.Suggestion> suggestions =
+                List.of(new CourseAutocompleteIndex.Suggestion("IFT2255", "Génie logiciel"));
+        when(mockRepo.autocompleteCourses("ift2", CoursService.LIMITE_SUGGESTIONS_MAX)).thenReturn(suggestions);
+
+        assertEquals(suggestions, service.autocompleterCours("ift2", 1000));
+        assertTrue(service.autocompleterCours("  ", null).isEmpty());
+        verify(mockRepo, times(1)).autocompleteCourses(anyString(), anyInt());
+}
+
 private void injectAvisService(AvisService avisService) throws Exception {
         Field avisServiceField = CoursService.class.getDeclaredField("avisService");
         avisServiceField.setAccessible(true);
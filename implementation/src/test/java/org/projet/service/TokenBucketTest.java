@@ -0,0 +1,38 @@
+package org.projet.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TokenBucketTest {
+
+    @Test
+    @DisplayName("Le seau laisse passer une seconde de jetons puis espace les requêtes au débit configuré")
+    void spacesRequestsOnceBurstIsSpent() {
+        AtomicLong now = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(4, now::get);
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, bucket.reserve());
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(250), bucket.reserve());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), bucket.reserve());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertEquals(0, bucket.reserve());
+    }
+
+    @Test
+    @DisplayName("Un débit nul ne limite pas les requêtes")
+    void zeroRateIsUnlimited() {
+        TokenBucket bucket = new TokenBucket(0, () -> 0L);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(0, bucket.reserve());
+        }
+    }
+}